@@ -0,0 +1,59 @@
+package com.stonetolb.asset.graphics;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.opengl.GL11;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stonetolb.resource.ResourceContext;
+
+/**
+ * Cost of {@link TextureLoader#convertImageData(BufferedImage, Texture.Builder)}
+ * turning a character sheet into the pixel buffer handed to the graphics
+ * driver. The loader uses the headless context, so no display is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TextureLoaderBench {
+	private static final String SHEET = "sprites/Vaughn/world/Vaughn.png";
+
+	private TextureLoader loader;
+	private BufferedImage image;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		loader = TextureLoader.get(ResourceContext.headless());
+
+		// Same image type the loader draws resources into
+		BufferedImage source = ImageIO.read(getClass().getClassLoader().getResource(SHEET));
+		image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics g = image.getGraphics();
+		g.drawImage(source, 0, 0, null);
+		g.dispose();
+	}
+
+	@Benchmark
+	public ByteBuffer convertImageData() {
+		return loader.convertImageData(image, Texture.builder(GL11.GL_TEXTURE_2D, 1));
+	}
+}
@@ -0,0 +1,67 @@
+package com.stonetolb.engine.component.render;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stonetolb.engine.profiles.WorldProfile;
+import com.stonetolb.render.Drawable;
+import com.stonetolb.render.NullDrawable;
+
+/**
+ * Cost of {@link SpriteControl#getDrawable(int, float)} on a control set up
+ * like the player's: walking and standing in each of the four directions.
+ * Lookups cycle through every mapped movement plus one that is not mapped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpriteControlBench {
+	private SpriteControl control;
+	private int[] speeds;
+	private float[] directions;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		control = new SpriteControl().setNoOp(NullDrawable.getInstance());
+
+		WorldProfile.WorldDirection[] facings = WorldProfile.WorldDirection.values();
+		WorldProfile.Speed[] paces = {WorldProfile.Speed.WALK, WorldProfile.Speed.STOP};
+		speeds = new int[facings.length * paces.length + 1];
+		directions = new float[speeds.length];
+		int i = 0;
+		for (WorldProfile.Speed pace : paces) {
+			for (WorldProfile.WorldDirection facing : facings) {
+				control.addAction(NullDrawable.getInstance(), pace.getSpeed(), facing.getDirection());
+				speeds[i] = pace.getSpeed();
+				directions[i] = facing.getDirection();
+				i++;
+			}
+		}
+		// Falls through to the no-op
+		speeds[i] = -1;
+		directions[i] = 45F;
+		next = 0;
+	}
+
+	@Benchmark
+	public Drawable getDrawable() {
+		int i = next;
+		next = i + 1 == speeds.length ? 0 : i + 1;
+		return control.getDrawable(speeds[i], directions[i]);
+	}
+}
@@ -0,0 +1,109 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares broadphase strategies on two kinds of crowd: bodies spread evenly
+ * over the map, and bodies bunched into a few dense clusters (a market square,
+ * a town gate). Every frame each body takes a small random step, which is the
+ * frame to frame coherence sweep and prune relies on, and then the pairs are
+ * found.
+ * <p>
+ * Brute force grows with the square of the bodies, so it is best left out
+ * of larger runs, e.g. <code>-p strategy=SPATIAL_HASH,SWEEP_AND_PRUNE -p bodies=20000</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BroadphaseBench {
+	private static final int CLUSTERS = 6;
+	private static final int SPACING = 48;
+	private static final int BODY_SIZE = 16;
+	private static final int STEPS = 4096;
+
+	@Param({"500", "2000", "5000"})
+	public int bodies;
+
+	@Param({"spread", "clustered"})
+	public String crowd;
+
+	@Param({"BRUTE_FORCE", "SPATIAL_HASH", "SWEEP_AND_PRUNE"})
+	public String strategy;
+
+	private Broadphase broadphase;
+	private PairBuffer pairs;
+	private int[] x;
+	private int[] y;
+
+	/* Random steps, made up front so the benchmark does not time Random */
+	private int[] steps;
+	private int nextStep;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		broadphase = ResolverBackend.Strategy.valueOf(strategy).createBroadphase();
+		pairs = new PairBuffer();
+		x = new int[bodies];
+		y = new int[bodies];
+
+		Random random = new Random(2024L);
+		int side = (int)Math.sqrt((double)bodies) * SPACING;
+		int[] clusterX = new int[CLUSTERS];
+		int[] clusterY = new int[CLUSTERS];
+		for (int c = 0; c < CLUSTERS; c++) {
+			clusterX[c] = random.nextInt(side);
+			clusterY[c] = random.nextInt(side);
+		}
+
+		boolean clustered = "clustered".equals(crowd);
+		for (int i = 0; i < bodies; i++) {
+			if (clustered) {
+				int c = i % CLUSTERS;
+				double spread = side / 20D;
+				x[i] = clusterX[c] + (int)(random.nextGaussian() * spread);
+				y[i] = clusterY[c] + (int)(random.nextGaussian() * spread);
+			} else {
+				x[i] = random.nextInt(side);
+				y[i] = random.nextInt(side);
+			}
+			broadphase.add(i, false);
+			broadphase.update(i, x[i], y[i], x[i] + BODY_SIZE, y[i] + BODY_SIZE);
+		}
+
+		steps = new int[STEPS];
+		for (int i = 0; i < STEPS; i++) {
+			steps[i] = random.nextInt(5) - 2;
+		}
+		nextStep = 0;
+	}
+
+	@Benchmark
+	public int frame() {
+		for (int i = 0; i < bodies; i++) {
+			x[i] += steps[nextStep];
+			y[i] += steps[(nextStep + 1) & (STEPS - 1)];
+			nextStep = (nextStep + 2) & (STEPS - 1);
+			broadphase.update(i, x[i], y[i], x[i] + BODY_SIZE, y[i] + BODY_SIZE);
+		}
+		pairs.clear();
+		broadphase.findPairs(pairs);
+		return pairs.size();
+	}
+}
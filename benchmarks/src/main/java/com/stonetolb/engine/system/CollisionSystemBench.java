@@ -0,0 +1,119 @@
+package com.stonetolb.engine.system;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.physics.StaticBody;
+import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.physics.Box2DBackend;
+import com.stonetolb.engine.physics.PhysicsBackend;
+import com.stonetolb.engine.physics.ResolverBackend;
+
+/**
+ * Cost of one step of the {@link CollisionSystem}, with a
+ * {@link MovementSystem} in front of it, as the number of bodies grows.
+ * <p>
+ * Bodies are spread at a constant density, a quarter of them static props
+ * and the rest walking characters, which is roughly what an overworld map
+ * looks like.
+ * <p>
+ * The backend is either {@link #BOX2D}, or the name of the
+ * {@link ResolverBackend.Strategy} the resolver finds pairs with, so a map
+ * can pick the one that suits it.
+ * <p>
+ * This bench covers every backend up to 10000 bodies.
+ * {@link LargeCollisionSystemBench} carries on to 50000 bodies with the
+ * backends that scale, leaving out the brute force strategy, which would
+ * take too long to finish there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CollisionSystemBench {
+	private static final int SPACING = 48;
+	private static final float DELTA = 16F;
+	static final String BOX2D = "BOX2D";
+
+	@Param({"100", "1000", "10000"})
+	public int bodies;
+
+	@Param({"SPATIAL_HASH", "SWEEP_AND_PRUNE", "BRUTE_FORCE", BOX2D})
+	public String backend;
+
+	private World world;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		world = createWorld(bodies, backend);
+	}
+
+	@Benchmark
+	public void step() {
+		world.process();
+	}
+
+	/**
+	 * @param pBodies - Number of bodies.
+	 * @param pBackend - {@link #BOX2D}, or a resolver strategy name.
+	 * @return World with the bodies spread out over it, stepped once.
+	 */
+	static World createWorld(int pBodies, String pBackend) {
+		World world = new World();
+		world.setSystem(new MovementSystem());
+		world.setSystem(new CollisionSystem(createBackend(pBackend)));
+		world.initialize();
+
+		Random random = new Random(1234L);
+		int side = (int)Math.sqrt((double)pBodies) * SPACING;
+		for (int i = 0; i < pBodies; i++) {
+			int x = random.nextInt(side);
+			int y = random.nextInt(side);
+
+			Entity entity = world.createEntity();
+			entity.addComponent(new Position(x, y));
+			if (i % 4 == 0) {
+				entity.addComponent(new StaticBody(x, y, 40, 15, 20, 30));
+			} else {
+				entity.addComponent(new Velocity(random.nextBoolean() ? 75F : 0F));
+				entity.addComponent(new Rotation(random.nextInt(4) * 90F));
+				entity.addComponent(new DynamicBody(x, y, 16, 12, 16, 36));
+			}
+			entity.addToWorld();
+		}
+		world.setDelta(DELTA);
+		world.process();
+		return world;
+	}
+
+	/**
+	 * @param pName - {@link #BOX2D}, or a resolver strategy name.
+	 * @return New, empty backend.
+	 */
+	static PhysicsBackend createBackend(String pName) {
+		if (BOX2D.equals(pName)) {
+			return new Box2DBackend();
+		}
+		return new ResolverBackend(ResolverBackend.Strategy.valueOf(pName));
+	}
+}
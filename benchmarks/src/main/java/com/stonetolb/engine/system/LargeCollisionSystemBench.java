@@ -0,0 +1,52 @@
+package com.stonetolb.engine.system;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.artemis.World;
+
+/**
+ * {@link CollisionSystemBench} carried on to the largest maps, to show the
+ * cost staying close to linear and where Box2D and the resolver cross over.
+ * <p>
+ * Only the backends that scale are run. The brute force strategy is quadratic
+ * and would not finish in reasonable time at these sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LargeCollisionSystemBench {
+
+	@Param({"25000", "50000"})
+	public int bodies;
+
+	@Param({"SPATIAL_HASH", "SWEEP_AND_PRUNE", CollisionSystemBench.BOX2D})
+	public String backend;
+
+	private World world;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		world = CollisionSystemBench.createWorld(bodies, backend);
+	}
+
+	@Benchmark
+	public void step() {
+		world.process();
+	}
+}
@@ -0,0 +1,85 @@
+package com.stonetolb.engine.system;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+/**
+ * Cost of one step of the {@link MovementSystem} on its own, with every
+ * entity walking in one of the four directions, split across a given
+ * number of threads. One thread runs on the calling thread, without the
+ * hand-off to the pool, as the baseline the others scale from.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MovementSystemBench {
+	private static final float DELTA = 16F;
+
+	@Param({"1000", "10000", "100000"})
+	public int entities;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	private ForkJoinPool pool;
+	private World world;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		pool = new ForkJoinPool(threads);
+		MovementSystem movement = new MovementSystem();
+		movement.setPool(pool);
+		if (threads == 1) {
+			movement.setChunkSize(Integer.MAX_VALUE);
+		}
+
+		world = new World();
+		world.setSystem(movement);
+		world.initialize();
+
+		Random random = new Random(1234L);
+		for (int i = 0; i < entities; i++) {
+			Entity entity = world.createEntity();
+			entity.addComponent(new Position(random.nextInt(10000), random.nextInt(10000)));
+			entity.addComponent(new Velocity(75F));
+			entity.addComponent(new Rotation(random.nextInt(4) * 90F));
+			entity.addToWorld();
+		}
+		world.setDelta(DELTA);
+		world.process();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public void step() {
+		world.process();
+	}
+}
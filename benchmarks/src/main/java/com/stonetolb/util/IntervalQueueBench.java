@@ -0,0 +1,54 @@
+package com.stonetolb.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of looking up an {@link IntervalQueue}, the way an Animation finds
+ * its current frame, walking through the queue's whole length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IntervalQueueBench {
+	private static final int FRAME_LENGTH = 175;
+
+	@Param({"4", "64"})
+	public int frames;
+
+	private IntervalQueue<Integer> queue;
+	private int length;
+	private int time;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		IntervalQueue.Builder<Integer> builder = IntervalQueue.builder();
+		for (int i = 0; i < frames; i++) {
+			builder.append(i, FRAME_LENGTH);
+		}
+		queue = builder.build();
+		length = queue.getQueueLength();
+		time = 0;
+	}
+
+	@Benchmark
+	public Integer getDataAt() {
+		time = (time + 7) % length;
+		return queue.getDataAt(time);
+	}
+}
@@ -0,0 +1,59 @@
+package com.stonetolb.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link Vector2f} arithmetic, as done by the Camera's vantages
+ * every frame. Operands are read from fields so nothing is folded away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class Vector2fBench {
+	private Vector2f position;
+	private Vector2f target;
+	private Vector2f offset;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		position = Vector2f.from(120F, 48F);
+		target = Vector2f.from(400F, 300F);
+		offset = Vector2f.from(16F, 24F);
+	}
+
+	@Benchmark
+	public Vector2f add() {
+		return position.add(offset);
+	}
+
+	@Benchmark
+	public Vector2f sub() {
+		return target.sub(position);
+	}
+
+	@Benchmark
+	public Vector2f normalize() {
+		return target.normalize();
+	}
+
+	@Benchmark
+	public Vector2f followTarget() {
+		// Direction from the camera to its mounted target
+		return target.add(offset).sub(position).normalize();
+	}
+}
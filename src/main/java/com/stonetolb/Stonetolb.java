@@ -1,5 +1,7 @@
 package com.stonetolb;
 
+import java.io.File;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.HelpFormatter;
@@ -7,6 +9,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.PosixParser;
 
+import com.stonetolb.game.FixedTimestep;
 import com.stonetolb.game.Game;
 import com.stonetolb.game.GeneralGameException;
 
@@ -23,11 +26,17 @@ public class Stonetolb {
 	private static final char OPT_SCREEN_HEIGHT_CODE = 'y';
 	private static final char OPT_MODULE_CODE = 'm';
 	private static final char OPT_FULLSCREEN_CODE = 'f';
+	private static final char OPT_TICK_RATE_CODE = 'r';
+	private static final char OPT_PROFILE_CODE = 'p';
+	private static final char OPT_HEADLESS_CODE = 'H';
+	private static final char OPT_TICKS_CODE = 't';
+	private static final char OPT_RECORD_CODE = 'R';
+	private static final char OPT_REPLAY_CODE = 'P';
 	private static final char OPT_HELP_CODE = 'h';
 	
 	private static final String APP_NAME = "Stonetolb";
 	private static final String VERSION = "0.0.5";
-	private static final String USAGE = "stonetolb -m <module> [-xyhf]";
+	private static final String USAGE = "stonetolb -m <module> [-xyrptRPHhf]";
 	
 	/**
 	 * Main entry point.
@@ -52,6 +61,12 @@ public class Stonetolb {
 		int screenHeight = 600;
 		String module = null;
 		boolean fullscreen = false;
+		int tickRate = FixedTimestep.DEFAULT_TICK_RATE;
+		File profileFile = null;
+		boolean headless = false;
+		long tickLimit = 0;
+		File recordFile = null;
+		File replayFile = null;
 		
 		try {
 			if(cmd.hasOption(OPT_HELP_CODE)) {
@@ -77,6 +92,60 @@ public class Stonetolb {
 				}
 			}
 			
+			if(cmd.hasOption(OPT_TICK_RATE_CODE)) {
+				try {
+					tickRate = Integer.parseInt(cmd.getOptionValue(OPT_TICK_RATE_CODE));
+				} catch (NumberFormatException nfe) {
+					usage(nfe.getMessage(), options);
+					System.exit(1);
+				}
+				if (tickRate <= 0) {
+					usage("Tick rate must be positive!", options);
+					System.exit(1);
+				}
+			}
+			
+			if(cmd.hasOption(OPT_PROFILE_CODE)) {
+				profileFile = new File(cmd.getOptionValue(OPT_PROFILE_CODE));
+			}
+			
+			if(cmd.hasOption(OPT_HEADLESS_CODE)) {
+				headless = true;
+			}
+			
+			if(cmd.hasOption(OPT_TICKS_CODE)) {
+				try {
+					tickLimit = Long.parseLong(cmd.getOptionValue(OPT_TICKS_CODE));
+				} catch (NumberFormatException nfe) {
+					usage(nfe.getMessage(), options);
+					System.exit(1);
+				}
+				if (tickLimit <= 0) {
+					usage("Tick limit must be positive!", options);
+					System.exit(1);
+				}
+				if (!headless) {
+					usage("Tick limit only applies when headless!", options);
+					System.exit(1);
+				}
+			}
+			
+			if(cmd.hasOption(OPT_RECORD_CODE)) {
+				recordFile = new File(cmd.getOptionValue(OPT_RECORD_CODE));
+				if (headless) {
+					usage("Nothing to record when headless!", options);
+					System.exit(1);
+				}
+			}
+			
+			if(cmd.hasOption(OPT_REPLAY_CODE)) {
+				replayFile = new File(cmd.getOptionValue(OPT_REPLAY_CODE));
+				if (!replayFile.isFile()) {
+					usage("No recording found at : " + replayFile, options);
+					System.exit(1);
+				}
+			}
+			
 			if(cmd.hasOption(OPT_MODULE_CODE)) {
 				module = cmd.getOptionValue(OPT_MODULE_CODE);
 			} else {
@@ -93,12 +162,19 @@ public class Stonetolb {
 			throw iae;
 		}
 		
-		Game.createGame(APP_NAME + " " + VERSION
+		Game game = Game.createGame(APP_NAME + " " + VERSION
 				, screenWidth
 				, screenHeight
 				, module
 				, fullscreen
-				).execute();
+				, new FixedTimestep(tickRate, FixedTimestep.DEFAULT_MAX_TICKS_PER_FRAME)
+				);
+		game.setProfileFile(profileFile);
+		game.setHeadless(headless);
+		game.setTickLimit(tickLimit);
+		game.setRecordFile(recordFile);
+		game.setReplayFile(replayFile);
+		game.execute();
 		System.exit(0);
 	}
 	
@@ -132,6 +208,12 @@ public class Stonetolb {
 		options.addOption(new Option(OPT_SCREEN_HEIGHT_CODE+"", "screenHeight", true, "Sets the height of the screen in pixels"));
 		options.addOption(new Option(OPT_MODULE_CODE+"", "module", true, "Sets the module object to load on game execution"));
 		options.addOption(new Option(OPT_FULLSCREEN_CODE+"", "fullscreen", false, "Toggles fullscreen if capable"));
+		options.addOption(new Option(OPT_TICK_RATE_CODE+"", "tickRate", true, "Sets the simulation ticks per second"));
+		options.addOption(new Option(OPT_PROFILE_CODE+"", "profile", true, "Writes per system frame timings to the given CSV file on exit"));
+		options.addOption(new Option(OPT_HEADLESS_CODE+"", "headless", false, "Runs the simulation without a display, rendering or input"));
+		options.addOption(new Option(OPT_TICKS_CODE+"", "ticks", true, "When headless, runs this many ticks as fast as possible, then exits"));
+		options.addOption(new Option(OPT_RECORD_CODE+"", "record", true, "Records each frame's length and keys to the given file"));
+		options.addOption(new Option(OPT_REPLAY_CODE+"", "replay", true, "Plays back a recording in place of the keyboard and clock"));
 		options.addOption(new Option(OPT_HELP_CODE+"", "help", false, "Displays this help screen"));
 		
 		return options;
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
 import com.stonetolb.resource.ResourceContext;
 import org.lwjgl.BufferUtils;
@@ -180,6 +181,16 @@ public class TextureLoader {
         tb.setImageWidth(bufferedImage.getWidth());
         tb.setImageHeight(bufferedImage.getHeight());
 
+		// Set the texture's SystemContext reference to be the same as its parent loader
+		tb.setSystemContext(resourceContext.getSystemContext());
+
+		// Headless, only the dimensions matter, so skip converting and uploading the pixels
+		if (resourceContext.isHeadless()) {
+			tb.setTextureWidth(Math.max(get2Fold(bufferedImage.getWidth()), 2));
+			tb.setTextureHeight(Math.max(get2Fold(bufferedImage.getHeight()), 2));
+			return tb.build();
+		}
+
 		// Color mode of the image
         if (bufferedImage.getColorModel().hasAlpha()) {
         	// DEBUG: System.out.println("Get : Has Alpha!");
@@ -224,9 +235,6 @@ public class TextureLoader {
 								textureBuffer
 							   );
 
-		// Set the texture's SystemContext reference to be the same as its parent loader
-		tb.setSystemContext(resourceContext.getSystemContext());
-
         return tb.build();
     }
 
@@ -258,7 +266,8 @@ public class TextureLoader {
      * @param textureBuilder The texture builder to store the data into
      * @return A buffer containing the data
      */
-    private ByteBuffer convertImageData(BufferedImage bufferedImage,Texture.Builder textureBuilder) {
+    @VisibleForTesting
+    ByteBuffer convertImageData(BufferedImage bufferedImage,Texture.Builder textureBuilder) {
         ByteBuffer imageBuffer;
         WritableRaster raster;
         BufferedImage texImage;
@@ -0,0 +1,166 @@
+package com.stonetolb.engine.change;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.artemis.Component;
+import com.artemis.Entity;
+import com.artemis.Manager;
+import com.artemis.utils.Bag;
+
+/**
+ * Records which entities had which components changed, so systems can visit
+ * only those entities instead of every one they track.
+ * <p>
+ * Components that support it implement {@link Tracked}. When their entity is
+ * added to or changed in the World the log hands each of them the
+ * {@link Channel} for its type and the entity's id, and from then on their
+ * setters mark the entity on that channel whenever a value really changes.
+ * A channel passes the mark on to every {@link DirtySet} watching its type.
+ * <p>
+ * The log is a Manager, and must be set on the World with
+ * {@link com.artemis.World#setManager(Manager)} before it is initialized.
+ * Without it, systems that watch for changes simply visit every entity.
+ */
+public class ChangeLog extends Manager {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Map<Class<? extends Component>, Channel> channels;
+	private final Bag<DirtySet> sets;
+	private final Bag<Component> components;
+	private int capacity;
+
+	/**
+	 * A component whose changes can be recorded.
+	 */
+	public interface Tracked {
+
+		/**
+		 * Starts marking the given entity on the channel whenever the component changes.
+		 * @param pChannel - Channel for the component's type.
+		 * @param pId - Id of the entity the component is on.
+		 */
+		public void track(Channel pChannel, int pId);
+	}
+
+	/**
+	 * Changes to one component type.
+	 */
+	public static class Channel {
+		private DirtySet[] watchers = new DirtySet[0];
+
+		/**
+		 * Records that an entity's component of this type changed.
+		 * @param pId - Entity id.
+		 */
+		public void mark(int pId) {
+			DirtySet[] current = watchers;
+			for (int i = 0; i < current.length; i++) {
+				current[i].mark(pId);
+			}
+		}
+
+		/**
+		 * Records that a run of entities' components of this type changed.
+		 * @param pIds - Entity ids.
+		 * @param pStart - Index of the first id.
+		 * @param pEnd - Index after the last id.
+		 */
+		public void markAll(int[] pIds, int pStart, int pEnd) {
+			DirtySet[] current = watchers;
+			for (int i = 0; i < current.length; i++) {
+				current[i].markAll(pIds, pStart, pEnd);
+			}
+		}
+
+		private void add(DirtySet pSet) {
+			DirtySet[] grown = Arrays.copyOf(watchers, watchers.length + 1);
+			grown[watchers.length] = pSet;
+			watchers = grown;
+		}
+	}
+
+	/**
+	 * Creates an empty log.
+	 */
+	public ChangeLog() {
+		channels = new HashMap<Class<? extends Component>, Channel>();
+		sets = new Bag<DirtySet>();
+		components = new Bag<Component>();
+		capacity = INITIAL_CAPACITY;
+	}
+
+	@Override
+	protected void initialize() {
+		// Nothing to set up
+	}
+
+	/**
+	 * Creates a set that collects every entity whose components of the given
+	 * types change.
+	 * @param pTypes - Component types to watch.
+	 * @return New set, owned by the caller.
+	 */
+	@SafeVarargs
+	public final DirtySet watch(Class<? extends Component>... pTypes) {
+		DirtySet set = new DirtySet(capacity);
+		sets.add(set);
+		for (int i = 0; i < pTypes.length; i++) {
+			getChannel(pTypes[i]).add(set);
+		}
+		return set;
+	}
+
+	/**
+	 * @param pType - Component type.
+	 * @return Channel for changes to that type.
+	 */
+	public Channel getChannel(Class<? extends Component> pType) {
+		Channel channel = channels.get(pType);
+		if (channel == null) {
+			channel = new Channel();
+			channels.put(pType, channel);
+		}
+		return channel;
+	}
+
+	@Override
+	public void added(Entity pEntity) {
+		track(pEntity);
+	}
+
+	@Override
+	public void changed(Entity pEntity) {
+		track(pEntity);
+	}
+
+	@Override
+	public void enabled(Entity pEntity) {
+		track(pEntity);
+	}
+
+	/**
+	 * Hands each tracked component of an entity its channel. Runs while the
+	 * World is processing changes, when no system is marking, so this is also
+	 * where every set grows to fit the entity.
+	 */
+	private void track(Entity pEntity) {
+		int id = pEntity.getId();
+		if (id >= capacity) {
+			capacity = Math.max(id + 1, capacity * 2);
+			for (int i = 0, s = sets.size(); i < s; i++) {
+				sets.get(i).ensureCapacity(capacity);
+			}
+		}
+
+		pEntity.getComponents(components);
+		for (int i = 0, s = components.size(); i < s; i++) {
+			Component component = components.get(i);
+			if (component instanceof Tracked) {
+				((Tracked)component).track(getChannel(component.getClass()), id);
+			}
+		}
+		components.clear();
+	}
+}
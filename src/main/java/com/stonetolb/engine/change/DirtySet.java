@@ -0,0 +1,182 @@
+package com.stonetolb.engine.change;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of entity ids whose watched components changed since the set was last
+ * cleared, one bit per id.
+ * <p>
+ * Marking is safe from any number of threads at once, so components changed
+ * inside a parallel system can still be marked. Reading and clearing are not,
+ * and are left to the one system that owns the set, which the scheduler never
+ * runs alongside a writer of what it watches.
+ * <p>
+ * The set grows itself when an id past its end is marked, which may happen
+ * on any marking thread. A grown array is published before the old bits are
+ * copied into it, and a marker that set its bit in an array that has since
+ * been replaced sets it again in the new one, so no mark is lost.
+ */
+public class DirtySet {
+	private volatile AtomicLongArray words;
+
+	/**
+	 * Creates an empty set.
+	 * @param pCapacity - Number of ids to reserve space for.
+	 */
+	public DirtySet(int pCapacity) {
+		words = new AtomicLongArray(Math.max((pCapacity + 63) >>> 6, 1));
+	}
+
+	/**
+	 * Adds an id to the set.
+	 * @param pId - Entity id.
+	 */
+	public void mark(int pId) {
+		int index = pId >>> 6;
+		long bit = 1L << pId;
+		AtomicLongArray current = words;
+		if (index >= current.length()) {
+			ensureCapacity(pId + 1);
+			current = words;
+		}
+
+		while (true) {
+			setBit(current, index, bit);
+			AtomicLongArray latest = words;
+			if (latest == current) {
+				return;
+			}
+			// Grown meanwhile, the copy may have missed this bit
+			current = latest;
+		}
+	}
+
+	/**
+	 * Adds a run of ids to the set. Neighbouring ids that share a word are
+	 * set together, so marking a packed batch costs about one atomic
+	 * operation per 64 ids rather than one per id.
+	 * @param pIds - Entity ids.
+	 * @param pStart - Index of the first id to add.
+	 * @param pEnd - Index after the last id to add.
+	 */
+	public void markAll(int[] pIds, int pStart, int pEnd) {
+		if (pStart >= pEnd) {
+			return;
+		}
+		int highest = 0;
+		for (int i = pStart; i < pEnd; i++) {
+			highest = Math.max(highest, pIds[i]);
+		}
+		AtomicLongArray current = words;
+		if ((highest >>> 6) >= current.length()) {
+			ensureCapacity(highest + 1);
+			current = words;
+		}
+
+		while (true) {
+			int index = pIds[pStart] >>> 6;
+			long bits = 0L;
+			for (int i = pStart; i < pEnd; i++) {
+				int id = pIds[i];
+				if ((id >>> 6) != index) {
+					setBit(current, index, bits);
+					index = id >>> 6;
+					bits = 0L;
+				}
+				bits |= 1L << id;
+			}
+			setBit(current, index, bits);
+
+			AtomicLongArray latest = words;
+			if (latest == current) {
+				return;
+			}
+			// Grown meanwhile, the copy may have missed some of these bits
+			current = latest;
+		}
+	}
+
+	/**
+	 * Sets bits in one word of the given array.
+	 * @param pWords - Array to set in.
+	 * @param pIndex - Word to set in.
+	 * @param pBits - Bits to set.
+	 */
+	private static void setBit(AtomicLongArray pWords, int pIndex, long pBits) {
+		long word;
+		do {
+			word = pWords.get(pIndex);
+			if ((word | pBits) == word) {
+				return;
+			}
+		} while (!pWords.compareAndSet(pIndex, word, word | pBits));
+	}
+
+	/**
+	 * @param pId - Entity id.
+	 * @return True if the id is in the set.
+	 */
+	public boolean isMarked(int pId) {
+		int index = pId >>> 6;
+		return index < words.length() && (words.get(index) & (1L << pId)) != 0L;
+	}
+
+	/**
+	 * @param pFrom - Id to start looking at.
+	 * @return Lowest id in the set at or after the given one, or -1 if none.
+	 */
+	public int nextMarked(int pFrom) {
+		AtomicLongArray current = words;
+		int index = pFrom >>> 6;
+		if (index >= current.length()) {
+			return -1;
+		}
+
+		long word = current.get(index) & (~0L << pFrom);
+		while (true) {
+			if (word != 0L) {
+				return (index << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++index == current.length()) {
+				return -1;
+			}
+			word = current.get(index);
+		}
+	}
+
+	/**
+	 * Empties the set.
+	 */
+	public void clear() {
+		AtomicLongArray current = words;
+		for (int i = 0, s = current.length(); i < s; i++) {
+			if (current.get(i) != 0L) {
+				current.set(i, 0L);
+			}
+		}
+	}
+
+	/**
+	 * Grows the set to hold at least the given number of ids. Safe to call
+	 * while other threads are marking.
+	 * @param pCapacity - Required number of ids.
+	 */
+	public synchronized void ensureCapacity(int pCapacity) {
+		int length = (pCapacity + 63) >>> 6;
+		AtomicLongArray current = words;
+		if (length <= current.length()) {
+			return;
+		}
+
+		// Publish first, so a mark landing in the old array after its word is
+		// copied sees the new array and marks again there
+		AtomicLongArray grown = new AtomicLongArray(Math.max(length, current.length() * 2));
+		words = grown;
+		for (int i = 0, s = current.length(); i < s; i++) {
+			long word = current.get(i);
+			if (word != 0L) {
+				setBit(grown, i, word);
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.stonetolb.engine.component.control;
+
+import com.artemis.Component;
+
+/**
+ * Component used to note that an Entity walks around on its own, picking a
+ * new direction, or stopping, every so often.
+ * <p>
+ * Each wanderer keeps its own random number state, so wanderers can be
+ * processed in any order, on any thread, and still make the same choices
+ * for the same seed.
+ */
+public class Wander extends Component {
+	private long state;
+	private float remaining;
+
+	/**
+	 * @param pSeed - Seed for the wanderer's choices.
+	 */
+	public Wander(long pSeed) {
+		// xorshift never leaves 0, so steer clear of it
+		state = pSeed == 0L ? 0x9E3779B97F4A7C15L : pSeed;
+		remaining = 0F;
+	}
+
+	/**
+	 * @param pBound - Exclusive upper bound.
+	 * @return Next random number from 0 up to the bound.
+	 */
+	public int nextInt(int pBound) {
+		state ^= state << 13;
+		state ^= state >>> 7;
+		state ^= state << 17;
+		return (int)((state >>> 33) % pBound);
+	}
+
+	/**
+	 * @return Milliseconds until the next choice.
+	 */
+	public float getRemaining() {
+		return remaining;
+	}
+
+	/**
+	 * @param pRemaining - Milliseconds until the next choice.
+	 */
+	public void setRemaining(float pRemaining) {
+		remaining = pRemaining;
+	}
+}
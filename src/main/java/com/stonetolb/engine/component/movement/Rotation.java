@@ -1,27 +1,75 @@
 package com.stonetolb.engine.component.movement;
 
 import com.artemis.Component;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.motion.MotionStore;
 
 /**
  * Component that represents a rotational orientation of an
  * entity. Rotation values are angle values increasing clockwise 
  * with zero degrees pointed towards the right of the screen.
+ * <p>
+ * While its entity is moved by a MovementSystem the rotation lives in a
+ * {@link MotionStore}, which also keeps its unit vector, and the component
+ * reads and writes through to it. Changes are recorded in a
+ * {@link ChangeLog} if the World has one.
  * 
  * @author james.baiera
  * 
  */
-public class Rotation extends Component {
+public class Rotation extends Component implements ChangeLog.Tracked {
 	private double rotation;
+	private MotionStore store;
+	private int slot;
+	private ChangeLog.Channel channel;
+	private int id;
 	
 	public Rotation(float pRotation) {
 		rotation = pRotation;
 	}
 	
 	public double getRotation() {
-		return rotation;
+		return store == null ? rotation : store.rotation[slot];
 	}
 	
 	public void setRotation(double pRotation) {
-		rotation = pRotation;
+		if (pRotation == getRotation()) {
+			return;
+		}
+		if (store == null) {
+			rotation = pRotation;
+		} else {
+			store.setRotation(slot, pRotation);
+		}
+		if (channel != null) {
+			channel.mark(id);
+		}
+	}
+	
+	@Override
+	public void track(ChangeLog.Channel pChannel, int pId) {
+		channel = pChannel;
+		id = pId;
+	}
+	
+	/**
+	 * Moves the rotation into a slot of the given store.
+	 * @param pStore - Store to bind to.
+	 * @param pSlot - Slot to occupy.
+	 */
+	public void bind(MotionStore pStore, int pSlot) {
+		pStore.setRotation(pSlot, getRotation());
+		store = pStore;
+		slot = pSlot;
+	}
+	
+	/**
+	 * Takes the rotation back out of its store.
+	 */
+	public void unbind() {
+		if (store != null) {
+			rotation = store.rotation[slot];
+			store = null;
+		}
 	}
 }
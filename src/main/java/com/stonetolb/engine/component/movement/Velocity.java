@@ -1,27 +1,74 @@
 package com.stonetolb.engine.component.movement;
 
 import com.artemis.Component;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.motion.MotionStore;
 
 /**
  * Component that represents a speed that an Entity may posses.
  * Despite the name Velocity, no orientation is stored. See
  * {@link Rotation}
+ * <p>
+ * While its entity is moved by a MovementSystem the speed lives in a
+ * {@link MotionStore}, and the component reads and writes through to it.
+ * Changes are recorded in a {@link ChangeLog} if the World has one.
  * 
  * @author james.baiera
  *
  */
-public class Velocity extends Component {
+public class Velocity extends Component implements ChangeLog.Tracked {
 	private float velocity;
+	private MotionStore store;
+	private int slot;
+	private ChangeLog.Channel channel;
+	private int id;
 	
 	public Velocity(float pVelocity) {
 		velocity = pVelocity;
 	}
 	
 	public float getVelocity() {
-		return velocity;
+		return store == null ? velocity : store.speed[slot];
 	}
 	
 	public void setVelocity(float pVelocity) {
-		velocity = pVelocity;
+		if (pVelocity == getVelocity()) {
+			return;
+		}
+		if (store == null) {
+			velocity = pVelocity;
+		} else {
+			store.speed[slot] = pVelocity;
+		}
+		if (channel != null) {
+			channel.mark(id);
+		}
+	}
+	
+	@Override
+	public void track(ChangeLog.Channel pChannel, int pId) {
+		channel = pChannel;
+		id = pId;
+	}
+	
+	/**
+	 * Moves the speed into a slot of the given store.
+	 * @param pStore - Store to bind to.
+	 * @param pSlot - Slot to occupy.
+	 */
+	public void bind(MotionStore pStore, int pSlot) {
+		pStore.speed[pSlot] = getVelocity();
+		store = pStore;
+		slot = pSlot;
+	}
+	
+	/**
+	 * Takes the speed back out of its store.
+	 */
+	public void unbind() {
+		if (store != null) {
+			velocity = store.speed[slot];
+			store = null;
+		}
 	}
 }
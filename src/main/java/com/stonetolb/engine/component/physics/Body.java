@@ -1,26 +1,221 @@
 package com.stonetolb.engine.component.physics;
 
 import com.artemis.Component;
+import com.google.common.base.Preconditions;
+import com.stonetolb.engine.physics.ColliderStore;
 import com.stonetolb.util.AxisAlignedBoundingBox;
 import com.stonetolb.util.Vector2f;
 
+/**
+ * Physical extents of an entity.
+ * <p>
+ * A Body keeps its own center until it is bound to a slot in a
+ * {@link ColliderStore}, after which it reads and writes through to the store.
+ * The CollisionSystem binds every body it tracks, and works on the store
+ * directly.
+ * <p>
+ * Two bodies only collide if each one's category shares a bit with the
+ * other's mask. By default a body is in {@link #DEFAULT_CATEGORY} and
+ * collides with everything; props that should never touch each other can be
+ * given a category left out of their own mask.
+ * <p>
+ * A sensor body is never pushed and never pushes anything, but its contacts
+ * are still reported, which makes it a trigger zone or a pickup.
+ */
 public abstract class Body extends Component {
-	protected AxisAlignedBoundingBox aabb;
+	public static final int DEFAULT_CATEGORY = 1;
+	public static final int ALL_CATEGORIES = ~0;
+	
+	/* Center, only used while unbound */
+	private int x;
+	private int y;
+	
+	private final int width;
+	private final int height;
+	
 	protected Vector2f offset;
+	private final int xOffset;
+	private final int yOffset;
 	
-	public AxisAlignedBoundingBox getAABB() {
-		return aabb;
-	}
+	private int category = DEFAULT_CATEGORY;
+	private int mask = ALL_CATEGORIES;
+	private boolean sensor = false;
+	
+	private ColliderStore store;
+	private int slot;
 	
 	public Body(AxisAlignedBoundingBox pAABB, int pXOffset, int pYOffset) {
-		aabb = pAABB.transform(pXOffset, pYOffset); //Offset the bounding box.
+		x = pAABB.getX() + pXOffset; //Offset the bounding box.
+		y = pAABB.getY() + pYOffset;
+		width = pAABB.getWidth();
+		height = pAABB.getHeight();
+		xOffset = pXOffset;
+		yOffset = pYOffset;
 		offset = Vector2f.from(pXOffset, pYOffset);
 	}
 	
+	/**
+	 * Snapshot of the body's current bounds. Allocates; prefer {@link #getX()},
+	 * {@link #getY()} and the half extents on hot paths.
+	 * @return New {@link AxisAlignedBoundingBox} at the body's position.
+	 */
+	public AxisAlignedBoundingBox getAABB() {
+		return new AxisAlignedBoundingBox(getX(), getY(), width, height);
+	}
+	
+	/**
+	 * @return Center X.
+	 */
+	public int getX() {
+		return store == null ? x : store.x[slot];
+	}
+	
+	/**
+	 * @return Center Y.
+	 */
+	public int getY() {
+		return store == null ? y : store.y[slot];
+	}
+	
+	/**
+	 * @return Distance from the center to the lateral sides.
+	 */
+	public int getHalfWidth() {
+		return width/2;
+	}
+	
+	/**
+	 * @return Distance from the center to the dorsal sides.
+	 */
+	public int getHalfHeight() {
+		return height/2;
+	}
+	
 	public Vector2f getOffset() {
 		return offset;
 	}
 	
+	/**
+	 * @return Horizontal offset of the center from the entity's position.
+	 */
+	public int getXOffset() {
+		return xOffset;
+	}
+	
+	/**
+	 * @return Vertical offset of the center from the entity's position.
+	 */
+	public int getYOffset() {
+		return yOffset;
+	}
+	
+	/**
+	 * @return Bits naming the groups this body belongs to.
+	 */
+	public int getCategory() {
+		return category;
+	}
+	
+	/**
+	 * @return Bits naming the groups this body can collide with.
+	 */
+	public int getMask() {
+		return mask;
+	}
+	
+	/**
+	 * Sets which bodies this body collides with. The filter is read when the
+	 * body is added to a collision system, so it cannot change while bound.
+	 * @param pCategory - Bits naming the groups this body belongs to.
+	 * @param pMask - Bits naming the groups this body can collide with.
+	 * @return this Body for command chaining
+	 */
+	public Body setFilter(int pCategory, int pMask) {
+		Preconditions.checkState(store == null, "Cannot change the filter of a body in a collision system");
+		category = pCategory;
+		mask = pMask;
+		return this;
+	}
+	
+	/**
+	 * @return True if this body only reports contacts.
+	 */
+	public boolean isSensor() {
+		return sensor;
+	}
+	
+	/**
+	 * Makes this body a sensor, or solid again. Like the filter, this is read
+	 * when the body is added to a collision system and cannot change while bound.
+	 * @param pSensor - True if this body should only report contacts.
+	 * @return this Body for command chaining
+	 */
+	public Body setSensor(boolean pSensor) {
+		Preconditions.checkState(store == null, "Cannot change a body in a collision system into or out of a sensor");
+		sensor = pSensor;
+		return this;
+	}
+	
+	/**
+	 * @return True if collisions never move this body.
+	 */
+	public boolean isFixed() {
+		return false;
+	}
+	
+	/**
+	 * Moves the body so its entity is at the given position. Used to place
+	 * a recycled body, so it cannot be done while bound.
+	 * @param pX - Entity X.
+	 * @param pY - Entity Y.
+	 * @return this Body for command chaining
+	 */
+	public Body reset(int pX, int pY) {
+		Preconditions.checkState(store == null, "Cannot place a body in a collision system");
+		x = pX + xOffset;
+		y = pY + yOffset;
+		return this;
+	}
+	
+	/**
+	 * Moves the body's storage into a slot of the given store.
+	 * @param pStore - Store to bind to.
+	 * @param pSlot - Slot to occupy.
+	 */
+	public void bind(ColliderStore pStore, int pSlot) {
+		pStore.set(pSlot, getX(), getY(), getHalfWidth(), getHalfHeight(), xOffset, yOffset, getMass(), isFixed());
+		pStore.setFilter(pSlot, category, mask);
+		pStore.setSensor(pSlot, sensor);
+		store = pStore;
+		slot = pSlot;
+	}
+	
+	/**
+	 * Takes the body's storage back out of its store.
+	 */
+	public void unbind() {
+		if (store != null) {
+			x = store.x[slot];
+			y = store.y[slot];
+			store = null;
+		}
+	}
+	
+	/**
+	 * Moves the body's center.
+	 * @param pX - Distance to move horizontally.
+	 * @param pY - Distance to move vertically.
+	 */
+	protected void translate(int pX, int pY) {
+		if (store == null) {
+			x += pX;
+			y += pY;
+		} else {
+			store.x[slot] += pX;
+			store.y[slot] += pY;
+		}
+	}
+	
 	public abstract int getMass();
 	
 	public abstract Vector2f transform(Vector2f change);
@@ -20,7 +20,7 @@ public class KinematicBody extends Body {
 
 	@Override
 	public Vector2f transform(Vector2f change) {
-		aabb = aabb.transform((int)change.getX(), (int)change.getY()); 
-		return aabb.getPosition();
+		translate((int)change.getX(), (int)change.getY());
+		return Vector2f.from(getX(), getY());
 	}
 }
@@ -9,12 +9,17 @@ public class StaticBody extends Body {
 	
 	public StaticBody(int pX, int pY, int pW, int pH, int pXOff, int pYOff) {
 		super(new AxisAlignedBoundingBox(pX, pY, pW, pH), pXOff, pYOff);
-		position = aabb.getPosition();
+		position = Vector2f.from(getX(), getY());
 	}
 	
 	public StaticBody(AxisAlignedBoundingBox pAABB, int pXOff, int pYOff) {
 		super(pAABB, pXOff, pYOff);
-		position = aabb.getPosition();
+		position = Vector2f.from(getX(), getY());
+	}
+	
+	@Override
+	public boolean isFixed() {
+		return true;
 	}
 	
 	@Override
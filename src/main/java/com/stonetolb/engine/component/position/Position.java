@@ -1,45 +1,160 @@
 package com.stonetolb.engine.component.position;
 
 import com.artemis.Component;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.motion.MotionStore;
 
 /**
  * Component used to represent an Entity's location in space.
+ * <p>
+ * A Position also remembers where it was at the start of the current
+ * simulation tick, so that rendering can draw it part way between ticks.
+ * <p>
+ * While its entity is moved by a MovementSystem the current location lives
+ * in a {@link MotionStore}, and the component reads and writes through to it.
+ * Changes are recorded in a {@link ChangeLog} if the World has one.
  * 
  * @author james.baiera
  *
  */
-public class Position extends Component{
+public class Position extends Component implements ChangeLog.Tracked {
 	private int xpos;
 	private int ypos;
+	private int previousX;
+	private int previousY;
+	private MotionStore store;
+	private int slot;
+	private ChangeLog.Channel channel;
+	private int id;
 	
 	public Position(int pXpos, int pYpos) {
 		xpos = pXpos;
 		ypos = pYpos;
+		previousX = pXpos;
+		previousY = pYpos;
 	}
 	
 	public int getX() {
-		return xpos;
+		return store == null ? xpos : store.x[slot];
 	}
 	
 	public void setX(int pNew) {
-		xpos = pNew;
+		if (pNew == getX()) {
+			return;
+		}
+		if (store == null) {
+			xpos = pNew;
+		} else {
+			store.x[slot] = pNew;
+		}
+		markChanged();
 	}
 	
 	public int getY() {
-		return ypos;
+		return store == null ? ypos : store.y[slot];
 	}
 	
 	public void setY(int pNew) {
-		ypos = pNew;
+		if (pNew == getY()) {
+			return;
+		}
+		if (store == null) {
+			ypos = pNew;
+		} else {
+			store.y[slot] = pNew;
+		}
+		markChanged();
 	}
 	
 	public void setPosition(Position other) {
-		xpos = other.xpos;
-		ypos = other.ypos;
+		setPosition(other.getX(), other.getY());
 	}
 	
 	public void setPosition(int x, int y) {
-		xpos = x;
-		ypos = y;
+		setX(x);
+		setY(y);
+	}
+	
+	/**
+	 * Places the entity somewhere new, with no movement since last tick, so
+	 * a recycled entity is not drawn sliding in from where it last was.
+	 * @param pX - New X.
+	 * @param pY - New Y.
+	 */
+	public void reset(int pX, int pY) {
+		setPosition(pX, pY);
+		previousX = pX;
+		previousY = pY;
+	}
+	
+	/**
+	 * Remembers the current location as where the entity was last tick.
+	 */
+	public void storePrevious() {
+		previousX = getX();
+		previousY = getY();
+	}
+	
+	public int getPreviousX() {
+		return previousX;
+	}
+	
+	public int getPreviousY() {
+		return previousY;
+	}
+	
+	/**
+	 * @param pAlpha - How far from the last tick to this one, from 0 to 1.
+	 * @return X blended between the last tick and this one.
+	 */
+	public int getInterpolatedX(float pAlpha) {
+		return previousX + Math.round((getX() - previousX) * pAlpha);
+	}
+	
+	/**
+	 * @param pAlpha - How far from the last tick to this one, from 0 to 1.
+	 * @return Y blended between the last tick and this one.
+	 */
+	public int getInterpolatedY(float pAlpha) {
+		return previousY + Math.round((getY() - previousY) * pAlpha);
+	}
+	
+	/**
+	 * Records that the location changed, for code that moves the entity
+	 * through its {@link MotionStore} rather than the setters.
+	 */
+	public void markChanged() {
+		if (channel != null) {
+			channel.mark(id);
+		}
+	}
+	
+	@Override
+	public void track(ChangeLog.Channel pChannel, int pId) {
+		channel = pChannel;
+		id = pId;
+	}
+	
+	/**
+	 * Moves the current location into a slot of the given store.
+	 * @param pStore - Store to bind to.
+	 * @param pSlot - Slot to occupy.
+	 */
+	public void bind(MotionStore pStore, int pSlot) {
+		pStore.x[pSlot] = getX();
+		pStore.y[pSlot] = getY();
+		store = pStore;
+		slot = pSlot;
+	}
+	
+	/**
+	 * Takes the current location back out of its store.
+	 */
+	public void unbind() {
+		if (store != null) {
+			xpos = store.x[slot];
+			ypos = store.y[slot];
+			store = null;
+		}
 	}
 }
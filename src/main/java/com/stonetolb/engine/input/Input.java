@@ -0,0 +1,45 @@
+package com.stonetolb.engine.input;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Holds the {@link InputSource} that systems read input from. Until the game
+ * sets one, no key is ever down, as when running headless.
+ */
+public final class Input {
+	private static final InputSource NONE = new InputSource() {
+		@Override
+		public boolean isKeyDown(int pKey) {
+			return false;
+		}
+	};
+
+	private static volatile InputSource ACTIVE = NONE;
+
+	/**
+	 * @return The active input source.
+	 */
+	public static InputSource get() {
+		return ACTIVE;
+	}
+
+	/**
+	 * Makes the given source the one returned by {@link #get()}.
+	 *
+	 * @param pSource - Source to read input from.
+	 */
+	public static void setActive(InputSource pSource) {
+		Preconditions.checkNotNull(pSource, "Input source cannot be null");
+		ACTIVE = pSource;
+	}
+
+	/**
+	 * Goes back to no key ever being down.
+	 */
+	public static void reset() {
+		ACTIVE = NONE;
+	}
+
+	private Input() {
+	}
+}
@@ -0,0 +1,142 @@
+package com.stonetolb.engine.input;
+
+import java.util.Arrays;
+
+import org.lwjgl.input.Keyboard;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The input of one frame: how long the frame took, and which keys were down
+ * at its start. Captured once per frame, so every tick of the frame sees the
+ * same keys however long it runs, and so a frame can be recorded and played
+ * back exactly.
+ * <p>
+ * Keys are held as a bitset, along with when each last went down or up.
+ * Polling drains the keyboard's event queue instead of asking after every
+ * key, so reading input costs the same however many keys or controlled
+ * Entities there are, and a key pressed and released within one frame is
+ * still stamped.
+ * <p>
+ * Only the display thread changes a frame, and only while no tick is
+ * running.
+ */
+public class InputFrame implements InputSource {
+	/**
+	 * Number of key codes a frame can hold.
+	 */
+	public static final int KEY_COUNT = Keyboard.KEYBOARD_SIZE;
+
+	private final long[] keys;
+	private final long[] changedNanos;
+	private long elapsedNanos;
+
+	/**
+	 * Creates an empty frame, no time passed and no key down.
+	 */
+	public InputFrame() {
+		keys = new long[(KEY_COUNT + 63) / 64];
+		changedNanos = new long[KEY_COUNT];
+		elapsedNanos = 0L;
+	}
+
+	/**
+	 * Fills the frame in from the keyboard's queued events. Without a
+	 * keyboard no key is down.
+	 *
+	 * @param pElapsedNanos - Time since the last frame.
+	 */
+	public void poll(long pElapsedNanos) {
+		elapsedNanos = pElapsedNanos;
+		if (!Keyboard.isCreated()) {
+			Arrays.fill(keys, 0L);
+			return;
+		}
+		while (Keyboard.next()) {
+			int key = Keyboard.getEventKey();
+			if (key > Keyboard.KEY_NONE && key < KEY_COUNT) {
+				setKeyDown(key, Keyboard.getEventKeyState(), Keyboard.getEventNanoseconds());
+			}
+		}
+	}
+
+	/**
+	 * Empties the frame, no time passed and no key down.
+	 */
+	public void clear() {
+		elapsedNanos = 0L;
+		Arrays.fill(keys, 0L);
+		Arrays.fill(changedNanos, 0L);
+	}
+
+	/**
+	 * {@inheritDoc InputSource}
+	 */
+	@Override
+	public boolean isKeyDown(int pKey) {
+		return pKey >= 0 && pKey < KEY_COUNT && (keys[pKey >>> 6] & (1L << pKey)) != 0L;
+	}
+
+	/**
+	 * Sets whether a key is down. The time is only kept if the key changed.
+	 *
+	 * @param pKey - Key code.
+	 * @param pDown - True if the key is held down.
+	 * @param pNanos - When the key went down or up.
+	 */
+	public void setKeyDown(int pKey, boolean pDown, long pNanos) {
+		Preconditions.checkElementIndex(pKey, KEY_COUNT, "Key code");
+		if (isKeyDown(pKey) == pDown) {
+			return;
+		}
+		keys[pKey >>> 6] ^= 1L << pKey;
+		changedNanos[pKey] = pNanos;
+	}
+
+	/**
+	 * Finds the next key down, for going through every key down without
+	 * asking after every key.
+	 *
+	 * @param pFrom - Key code to start looking from.
+	 * @return Code of the first key down from the given one on, or -1 if none.
+	 */
+	public int nextKeyDown(int pFrom) {
+		if (pFrom < 0 || pFrom >= KEY_COUNT) {
+			return -1;
+		}
+		int word = pFrom >>> 6;
+		long bits = keys[word] & (-1L << pFrom);
+		while (bits == 0L) {
+			if (++word == keys.length) {
+				return -1;
+			}
+			bits = keys[word];
+		}
+		return word * 64 + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * @param pKey - Key code.
+	 * @return When the key last went down or up: keyboard event time when
+	 * polled, time into the recording when played back, 0 if never.
+	 */
+	public long getChangedNanos(int pKey) {
+		Preconditions.checkElementIndex(pKey, KEY_COUNT, "Key code");
+		return changedNanos[pKey];
+	}
+
+	/**
+	 * @return Time since the last frame, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @param pElapsedNanos - Time since the last frame, in nanoseconds.
+	 */
+	public void setElapsedNanos(long pElapsedNanos) {
+		Preconditions.checkArgument(pElapsedNanos >= 0, "Elapsed time cannot be negative : " + pElapsedNanos);
+		elapsedNanos = pElapsedNanos;
+	}
+}
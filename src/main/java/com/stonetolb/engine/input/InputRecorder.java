@@ -0,0 +1,98 @@
+package com.stonetolb.engine.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes every frame's {@link InputFrame} to a compact binary recording, so
+ * that a session can be played back later by an {@link InputReplay}.
+ * <p>
+ * A recording starts with a header: the magic number, the format version,
+ * and the tick rate and catch-up budget the session ran with, since the same
+ * frame times only make the same ticks on the same timestep. Then each frame is its elapsed time
+ * in nanoseconds, the number of keys down, and the code of each key down as
+ * a single byte. A frame with nothing held costs ten bytes. When keys went
+ * down or up within a frame is not kept.
+ */
+public class InputRecorder implements Closeable {
+	static final int MAGIC = 0x53544952; // "STIR"
+	static final int VERSION = 1;
+
+	private final DataOutputStream out;
+	private long frames;
+
+	/**
+	 * Creates a recording in the given file, replacing anything already there.
+	 *
+	 * @param pFile - File to record to.
+	 * @param pTickRate - Ticks per second the session runs at.
+	 * @param pMaxTicksPerFrame - Most ticks the session runs in one frame.
+	 * @throws IOException On failure to create the file.
+	 */
+	public InputRecorder(File pFile, int pTickRate, int pMaxTicksPerFrame) throws IOException {
+		this(new FileOutputStream(pFile), pTickRate, pMaxTicksPerFrame);
+	}
+
+	/**
+	 * Creates a recording on the given stream. The stream is closed with the recorder.
+	 *
+	 * @param pOut - Stream to record to.
+	 * @param pTickRate - Ticks per second the session runs at.
+	 * @param pMaxTicksPerFrame - Most ticks the session runs in one frame.
+	 * @throws IOException On failure to write the header.
+	 */
+	public InputRecorder(OutputStream pOut, int pTickRate, int pMaxTicksPerFrame) throws IOException {
+		Preconditions.checkNotNull(pOut, "Output cannot be null");
+		Preconditions.checkArgument(pTickRate > 0, "Tick rate must be positive : " + pTickRate);
+		Preconditions.checkArgument(pMaxTicksPerFrame > 0, "Catch-up budget must be positive : " + pMaxTicksPerFrame);
+		out = new DataOutputStream(new BufferedOutputStream(pOut));
+		frames = 0L;
+
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(pTickRate);
+		out.writeInt(pMaxTicksPerFrame);
+	}
+
+	/**
+	 * Appends a frame to the recording.
+	 *
+	 * @param pFrame - Frame to record.
+	 * @throws IOException On failure to write.
+	 */
+	public void record(InputFrame pFrame) throws IOException {
+		int down = 0;
+		for (int key = pFrame.nextKeyDown(0); key >= 0; key = pFrame.nextKeyDown(key + 1)) {
+			down++;
+		}
+
+		out.writeLong(pFrame.getElapsedNanos());
+		out.writeShort(down);
+		for (int key = pFrame.nextKeyDown(0); key >= 0; key = pFrame.nextKeyDown(key + 1)) {
+			out.writeByte(key);
+		}
+		frames++;
+	}
+
+	/**
+	 * @return Frames recorded so far.
+	 */
+	public long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * Flushes the recording and closes it.
+	 */
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,131 @@
+package com.stonetolb.engine.input;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Plays back a recording made by an {@link InputRecorder}, one frame at a
+ * time. The whole recording is read into memory up front, so playing it
+ * back does no I/O and costs the frame loop next to nothing.
+ */
+public class InputReplay {
+	private final ByteBuffer frames;
+	private final int tickRate;
+	private final int maxTicksPerFrame;
+	private final int start;
+	private final long[] down;
+	private long clock;
+
+	/**
+	 * Reads the recording in the given file.
+	 *
+	 * @param pFile - File to play back.
+	 * @throws IOException On failure to read the file, or if it is not a recording.
+	 */
+	public InputReplay(File pFile) throws IOException {
+		this(new FileInputStream(pFile));
+	}
+
+	/**
+	 * Reads the recording on the given stream, then closes it.
+	 *
+	 * @param pIn - Stream to play back.
+	 * @throws IOException On failure to read the stream, or if it is not a recording.
+	 */
+	public InputReplay(InputStream pIn) throws IOException {
+		Preconditions.checkNotNull(pIn, "Input cannot be null");
+		try {
+			frames = ByteBuffer.wrap(ByteStreams.toByteArray(pIn));
+		} finally {
+			pIn.close();
+		}
+
+		try {
+			if (frames.getInt() != InputRecorder.MAGIC) {
+				throw new IOException("Not an input recording");
+			}
+			int version = frames.get();
+			if (version != InputRecorder.VERSION) {
+				throw new IOException("Unsupported input recording version : " + version);
+			}
+			tickRate = frames.getInt();
+			maxTicksPerFrame = frames.getInt();
+		} catch (BufferUnderflowException bue) {
+			throw new IOException("Input recording is missing its header", bue);
+		}
+		start = frames.position();
+		down = new long[(InputFrame.KEY_COUNT + 63) / 64];
+		clock = 0L;
+	}
+
+	/**
+	 * Reads the next frame of the recording into the given frame. Keys that
+	 * went down or up are stamped with the time into the recording.
+	 *
+	 * @param pFrame - Frame to fill in.
+	 * @return False once the recording has run out, leaving the frame as it was.
+	 */
+	public boolean next(InputFrame pFrame) {
+		if (frames.remaining() < 10) {
+			return false;
+		}
+		int mark = frames.position();
+		long elapsed = frames.getLong();
+		int count = frames.getShort() & 0xFFFF;
+		if (frames.remaining() < count) {
+			// Cut off part way through, as when the recording game crashed
+			frames.position(mark);
+			return false;
+		}
+
+		Arrays.fill(down, 0L);
+		for (int i = 0; i < count; i++) {
+			int key = frames.get() & 0xFF;
+			down[key >>> 6] |= 1L << key;
+		}
+
+		clock += elapsed;
+		pFrame.setElapsedNanos(elapsed);
+		for (int key = pFrame.nextKeyDown(0); key >= 0; key = pFrame.nextKeyDown(key + 1)) {
+			if ((down[key >>> 6] & (1L << key)) == 0L) {
+				pFrame.setKeyDown(key, false, clock);
+			}
+		}
+		for (int key = 0; key < InputFrame.KEY_COUNT; key += 64) {
+			for (long bits = down[key >>> 6]; bits != 0L; bits &= bits - 1) {
+				pFrame.setKeyDown(key + Long.numberOfTrailingZeros(bits), true, clock);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Goes back to the first frame of the recording.
+	 */
+	public void rewind() {
+		frames.position(start);
+		clock = 0L;
+	}
+
+	/**
+	 * @return Ticks per second of the session that was recorded.
+	 */
+	public int getTickRate() {
+		return tickRate;
+	}
+
+	/**
+	 * @return Most ticks the recorded session ran in one frame.
+	 */
+	public int getMaxTicksPerFrame() {
+		return maxTicksPerFrame;
+	}
+}
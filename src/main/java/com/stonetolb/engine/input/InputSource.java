@@ -0,0 +1,15 @@
+package com.stonetolb.engine.input;
+
+/**
+ * Anything that can say which keys are down. Systems read input through the
+ * active source, see {@link Input}, rather than from the keyboard itself, so
+ * that recorded input can be played back in place of a player.
+ */
+public interface InputSource {
+
+	/**
+	 * @param pKey - Key code, as in {@link org.lwjgl.input.Keyboard}.
+	 * @return True if the key is held down.
+	 */
+	public boolean isKeyDown(int pKey);
+}
@@ -0,0 +1,260 @@
+package com.stonetolb.engine.motion;
+
+import java.util.Arrays;
+
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+/**
+ * Dense primitive backed storage for moving entities.
+ * <p>
+ * Every moving entity's position, speed, rotation and the unit vector of
+ * that rotation live in parallel arrays. Slots are packed: an entity leaving
+ * the store has its slot filled by the last one, so slots 0 to size - 1 are
+ * always in use and {@link #integrate(float, int, int)} is a straight loop
+ * over arrays with no lookups, boxing or trigonometry. Speeds and directions
+ * are both floats, so the loop's arithmetic stays in one lane width; only
+ * the result is truncated to the whole pixels positions are kept in.
+ * <p>
+ * {@link Position}, {@link Velocity} and {@link Rotation} components are bound
+ * to a slot while their entity is in a {@link com.stonetolb.engine.system.MovementSystem},
+ * and read through to the store for as long as they are bound. Unbound they
+ * keep their own values, as they always have.
+ * <p>
+ * Given the {@link ChangeLog.Channel} for positions, the store marks the
+ * entities that {@link #integrate(float, int, int)} moved. The loop itself
+ * only notes which slots moved, and the marks go out together once it is
+ * done, so the loop stays free of calls and atomic operations.
+ */
+public class MotionStore {
+	/* Position */
+	public int[] x;
+	public int[] y;
+
+	/* Speed in units per second */
+	public float[] speed;
+
+	/* Rotation in degrees, and its cached unit vector in the same width as speed */
+	public double[] rotation;
+	public float[] directionX;
+	public float[] directionY;
+
+	/* Owning entity and bound components of each slot */
+	private int[] ids;
+	private Position[] positions;
+	private Velocity[] velocities;
+	private Rotation[] rotations;
+
+	/* Slot of each entity id, -1 if not in the store */
+	private int[] slots;
+	private int size;
+
+	/* Whether each slot moved in the last integrate, and room to gather the ids that did */
+	private boolean[] moved;
+	private int[] movedIds;
+	private ChangeLog.Channel channel;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public MotionStore() {
+		this(64);
+	}
+
+	/**
+	 * Creates an empty store.
+	 * @param pCapacity - Number of entities to reserve space for.
+	 */
+	public MotionStore(int pCapacity) {
+		int capacity = Math.max(pCapacity, 1);
+		x = new int[capacity];
+		y = new int[capacity];
+		speed = new float[capacity];
+		rotation = new double[capacity];
+		directionX = new float[capacity];
+		directionY = new float[capacity];
+		ids = new int[capacity];
+		positions = new Position[capacity];
+		velocities = new Velocity[capacity];
+		rotations = new Rotation[capacity];
+		slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		size = 0;
+		moved = new boolean[capacity];
+		movedIds = new int[capacity];
+	}
+
+	/**
+	 * Starts marking moved entities on the given channel, or stops.
+	 * @param pChannel - Channel for {@link Position} changes, or null.
+	 */
+	public void setChannel(ChangeLog.Channel pChannel) {
+		channel = pChannel;
+	}
+
+	/**
+	 * Moves an entity's motion components into the store.
+	 * @param pId - Entity id.
+	 * @param pPosition - Entity's position.
+	 * @param pVelocity - Entity's velocity.
+	 * @param pRotation - Entity's rotation.
+	 * @return Slot the entity now occupies.
+	 */
+	public int add(int pId, Position pPosition, Velocity pVelocity, Rotation pRotation) {
+		// Checked by hand so the message is only built on failure
+		if (getSlot(pId) >= 0) {
+			throw new IllegalArgumentException("Entity already in motion store : " + pId);
+		}
+		ensureCapacity(size + 1);
+		if (pId >= slots.length) {
+			int length = slots.length;
+			slots = Arrays.copyOf(slots, Math.max(pId + 1, length * 2));
+			Arrays.fill(slots, length, slots.length, -1);
+		}
+
+		int slot = size++;
+		ids[slot] = pId;
+		slots[pId] = slot;
+		bind(slot, pPosition, pVelocity, pRotation);
+		return slot;
+	}
+
+	/**
+	 * Takes an entity's motion components back out of the store. The last
+	 * entity in the store moves into its slot.
+	 * @param pId - Entity id.
+	 */
+	public void remove(int pId) {
+		int slot = getSlot(pId);
+		if (slot < 0) {
+			throw new IllegalArgumentException("Entity not in motion store : " + pId);
+		}
+
+		positions[slot].unbind();
+		velocities[slot].unbind();
+		rotations[slot].unbind();
+		slots[pId] = -1;
+
+		int last = --size;
+		if (slot != last) {
+			Position position = positions[last];
+			Velocity velocity = velocities[last];
+			Rotation rotation = rotations[last];
+			position.unbind();
+			velocity.unbind();
+			rotation.unbind();
+
+			ids[slot] = ids[last];
+			slots[ids[slot]] = slot;
+			bind(slot, position, velocity, rotation);
+		}
+		positions[last] = null;
+		velocities[last] = null;
+		rotations[last] = null;
+	}
+
+	/**
+	 * Moves entities along their rotation at their speed. Entities that
+	 * actually move are marked on the channel, if there is one. Ranges that
+	 * do not overlap may be integrated from different threads at once.
+	 * @param pDelta - Time passed in milliseconds.
+	 * @param pStart - First slot to move.
+	 * @param pEnd - Slot after the last one to move.
+	 */
+	public void integrate(float pDelta, int pStart, int pEnd) {
+		int[] x = this.x;
+		int[] y = this.y;
+		float[] speed = this.speed;
+		float[] directionX = this.directionX;
+		float[] directionY = this.directionY;
+		boolean[] moved = this.moved;
+		for (int i = pStart; i < pEnd; i++) {
+			float distance = pDelta * speed[i] / 1000;
+			int dx = (int)(distance * directionX[i]);
+			int dy = (int)(distance * directionY[i]);
+			x[i] += dx;
+			y[i] += dy;
+			moved[i] = (dx | dy) != 0;
+		}
+
+		if (channel != null) {
+			markMoved(pStart, pEnd);
+		}
+	}
+
+	/**
+	 * Gathers the ids of the slots in a range that moved into the same range
+	 * of movedIds, then marks them all at once.
+	 */
+	private void markMoved(int pStart, int pEnd) {
+		int end = pStart;
+		for (int i = pStart; i < pEnd; i++) {
+			if (moved[i]) {
+				movedIds[end++] = ids[i];
+			}
+		}
+		channel.markAll(movedIds, pStart, end);
+	}
+
+	/**
+	 * Sets a slot's rotation and works out its unit vector.
+	 * @param pSlot - Slot to set.
+	 * @param pRotation - Rotation in degrees.
+	 */
+	public void setRotation(int pSlot, double pRotation) {
+		rotation[pSlot] = pRotation;
+		double radians = Math.toRadians(pRotation);
+		directionX[pSlot] = (float)Math.cos(radians);
+		directionY[pSlot] = (float)Math.sin(radians);
+	}
+
+	/**
+	 * @param pId - Entity id.
+	 * @return Slot of the entity, or -1 if it is not in the store.
+	 */
+	public int getSlot(int pId) {
+		return pId >= 0 && pId < slots.length ? slots[pId] : -1;
+	}
+
+	/**
+	 * @return Number of entities in the store.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Grows the store to hold at least the given number of entities.
+	 * @param pCapacity - Required number of entities.
+	 */
+	public void ensureCapacity(int pCapacity) {
+		if (pCapacity <= x.length) {
+			return;
+		}
+
+		int capacity = Math.max(pCapacity, x.length * 2);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		rotation = Arrays.copyOf(rotation, capacity);
+		directionX = Arrays.copyOf(directionX, capacity);
+		directionY = Arrays.copyOf(directionY, capacity);
+		ids = Arrays.copyOf(ids, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+		velocities = Arrays.copyOf(velocities, capacity);
+		rotations = Arrays.copyOf(rotations, capacity);
+		moved = Arrays.copyOf(moved, capacity);
+		movedIds = Arrays.copyOf(movedIds, capacity);
+	}
+
+	private void bind(int pSlot, Position pPosition, Velocity pVelocity, Rotation pRotation) {
+		positions[pSlot] = pPosition;
+		velocities[pSlot] = pVelocity;
+		rotations[pSlot] = pRotation;
+		pPosition.bind(this, pSlot);
+		pVelocity.bind(this, pSlot);
+		pRotation.bind(this, pSlot);
+	}
+}
@@ -0,0 +1,153 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+/**
+ * Common proxy bookkeeping for {@link Broadphase} implementations.
+ * <p>
+ * Extents are kept in parallel arrays indexed by proxy handle, and the live
+ * handles are kept in a dense list so that implementations can walk them
+ * without scanning empty slots.
+ */
+public abstract class AbstractBroadphase implements Broadphase {
+	private static final int NONE = -1;
+
+	protected int[] minX = new int[16];
+	protected int[] minY = new int[16];
+	protected int[] maxX = new int[16];
+	protected int[] maxY = new int[16];
+	protected boolean[] fixed = new boolean[16];
+	protected int[] category = new int[16];
+	protected int[] mask = new int[16];
+
+	/* Dense list of live proxies and each proxy's index within it */
+	protected int[] proxies = new int[16];
+	protected int count = 0;
+	private int[] denseIndex = filled(16);
+
+	@Override
+	public void add(int pProxy, boolean pFixed) {
+		ensureHandle(pProxy);
+		fixed[pProxy] = pFixed;
+		category[pProxy] = mask[pProxy] = ~0;
+		minX[pProxy] = minY[pProxy] = maxX[pProxy] = maxY[pProxy] = 0;
+
+		if (denseIndex[pProxy] == NONE) {
+			if (count == proxies.length) {
+				proxies = Arrays.copyOf(proxies, count * 2);
+			}
+			denseIndex[pProxy] = count;
+			proxies[count++] = pProxy;
+			added(pProxy);
+		}
+	}
+
+	@Override
+	public void remove(int pProxy) {
+		if (!contains(pProxy)) {
+			return;
+		}
+
+		// Swap the last live proxy into the hole
+		int hole = denseIndex[pProxy];
+		int last = proxies[--count];
+		proxies[hole] = last;
+		denseIndex[last] = hole;
+		denseIndex[pProxy] = NONE;
+		removed(pProxy);
+	}
+
+	@Override
+	public void setFixed(int pProxy, boolean pFixed) {
+		fixed[pProxy] = pFixed;
+	}
+
+	@Override
+	public void setFilter(int pProxy, int pCategory, int pMask) {
+		category[pProxy] = pCategory;
+		mask[pProxy] = pMask;
+	}
+
+	@Override
+	public void update(int pProxy, int pMinX, int pMinY, int pMaxX, int pMaxY) {
+		minX[pProxy] = pMinX;
+		minY[pProxy] = pMinY;
+		maxX[pProxy] = pMaxX;
+		maxY[pProxy] = pMaxY;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @param pProxy - Handle to check.
+	 * @return True if the handle is being tracked.
+	 */
+	public boolean contains(int pProxy) {
+		return pProxy >= 0 && pProxy < denseIndex.length && denseIndex[pProxy] != NONE;
+	}
+
+	/**
+	 * Hook invoked after a handle that was not being tracked starts being tracked.
+	 * @param pProxy - Handle of the proxy.
+	 */
+	protected void added(int pProxy) {
+		// Nothing by default
+	}
+
+	/**
+	 * Hook invoked after a proxy stops being tracked.
+	 * @param pProxy - Handle of the proxy.
+	 */
+	protected void removed(int pProxy) {
+		// Nothing by default
+	}
+
+	/**
+	 * Cheap test of whether two tracked proxies could ever be a pair: they are
+	 * not both fixed, and their filters accept each other. Run it before
+	 * {@link #overlaps(int, int)}.
+	 */
+	protected final boolean canPair(int pFirst, int pSecond) {
+		return !(fixed[pFirst] && fixed[pSecond])
+			&& (category[pFirst] & mask[pSecond]) != 0
+			&& (category[pSecond] & mask[pFirst]) != 0;
+	}
+
+	/**
+	 * Inclusive overlap test between two tracked proxies.
+	 */
+	protected final boolean overlaps(int pFirst, int pSecond) {
+		return minX[pFirst] <= maxX[pSecond] && minX[pSecond] <= maxX[pFirst]
+			&& minY[pFirst] <= maxY[pSecond] && minY[pSecond] <= maxY[pFirst];
+	}
+
+	private void ensureHandle(int pProxy) {
+		if (pProxy < 0) {
+			throw new IllegalArgumentException("Proxy handles must be non-negative : " + pProxy);
+		}
+
+		if (pProxy >= denseIndex.length) {
+			int capacity = Math.max(denseIndex.length * 2, pProxy + 1);
+			minX = Arrays.copyOf(minX, capacity);
+			minY = Arrays.copyOf(minY, capacity);
+			maxX = Arrays.copyOf(maxX, capacity);
+			maxY = Arrays.copyOf(maxY, capacity);
+			fixed = Arrays.copyOf(fixed, capacity);
+			category = Arrays.copyOf(category, capacity);
+			mask = Arrays.copyOf(mask, capacity);
+
+			int oldLength = denseIndex.length;
+			denseIndex = Arrays.copyOf(denseIndex, capacity);
+			Arrays.fill(denseIndex, oldLength, capacity, NONE);
+		}
+	}
+
+	private static int[] filled(int pLength) {
+		int[] array = new int[pLength];
+		Arrays.fill(array, NONE);
+		return array;
+	}
+}
@@ -0,0 +1,14 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * Callback for {@link SpatialQuery} results. Implementations are meant to be
+ * kept and reused, so that running a query allocates nothing.
+ */
+public interface BodyVisitor {
+
+	/**
+	 * @param pId - Id of a body matching the query.
+	 * @return True to keep going, false to end the query early.
+	 */
+	public boolean visit(int pId);
+}
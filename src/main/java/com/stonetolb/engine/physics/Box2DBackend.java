@@ -0,0 +1,213 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.FixtureDef;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.Contact;
+
+import com.artemis.utils.Bag;
+import com.stonetolb.engine.component.physics.Body;
+import com.stonetolb.engine.component.physics.KinematicBody;
+
+/**
+ * {@link PhysicsBackend} that hands the bodies to a jBox2D world, which finds
+ * contacts with its dynamic tree broadphase and resolves them with its
+ * iterative solver.
+ * <p>
+ * Fixed bodies become static jBox2D bodies, {@link KinematicBody}s become
+ * kinematic jBox2D bodies, and every other body becomes a dynamic jBox2D
+ * body with its {@link Body#getMass()} as its mass. All have fixed rotation,
+ * are filtered by the body's category and mask, and sensors become sensor
+ * fixtures. There is no gravity. Entities are moved by other systems, so
+ * before each step every dynamic body is given exactly the velocity that
+ * carries it to where its entity now is; contacts then hold it back from
+ * wherever that would push it into something.
+ * <p>
+ * As with the {@link ResolverBackend}, a kinematic body pushes dynamic
+ * bodies and is never pushed by them. Unlike it, jBox2D never collides a
+ * kinematic body with a static one, so kinematic bodies pass through walls
+ * here, and report no contact with them, where the resolver stops them.
+ * <p>
+ * jBox2D is tuned for objects between 0.1 and 10 meters, so pixels are
+ * scaled by {@link #PIXELS_PER_METER}.
+ */
+public class Box2DBackend implements PhysicsBackend {
+	public static final float PIXELS_PER_METER = 32F;
+	private static final int VELOCITY_ITERATIONS = 8;
+	private static final int POSITION_ITERATIONS = 3;
+
+	private World world;
+	private Bag<org.jbox2d.dynamics.Body> bodies;
+
+	/* Where each body's entity wants it, in meters, by id */
+	private float[] targetX;
+	private float[] targetY;
+
+	private Vec2 scratch;
+
+	/**
+	 * Creates an empty backend.
+	 */
+	public Box2DBackend() {
+		world = new World(new Vec2(0F, 0F));
+		bodies = new Bag<org.jbox2d.dynamics.Body>();
+		targetX = new float[64];
+		targetY = new float[64];
+		scratch = new Vec2();
+	}
+
+	@Override
+	public void add(int pId, Body pBody) {
+		remove(pId);
+
+		BodyDef bodyDef = new BodyDef();
+		if (pBody.isFixed()) {
+			bodyDef.type = BodyType.STATIC;
+		} else if (pBody instanceof KinematicBody) {
+			bodyDef.type = BodyType.KINEMATIC;
+		} else {
+			bodyDef.type = BodyType.DYNAMIC;
+		}
+		bodyDef.position.set(pBody.getX() / PIXELS_PER_METER, pBody.getY() / PIXELS_PER_METER);
+		bodyDef.fixedRotation = true;
+		bodyDef.userData = Integer.valueOf(pId);
+
+		float halfWidth = Math.max(pBody.getHalfWidth(), 1) / PIXELS_PER_METER;
+		float halfHeight = Math.max(pBody.getHalfHeight(), 1) / PIXELS_PER_METER;
+		PolygonShape shape = new PolygonShape();
+		shape.setAsBox(halfWidth, halfHeight);
+
+		FixtureDef fixtureDef = new FixtureDef();
+		fixtureDef.shape = shape;
+		fixtureDef.density = pBody.getMass() / (4F * halfWidth * halfHeight);
+		fixtureDef.friction = 0F;
+		fixtureDef.restitution = 0F;
+		fixtureDef.filter.categoryBits = pBody.getCategory();
+		fixtureDef.filter.maskBits = pBody.getMask();
+		fixtureDef.isSensor = pBody.isSensor();
+
+		org.jbox2d.dynamics.Body body = world.createBody(bodyDef);
+		body.createFixture(fixtureDef);
+		bodies.set(pId, body);
+
+		if (pId >= targetX.length) {
+			int capacity = Math.max(pId + 1, targetX.length * 2);
+			targetX = Arrays.copyOf(targetX, capacity);
+			targetY = Arrays.copyOf(targetY, capacity);
+		}
+		targetX[pId] = bodyDef.position.x;
+		targetY[pId] = bodyDef.position.y;
+	}
+
+	@Override
+	public void remove(int pId) {
+		org.jbox2d.dynamics.Body body = bodies.isIndexWithinBounds(pId) ? bodies.get(pId) : null;
+		if (body != null) {
+			world.destroyBody(body);
+			bodies.set(pId, null);
+		}
+	}
+
+	@Override
+	public void moveTo(int pId, int pX, int pY, float pSpeed) {
+		targetX[pId] = pX / PIXELS_PER_METER;
+		targetY[pId] = pY / PIXELS_PER_METER;
+	}
+
+	@Override
+	public void step(float pDelta) {
+		if (pDelta <= 0F) {
+			return;
+		}
+		float seconds = pDelta / 1000F;
+
+		for (org.jbox2d.dynamics.Body body = world.getBodyList(); body != null; body = body.getNext()) {
+			if (body.getType() == BodyType.STATIC) {
+				continue;
+			}
+			int id = ((Integer)body.getUserData()).intValue();
+			Vec2 position = body.getPosition();
+			float dx = targetX[id] - position.x;
+			float dy = targetY[id] - position.y;
+			body.setLinearVelocity(scratch.set(dx / seconds, dy / seconds));
+			if (dx != 0F || dy != 0F) {
+				body.setAwake(true);
+			}
+		}
+
+		world.step(seconds, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+
+		// Nothing carries over; next step's velocities come from the entities again
+		for (org.jbox2d.dynamics.Body body = world.getBodyList(); body != null; body = body.getNext()) {
+			if (body.getType() != BodyType.STATIC) {
+				body.setLinearVelocity(scratch.set(0F, 0F));
+			}
+		}
+	}
+
+	/**
+	 * jBox2D works out which contacts touch at the start of a step, before
+	 * moving anything, so these lag one step behind the positions.
+	 */
+	@Override
+	public void getContacts(PairBuffer pContacts) {
+		for (Contact contact = world.getContactList(); contact != null; contact = contact.getNext()) {
+			if (contact.isTouching()) {
+				pContacts.add(
+						  ((Integer)contact.getFixtureA().getBody().getUserData()).intValue()
+						, ((Integer)contact.getFixtureB().getBody().getUserData()).intValue()
+						);
+			}
+		}
+	}
+
+	@Override
+	public boolean isAsleep(int pId) {
+		// Targets are kept between steps, so a sleeping body left alone stays asleep
+		return !bodies.get(pId).isAwake();
+	}
+
+	@Override
+	public int getSleepingCount() {
+		int count = 0;
+		for (org.jbox2d.dynamics.Body body = world.getBodyList(); body != null; body = body.getNext()) {
+			if (body.getType() != BodyType.STATIC && !body.isAwake()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public int getAwakeCount() {
+		int count = 0;
+		for (org.jbox2d.dynamics.Body body = world.getBodyList(); body != null; body = body.getNext()) {
+			if (body.getType() != BodyType.STATIC && body.isAwake()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public int getX(int pId) {
+		return Math.round(bodies.get(pId).getPosition().x * PIXELS_PER_METER);
+	}
+
+	@Override
+	public int getY(int pId) {
+		return Math.round(bodies.get(pId).getPosition().y * PIXELS_PER_METER);
+	}
+
+	/**
+	 * @return Number of bodies in the jBox2D world.
+	 */
+	public int getBodyCount() {
+		return world.getBodyCount();
+	}
+}
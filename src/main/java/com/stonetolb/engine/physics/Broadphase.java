@@ -0,0 +1,78 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * A Broadphase is the coarse first pass of collision detection. It keeps track
+ * of the bounding extents of every collision proxy and reports the pairs of
+ * proxies whose extents overlap, so that only those pairs need to go through
+ * the exact collision test.
+ * <p>
+ * Proxies are identified by a non-negative integer handle chosen by the caller.
+ * Extents are inclusive on both ends, matching the overlap rules of
+ * {@link com.stonetolb.util.AxisAlignedBoundingBox}: two boxes that share an
+ * edge are reported as a pair.
+ * <p>
+ * Every proxy also has a category and a mask. Two proxies are only reported
+ * as a pair if each one's category shares a bit with the other's mask, and
+ * that is checked before their extents are compared.
+ */
+public interface Broadphase {
+
+	/**
+	 * Starts tracking a proxy. Its extents are empty at (0,0) until the first
+	 * {@link #update(int, int, int, int, int)}.
+	 *
+	 * @param pProxy - Handle of the proxy.
+	 * @param pFixed - True if the proxy never moves. Pairs between two fixed
+	 * proxies are never reported.
+	 */
+	public void add(int pProxy, boolean pFixed);
+
+	/**
+	 * Stops tracking a proxy. Unknown handles are ignored.
+	 * @param pProxy - Handle of the proxy.
+	 */
+	public void remove(int pProxy);
+
+	/**
+	 * Changes whether a proxy is fixed, for example when a moving body goes to
+	 * sleep. Pairs between two fixed proxies are never reported.
+	 *
+	 * @param pProxy - Handle of a tracked proxy.
+	 * @param pFixed - True if the proxy is not moving.
+	 */
+	public void setFixed(int pProxy, boolean pFixed);
+
+	/**
+	 * Sets which proxies a proxy may pair with. Proxies start out in every
+	 * category and with every bit of their mask set.
+	 *
+	 * @param pProxy - Handle of a tracked proxy.
+	 * @param pCategory - Bits naming the groups the proxy belongs to.
+	 * @param pMask - Bits naming the groups the proxy can touch.
+	 */
+	public void setFilter(int pProxy, int pCategory, int pMask);
+
+	/**
+	 * Sets the current extents of a proxy.
+	 *
+	 * @param pProxy - Handle of the proxy.
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 */
+	public void update(int pProxy, int pMinX, int pMinY, int pMaxX, int pMaxY);
+
+	/**
+	 * Adds every pair of proxies whose extents currently overlap to the given
+	 * buffer. Each pair is reported once.
+	 *
+	 * @param pPairs - Buffer to fill. It is not cleared beforehand.
+	 */
+	public void findPairs(PairBuffer pPairs);
+
+	/**
+	 * @return Number of proxies being tracked.
+	 */
+	public int size();
+}
@@ -0,0 +1,28 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * Broadphase that tests every proxy against every other proxy. This is the
+ * original full scan the {@link com.stonetolb.engine.system.CollisionSystem}
+ * performed, kept around as a reference and for very small worlds where
+ * it is still the cheapest option.
+ * <p>
+ * Cost is O(n^2) in the number of proxies.
+ */
+public class BruteForceBroadphase extends AbstractBroadphase {
+
+	@Override
+	public void findPairs(PairBuffer pPairs) {
+		for (int i = 0; i < count; i++) {
+			int first = proxies[i];
+			for (int j = i + 1; j < count; j++) {
+				int second = proxies[j];
+				if (!canPair(first, second)) {
+					continue;
+				}
+				if (overlaps(first, second)) {
+					pPairs.add(first, second);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+/**
+ * Primitive backed storage for collision bodies.
+ * <p>
+ * Every collider's center, half extents, offset from its entity's position,
+ * mass, collision filter, sensor flag and sleep state live in parallel arrays indexed by slot. The collision pass reads
+ * and writes these arrays in place, so once the store has grown to the size
+ * of the world it produces no garbage at all.
+ * <p>
+ * {@link com.stonetolb.engine.component.physics.Body} components are bound to
+ * a slot while their entity is in a {@link com.stonetolb.engine.system.CollisionSystem},
+ * and read through to the store for as long as they are bound.
+ */
+public class ColliderStore {
+	/* Center */
+	public int[] x;
+	public int[] y;
+
+	/* Distance from the center to the sides */
+	public int[] halfWidth;
+	public int[] halfHeight;
+
+	/* Center offset from the owning entity's position */
+	public int[] xOffset;
+	public int[] yOffset;
+
+	public int[] mass;
+
+	/* True for colliders that are never moved by a collision */
+	public boolean[] fixed;
+
+	/* Collision filter: groups the collider is in, and groups it can touch */
+	public int[] category;
+	public int[] mask;
+
+	/* True for colliders that report contacts but never push or get pushed */
+	public boolean[] sensor;
+
+	/* Sleep bookkeeping: asleep flag, frames spent still, and speed last seen */
+	public boolean[] asleep;
+	public int[] stillFrames;
+	public float[] lastSpeed;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public ColliderStore() {
+		this(64);
+	}
+
+	/**
+	 * Creates an empty store.
+	 * @param pCapacity - Number of slots to reserve space for.
+	 */
+	public ColliderStore(int pCapacity) {
+		int capacity = Math.max(pCapacity, 1);
+		x = new int[capacity];
+		y = new int[capacity];
+		halfWidth = new int[capacity];
+		halfHeight = new int[capacity];
+		xOffset = new int[capacity];
+		yOffset = new int[capacity];
+		mass = new int[capacity];
+		fixed = new boolean[capacity];
+		category = new int[capacity];
+		mask = new int[capacity];
+		sensor = new boolean[capacity];
+		asleep = new boolean[capacity];
+		stillFrames = new int[capacity];
+		lastSpeed = new float[capacity];
+	}
+
+	/**
+	 * Fills a slot, growing the store if needed. The collider is left in every
+	 * category and touching everything until {@link #setFilter(int, int, int)},
+	 * and solid until {@link #setSensor(int, boolean)}.
+	 *
+	 * @param pSlot - Slot to fill.
+	 * @param pX - Center X.
+	 * @param pY - Center Y.
+	 * @param pHalfWidth - Half of the width.
+	 * @param pHalfHeight - Half of the height.
+	 * @param pXOffset - Center X offset from the entity's position.
+	 * @param pYOffset - Center Y offset from the entity's position.
+	 * @param pMass - Mass of the collider.
+	 * @param pFixed - True if collisions never move the collider.
+	 */
+	public void set(int pSlot, int pX, int pY, int pHalfWidth, int pHalfHeight, int pXOffset, int pYOffset, int pMass, boolean pFixed) {
+		ensureCapacity(pSlot + 1);
+		x[pSlot] = pX;
+		y[pSlot] = pY;
+		halfWidth[pSlot] = pHalfWidth;
+		halfHeight[pSlot] = pHalfHeight;
+		xOffset[pSlot] = pXOffset;
+		yOffset[pSlot] = pYOffset;
+		mass[pSlot] = pMass;
+		fixed[pSlot] = pFixed;
+		category[pSlot] = ~0;
+		mask[pSlot] = ~0;
+		sensor[pSlot] = false;
+		asleep[pSlot] = false;
+		stillFrames[pSlot] = 0;
+		lastSpeed[pSlot] = 0F;
+	}
+
+	/**
+	 * Sets a collider's collision filter.
+	 *
+	 * @param pSlot - Slot of the collider.
+	 * @param pCategory - Bits naming the groups the collider belongs to.
+	 * @param pMask - Bits naming the groups the collider can touch.
+	 */
+	public void setFilter(int pSlot, int pCategory, int pMask) {
+		category[pSlot] = pCategory;
+		mask[pSlot] = pMask;
+	}
+
+	/**
+	 * Sets whether a collider is a sensor.
+	 *
+	 * @param pSlot - Slot of the collider.
+	 * @param pSensor - True if the collider only reports contacts.
+	 */
+	public void setSensor(int pSlot, boolean pSensor) {
+		sensor[pSlot] = pSensor;
+	}
+
+	/**
+	 * @return Number of slots the store can hold without growing.
+	 */
+	public int capacity() {
+		return x.length;
+	}
+
+	/**
+	 * Moves a collider's center by the given amount, unless it is fixed.
+	 *
+	 * @param pSlot - Slot of the collider.
+	 * @param pDX - Horizontal distance.
+	 * @param pDY - Vertical distance.
+	 */
+	public void translate(int pSlot, int pDX, int pDY) {
+		if (!fixed[pSlot]) {
+			x[pSlot] += pDX;
+			y[pSlot] += pDY;
+		}
+	}
+
+	/**
+	 * Grows the store to hold at least the given number of slots.
+	 * @param pCapacity - Required number of slots.
+	 */
+	public void ensureCapacity(int pCapacity) {
+		if (pCapacity <= x.length) {
+			return;
+		}
+
+		int capacity = Math.max(pCapacity, x.length * 2);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		halfWidth = Arrays.copyOf(halfWidth, capacity);
+		halfHeight = Arrays.copyOf(halfHeight, capacity);
+		xOffset = Arrays.copyOf(xOffset, capacity);
+		yOffset = Arrays.copyOf(yOffset, capacity);
+		mass = Arrays.copyOf(mass, capacity);
+		fixed = Arrays.copyOf(fixed, capacity);
+		category = Arrays.copyOf(category, capacity);
+		mask = Arrays.copyOf(mask, capacity);
+		sensor = Arrays.copyOf(sensor, capacity);
+		asleep = Arrays.copyOf(asleep, capacity);
+		stillFrames = Arrays.copyOf(stillFrames, capacity);
+		lastSpeed = Arrays.copyOf(lastSpeed, capacity);
+	}
+}
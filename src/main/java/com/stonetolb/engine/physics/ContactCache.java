@@ -0,0 +1,164 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * Table of which pairs of bodies are touching, kept from one step to the next.
+ * <p>
+ * Each step the cache is handed the pairs that touched, sorts them, and walks
+ * them alongside last step's sorted pairs to split them into contacts that
+ * began, stayed and ended. It is a single merge, so updating costs the same
+ * however long contacts last, and like {@link PairBuffer} it produces no
+ * garbage once its buffers have grown.
+ * <p>
+ * A body that is removed has its contacts dropped straight away, and they are
+ * reported as ended with the next update. If its id is reused, contacts of the
+ * new body begin afresh, rather than carrying on from the old one.
+ */
+public class ContactCache {
+	private PairBuffer current;
+	private PairBuffer previous;
+
+	private PairBuffer begun;
+	private PairBuffer staying;
+	private PairBuffer ended;
+	private PairBuffer removed;
+
+	/**
+	 * Creates an empty cache.
+	 */
+	public ContactCache() {
+		current = new PairBuffer();
+		previous = new PairBuffer();
+		begun = new PairBuffer();
+		staying = new PairBuffer();
+		ended = new PairBuffer();
+		removed = new PairBuffer();
+	}
+
+	/**
+	 * Replaces the touching pairs with this step's, and works out what changed.
+	 * @param pTouching - Every pair touching this step. Duplicates are ignored.
+	 */
+	public void update(PairBuffer pTouching) {
+		PairBuffer swap = previous;
+		previous = current;
+		current = swap;
+		current.clear();
+		current.addAll(pTouching);
+		current.sort();
+		current.removeDuplicates();
+
+		begun.clear();
+		staying.clear();
+		ended.clear();
+
+		int i = 0;
+		int j = 0;
+		int currentSize = current.size();
+		int previousSize = previous.size();
+		while (i < currentSize || j < previousSize) {
+			int order;
+			if (i == currentSize) {
+				order = 1;
+			} else if (j == previousSize) {
+				order = -1;
+			} else {
+				order = compare(current, i, previous, j);
+			}
+
+			if (order < 0) {
+				begun.add(current.getFirst(i), current.getSecond(i));
+				i++;
+			} else if (order > 0) {
+				ended.add(previous.getFirst(j), previous.getSecond(j));
+				j++;
+			} else {
+				staying.add(current.getFirst(i), current.getSecond(i));
+				i++;
+				j++;
+			}
+		}
+
+		// Contacts of bodies removed since the last update end now
+		ended.addAll(removed);
+		removed.clear();
+	}
+
+	/**
+	 * Drops every contact of a body that is going away. They are reported as
+	 * ended with the next update.
+	 * @param pId - Id of the body.
+	 */
+	public void remove(int pId) {
+		current.removeInvolving(pId, removed);
+	}
+
+	/**
+	 * @param pFirst - Id of one body.
+	 * @param pSecond - Id of the other body.
+	 * @return True if the bodies touched during the last update.
+	 */
+	public boolean isTouching(int pFirst, int pSecond) {
+		int first = Math.min(pFirst, pSecond);
+		int second = Math.max(pFirst, pSecond);
+		int low = 0;
+		int high = current.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int order = current.getFirst(middle) != first
+					? (current.getFirst(middle) < first ? -1 : 1)
+					: (current.getSecond(middle) < second ? -1 : current.getSecond(middle) > second ? 1 : 0);
+			if (order < 0) {
+				low = middle + 1;
+			} else if (order > 0) {
+				high = middle - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Pairs that began touching in the last update.
+	 */
+	public PairBuffer getBegun() {
+		return begun;
+	}
+
+	/**
+	 * @return Pairs that were touching before the last update and still are.
+	 */
+	public PairBuffer getStaying() {
+		return staying;
+	}
+
+	/**
+	 * @return Pairs that stopped touching in the last update.
+	 */
+	public PairBuffer getEnded() {
+		return ended;
+	}
+
+	/**
+	 * Forgets every contact. The next update reports all of its pairs as begun.
+	 */
+	public void clear() {
+		current.clear();
+		previous.clear();
+		begun.clear();
+		staying.clear();
+		ended.clear();
+		removed.clear();
+	}
+
+	private static int compare(PairBuffer pA, int pIndexA, PairBuffer pB, int pIndexB) {
+		int a = pA.getFirst(pIndexA);
+		int b = pB.getFirst(pIndexB);
+		if (a != b) {
+			return a < b ? -1 : 1;
+		}
+		a = pA.getSecond(pIndexA);
+		b = pB.getSecond(pIndexB);
+		return a < b ? -1 : a > b ? 1 : 0;
+	}
+}
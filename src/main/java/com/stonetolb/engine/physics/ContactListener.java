@@ -0,0 +1,19 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * Receives the contacts that changed or carried on over a physics step, in
+ * one batch after the step is done. Pairs are body ids, lower id first, in
+ * ascending order.
+ * <p>
+ * The buffers belong to the {@link ContactCache} and are refilled on the next
+ * step; read them, do not keep or change them.
+ */
+public interface ContactListener {
+
+	/**
+	 * @param pBegun - Pairs that touch now but did not last step.
+	 * @param pStaying - Pairs that touched last step and still do.
+	 * @param pEnded - Pairs that touched last step but no longer do.
+	 */
+	public void contacts(PairBuffer pBegun, PairBuffer pStaying, PairBuffer pEnded);
+}
@@ -0,0 +1,188 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of proxy pairs produced by a {@link Broadphase}.
+ * <p>
+ * Pairs are stored packed into primitive longs so that a buffer can be
+ * cleared and refilled every frame without producing any garbage once it
+ * has grown to its working size.
+ */
+public class PairBuffer {
+	private static final int INSERTION_SORT_SIZE = 16;
+
+	private long[] pairs;
+	private int size;
+
+	/**
+	 * Creates an empty buffer with a small default capacity.
+	 */
+	public PairBuffer() {
+		this(64);
+	}
+
+	/**
+	 * Creates an empty buffer.
+	 * @param pCapacity - Number of pairs to reserve space for.
+	 */
+	public PairBuffer(int pCapacity) {
+		pairs = new long[Math.max(pCapacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Adds a pair to the buffer. The pair is stored with the lower proxy
+	 * first, so (a,b) and (b,a) are recorded identically.
+	 *
+	 * @param pFirst - First proxy.
+	 * @param pSecond - Second proxy.
+	 */
+	public void add(int pFirst, int pSecond) {
+		if (size == pairs.length) {
+			pairs = Arrays.copyOf(pairs, pairs.length * 2);
+		}
+
+		if (pFirst <= pSecond) {
+			pairs[size++] = ((long)pFirst << 32) | (pSecond & 0xFFFFFFFFL);
+		} else {
+			pairs[size++] = ((long)pSecond << 32) | (pFirst & 0xFFFFFFFFL);
+		}
+	}
+
+	/**
+	 * Adds every pair in another buffer to this one.
+	 * @param pOther - Buffer to copy pairs from.
+	 */
+	public void addAll(PairBuffer pOther) {
+		if (size + pOther.size > pairs.length) {
+			pairs = Arrays.copyOf(pairs, Math.max(size + pOther.size, pairs.length * 2));
+		}
+		System.arraycopy(pOther.pairs, 0, pairs, size, pOther.size);
+		size += pOther.size;
+	}
+
+	/**
+	 * @param pIndex - Index of the pair.
+	 * @return The lower proxy of the pair.
+	 */
+	public int getFirst(int pIndex) {
+		return (int)(pairs[pIndex] >>> 32);
+	}
+
+	/**
+	 * @param pIndex - Index of the pair.
+	 * @return The higher proxy of the pair.
+	 */
+	public int getSecond(int pIndex) {
+		return (int)pairs[pIndex];
+	}
+
+	/**
+	 * @return Number of pairs in the buffer.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Drops repeats of the same pair. The buffer must be sorted.
+	 */
+	public void removeDuplicates() {
+		if (size == 0) {
+			return;
+		}
+		int kept = 1;
+		for (int i = 1; i < size; i++) {
+			if (pairs[i] != pairs[kept - 1]) {
+				pairs[kept++] = pairs[i];
+			}
+		}
+		size = kept;
+	}
+
+	/**
+	 * Moves every pair that includes a proxy into another buffer. The pairs
+	 * left behind keep their order.
+	 * @param pProxy - Proxy to look for.
+	 * @param pRemoved - Buffer to add the removed pairs to.
+	 */
+	public void removeInvolving(int pProxy, PairBuffer pRemoved) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (getFirst(i) == pProxy || getSecond(i) == pProxy) {
+				pRemoved.add(getFirst(i), getSecond(i));
+			} else {
+				pairs[kept++] = pairs[i];
+			}
+		}
+		size = kept;
+	}
+
+	/**
+	 * Sorts the pairs by lower proxy, then higher proxy. The order no longer
+	 * depends on the broadphase or on how the pairs were found.
+	 */
+	public void sort() {
+		// Arrays.sort may allocate a merge buffer for partly sorted input, which ours usually is
+		sort(0, size - 1);
+	}
+
+	/**
+	 * In place quicksort of pairs[pLeft, pRight], recursing into the smaller side.
+	 */
+	private void sort(int pLeft, int pRight) {
+		int left = pLeft;
+		int right = pRight;
+		while (right - left > INSERTION_SORT_SIZE) {
+			long pivot = medianOfThree(left, (left + right) >>> 1, right);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (pairs[i] < pivot) i++;
+				while (pairs[j] > pivot) j--;
+				if (i <= j) {
+					long swap = pairs[i];
+					pairs[i] = pairs[j];
+					pairs[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (j - left < right - i) {
+				sort(left, j);
+				left = i;
+			} else {
+				sort(i, right);
+				right = j;
+			}
+		}
+
+		for (int i = left + 1; i <= right; i++) {
+			long pair = pairs[i];
+			int j = i - 1;
+			while (j >= left && pairs[j] > pair) {
+				pairs[j + 1] = pairs[j];
+				j--;
+			}
+			pairs[j + 1] = pair;
+		}
+	}
+
+	private long medianOfThree(int pA, int pB, int pC) {
+		long a = pairs[pA];
+		long b = pairs[pB];
+		long c = pairs[pC];
+		if (a < b) {
+			return b < c ? b : (a < c ? c : a);
+		}
+		return a < c ? a : (b < c ? c : b);
+	}
+
+	/**
+	 * Empties the buffer, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
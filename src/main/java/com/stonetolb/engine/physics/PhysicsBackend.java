@@ -0,0 +1,86 @@
+package com.stonetolb.engine.physics;
+
+import com.stonetolb.engine.component.physics.Body;
+
+/**
+ * A PhysicsBackend simulates the {@link Body} components of a world.
+ * <p>
+ * Bodies are identified by a non-negative id chosen by the caller, normally
+ * the id of the entity that owns them. Every frame the caller moves each
+ * non-fixed body to where its entity now is, steps the backend, and then
+ * reads back where each body was left once collisions were dealt with.
+ * <p>
+ * Positions are body centers in pixels; offsets between a body and its
+ * entity's position are the caller's business.
+ */
+public interface PhysicsBackend {
+
+	/**
+	 * Starts simulating a body from its current center. Fixed bodies
+	 * ({@link Body#isFixed()}) are never moved.
+	 *
+	 * @param pId - Id of the body.
+	 * @param pBody - The body.
+	 */
+	public void add(int pId, Body pBody);
+
+	/**
+	 * Stops simulating a body. Unknown ids are ignored.
+	 * @param pId - Id of the body.
+	 */
+	public void remove(int pId);
+
+	/**
+	 * Moves a non-fixed body ahead of the next step.
+	 *
+	 * @param pId - Id of the body.
+	 * @param pX - Center X the body's entity wants it at.
+	 * @param pY - Center Y the body's entity wants it at.
+	 * @param pSpeed - Speed of the body's entity, 0 if it has none.
+	 */
+	public void moveTo(int pId, int pX, int pY, float pSpeed);
+
+	/**
+	 * Resolves collisions between the bodies.
+	 * @param pDelta - Milliseconds since the last step.
+	 */
+	public void step(float pDelta);
+
+	/**
+	 * Adds every pair of bodies that touched during the last step to the
+	 * buffer, including pairs where either body is a sensor.
+	 * @param pContacts - Buffer to fill. It is not cleared beforehand.
+	 */
+	public void getContacts(PairBuffer pContacts);
+
+	/**
+	 * @param pId - Id of a non-fixed body.
+	 * @return True if the body is asleep: the last step did not move it, and
+	 * moving it to where it already is, at the speed it already has, would
+	 * change nothing. Callers may skip {@link #moveTo(int, int, int, float)}
+	 * for such a body while its entity stays put.
+	 */
+	public boolean isAsleep(int pId);
+
+	/**
+	 * @return Number of non-fixed bodies that are asleep.
+	 */
+	public int getSleepingCount();
+
+	/**
+	 * @return Number of non-fixed bodies that are awake.
+	 */
+	public int getAwakeCount();
+
+	/**
+	 * @param pId - Id of the body.
+	 * @return Center X of the body after the last step.
+	 */
+	public int getX(int pId);
+
+	/**
+	 * @param pId - Id of the body.
+	 * @return Center Y of the body after the last step.
+	 */
+	public int getY(int pId);
+}
@@ -0,0 +1,781 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.artemis.utils.Bag;
+import com.google.common.base.Preconditions;
+import com.stonetolb.engine.component.physics.Body;
+import com.stonetolb.util.Floatation;
+
+/**
+ * The original hand-rolled collision resolver, as a {@link PhysicsBackend}.
+ * <p>
+ * Every step a {@link Broadphase} picks out the pairs of moving bodies that
+ * might be touching, and each pair that does touch is resolved by pushing the
+ * lighter body out of the heavier one along the axis of least overlap. The
+ * broadphase is chosen at construction, see {@link Strategy};
+ * {@link Strategy#BRUTE_FORCE} gives the original test-everything-against-everything
+ * behaviour.
+ * <p>
+ * Fixed bodies never move, so they are kept out of the broadphase and the per
+ * step sync entirely. They live in a {@link StaticTree} that is only rebuilt
+ * when a fixed body is added or removed, and each moving body queries it for
+ * the statics it touches after the moving pairs are resolved.
+ * <p>
+ * Both the broadphase and the static tree drop pairs whose
+ * {@link Body#getCategory() categories} and {@link Body#getMask() masks} do
+ * not match before comparing any extents, so bodies that can never touch cost
+ * next to nothing. Terrain is not filtered; it stops everything.
+ * <p>
+ * Every pair that touches during a step is kept for {@link #getContacts(PairBuffer)},
+ * sensors included. A pair with a sensor in it is reported but not resolved,
+ * and sweeps pass straight through static sensors.
+ * <p>
+ * A body that is moved further than its own half extents in one step is swept
+ * from where it was towards where it is going, and stopped where it first
+ * touches a static or a solid terrain cell. Fast bodies and long steps cannot skip through thin
+ * walls, so the simulation can run at a low tick rate.
+ * <p>
+ * Map terrain can be given as a {@link TileGrid}. Bodies are kept out of its
+ * solid cells last of all, by looking up only the cells each body covers.
+ * <p>
+ * Bodies are bound to a {@link ColliderStore} slot matching their id while
+ * they are in the resolver, and all collision math runs on the store's
+ * primitive arrays in place. Once the store and the pair buffers have grown
+ * to fit the world, a single threaded step allocates nothing.
+ * <p>
+ * Candidate pairs are sorted before they are resolved, so the result of a
+ * step does not depend on the broadphase's output order or on the number
+ * of threads used for overlap testing.
+ * <p>
+ * Moving bodies whose center and speed stay the same, and that touch nothing,
+ * for {@link #getSleepDelay()} steps are put to sleep. A sleeping body is not
+ * re-synced, is only tested against awake bodies, and is not tested against
+ * statics. It wakes as soon as anything touches it, it is moved, or its speed
+ * changes. Since a body only sleeps while it touches nothing, sleeping never
+ * changes the outcome of a step.
+ */
+public class ResolverBackend implements PhysicsBackend {
+	
+	/**
+	 * Broadphase strategies the resolver can be built with.
+	 */
+	public enum Strategy {
+		/** Test every pair. Fine for a handful of bodies. */
+		BRUTE_FORCE,
+		/** Uniform grid. Good all-rounder, insensitive to how bodies are spread. */
+		SPATIAL_HASH,
+		/** Persistent sorted x axis. Cheapest when bodies move little and are spread along x. */
+		SWEEP_AND_PRUNE;
+		
+		/**
+		 * @return A new, empty broadphase of this kind.
+		 */
+		public Broadphase createBroadphase() {
+			switch(this) {
+			case BRUTE_FORCE:
+				return new BruteForceBroadphase();
+			case SWEEP_AND_PRUNE:
+				return new SweepAndPruneBroadphase();
+			case SPATIAL_HASH:
+			default:
+				return new SpatialHashBroadphase();
+			}
+		}
+	}
+
+	/* Ids of the bodies that are not fixed, dense */
+	private int[] movers;
+	private int moverCount;
+	
+	private Bag<Body> bodies;
+	private ColliderStore store;
+	private Broadphase broadphase;
+	private StaticTree statics;
+	private PairBuffer pairs;
+	private PairBuffer staticPairs;
+	private PairBuffer sweepPairs;
+	
+	/* Pairs found touching during the last step */
+	private PairBuffer contacts;
+	private TileGrid terrain;
+	
+	/* Overlap flags for the pair buffer being resolved, by pair index */
+	private boolean[] touching;
+	
+	/* Pairs tested per task, and the smallest pair list worth splitting */
+	private static final int PARALLEL_CHUNK = 512;
+	private static final int PARALLEL_THRESHOLD = 2 * PARALLEL_CHUNK;
+	private ForkJoinPool pool;
+	
+	/* Still steps before a moving body sleeps */
+	public static final int DEFAULT_SLEEP_DELAY = 60;
+	private int sleepDelay = DEFAULT_SLEEP_DELAY;
+	private int sleepingCount = 0;
+	
+	/**
+	 * Creates a single threaded resolver backed by a {@link SpatialHashBroadphase}.
+	 */
+	public ResolverBackend() {
+		this(Strategy.SPATIAL_HASH);
+	}
+	
+	/**
+	 * Creates a single threaded resolver using the given broadphase strategy.
+	 * @param pStrategy - Strategy used to find candidate pairs.
+	 */
+	public ResolverBackend(Strategy pStrategy) {
+		this(pStrategy.createBroadphase());
+	}
+	
+	/**
+	 * Creates a single threaded resolver.
+	 * @param pBroadphase - Broadphase used to find candidate pairs.
+	 */
+	public ResolverBackend(Broadphase pBroadphase) {
+		this(pBroadphase, 1);
+	}
+	
+	/**
+	 * Creates a resolver using the given broadphase strategy.
+	 * @param pStrategy - Strategy used to find candidate pairs.
+	 * @param pThreads - Number of threads to test candidate pairs on.
+	 */
+	public ResolverBackend(Strategy pStrategy, int pThreads) {
+		this(pStrategy.createBroadphase(), pThreads);
+	}
+	
+	/**
+	 * Creates a resolver.
+	 * <p>
+	 * With more than one thread, large candidate lists are tested for overlap
+	 * on a ForkJoinPool. Overlaps are always resolved on the calling thread
+	 * in sorted order, so the thread count never changes the outcome.
+	 * 
+	 * @param pBroadphase - Broadphase used to find candidate pairs.
+	 * @param pThreads - Number of threads to test candidate pairs on.
+	 */
+	public ResolverBackend(Broadphase pBroadphase, int pThreads) {
+		Preconditions.checkArgument(pThreads > 0, "Thread count must be positive : " + pThreads);
+		movers = new int[64];
+		moverCount = 0;
+		bodies = new Bag<Body>();
+		store = new ColliderStore();
+		broadphase = pBroadphase;
+		statics = new StaticTree();
+		pairs = new PairBuffer();
+		staticPairs = new PairBuffer();
+		sweepPairs = new PairBuffer();
+		contacts = new PairBuffer();
+		touching = new boolean[64];
+		pool = pThreads > 1 ? new ForkJoinPool(pThreads) : null;
+	}
+	
+	/**
+	 * @return Broadphase in use by this resolver.
+	 */
+	public Broadphase getBroadphase() {
+		return broadphase;
+	}
+	
+	@Override
+	public void add(int pId, Body pBody) {
+		pBody.bind(store, pId);
+		if (store.fixed[pId]) {
+			statics.add(
+					  pId
+					, store.x[pId] - store.halfWidth[pId]
+					, store.y[pId] - store.halfHeight[pId]
+					, store.x[pId] + store.halfWidth[pId]
+					, store.y[pId] + store.halfHeight[pId]
+					, store.category[pId]
+					, store.mask[pId]
+					);
+			// Sleepers were only checked against the old statics
+			wakeAll();
+		} else {
+			if (moverCount == movers.length) {
+				movers = Arrays.copyOf(movers, moverCount * 2);
+			}
+			movers[moverCount++] = pId;
+			broadphase.add(pId, false);
+			broadphase.setFilter(pId, store.category[pId], store.mask[pId]);
+			updateProxy(pId);
+		}
+		bodies.set(pId, pBody);
+	}
+	
+	@Override
+	public void remove(int pId) {
+		Body body = bodies.isIndexWithinBounds(pId) ? bodies.get(pId) : null;
+		if (body == null) {
+			return;
+		}
+		
+		if (store.fixed[pId]) {
+			statics.remove(pId);
+			wakeAll();
+		} else {
+			wake(pId);
+			for(int i = 0; i < moverCount; i++) {
+				if (movers[i] == pId) {
+					movers[i] = movers[--moverCount];
+					break;
+				}
+			}
+			broadphase.remove(pId);
+		}
+		body.unbind();
+		bodies.set(pId, null);
+	}
+	
+	@Override
+	public void moveTo(int pId, int pX, int pY, float pSpeed) {
+		if (pX != store.x[pId] || pY != store.y[pId] || pSpeed != store.lastSpeed[pId]) {
+			int dx = pX - store.x[pId];
+			int dy = pY - store.y[pId];
+			if (Math.abs(dx) > store.halfWidth[pId] || Math.abs(dy) > store.halfHeight[pId]) {
+				// Far enough to pass a thin static between steps
+				sweep(pId, dx, dy);
+			} else {
+				store.x[pId] = pX;
+				store.y[pId] = pY;
+			}
+			store.lastSpeed[pId] = pSpeed;
+			wake(pId);
+		} else if (!store.asleep[pId] && sleepDelay > 0 && ++store.stillFrames[pId] >= sleepDelay) {
+			sleep(pId);
+		}
+		
+		// A sleeping body's proxy is already where the body is
+		if (!store.asleep[pId]) {
+			updateProxy(pId);
+		}
+	}
+	
+	/**
+	 * Moves a body along (pDX, pDY), stopping where it first touches a static
+	 * or a solid terrain cell.
+	 * <p>
+	 * Each static and cell the move could reach is expanded by the body's half
+	 * extents, and the body's center is cast through it as a ray; the earliest
+	 * time of impact wins. The body is left against the near face of what it
+	 * hit, on the side it came from.
+	 */
+	private void sweep(int pId, int pDX, int pDY) {
+		int x = store.x[pId];
+		int y = store.y[pId];
+		int halfWidth = store.halfWidth[pId];
+		int halfHeight = store.halfHeight[pId];
+		
+		statics.refresh();
+		sweepPairs.clear();
+		statics.query(
+				  Math.min(x, x + pDX) - halfWidth
+				, Math.min(y, y + pDY) - halfHeight
+				, Math.max(x, x + pDX) + halfWidth
+				, Math.max(y, y + pDY) + halfHeight
+				, pId
+				, store.category[pId]
+				, store.mask[pId]
+				, sweepPairs
+				);
+		
+		float impact = 1F;
+		for(int i = 0, s = sweepPairs.size(); i < s; i++) {
+			int other = sweepPairs.getFirst(i) == pId ? sweepPairs.getSecond(i) : sweepPairs.getFirst(i);
+			if (store.sensor[other] || store.sensor[pId]) {
+				continue;
+			}
+			int reachX = store.halfWidth[other] + halfWidth;
+			int reachY = store.halfHeight[other] + halfHeight;
+			impact = Math.min(impact, timeOfImpact(
+					  x, store.x[other] - reachX, store.x[other] + reachX, pDX
+					, y, store.y[other] - reachY, store.y[other] + reachY, pDY
+					));
+		}
+		
+		if (terrain != null) {
+			impact = Math.min(impact, sweepTerrain(x, y, halfWidth, halfHeight, pDX, pDY));
+		}
+		
+		store.x[pId] = x + (int)(pDX * impact);
+		store.y[pId] = y + (int)(pDY * impact);
+	}
+	
+	/**
+	 * Casts a body's center along (pDX, pDY) through every solid cell the
+	 * swept box covers, each expanded by the body's half extents. A single
+	 * step only ever covers a few cells, whatever the size of the map.
+	 * @return Fraction of the move made before the body first touches a
+	 * solid cell, or 1 if it touches none.
+	 */
+	private float sweepTerrain(int pX, int pY, int pHalfWidth, int pHalfHeight, int pDX, int pDY) {
+		int tileWidth = terrain.getTileWidth();
+		int tileHeight = terrain.getTileHeight();
+		int firstColumn = terrain.column(Math.min(pX, pX + pDX) - pHalfWidth);
+		int lastColumn = terrain.column(Math.max(pX, pX + pDX) + pHalfWidth);
+		int firstRow = terrain.row(Math.min(pY, pY + pDY) - pHalfHeight);
+		int lastRow = terrain.row(Math.max(pY, pY + pDY) + pHalfHeight);
+		
+		float impact = 1F;
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				if (!terrain.isSolid(column, row)) {
+					continue;
+				}
+				int minX = column * tileWidth;
+				int minY = row * tileHeight;
+				impact = Math.min(impact, timeOfImpact(
+						  pX, minX - pHalfWidth, minX + tileWidth + pHalfWidth, pDX
+						, pY, minY - pHalfHeight, minY + tileHeight + pHalfHeight, pDY
+						));
+			}
+		}
+		return impact;
+	}
+	
+	/**
+	 * Slab test of a ray from (pX, pY) along (pDX, pDY) against an inclusive box.
+	 * @return Fraction of the ray travelled before it enters the box, or 1 if
+	 * it never does or already starts inside. 0 if it starts on an edge and
+	 * heads in.
+	 */
+	private static float timeOfImpact(int pX, int pMinX, int pMaxX, int pDX, int pY, int pMinY, int pMaxY, int pDY) {
+		float enter = Float.NEGATIVE_INFINITY;
+		float exit = Float.POSITIVE_INFINITY;
+		
+		if (pDX == 0) {
+			if (pX < pMinX || pX > pMaxX) {
+				return 1F;
+			}
+		} else {
+			float near = (float)(pMinX - pX) / pDX;
+			float far = (float)(pMaxX - pX) / pDX;
+			enter = Math.max(enter, Math.min(near, far));
+			exit = Math.min(exit, Math.max(near, far));
+		}
+		
+		if (pDY == 0) {
+			if (pY < pMinY || pY > pMaxY) {
+				return 1F;
+			}
+		} else {
+			float near = (float)(pMinY - pY) / pDY;
+			float far = (float)(pMaxY - pY) / pDY;
+			enter = Math.max(enter, Math.min(near, far));
+			exit = Math.min(exit, Math.max(near, far));
+		}
+		
+		if (enter > exit || enter < 0F || enter >= 1F) {
+			return 1F;
+		}
+		return enter;
+	}
+	
+	@Override
+	public void step(float pDelta) {
+		// Rebuild the static hierarchy if statics came or went since last step
+		statics.refresh();
+		contacts.clear();
+		
+		pairs.clear();
+		broadphase.findPairs(pairs);
+		resolvePairs(pairs);
+		
+		// Statics last, so nothing is left pushed into a wall at the end of the step
+		staticPairs.clear();
+		for(int i = 0; i < moverCount; i++) {
+			int id = movers[i];
+			if (store.asleep[id]) {
+				// Was not touching a static when it fell asleep, and has not moved since
+				continue;
+			}
+			statics.query(
+					  store.x[id] - store.halfWidth[id]
+					, store.y[id] - store.halfHeight[id]
+					, store.x[id] + store.halfWidth[id]
+					, store.y[id] + store.halfHeight[id]
+					, id
+					, store.category[id]
+					, store.mask[id]
+					, staticPairs
+					);
+		}
+		resolvePairs(staticPairs);
+		
+		// Terrain is the final word, nothing ends the step inside a wall
+		if (terrain != null) {
+			resolveTerrain();
+		}
+	}
+	
+	/**
+	 * Pushes every awake body out of the solid cells it overlaps. Only the
+	 * cells under the body are looked at, so the cost does not depend on the
+	 * size of the map.
+	 */
+	private void resolveTerrain() {
+		for(int i = 0; i < moverCount; i++) {
+			int id = movers[i];
+			if (store.asleep[id]) {
+				continue;
+			}
+			
+			// One pixel to the left and above so cells sharing an edge are included
+			int firstColumn = terrain.column(store.x[id] - store.halfWidth[id] - 1);
+			int lastColumn = terrain.column(store.x[id] + store.halfWidth[id]);
+			int firstRow = terrain.row(store.y[id] - store.halfHeight[id] - 1);
+			int lastRow = terrain.row(store.y[id] + store.halfHeight[id]);
+			for(int row = firstRow; row <= lastRow; row++) {
+				for(int column = firstColumn; column <= lastColumn; column++) {
+					if (terrain.isSolid(column, row)) {
+						collideTile(id, column, row);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Pushes a body out of a solid cell along the axis of least overlap, one
+	 * pixel past touching. A face shared with another solid cell is never
+	 * pushed through, so bodies slide along walls made of many tiles instead
+	 * of catching on the seams between them.
+	 */
+	private void collideTile(int pId, int pColumn, int pRow) {
+		int halfWidth = terrain.getTileWidth() / 2;
+		int halfHeight = terrain.getTileHeight() / 2;
+		int centerX = pColumn * terrain.getTileWidth() + halfWidth;
+		int centerY = pRow * terrain.getTileHeight() + halfHeight;
+		
+		int ox = store.halfWidth[pId] + halfWidth - Math.abs(store.x[pId] - centerX);
+		int oy = store.halfHeight[pId] + halfHeight - Math.abs(store.y[pId] - centerY);
+		if (ox < 0 || oy < 0 || (ox == 0 && oy == 0)) {
+			return;
+		}
+		wake(pId);
+		
+		int signX = store.x[pId] < centerX ? -1 : 1;
+		int signY = store.y[pId] < centerY ? -1 : 1;
+		boolean openX = !terrain.isSolid(pColumn + signX, pRow);
+		boolean openY = !terrain.isSolid(pColumn, pRow + signY);
+		boolean alongX = (openX == openY) ? ox <= oy : openX;
+		if (alongX) {
+			store.translate(pId, signX * (ox + 1), 0);
+		} else {
+			store.translate(pId, 0, signY * (oy + 1));
+		}
+	}
+	
+	/**
+	 * Sets the solid terrain bodies are kept out of, replacing any earlier grid.
+	 * @param pTerrain - Baked terrain, or null for none.
+	 */
+	public void setTileGrid(TileGrid pTerrain) {
+		terrain = pTerrain;
+		// Sleepers were only checked against the old terrain
+		wakeAll();
+	}
+	
+	/**
+	 * @return Terrain bodies are kept out of, or null if there is none.
+	 */
+	public TileGrid getTileGrid() {
+		return terrain;
+	}
+	
+	@Override
+	public void getContacts(PairBuffer pContacts) {
+		pContacts.addAll(contacts);
+	}
+	
+	@Override
+	public boolean isAsleep(int pId) {
+		return store.asleep[pId];
+	}
+	
+	@Override
+	public int getX(int pId) {
+		return store.x[pId];
+	}
+	
+	@Override
+	public int getY(int pId) {
+		return store.y[pId];
+	}
+	
+	/**
+	 * Sorts the candidates, finds the ones that overlap (in parallel, if the
+	 * list is large and the system has threads to spare) and then resolves
+	 * them one at a time in sorted order. Resolution re-tests each pair, since
+	 * an earlier resolution may already have pushed the bodies apart.
+	 */
+	private void resolvePairs(PairBuffer pPairs) {
+		int size = pPairs.size();
+		pPairs.sort();
+		if (touching.length < size) {
+			touching = new boolean[Math.max(size, touching.length * 2)];
+		}
+		
+		if (pool != null && size >= PARALLEL_THRESHOLD) {
+			pool.invoke(new OverlapTask(pPairs, 0, size));
+		} else {
+			findTouching(pPairs, 0, size);
+		}
+		
+		for(int i = 0; i < size; i++) {
+			if (touching[i]) {
+				int first = pPairs.getFirst(i);
+				int second = pPairs.getSecond(i);
+				contacts.add(first, second);
+				wake(first);
+				wake(second);
+				collide(first, second);
+			}
+		}
+	}
+	
+	/**
+	 * Flags the pairs in [pStart, pEnd) whose bodies overlap. Only reads the store.
+	 */
+	private void findTouching(PairBuffer pPairs, int pStart, int pEnd) {
+		for(int i = pStart; i < pEnd; i++) {
+			int first = pPairs.getFirst(i);
+			int second = pPairs.getSecond(i);
+			int ox = store.halfWidth[first] + store.halfWidth[second] - Math.abs(store.x[first] - store.x[second]);
+			int oy = store.halfHeight[first] + store.halfHeight[second] - Math.abs(store.y[first] - store.y[second]);
+			touching[i] = ox >= 0 && oy >= 0 && (ox != 0 || oy != 0);
+		}
+	}
+	
+	/**
+	 * Splits overlap testing of a range of pairs across the pool.
+	 */
+	@SuppressWarnings("serial")
+	private class OverlapTask extends RecursiveAction {
+		private final PairBuffer pairs;
+		private final int start;
+		private final int end;
+		
+		OverlapTask(PairBuffer pPairs, int pStart, int pEnd) {
+			pairs = pPairs;
+			start = pStart;
+			end = pEnd;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - start <= PARALLEL_CHUNK) {
+				findTouching(pairs, start, end);
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new OverlapTask(pairs, start, middle), new OverlapTask(pairs, middle, end));
+			}
+		}
+	}
+	
+	/**
+	 * @return Number of threads used to test candidate pairs.
+	 */
+	public int getThreadCount() {
+		return pool == null ? 1 : pool.getParallelism();
+	}
+	
+	/**
+	 * Puts a moving body to sleep. It keeps its place in the broadphase, but
+	 * as a fixed proxy, so pairs between sleeping bodies are not reported.
+	 */
+	private void sleep(int pId) {
+		store.asleep[pId] = true;
+		broadphase.setFixed(pId, true);
+		sleepingCount++;
+	}
+	
+	/**
+	 * Wakes a moving body, or restarts its count of still steps if it is awake.
+	 * Fixed bodies are ignored.
+	 */
+	private void wake(int pId) {
+		if (store.fixed[pId]) {
+			return;
+		}
+		store.stillFrames[pId] = 0;
+		if (store.asleep[pId]) {
+			store.asleep[pId] = false;
+			broadphase.setFixed(pId, false);
+			sleepingCount--;
+		}
+	}
+	
+	/**
+	 * Sets how many steps a moving body must go without being moved
+	 * or changing speed, and without touching anything, before it
+	 * is put to sleep.
+	 * 
+	 * @param pSteps - Steps before sleeping, or 0 to never sleep.
+	 */
+	public void setSleepDelay(int pSteps) {
+		Preconditions.checkArgument(pSteps >= 0, "Sleep delay must not be negative : " + pSteps);
+		sleepDelay = pSteps;
+		if (sleepDelay == 0) {
+			wakeAll();
+		}
+	}
+	
+	private void wakeAll() {
+		for(int i = 0; i < moverCount; i++) {
+			wake(movers[i]);
+		}
+	}
+	
+	/**
+	 * @return Steps a moving body must be still before it is put to sleep, or 0 if bodies never sleep.
+	 */
+	public int getSleepDelay() {
+		return sleepDelay;
+	}
+	
+	@Override
+	public int getSleepingCount() {
+		return sleepingCount;
+	}
+	
+	@Override
+	public int getAwakeCount() {
+		return moverCount - sleepingCount;
+	}
+	
+	/**
+	 * @return Number of static bodies held in the static hierarchy.
+	 */
+	public int getStaticCount() {
+		return statics.size();
+	}
+	
+	/**
+	 * @return Store holding every body in this resolver, indexed by id.
+	 */
+	public ColliderStore getColliderStore() {
+		return store;
+	}
+	
+	/**
+	 * Resolves the overlap between two bodies, if there is one.
+	 */
+	private void collide(int pThis, int pOther) {
+		// distance between centers
+		int xAxis = Math.abs(store.x[pThis] - store.x[pOther]);
+		int yAxis = Math.abs(store.y[pThis] - store.y[pOther]);
+		
+		// combined half width and height
+		int cw = store.halfWidth[pThis] + store.halfWidth[pOther];
+		int ch = store.halfHeight[pThis] + store.halfHeight[pOther];
+		
+		//Early out for non overlaps
+		if (xAxis > cw || yAxis > ch) {
+			return;
+		}
+		
+		int ox = cw - xAxis;
+		int oy = ch - yAxis;
+		if (ox == 0 && oy == 0) {
+			return;
+		}
+		
+		// Sensors only report contacts
+		if (store.sensor[pThis] || store.sensor[pOther]) {
+			return;
+		}
+		
+		int thisMass = store.mass[pThis];
+		int otherMass = store.mass[pOther];
+		if(thisMass < otherMass) { 
+			// This object is smaller and therefore moves
+			resolveCollision(pThis, pOther, ox, oy);
+			
+		} else if (thisMass > otherMass) { 
+			// This object is bigger and therefore moves the other
+			resolveCollision(pOther, pThis, ox, oy);
+			
+		} else {
+			// These objects are the same mass. Tie Break
+			// Check for Movement
+			boolean currentMoving = Floatation.nonZero(store.lastSpeed[pThis]);
+			boolean otherMoving = Floatation.nonZero(store.lastSpeed[pOther]);
+			
+			// If one is moving and the other is not, fix the moving one.
+			if(currentMoving && !otherMoving) {
+				resolveCollision(pThis, pOther, ox, oy);
+			} else if (!currentMoving && otherMoving) {
+				resolveCollision(pOther, pThis, ox, oy);
+			} else {
+				// If both are still or both are moving, bounce apart on half their resolution vectors.
+				resolveBounceCollision(pThis, pOther, ox, oy);
+			}
+		}
+	}
+	
+	/**
+	 * Pushes the body's current bounding box into the broadphase.
+	 */
+	private void updateProxy(int pId) {
+		broadphase.update(
+				  pId
+				, store.x[pId] - store.halfWidth[pId]
+				, store.y[pId] - store.halfHeight[pId]
+				, store.x[pId] + store.halfWidth[pId]
+				, store.y[pId] + store.halfHeight[pId]
+				);
+	}
+	
+	private void resolveCollision(int pToMove, int pPushing, int pOverlapX, int pOverlapY) {
+		int moveX = resolutionX(pToMove, store.x[pPushing], store.y[pPushing], pOverlapX, pOverlapY);
+		int moveY = resolutionY(pToMove, store.x[pPushing], store.y[pPushing], pOverlapX, pOverlapY);
+		store.translate(pToMove, moveX, moveY);
+	}
+	
+	private void resolveBounceCollision(int pFirst, int pSecond, int pOverlapX, int pOverlapY) {
+		int firstX = resolutionX(pFirst, store.x[pSecond], store.y[pSecond], pOverlapX, pOverlapY);
+		int firstY = resolutionY(pFirst, store.x[pSecond], store.y[pSecond], pOverlapX, pOverlapY);
+		int secondX = resolutionX(pSecond, store.x[pFirst], store.y[pFirst], pOverlapX, pOverlapY);
+		int secondY = resolutionY(pSecond, store.x[pFirst], store.y[pFirst], pOverlapX, pOverlapY);
+		
+		// Transform by 1/2 their resolution vectors
+		store.translate(pFirst, (int)(firstX/2F), (int)(firstY/2F));
+		store.translate(pSecond, (int)(secondX/2F), (int)(secondY/2F));
+	}
+	
+	/*
+	 * Single axis resolution: push out along the axis of least overlap, one
+	 * pixel past touching, in the direction from the pushing body's center to
+	 * the pushed body's center. Both axes when the overlaps are equal.
+	 */
+	
+	private int resolutionX(int pToMove, int pPushX, int pPushY, int pOverlapX, int pOverlapY) {
+		if (pOverlapX > pOverlapY) {
+			return 0;
+		}
+		return (int)(direction(pToMove, pPushX, pPushY, true) * (pOverlapX + 1));
+	}
+	
+	private int resolutionY(int pToMove, int pPushX, int pPushY, int pOverlapX, int pOverlapY) {
+		if (pOverlapY > pOverlapX) {
+			return 0;
+		}
+		return (int)(direction(pToMove, pPushX, pPushY, false) * (pOverlapY + 1));
+	}
+	
+	/**
+	 * One component of the unit vector pointing from the pushing center to the
+	 * pushed body's center. NaN when the centers coincide, which casts to 0.
+	 */
+	private float direction(int pToMove, int pPushX, int pPushY, boolean pAxisX) {
+		float dx = (float)store.x[pToMove] - (float)pPushX;
+		float dy = (float)store.y[pToMove] - (float)pPushY;
+		float len = (float)Math.sqrt((dx*dx) + (dy*dy));
+		return pAxisX ? dx/len : dy/len;
+	}
+}
@@ -0,0 +1,178 @@
+package com.stonetolb.engine.physics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase that buckets proxies into a uniform grid of square cells and
+ * only tests proxies that share a cell against each other.
+ * <p>
+ * The grid is unbounded: cells are hashed into a table that is rebuilt every
+ * time pairs are requested, using a counting sort so the rebuild is linear in
+ * the number of (proxy, cell) entries. A proxy larger than a cell is entered
+ * into every cell it covers. Pairs that share more than one cell are only
+ * reported from the cell containing the top left corner of their overlap, so
+ * each pair is produced once.
+ * <p>
+ * Cost is roughly linear in the number of proxies as long as the cell size is
+ * on the order of the typical body size. The cell size is rounded up to a
+ * power of two.
+ */
+public class SpatialHashBroadphase extends AbstractBroadphase {
+	/** Default cell edge in pixels. A couple of character bodies wide. */
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	private final int cellShift;
+
+	/* Hash table, rebuilt on every findPairs call */
+	private int[] bucketStart = new int[17];
+	private int[] entries = new int[16];
+	private int mask;
+
+	/* Per bucket scratch used to drop duplicate entries of the same proxy */
+	private int[] stamp = new int[16];
+	private int[] scratch = new int[16];
+	private int stampValue = 0;
+
+	/**
+	 * Creates a spatial hash with {@link #DEFAULT_CELL_SIZE} cells.
+	 */
+	public SpatialHashBroadphase() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a spatial hash.
+	 * @param pCellSize - Edge length of a grid cell in pixels.
+	 */
+	public SpatialHashBroadphase(int pCellSize) {
+		checkArgument(pCellSize > 0, "Cell size must be positive");
+		cellShift = 32 - Integer.numberOfLeadingZeros(pCellSize - 1);
+	}
+
+	/**
+	 * @return Edge length of a grid cell in pixels.
+	 */
+	public int getCellSize() {
+		return 1 << cellShift;
+	}
+
+	@Override
+	public void findPairs(PairBuffer pPairs) {
+		build();
+
+		for (int bucket = 0; bucket <= mask; bucket++) {
+			int start = bucketStart[bucket];
+			int end = bucketStart[bucket + 1];
+			if (end - start < 2) {
+				continue;
+			}
+
+			// Collect the distinct proxies in this bucket
+			stampValue++;
+			int distinct = 0;
+			for (int i = start; i < end; i++) {
+				int proxy = entries[i];
+				if (stamp[proxy] != stampValue) {
+					stamp[proxy] = stampValue;
+					scratch[distinct++] = proxy;
+				}
+			}
+
+			for (int i = 0; i < distinct; i++) {
+				int first = scratch[i];
+				for (int j = i + 1; j < distinct; j++) {
+					int second = scratch[j];
+					if (!canPair(first, second)) {
+						continue;
+					}
+					if (overlaps(first, second) && ownsPair(bucket, first, second)) {
+						pPairs.add(first, second);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counting sort of all (cell, proxy) entries into the hash table.
+	 */
+	private void build() {
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			int proxy = proxies[i];
+			total += ((maxX[proxy] >> cellShift) - (minX[proxy] >> cellShift) + 1)
+				   * ((maxY[proxy] >> cellShift) - (minY[proxy] >> cellShift) + 1);
+		}
+
+		int tableSize = 16;
+		while (tableSize < total) {
+			tableSize <<= 1;
+		}
+		mask = tableSize - 1;
+
+		if (bucketStart.length < tableSize + 1) {
+			bucketStart = new int[tableSize + 1];
+		} else {
+			Arrays.fill(bucketStart, 0, tableSize + 1, 0);
+		}
+		if (entries.length < total) {
+			entries = new int[Math.max(total, entries.length * 2)];
+		}
+		if (stamp.length < minX.length || stampValue > Integer.MAX_VALUE - tableSize) {
+			stamp = new int[Math.max(minX.length, stamp.length)];
+			stampValue = 0;
+		}
+		if (scratch.length < count) {
+			scratch = new int[Math.max(count, scratch.length * 2)];
+		}
+
+		// Count entries per bucket
+		for (int i = 0; i < count; i++) {
+			int proxy = proxies[i];
+			int cx1 = maxX[proxy] >> cellShift;
+			int cy1 = maxY[proxy] >> cellShift;
+			for (int cx = minX[proxy] >> cellShift; cx <= cx1; cx++) {
+				for (int cy = minY[proxy] >> cellShift; cy <= cy1; cy++) {
+					bucketStart[hash(cx, cy) + 1]++;
+				}
+			}
+		}
+
+		// Prefix sums give the start of every bucket
+		for (int bucket = 0; bucket < tableSize; bucket++) {
+			bucketStart[bucket + 1] += bucketStart[bucket];
+		}
+
+		// Fill, using the next bucket's start as a moving cursor then shift back
+		for (int i = 0; i < count; i++) {
+			int proxy = proxies[i];
+			int cx1 = maxX[proxy] >> cellShift;
+			int cy1 = maxY[proxy] >> cellShift;
+			for (int cx = minX[proxy] >> cellShift; cx <= cx1; cx++) {
+				for (int cy = minY[proxy] >> cellShift; cy <= cy1; cy++) {
+					entries[bucketStart[hash(cx, cy)]++] = proxy;
+				}
+			}
+		}
+		for (int bucket = tableSize; bucket > 0; bucket--) {
+			bucketStart[bucket] = bucketStart[bucket - 1];
+		}
+		bucketStart[0] = 0;
+	}
+
+	/**
+	 * A pair is owned by the bucket of the cell holding the top left corner
+	 * of the two proxies' overlap. Both proxies are always entered in that cell.
+	 */
+	private boolean ownsPair(int pBucket, int pFirst, int pSecond) {
+		int cx = Math.max(minX[pFirst], minX[pSecond]) >> cellShift;
+		int cy = Math.max(minY[pFirst], minY[pSecond]) >> cellShift;
+		return hash(cx, cy) == pBucket;
+	}
+
+	private int hash(int pCellX, int pCellY) {
+		return ((pCellX * 73856093) ^ (pCellY * 19349663)) & mask;
+	}
+}
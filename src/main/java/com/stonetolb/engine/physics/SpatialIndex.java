@@ -0,0 +1,670 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Uniform grid over body boxes, for answering {@link SpatialQuery} calls
+ * without looking at every body.
+ * <p>
+ * Bodies are added, then {@link #build()} lays the grid over them with a
+ * margin to spare and links each body into every cell its box covers, so a
+ * query only looks at the bodies in the cells it touches. Grids over very
+ * large worlds use bigger cells rather than more of them, see
+ * {@link #MAX_CELLS}.
+ * <p>
+ * Once built the index is kept up to date body by body: {@link #add},
+ * {@link #move} and {@link #remove} only relink the body they touch, and a
+ * move that stays within the same cells only updates its box. Only a body
+ * leaving the grid altogether makes the next query build the grid again.
+ * <p>
+ * Extents are inclusive on both ends, the same as {@link Broadphase}. Once its
+ * arrays have grown to the size of the world neither updating, building nor
+ * querying allocates. The index is not thread safe.
+ */
+public class SpatialIndex implements SpatialQuery {
+	public static final int DEFAULT_CELL_SIZE = 64;
+	public static final int MAX_CELLS = 1 << 16;
+	private static final int NONE = -1;
+
+	private final int baseCellSize;
+
+	/* Body boxes and categories, by id */
+	private int[] x = new int[16];
+	private int[] y = new int[16];
+	private int[] halfWidth = new int[16];
+	private int[] halfHeight = new int[16];
+	private int[] category = new int[16];
+
+	/* Dense list of added ids, and where each id sits in it or NONE */
+	private int[] ids = new int[16];
+	private int[] slot = filled(16);
+	private int count = 0;
+
+	/* Cells each linked body covers, by id */
+	private int[] firstColumn = new int[16];
+	private int[] firstRow = new int[16];
+	private int[] lastColumn = new int[16];
+	private int[] lastRow = new int[16];
+	private int[] firstNode = filled(16);
+
+	/* Grid: cell i = r * columns + c lists the nodes from cellHead[i] along nodeNext */
+	private int cellSize;
+	private int originX;
+	private int originY;
+	private int columns;
+	private int rows;
+	private int[] cellHead = new int[1];
+	private boolean built = false;
+	private boolean stale = false;
+	private int builds = 0;
+
+	/* One node per body per covered cell, chained per cell and per body, recycled through freeNode */
+	private int[] nodeBody = new int[16];
+	private int[] nodeCell = new int[16];
+	private int[] nodeNext = new int[16];
+	private int[] nodePrevious = new int[16];
+	private int[] nodeSibling = new int[16];
+	private int nodeCount = 0;
+	private int freeNode = NONE;
+
+	/* Visit stamps by id, so a body spanning several cells is seen once a query */
+	private int[] stamp = new int[16];
+	private int stampValue = 0;
+
+	private float rayFraction = 1F;
+	private long[] nearestDistance = new long[4];
+
+	/**
+	 * Creates an empty index with {@link #DEFAULT_CELL_SIZE} cells.
+	 */
+	public SpatialIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates an empty index.
+	 * @param pCellSize - Smallest side of a cell in pixels. A few times the
+	 * size of a typical body works well.
+	 */
+	public SpatialIndex(int pCellSize) {
+		Preconditions.checkArgument(pCellSize > 0, "Cell size must be positive");
+		baseCellSize = pCellSize;
+		cellSize = pCellSize;
+	}
+
+	/**
+	 * Removes every body. The index cannot be queried until it is built again.
+	 */
+	public void clear() {
+		for (int i = 0; i < count; i++) {
+			slot[ids[i]] = NONE;
+			firstNode[ids[i]] = NONE;
+		}
+		count = 0;
+		nodeCount = 0;
+		freeNode = NONE;
+		built = false;
+		stale = false;
+	}
+
+	/**
+	 * Adds a body. If the index has been built it stays ready to query.
+	 *
+	 * @param pId - Non-negative id of the body, not already added.
+	 * @param pX - Center X.
+	 * @param pY - Center Y.
+	 * @param pHalfWidth - Half of the width.
+	 * @param pHalfHeight - Half of the height.
+	 * @param pCategory - Bits naming the groups the body belongs to.
+	 */
+	public void add(int pId, int pX, int pY, int pHalfWidth, int pHalfHeight, int pCategory) {
+		if (pId < 0) {
+			throw new IllegalArgumentException("Ids must be non-negative : " + pId);
+		}
+		if (pId >= x.length) {
+			int capacity = Math.max(pId + 1, x.length * 2);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			halfWidth = Arrays.copyOf(halfWidth, capacity);
+			halfHeight = Arrays.copyOf(halfHeight, capacity);
+			category = Arrays.copyOf(category, capacity);
+			stamp = Arrays.copyOf(stamp, capacity);
+			firstColumn = Arrays.copyOf(firstColumn, capacity);
+			firstRow = Arrays.copyOf(firstRow, capacity);
+			lastColumn = Arrays.copyOf(lastColumn, capacity);
+			lastRow = Arrays.copyOf(lastRow, capacity);
+			slot = grow(slot, capacity);
+			firstNode = grow(firstNode, capacity);
+		}
+		if (slot[pId] != NONE) {
+			throw new IllegalArgumentException("Id already added : " + pId);
+		}
+		if (count == ids.length) {
+			ids = Arrays.copyOf(ids, count * 2);
+		}
+
+		x[pId] = pX;
+		y[pId] = pY;
+		halfWidth[pId] = pHalfWidth;
+		halfHeight[pId] = pHalfHeight;
+		category[pId] = pCategory;
+		slot[pId] = count;
+		ids[count++] = pId;
+		if (built) {
+			relink(pId);
+		}
+	}
+
+	/**
+	 * Moves a body. Only the cells it leaves and enters are touched.
+	 *
+	 * @param pId - Id of an added body.
+	 * @param pX - New center X.
+	 * @param pY - New center Y.
+	 */
+	public void move(int pId, int pX, int pY) {
+		checkAdded(pId);
+		if (x[pId] == pX && y[pId] == pY) {
+			return;
+		}
+		x[pId] = pX;
+		y[pId] = pY;
+		if (built) {
+			relink(pId);
+		}
+	}
+
+	/**
+	 * Removes a body. If the index has been built it stays ready to query.
+	 *
+	 * @param pId - Id of an added body.
+	 */
+	public void remove(int pId) {
+		checkAdded(pId);
+		unlink(pId);
+		int last = ids[--count];
+		ids[slot[pId]] = last;
+		slot[last] = slot[pId];
+		slot[pId] = NONE;
+	}
+
+	/**
+	 * @param pId - Id of a body.
+	 * @return True if the body has been added and not removed.
+	 */
+	public boolean contains(int pId) {
+		return pId >= 0 && pId < slot.length && slot[pId] != NONE;
+	}
+
+	/**
+	 * Lays the grid over the added bodies. Must be called before querying.
+	 */
+	public void build() {
+		built = true;
+		stale = false;
+		builds++;
+		for (int i = 0; i < count; i++) {
+			firstNode[ids[i]] = NONE;
+		}
+		nodeCount = 0;
+		freeNode = NONE;
+		if (count == 0) {
+			columns = rows = 0;
+			return;
+		}
+
+		long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+		long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			int id = ids[i];
+			minX = Math.min(minX, x[id] - halfWidth[id]);
+			minY = Math.min(minY, y[id] - halfHeight[id]);
+			maxX = Math.max(maxX, x[id] + halfWidth[id]);
+			maxY = Math.max(maxY, y[id] + halfHeight[id]);
+		}
+
+		// Leave room around the bodies, so they can wander a while before the grid has to grow
+		long marginX = (maxX - minX) / 8 + baseCellSize;
+		long marginY = (maxY - minY) / 8 + baseCellSize;
+		originX = (int)Math.max(Integer.MIN_VALUE, minX - marginX);
+		originY = (int)Math.max(Integer.MIN_VALUE, minY - marginY);
+		long spanX = Math.min(Integer.MAX_VALUE, maxX + marginX) - originX + 1;
+		long spanY = Math.min(Integer.MAX_VALUE, maxY + marginY) - originY + 1;
+		cellSize = baseCellSize;
+		while (cellsAcross(spanX) * cellsAcross(spanY) > MAX_CELLS) {
+			cellSize *= 2;
+		}
+		columns = (int)cellsAcross(spanX);
+		rows = (int)cellsAcross(spanY);
+
+		int cells = columns * rows;
+		if (cellHead.length < cells) {
+			cellHead = new int[Math.max(cells, cellHead.length * 2)];
+		}
+		Arrays.fill(cellHead, 0, cells, NONE);
+
+		for (int i = 0; i < count; i++) {
+			link(ids[i]);
+		}
+	}
+
+	/**
+	 * @return Number of times the grid has been built, for telling a full
+	 * rebuild from an update.
+	 */
+	public int getBuildCount() {
+		return builds;
+	}
+
+	/**
+	 * @return Number of bodies in the index.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return Side of a cell in the current grid.
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	@Override
+	public int region(int pMinX, int pMinY, int pMaxX, int pMaxY, int pMask, BodyVisitor pVisitor) {
+		checkBuilt();
+		if (columns == 0 || pMaxX < originX || pMaxY < originY
+				|| pMinX > originX + (long)columns * cellSize - 1
+				|| pMinY > originY + (long)rows * cellSize - 1) {
+			return 0;
+		}
+
+		int c0 = clampColumn(pMinX), c1 = clampColumn(pMaxX);
+		int r0 = clampRow(pMinY), r1 = clampRow(pMaxY);
+		nextStamp();
+		int visited = 0;
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				for (int node = cellHead[r * columns + c]; node != NONE; node = nodeNext[node]) {
+					int id = nodeBody[node];
+					if (stamp[id] == stampValue) {
+						continue;
+					}
+					stamp[id] = stampValue;
+					if ((category[id] & pMask) == 0) {
+						continue;
+					}
+					if (x[id] - halfWidth[id] <= pMaxX && pMinX <= x[id] + halfWidth[id]
+							&& y[id] - halfHeight[id] <= pMaxY && pMinY <= y[id] + halfHeight[id]) {
+						visited++;
+						if (!pVisitor.visit(id)) {
+							return visited;
+						}
+					}
+				}
+			}
+		}
+		return visited;
+	}
+
+	@Override
+	public int raycast(int pX, int pY, int pDX, int pDY, int pMask, int pIgnore) {
+		checkBuilt();
+		rayFraction = 1F;
+		if (columns == 0) {
+			return NONE;
+		}
+
+		// Clip the ray to the grid
+		float start = rayEnter(pX, pY, pDX, pDY, originX, originY,
+				(int)Math.min(Integer.MAX_VALUE, originX + (long)columns * cellSize - 1),
+				(int)Math.min(Integer.MAX_VALUE, originY + (long)rows * cellSize - 1));
+		if (start > 1F) {
+			return NONE;
+		}
+
+		// Walk the cells the ray passes through, in order
+		int c = clampColumn((int)Math.floor(pX + pDX * start));
+		int r = clampRow((int)Math.floor(pY + pDY * start));
+		int stepC = pDX > 0 ? 1 : -1;
+		int stepR = pDY > 0 ? 1 : -1;
+		float deltaC = pDX == 0 ? Float.POSITIVE_INFINITY : (float)cellSize / Math.abs(pDX);
+		float deltaR = pDY == 0 ? Float.POSITIVE_INFINITY : (float)cellSize / Math.abs(pDY);
+		float nextC = pDX == 0 ? Float.POSITIVE_INFINITY
+				: (float)(originX + (long)(c + (pDX > 0 ? 1 : 0)) * cellSize - pX) / pDX;
+		float nextR = pDY == 0 ? Float.POSITIVE_INFINITY
+				: (float)(originY + (long)(r + (pDY > 0 ? 1 : 0)) * cellSize - pY) / pDY;
+
+		nextStamp();
+		int hit = NONE;
+		while (true) {
+			for (int node = cellHead[r * columns + c]; node != NONE; node = nodeNext[node]) {
+				int id = nodeBody[node];
+				if (stamp[id] == stampValue) {
+					continue;
+				}
+				stamp[id] = stampValue;
+				if (id == pIgnore || (category[id] & pMask) == 0) {
+					continue;
+				}
+				float enter = rayEnter(pX, pY, pDX, pDY
+						, x[id] - halfWidth[id], y[id] - halfHeight[id]
+						, x[id] + halfWidth[id], y[id] + halfHeight[id]);
+				if (enter < rayFraction || (enter == rayFraction && hit == NONE)) {
+					rayFraction = enter;
+					hit = id;
+				}
+			}
+
+			// Nothing in a later cell can be hit sooner
+			float leave = Math.min(nextC, nextR);
+			if ((hit != NONE && rayFraction <= leave) || leave > 1F) {
+				break;
+			}
+			if (nextC < nextR) {
+				c += stepC;
+				nextC += deltaC;
+				if (c < 0 || c >= columns) {
+					break;
+				}
+			} else {
+				r += stepR;
+				nextR += deltaR;
+				if (r < 0 || r >= rows) {
+					break;
+				}
+			}
+		}
+		return hit;
+	}
+
+	@Override
+	public float getRayFraction() {
+		return rayFraction;
+	}
+
+	@Override
+	public int nearest(int pX, int pY, int pMaxDistance, int pMask, int pIgnore, int[] pOut) {
+		checkBuilt();
+		int wanted = pOut.length;
+		if (wanted == 0 || columns == 0) {
+			return 0;
+		}
+		if (nearestDistance.length < wanted) {
+			nearestDistance = new long[Math.max(wanted, nearestDistance.length * 2)];
+		}
+		long limit = (long)pMaxDistance * pMaxDistance;
+
+		// Search rings of cells outwards from the point's cell, which may be off the grid
+		int pc = column(pX);
+		int pr = row(pY);
+		int lastRing = Math.max(Math.max(Math.abs(pc), Math.abs(columns - 1 - pc)), Math.max(Math.abs(pr), Math.abs(rows - 1 - pr)));
+
+		nextStamp();
+		int found = 0;
+		for (int ring = 0; ring <= lastRing; ring++) {
+			// Every center not yet seen is in this ring or beyond
+			if (ring > 1) {
+				long reach = (long)(ring - 1) * cellSize;
+				reach *= reach;
+				if (reach > limit || (found == wanted && reach > nearestDistance[wanted - 1])) {
+					break;
+				}
+			}
+
+			for (int r = Math.max(pr - ring, 0), r1 = Math.min(pr + ring, rows - 1); r <= r1; r++) {
+				// Whole rows at the top and bottom of the ring, just the ends in between
+				int step = (r == pr - ring || r == pr + ring) ? 1 : 2 * ring;
+				for (int c = pc - ring; c <= pc + ring; c += step) {
+					if (c >= 0 && c < columns) {
+						found = nearestInCell(r * columns + c, pX, pY, limit, pMask, pIgnore, pOut, found);
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Offers every unseen body in a cell to the sorted nearest list.
+	 * @return New number of ids in the list.
+	 */
+	private int nearestInCell(int pCell, int pX, int pY, long pLimit, int pMask, int pIgnore, int[] pOut, int pFound) {
+		int found = pFound;
+		int wanted = pOut.length;
+		for (int node = cellHead[pCell]; node != NONE; node = nodeNext[node]) {
+			int id = nodeBody[node];
+			if (stamp[id] == stampValue) {
+				continue;
+			}
+			stamp[id] = stampValue;
+			if (id == pIgnore || (category[id] & pMask) == 0) {
+				continue;
+			}
+
+			long dx = (long)x[id] - pX;
+			long dy = (long)y[id] - pY;
+			long distance = dx * dx + dy * dy;
+			if (distance > pLimit) {
+				continue;
+			}
+
+			int position;
+			if (found < wanted) {
+				position = found++;
+			} else if (distance < nearestDistance[wanted - 1]) {
+				position = wanted - 1;
+			} else {
+				continue;
+			}
+			while (position > 0 && nearestDistance[position - 1] > distance) {
+				nearestDistance[position] = nearestDistance[position - 1];
+				pOut[position] = pOut[position - 1];
+				position--;
+			}
+			nearestDistance[position] = distance;
+			pOut[position] = id;
+		}
+		return found;
+	}
+
+	/**
+	 * Slab test of a ray from (pX, pY) along (pDX, pDY) against an inclusive box.
+	 * @return Fraction of the ray travelled before it enters the box, 0 if it
+	 * starts inside, or more than 1 if it never does.
+	 */
+	private static float rayEnter(int pX, int pY, int pDX, int pDY, int pMinX, int pMinY, int pMaxX, int pMaxY) {
+		float enter = 0F;
+		float exit = 1F;
+
+		if (pDX == 0) {
+			if (pX < pMinX || pX > pMaxX) {
+				return Float.POSITIVE_INFINITY;
+			}
+		} else {
+			float near = (float)((long)pMinX - pX) / pDX;
+			float far = (float)((long)pMaxX - pX) / pDX;
+			enter = Math.max(enter, Math.min(near, far));
+			exit = Math.min(exit, Math.max(near, far));
+		}
+
+		if (pDY == 0) {
+			if (pY < pMinY || pY > pMaxY) {
+				return Float.POSITIVE_INFINITY;
+			}
+		} else {
+			float near = (float)((long)pMinY - pY) / pDY;
+			float far = (float)((long)pMaxY - pY) / pDY;
+			enter = Math.max(enter, Math.min(near, far));
+			exit = Math.min(exit, Math.max(near, far));
+		}
+
+		return enter > exit ? Float.POSITIVE_INFINITY : enter;
+	}
+
+	/**
+	 * Throws if a body is not in the index. The message is only built when
+	 * thrown, since bodies are added, moved and removed every step.
+	 */
+	private void checkAdded(int pId) {
+		if (!contains(pId)) {
+			throw new IllegalArgumentException("Id not added : " + pId);
+		}
+	}
+
+	/**
+	 * Makes sure the grid can answer a query, building it again if a body
+	 * has left it.
+	 */
+	private void checkBuilt() {
+		Preconditions.checkState(built, "Index must be built before it is queried");
+		if (stale) {
+			build();
+		}
+	}
+
+	/**
+	 * Links a body into the cells it now covers, unless those are the cells
+	 * it is already in. A body that no longer fits in the grid leaves it to
+	 * be built again.
+	 */
+	private void relink(int pId) {
+		if (stale) {
+			return;
+		}
+		long minX = (long)x[pId] - halfWidth[pId];
+		long minY = (long)y[pId] - halfHeight[pId];
+		long maxX = (long)x[pId] + halfWidth[pId];
+		long maxY = (long)y[pId] + halfHeight[pId];
+		if (columns == 0 || minX < originX || minY < originY
+				|| maxX > originX + (long)columns * cellSize - 1
+				|| maxY > originY + (long)rows * cellSize - 1) {
+			stale = true;
+			return;
+		}
+		if (firstNode[pId] != NONE
+				&& column((int)minX) == firstColumn[pId] && row((int)minY) == firstRow[pId]
+				&& column((int)maxX) == lastColumn[pId] && row((int)maxY) == lastRow[pId]) {
+			return;
+		}
+		unlink(pId);
+		link(pId);
+	}
+
+	/**
+	 * Puts a body that lies inside the grid into every cell its box covers.
+	 */
+	private void link(int pId) {
+		int c0 = column(x[pId] - halfWidth[pId]);
+		int r0 = row(y[pId] - halfHeight[pId]);
+		int c1 = column(x[pId] + halfWidth[pId]);
+		int r1 = row(y[pId] + halfHeight[pId]);
+		firstColumn[pId] = c0;
+		firstRow[pId] = r0;
+		lastColumn[pId] = c1;
+		lastRow[pId] = r1;
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int cell = r * columns + c;
+				int node = newNode();
+				nodeBody[node] = pId;
+				nodeCell[node] = cell;
+				nodePrevious[node] = NONE;
+				nodeNext[node] = cellHead[cell];
+				if (cellHead[cell] != NONE) {
+					nodePrevious[cellHead[cell]] = node;
+				}
+				cellHead[cell] = node;
+				nodeSibling[node] = firstNode[pId];
+				firstNode[pId] = node;
+			}
+		}
+	}
+
+	/**
+	 * Takes a body out of every cell it is in.
+	 */
+	private void unlink(int pId) {
+		int node = firstNode[pId];
+		while (node != NONE) {
+			int sibling = nodeSibling[node];
+			if (nodePrevious[node] == NONE) {
+				cellHead[nodeCell[node]] = nodeNext[node];
+			} else {
+				nodeNext[nodePrevious[node]] = nodeNext[node];
+			}
+			if (nodeNext[node] != NONE) {
+				nodePrevious[nodeNext[node]] = nodePrevious[node];
+			}
+			nodeSibling[node] = freeNode;
+			freeNode = node;
+			node = sibling;
+		}
+		firstNode[pId] = NONE;
+	}
+
+	/**
+	 * @return A node off the free list, or a new one.
+	 */
+	private int newNode() {
+		if (freeNode != NONE) {
+			int node = freeNode;
+			freeNode = nodeSibling[node];
+			return node;
+		}
+		if (nodeCount == nodeBody.length) {
+			int capacity = nodeCount * 2;
+			nodeBody = Arrays.copyOf(nodeBody, capacity);
+			nodeCell = Arrays.copyOf(nodeCell, capacity);
+			nodeNext = Arrays.copyOf(nodeNext, capacity);
+			nodePrevious = Arrays.copyOf(nodePrevious, capacity);
+			nodeSibling = Arrays.copyOf(nodeSibling, capacity);
+		}
+		return nodeCount++;
+	}
+
+	private static int[] filled(int pLength) {
+		int[] array = new int[pLength];
+		Arrays.fill(array, NONE);
+		return array;
+	}
+
+	private static int[] grow(int[] pArray, int pLength) {
+		int[] array = Arrays.copyOf(pArray, pLength);
+		Arrays.fill(array, pArray.length, pLength, NONE);
+		return array;
+	}
+
+	private void nextStamp() {
+		if (++stampValue == 0) {
+			Arrays.fill(stamp, 0);
+			stampValue = 1;
+		}
+	}
+
+	private long cellsAcross(long pSpan) {
+		return (pSpan + cellSize - 1) / cellSize;
+	}
+
+	private int column(int pX) {
+		return (int)floorDiv((long)pX - originX, cellSize);
+	}
+
+	private int row(int pY) {
+		return (int)floorDiv((long)pY - originY, cellSize);
+	}
+
+	private int clampColumn(int pX) {
+		return Math.max(0, Math.min(columns - 1, column(pX)));
+	}
+
+	private int clampRow(int pY) {
+		return Math.max(0, Math.min(rows - 1, row(pY)));
+	}
+
+	private static long floorDiv(long pValue, long pDivisor) {
+		return pValue >= 0 ? pValue / pDivisor : -((-pValue - 1) / pDivisor) - 1;
+	}
+}
@@ -0,0 +1,61 @@
+package com.stonetolb.engine.physics;
+
+/**
+ * Questions about where bodies are, answered without scanning every entity.
+ * <p>
+ * Bodies are identified by the same ids as in {@link PhysicsBackend}, and are
+ * tested by their bounding boxes as of the last physics step. Every query
+ * takes a mask, and only sees bodies whose
+ * {@link com.stonetolb.engine.component.physics.Body#getCategory() category}
+ * shares a bit with it. No query allocates.
+ */
+public interface SpatialQuery {
+
+	/**
+	 * Visits every body whose box overlaps the given box, each once.
+	 *
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 * @param pMask - Categories to look for.
+	 * @param pVisitor - Called for each body found.
+	 * @return Number of bodies visited.
+	 */
+	public int region(int pMinX, int pMinY, int pMaxX, int pMaxY, int pMask, BodyVisitor pVisitor);
+
+	/**
+	 * Casts a ray from (pX, pY) to (pX + pDX, pY + pDY) and finds the first
+	 * body box it enters. A body the ray starts inside is hit at once. How
+	 * far along the ray the hit was is given by {@link #getRayFraction()}.
+	 *
+	 * @param pX - Start X.
+	 * @param pY - Start Y.
+	 * @param pDX - Horizontal length of the ray.
+	 * @param pDY - Vertical length of the ray.
+	 * @param pMask - Categories to look for.
+	 * @param pIgnore - Id of a body to see through, usually the caster. -1 for none.
+	 * @return Id of the first body hit, or -1 if there is none.
+	 */
+	public int raycast(int pX, int pY, int pDX, int pDY, int pMask, int pIgnore);
+
+	/**
+	 * @return Fraction of the last ray travelled before it hit, or 1 if it
+	 * hit nothing.
+	 */
+	public float getRayFraction();
+
+	/**
+	 * Finds the bodies whose centers are nearest a point.
+	 *
+	 * @param pX - Point X.
+	 * @param pY - Point Y.
+	 * @param pMaxDistance - Furthest a center may be from the point.
+	 * @param pMask - Categories to look for.
+	 * @param pIgnore - Id of a body to leave out, usually the asker. -1 for none.
+	 * @param pOut - Filled with the ids found, nearest first. Its length is
+	 * how many to look for.
+	 * @return Number of ids written to pOut.
+	 */
+	public int nearest(int pX, int pY, int pMaxDistance, int pMask, int pIgnore, int[] pOut);
+}
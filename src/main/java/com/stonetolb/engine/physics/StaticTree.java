@@ -0,0 +1,335 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume hierarchy over bodies that never move.
+ * <p>
+ * The tree is built top down by splitting each node's items at the median
+ * center along the node's longest axis, so it stays balanced and a query for
+ * a small box touches O(log n) nodes. Since the items are static the tree is
+ * only rebuilt when an item is added or removed, and that rebuild is deferred
+ * until {@link #refresh()} so that loading a map full of props only builds it
+ * once.
+ * <p>
+ * Extents are inclusive on both ends, and items are filtered by category and
+ * mask, the same as {@link Broadphase}.
+ */
+public class StaticTree {
+	private static final int LEAF_SIZE = 4;
+	private static final int NONE = -1;
+
+	/* Items, dense, indexed by slot */
+	private int[] ids = new int[16];
+	private int[] minX = new int[16];
+	private int[] minY = new int[16];
+	private int[] maxX = new int[16];
+	private int[] maxY = new int[16];
+	private int[] category = new int[16];
+	private int[] mask = new int[16];
+	private int count = 0;
+
+	/* Slot of each id */
+	private int[] slotOf = filled(16);
+
+	/*
+	 * Nodes, interleaved NODE_STRIDE ints apiece so a visit touches one cache line:
+	 * minX, minY, maxX, maxY, first child (branch) or first leaf item (leaf), leaf item count.
+	 * Children of a branch are stored next to each other.
+	 */
+	private static final int NODE_STRIDE = 6;
+	private int[] tree = new int[0];
+	private int nodes = 0;
+
+	/* Item extents, ids and filters copied into leaf order, interleaved ITEM_STRIDE ints apiece */
+	private static final int ITEM_STRIDE = 7;
+	private int[] leafItems = new int[0];
+
+	/* Item slots in leaf order, only used while building */
+	private int[] order = new int[16];
+	private boolean dirty = false;
+
+	/* Traversal stack. Median splits keep the depth far below this */
+	private final int[] stack = new int[64];
+
+	/**
+	 * Adds a static item that every query can hit. The tree is not rebuilt
+	 * until {@link #refresh()}.
+	 *
+	 * @param pId - Non-negative handle of the item.
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 */
+	public void add(int pId, int pMinX, int pMinY, int pMaxX, int pMaxY) {
+		add(pId, pMinX, pMinY, pMaxX, pMaxY, ~0, ~0);
+	}
+
+	/**
+	 * Adds a static item. The tree is not rebuilt until {@link #refresh()}.
+	 *
+	 * @param pId - Non-negative handle of the item.
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 * @param pCategory - Bits naming the groups the item belongs to.
+	 * @param pMask - Bits naming the groups the item can touch.
+	 */
+	public void add(int pId, int pMinX, int pMinY, int pMaxX, int pMaxY, int pCategory, int pMask) {
+		if (pId >= slotOf.length) {
+			int oldLength = slotOf.length;
+			slotOf = Arrays.copyOf(slotOf, Math.max(oldLength * 2, pId + 1));
+			Arrays.fill(slotOf, oldLength, slotOf.length, NONE);
+		}
+
+		int slot = slotOf[pId];
+		if (slot == NONE) {
+			if (count == ids.length) {
+				int capacity = count * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				minX = Arrays.copyOf(minX, capacity);
+				minY = Arrays.copyOf(minY, capacity);
+				maxX = Arrays.copyOf(maxX, capacity);
+				maxY = Arrays.copyOf(maxY, capacity);
+				category = Arrays.copyOf(category, capacity);
+				mask = Arrays.copyOf(mask, capacity);
+			}
+			slot = count++;
+			slotOf[pId] = slot;
+			ids[slot] = pId;
+		}
+
+		minX[slot] = pMinX;
+		minY[slot] = pMinY;
+		maxX[slot] = pMaxX;
+		maxY[slot] = pMaxY;
+		category[slot] = pCategory;
+		mask[slot] = pMask;
+		dirty = true;
+	}
+
+	/**
+	 * Removes a static item. The tree is not rebuilt until {@link #refresh()}.
+	 * Unknown handles are ignored.
+	 *
+	 * @param pId - Handle of the item.
+	 */
+	public void remove(int pId) {
+		if (pId < 0 || pId >= slotOf.length || slotOf[pId] == NONE) {
+			return;
+		}
+
+		int hole = slotOf[pId];
+		int last = --count;
+		ids[hole] = ids[last];
+		minX[hole] = minX[last];
+		minY[hole] = minY[last];
+		maxX[hole] = maxX[last];
+		maxY[hole] = maxY[last];
+		category[hole] = category[last];
+		mask[hole] = mask[last];
+		slotOf[ids[hole]] = hole;
+		slotOf[pId] = NONE;
+		dirty = true;
+	}
+
+	/**
+	 * @return Number of items in the tree.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return True if items changed since the tree was last built.
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Rebuilds the hierarchy if any items were added or removed since the
+	 * last build. Must be called before querying.
+	 */
+	public void refresh() {
+		if (!dirty) {
+			return;
+		}
+
+		if (order.length < count) {
+			order = new int[ids.length];
+		}
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+
+		int maxNodes = Math.max(1, 2 * count);
+		if (tree.length < maxNodes * NODE_STRIDE) {
+			tree = new int[maxNodes * NODE_STRIDE];
+		}
+
+		nodes = 0;
+		if (count > 0) {
+			build(nodes++, 0, count);
+		}
+
+		if (leafItems.length < count * ITEM_STRIDE) {
+			leafItems = new int[ids.length * ITEM_STRIDE];
+		}
+		for (int i = 0; i < count; i++) {
+			int slot = order[i];
+			int item = i * ITEM_STRIDE;
+			leafItems[item] = minX[slot];
+			leafItems[item + 1] = minY[slot];
+			leafItems[item + 2] = maxX[slot];
+			leafItems[item + 3] = maxY[slot];
+			leafItems[item + 4] = ids[slot];
+			leafItems[item + 5] = category[slot];
+			leafItems[item + 6] = mask[slot];
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Adds a pair of (pQueryId, item) to the buffer for every item whose
+	 * extents overlap the given box, whatever its filter.
+	 *
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 * @param pQueryId - Handle to pair each hit with.
+	 * @param pPairs - Buffer to add pairs to.
+	 */
+	public void query(int pMinX, int pMinY, int pMaxX, int pMaxY, int pQueryId, PairBuffer pPairs) {
+		query(pMinX, pMinY, pMaxX, pMaxY, pQueryId, ~0, ~0, pPairs);
+	}
+
+	/**
+	 * Adds a pair of (pQueryId, item) to the buffer for every item whose
+	 * filter accepts the query's and whose extents overlap the given box.
+	 *
+	 * @param pMinX - Left edge.
+	 * @param pMinY - Top edge.
+	 * @param pMaxX - Right edge.
+	 * @param pMaxY - Bottom edge.
+	 * @param pQueryId - Handle to pair each hit with.
+	 * @param pCategory - Bits naming the groups the query belongs to.
+	 * @param pMask - Bits naming the groups the query can touch.
+	 * @param pPairs - Buffer to add pairs to.
+	 */
+	public void query(int pMinX, int pMinY, int pMaxX, int pMaxY, int pQueryId, int pCategory, int pMask, PairBuffer pPairs) {
+		if (nodes == 0) {
+			return;
+		}
+
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top] * NODE_STRIDE;
+			if (tree[node] > pMaxX || pMinX > tree[node + 2]
+					|| tree[node + 1] > pMaxY || pMinY > tree[node + 3]) {
+				continue;
+			}
+
+			int leafCount = tree[node + 5];
+			if (leafCount > 0) {
+				int end = (tree[node + 4] + leafCount) * ITEM_STRIDE;
+				for (int item = tree[node + 4] * ITEM_STRIDE; item < end; item += ITEM_STRIDE) {
+					if ((leafItems[item + 5] & pMask) == 0 || (pCategory & leafItems[item + 6]) == 0) {
+						continue;
+					}
+					if (leafItems[item] <= pMaxX && pMinX <= leafItems[item + 2]
+							&& leafItems[item + 1] <= pMaxY && pMinY <= leafItems[item + 3]) {
+						pPairs.add(pQueryId, leafItems[item + 4]);
+					}
+				}
+			} else {
+				stack[top++] = tree[node + 4];
+				stack[top++] = tree[node + 4] + 1;
+			}
+		}
+	}
+
+	/**
+	 * Builds the subtree for order[pStart, pEnd) into the given node.
+	 */
+	private void build(int pNode, int pStart, int pEnd) {
+		int bMinX = Integer.MAX_VALUE, bMinY = Integer.MAX_VALUE;
+		int bMaxX = Integer.MIN_VALUE, bMaxY = Integer.MIN_VALUE;
+		for (int i = pStart; i < pEnd; i++) {
+			int slot = order[i];
+			bMinX = Math.min(bMinX, minX[slot]);
+			bMinY = Math.min(bMinY, minY[slot]);
+			bMaxX = Math.max(bMaxX, maxX[slot]);
+			bMaxY = Math.max(bMaxY, maxY[slot]);
+		}
+		int node = pNode * NODE_STRIDE;
+		tree[node] = bMinX;
+		tree[node + 1] = bMinY;
+		tree[node + 2] = bMaxX;
+		tree[node + 3] = bMaxY;
+
+		if (pEnd - pStart <= LEAF_SIZE) {
+			tree[node + 4] = pStart;
+			tree[node + 5] = pEnd - pStart;
+			return;
+		}
+
+		// Split at the median center of the longest axis
+		boolean splitX = (bMaxX - bMinX) >= (bMaxY - bMinY);
+		int middle = (pStart + pEnd) >>> 1;
+		select(pStart, pEnd - 1, middle, splitX);
+
+		int child = nodes;
+		nodes += 2;
+		tree[node + 4] = child;
+		tree[node + 5] = 0;
+		build(child, pStart, middle);
+		build(child + 1, middle, pEnd);
+	}
+
+	/**
+	 * Quickselect: partially orders order[pLeft, pRight] so the item at pNth
+	 * has the median center and everything before it is no greater.
+	 */
+	private void select(int pLeft, int pRight, int pNth, boolean pAxisX) {
+		int left = pLeft;
+		int right = pRight;
+		while (left < right) {
+			long pivot = center(order[(left + right) >>> 1], pAxisX);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (center(order[i], pAxisX) < pivot) i++;
+				while (center(order[j], pAxisX) > pivot) j--;
+				if (i <= j) {
+					int swap = order[i];
+					order[i] = order[j];
+					order[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (pNth <= j) {
+				right = j;
+			} else if (pNth >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private long center(int pSlot, boolean pAxisX) {
+		return pAxisX ? (long)minX[pSlot] + maxX[pSlot] : (long)minY[pSlot] + maxY[pSlot];
+	}
+
+	private static int[] filled(int pLength) {
+		int[] array = new int[pLength];
+		Arrays.fill(array, NONE);
+		return array;
+	}
+}
@@ -0,0 +1,150 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase that keeps the x axis endpoints of every proxy sorted and sweeps
+ * across them, only testing proxies whose x intervals overlap.
+ * <p>
+ * The endpoint list is kept between calls and re-sorted with an insertion
+ * sort. Overworld entities only move a few pixels a frame, so the list is
+ * nearly sorted already and the re-sort costs little more than a single pass.
+ * The sweep is then linear in the number of proxies plus the number of x
+ * overlaps.
+ * <p>
+ * Works best when the world is spread out along x. Crowds lined up in a
+ * column share their x intervals and degrade towards a full scan.
+ */
+public class SweepAndPruneBroadphase extends AbstractBroadphase {
+	/* Endpoints. Keys are (x << 1 | isMax) so a min sorts before a max at the same x */
+	private long[] keys = new long[32];
+	private int[] owners = new int[32];
+	private int endpoints = 0;
+
+	/* Endpoints appended since the last sort. Past a handful a full sort beats insertion */
+	private static final int FULL_SORT_THRESHOLD = 64;
+	private int unsorted = 0;
+	private long[] sortScratch = new long[0];
+
+	/* Proxies whose x interval is open during the sweep */
+	private int[] open = new int[16];
+	private int[] openIndex = new int[16];
+	private int openCount = 0;
+
+	@Override
+	protected void added(int pProxy) {
+		if (endpoints + 2 > keys.length) {
+			keys = Arrays.copyOf(keys, keys.length * 2);
+			owners = Arrays.copyOf(owners, owners.length * 2);
+		}
+
+		// New endpoints go on the end, the next sort moves them into place
+		keys[endpoints] = 0L;
+		owners[endpoints++] = pProxy;
+		keys[endpoints] = 1L;
+		owners[endpoints++] = pProxy;
+		unsorted += 2;
+	}
+
+	@Override
+	protected void removed(int pProxy) {
+		int kept = 0;
+		for (int i = 0; i < endpoints; i++) {
+			if (owners[i] != pProxy) {
+				keys[kept] = keys[i];
+				owners[kept] = owners[i];
+				kept++;
+			}
+		}
+		endpoints = kept;
+	}
+
+	@Override
+	public void findPairs(PairBuffer pPairs) {
+		refreshKeys();
+		if (unsorted > FULL_SORT_THRESHOLD) {
+			fullSort();
+		} else {
+			insertionSort();
+		}
+		unsorted = 0;
+
+		if (openIndex.length < minX.length) {
+			openIndex = new int[minX.length];
+		}
+		if (open.length < count) {
+			open = new int[Math.max(count, open.length * 2)];
+		}
+		openCount = 0;
+
+		for (int i = 0; i < endpoints; i++) {
+			int proxy = owners[i];
+			if ((keys[i] & 1L) == 0L) {
+				// Interval opens: everything already open overlaps on x
+				for (int j = 0; j < openCount; j++) {
+					int other = open[j];
+					if (!canPair(proxy, other)) {
+						continue;
+					}
+					if (minY[proxy] <= maxY[other] && minY[other] <= maxY[proxy]) {
+						pPairs.add(proxy, other);
+					}
+				}
+				openIndex[proxy] = openCount;
+				open[openCount++] = proxy;
+			} else {
+				// Interval closes
+				int hole = openIndex[proxy];
+				int last = open[--openCount];
+				open[hole] = last;
+				openIndex[last] = hole;
+			}
+		}
+	}
+
+	/**
+	 * Endpoints keep their place in the list and whether they are a min or a
+	 * max; only their values change.
+	 */
+	private void refreshKeys() {
+		for (int i = 0; i < endpoints; i++) {
+			int proxy = owners[i];
+			keys[i] = ((keys[i] & 1L) == 0L)
+					? ((long)minX[proxy] << 1)
+					: ((long)maxX[proxy] << 1) | 1L;
+		}
+	}
+
+	/**
+	 * Sorts from scratch by packing each key and its owner into one long.
+	 * Keys fit in 33 bits and owners in 31, so the packed order is the key order.
+	 */
+	private void fullSort() {
+		if (sortScratch.length < endpoints) {
+			sortScratch = new long[keys.length];
+		}
+		for (int i = 0; i < endpoints; i++) {
+			sortScratch[i] = (keys[i] << 31) | owners[i];
+		}
+		Arrays.sort(sortScratch, 0, endpoints);
+		for (int i = 0; i < endpoints; i++) {
+			keys[i] = sortScratch[i] >> 31;
+			owners[i] = (int)(sortScratch[i] & 0x7FFFFFFFL);
+		}
+	}
+
+	private void insertionSort() {
+		for (int i = 1; i < endpoints; i++) {
+			long key = keys[i];
+			int owner = owners[i];
+			int j = i - 1;
+			while (j >= 0 && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				owners[j + 1] = owners[j];
+				j--;
+			}
+			keys[j + 1] = key;
+			owners[j + 1] = owner;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.stonetolb.engine.physics;
+
+import org.newdawn.slick.tiled.TiledMap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Solid terrain baked into a bitset, one bit per map tile.
+ * <p>
+ * Cell (0,0) covers pixels [0, tileWidth] x [0, tileHeight]; like every other
+ * box in the physics package its extents are inclusive, so neighbouring cells
+ * share an edge. Anything outside the grid is open.
+ * <p>
+ * Looking up a cell is a shift and a mask, so resolving a body against the
+ * terrain costs the same on a 55x40 map as on a 2000x2000 one.
+ */
+public class TileGrid {
+	private final int width;
+	private final int height;
+	private final int tileWidth;
+	private final int tileHeight;
+	private final long[] bits;
+	private int solidCount;
+
+	/**
+	 * Creates an all open grid.
+	 *
+	 * @param pWidth - Width in cells.
+	 * @param pHeight - Height in cells.
+	 * @param pTileWidth - Width of a cell in pixels.
+	 * @param pTileHeight - Height of a cell in pixels.
+	 */
+	public TileGrid(int pWidth, int pHeight, int pTileWidth, int pTileHeight) {
+		Preconditions.checkArgument(pWidth >= 0 && pHeight >= 0, "Grid dimensions must not be negative");
+		Preconditions.checkArgument(pTileWidth > 0 && pTileHeight > 0, "Tile dimensions must be positive");
+		width = pWidth;
+		height = pHeight;
+		tileWidth = pTileWidth;
+		tileHeight = pTileHeight;
+		bits = new long[(int)(((long)pWidth * pHeight + 63) >>> 6)];
+		solidCount = 0;
+	}
+
+	/**
+	 * Bakes a layer of a tiled map. Every cell that has a tile in the layer
+	 * is solid.
+	 *
+	 * @param pMap - Loaded map. Its tile sets do not need to be loaded.
+	 * @param pLayer - Index of the collision layer.
+	 * @return New grid covering the map.
+	 */
+	public static TileGrid fromLayer(TiledMap pMap, int pLayer) {
+		Preconditions.checkArgument(pLayer >= 0 && pLayer < pMap.getLayerCount(), "No such layer : " + pLayer);
+		TileGrid grid = new TileGrid(pMap.getWidth(), pMap.getHeight(), pMap.getTileWidth(), pMap.getTileHeight());
+		for (int y = 0; y < grid.height; y++) {
+			for (int x = 0; x < grid.width; x++) {
+				if (pMap.getTileId(x, y, pLayer) != 0) {
+					grid.setSolid(x, y, true);
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @param pX - Cell column.
+	 * @param pY - Cell row.
+	 * @return True if the cell is solid. Cells outside the grid are open.
+	 */
+	public boolean isSolid(int pX, int pY) {
+		if (pX < 0 || pY < 0 || pX >= width || pY >= height) {
+			return false;
+		}
+		int bit = pY * width + pX;
+		return (bits[bit >>> 6] & (1L << bit)) != 0L;
+	}
+
+	/**
+	 * @param pX - Cell column.
+	 * @param pY - Cell row.
+	 * @param pSolid - True to make the cell solid, false to open it.
+	 */
+	public void setSolid(int pX, int pY, boolean pSolid) {
+		Preconditions.checkElementIndex(pX, width, "Column");
+		Preconditions.checkElementIndex(pY, height, "Row");
+		if (isSolid(pX, pY) == pSolid) {
+			return;
+		}
+		int bit = pY * width + pX;
+		bits[bit >>> 6] ^= (1L << bit);
+		solidCount += pSolid ? 1 : -1;
+	}
+
+	/**
+	 * @param pPixel - Horizontal pixel coordinate.
+	 * @return Column containing the pixel.
+	 */
+	public int column(int pPixel) {
+		return floorDiv(pPixel, tileWidth);
+	}
+
+	/**
+	 * @param pPixel - Vertical pixel coordinate.
+	 * @return Row containing the pixel.
+	 */
+	public int row(int pPixel) {
+		return floorDiv(pPixel, tileHeight);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * @return Number of solid cells.
+	 */
+	public int getSolidCount() {
+		return solidCount;
+	}
+
+	private static int floorDiv(int pValue, int pDivisor) {
+		return pValue >= 0 ? pValue / pDivisor : -((-pValue - 1) / pDivisor) - 1;
+	}
+}
@@ -0,0 +1,76 @@
+package com.stonetolb.engine.pool;
+
+import com.artemis.Component;
+import com.artemis.utils.Bag;
+
+/**
+ * Pool of reusable components of one type.
+ * <p>
+ * Components that are added to and removed from live entities over and over,
+ * a status effect or a hit flash, can be taken from a pool and handed back to
+ * it instead of being allocated each time. A freed component is reset before
+ * it goes back into the pool, so whatever obtains it next gets a clean one.
+ * For entities that come and go whole, see {@link EntityPool}.
+ *
+ * @param <T> Type of component pooled.
+ */
+public abstract class ComponentPool<T extends Component> {
+	private final Bag<T> free;
+	private int created;
+
+	/**
+	 * Creates an empty pool.
+	 */
+	public ComponentPool() {
+		free = new Bag<T>();
+		created = 0;
+	}
+
+	/**
+	 * @return A pooled component, or a new one if the pool is empty.
+	 */
+	public T obtain() {
+		if (free.isEmpty()) {
+			created++;
+			return create();
+		}
+		return free.removeLast();
+	}
+
+	/**
+	 * Resets a component and returns it to the pool. It must no longer be
+	 * on any entity.
+	 * @param pComponent - Component to free.
+	 */
+	public void free(T pComponent) {
+		reset(pComponent);
+		free.add(pComponent);
+	}
+
+	/**
+	 * @return Number of components this pool has ever allocated.
+	 */
+	public int getCreated() {
+		return created;
+	}
+
+	/**
+	 * @return Number of components waiting in the pool.
+	 */
+	public int getFree() {
+		return free.size();
+	}
+
+	/**
+	 * @return A new component, used when the pool is empty.
+	 */
+	protected abstract T create();
+
+	/**
+	 * Puts a freed component back to its initial state. Does nothing by default.
+	 * @param pComponent - Component being freed.
+	 */
+	protected void reset(T pComponent) {
+		// Nothing to reset
+	}
+}
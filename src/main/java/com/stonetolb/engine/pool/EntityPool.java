@@ -0,0 +1,155 @@
+package com.stonetolb.engine.pool;
+
+import java.util.BitSet;
+
+import com.artemis.Entity;
+import com.artemis.Manager;
+import com.artemis.utils.Bag;
+
+/**
+ * Recycles whole entities of one kind, components and all.
+ * <p>
+ * Creating an Artemis entity allocates the entity, its bit sets and a UUID,
+ * and then every component it is given. For things spawned and removed by the
+ * dozen every second, projectiles, hit effects, passing NPCs, the pool
+ * instead disables an entity it is done with and keeps it. The next spawn
+ * enables it again with the same component instances, which the caller
+ * resets to their new values. Only when the pool runs dry is a new entity
+ * created, and handed to the {@link Assembler} for its components.
+ * <p>
+ * The pool is a Manager, and must be set on the World with
+ * {@link com.artemis.World#setManager(Manager)}. A despawned entity goes back
+ * into the pool once the World has processed the change, by which point
+ * every system has let go of it and its components are unbound from any
+ * store.
+ */
+public class EntityPool extends Manager {
+	private final Assembler assembler;
+	private final Bag<Entity> free;
+	private final BitSet owned;
+	private final BitSet despawned;
+	private final BitSet pooled;
+	private int created;
+	private int active;
+
+	/**
+	 * Adds the components to a newly created entity.
+	 */
+	public interface Assembler {
+
+		/**
+		 * @param pEntity - New entity, not yet in the World.
+		 */
+		public void assemble(Entity pEntity);
+	}
+
+	/**
+	 * Creates an empty pool.
+	 * @param pAssembler - Builds the entities the pool hands out.
+	 */
+	public EntityPool(Assembler pAssembler) {
+		assembler = pAssembler;
+		free = new Bag<Entity>();
+		owned = new BitSet();
+		despawned = new BitSet();
+		pooled = new BitSet();
+		created = 0;
+		active = 0;
+	}
+
+	@Override
+	protected void initialize() {
+		// Nothing to set up
+	}
+
+	/**
+	 * Takes an entity from the pool, or creates one if it is empty. Its
+	 * components should be reset before the World is next processed, when
+	 * the entity joins its systems.
+	 * @return An entity with the assembled components.
+	 */
+	public Entity spawn() {
+		Entity entity;
+		if (free.isEmpty()) {
+			entity = world.createEntity();
+			assembler.assemble(entity);
+			owned.set(entity.getId());
+			created++;
+			entity.addToWorld();
+		} else {
+			entity = free.removeLast();
+			pooled.clear(entity.getId());
+			entity.enable();
+		}
+		active++;
+		return entity;
+	}
+
+	/**
+	 * Takes an entity out of the World and back into the pool.
+	 * @param pEntity - Entity handed out by {@link #spawn()}.
+	 */
+	public void despawn(Entity pEntity) {
+		// Counted out now, though it only comes back once the World disables it
+		if (!despawned.get(pEntity.getId())) {
+			despawned.set(pEntity.getId());
+			active--;
+		}
+		pEntity.disable();
+	}
+
+	@Override
+	public void disabled(Entity pEntity) {
+		int id = pEntity.getId();
+		// Disabled more than once, it is only pooled the first time
+		if (owned.get(id) && !pooled.get(id)) {
+			if (despawned.get(id)) {
+				despawned.clear(id);
+			} else {
+				// Disabled by someone else, it is back in the pool all the same
+				active--;
+			}
+			free.add(pEntity);
+			pooled.set(id);
+		}
+	}
+
+	@Override
+	public void deleted(Entity pEntity) {
+		// Deleted outright rather than despawned, forget it
+		int id = pEntity.getId();
+		if (owned.get(id)) {
+			owned.clear(id);
+			if (despawned.get(id)) {
+				// Despawned, then deleted before the World disabled it
+				despawned.clear(id);
+			} else if (pooled.get(id)) {
+				pooled.clear(id);
+				free.remove(pEntity);
+			} else {
+				active--;
+			}
+		}
+	}
+
+	/**
+	 * @return Number of entities this pool has ever created.
+	 */
+	public int getCreated() {
+		return created;
+	}
+
+	/**
+	 * @return Number of entities spawned and not yet despawned.
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * @return Number of entities waiting in the pool.
+	 */
+	public int getFree() {
+		return free.size();
+	}
+}
@@ -0,0 +1,158 @@
+package com.stonetolb.engine.profiler;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Collects how long each part of a frame takes, so it can be seen where the
+ * frame budget goes.
+ * <p>
+ * Each part is a named {@link Section} with its own {@link Histogram}. Code
+ * being measured takes a {@link System#nanoTime()} reading before it starts
+ * and hands the elapsed time to its section when done:
+ * <pre>
+ * long start = System.nanoTime();
+ * render();
+ * renderSection.record(System.nanoTime() - start);
+ * </pre>
+ * Sections keep the order they were first asked for. A section should only be
+ * recorded from one thread at a time, but may be read from any.
+ */
+public class FrameProfiler {
+	private static final double NANOS_PER_MILLI = 1000000D;
+	private static final String CSV_HEADER = "section,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms";
+
+	private final Map<String, Section> sections;
+
+	/**
+	 * One measured part of a frame.
+	 */
+	public static class Section {
+		private final String name;
+		private final Histogram histogram;
+		private volatile long last;
+
+		private Section(String pName) {
+			name = pName;
+			histogram = new Histogram();
+			last = 0L;
+		}
+
+		/**
+		 * @param pNanos - How long the part took this time, in nanoseconds.
+		 */
+		public void record(long pNanos) {
+			histogram.record(pNanos);
+			last = pNanos;
+		}
+
+		/**
+		 * @return Name of the section.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Every duration recorded for the section.
+		 */
+		public Histogram getHistogram() {
+			return histogram;
+		}
+
+		/**
+		 * @return Most recently recorded duration in nanoseconds.
+		 */
+		public long getLast() {
+			return last;
+		}
+	}
+
+	/**
+	 * Creates a profiler with no sections.
+	 */
+	public FrameProfiler() {
+		sections = new LinkedHashMap<String, Section>();
+	}
+
+	/**
+	 * @param pName - Name of the section.
+	 * @return The section with the given name, created if it does not exist yet.
+	 */
+	public synchronized Section section(String pName) {
+		Preconditions.checkNotNull(pName, "Section name cannot be null");
+		Section section = sections.get(pName);
+		if (section == null) {
+			section = new Section(pName);
+			sections.put(pName, section);
+		}
+		return section;
+	}
+
+	/**
+	 * @return Every section, in the order they were first asked for.
+	 */
+	public synchronized List<Section> getSections() {
+		return new ArrayList<Section>(sections.values());
+	}
+
+	/**
+	 * Forgets everything recorded so far, keeping the sections.
+	 */
+	public synchronized void reset() {
+		for (Section section : sections.values()) {
+			section.histogram.reset();
+		}
+	}
+
+	/**
+	 * Writes a line per section with its count, mean, 50th, 95th and 99th
+	 * percentiles and maximum, in milliseconds.
+	 * @param pWriter - Where to write. Not closed.
+	 * @throws IOException On failure to write.
+	 */
+	public void writeCsv(Writer pWriter)
+	throws IOException
+	{
+		pWriter.write(CSV_HEADER);
+		pWriter.write('\n');
+		for (Section section : getSections()) {
+			Histogram histogram = section.getHistogram();
+			pWriter.write(String.format(Locale.ROOT, "%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f\n"
+					, section.getName()
+					, histogram.getCount()
+					, histogram.getMean() / NANOS_PER_MILLI
+					, histogram.getPercentile(50) / NANOS_PER_MILLI
+					, histogram.getPercentile(95) / NANOS_PER_MILLI
+					, histogram.getPercentile(99) / NANOS_PER_MILLI
+					, histogram.getMax() / NANOS_PER_MILLI
+					));
+		}
+		pWriter.flush();
+	}
+
+	/**
+	 * Writes {@link #writeCsv(Writer)} to a file, replacing it if it exists.
+	 * @param pFile - File to write.
+	 * @throws IOException On failure to write the file.
+	 */
+	public void writeCsv(File pFile)
+	throws IOException
+	{
+		Writer writer = new FileWriter(pFile);
+		try {
+			writeCsv(writer);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.stonetolb.engine.profiler;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Fixed size histogram of durations in nanoseconds.
+ * <p>
+ * Values below 64 get a bucket each; above that every power of two is split
+ * into 32 buckets, so any value is reported to within about 3% of what was
+ * recorded while the histogram never grows, whatever it is fed. Recording is
+ * synchronized so the histogram can be filled on one thread and read on
+ * another.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+	private static final int BUCKETS = LINEAR_LIMIT + (63 - LINEAR_BITS) * SUB_BUCKETS;
+
+	private final long[] counts;
+	private long count;
+	private long total;
+	private long max;
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public Histogram() {
+		counts = new long[BUCKETS];
+		reset();
+	}
+
+	/**
+	 * @param pNanos - Duration to record. Negative durations are recorded as 0.
+	 */
+	public synchronized void record(long pNanos) {
+		long value = Math.max(pNanos, 0L);
+		counts[bucketOf(value)]++;
+		count++;
+		total += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * @param pPercentile - Percentile from 0 to 100.
+	 * @return Duration in nanoseconds that the given percentage of recorded
+	 * values do not exceed, or 0 if nothing has been recorded.
+	 */
+	public synchronized long getPercentile(double pPercentile) {
+		Preconditions.checkArgument(pPercentile >= 0 && pPercentile <= 100, "Percentile must be between 0 and 100 : " + pPercentile);
+		if (count == 0) {
+			return 0L;
+		}
+
+		long rank = Math.max((long)Math.ceil(pPercentile / 100 * count), 1L);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return Number of values recorded.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Mean of the recorded values in nanoseconds, or 0 if nothing has been recorded.
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? 0D : (double)total / count;
+	}
+
+	/**
+	 * @return Largest recorded value in nanoseconds.
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Forgets every recorded value.
+	 */
+	public synchronized void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = 0L;
+		}
+		count = 0L;
+		total = 0L;
+		max = 0L;
+	}
+
+	private static int bucketOf(long pValue) {
+		if (pValue < LINEAR_LIMIT) {
+			return (int)pValue;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(pValue);
+		int sub = (int)(pValue >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + sub;
+	}
+
+	private static long upperBoundOf(int pBucket) {
+		if (pBucket < LINEAR_LIMIT) {
+			return pBucket;
+		}
+		int exponent = (pBucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+		int sub = (pBucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		return ((long)(SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+	}
+}
@@ -7,20 +7,33 @@ import com.artemis.annotations.Mapper;
 import com.artemis.systems.EntityProcessingSystem;
 import com.stonetolb.engine.component.position.Position;
 import com.stonetolb.engine.component.render.CameraMount;
+import com.stonetolb.render.RenderSnapshot;
 import com.stonetolb.render.util.Camera;
-import com.stonetolb.util.Vector2f;
 
 /**
  * System that handles Camera movement for any Entity with the Camera
  * attached to its CameraMount
+ * <p>
+ * The system never moves the Camera itself, since the render thread is
+ * using it while ticks run. Each tick it notes where the mounted Entity was
+ * and is, and {@link #publish(RenderSnapshot)} hands that over with the rest
+ * of the tick, so the Camera follows the same in between position as
+ * everything drawn.
  * 
  * @author james.baiera
  *
  */
+@Reads({Position.class, CameraMount.class})
 public class CameraSystem extends EntityProcessingSystem {
 	private @Mapper ComponentMapper<Position> positionMap;
 	private @Mapper ComponentMapper<CameraMount> mountMap;
 	
+	private boolean mounted;
+	private float previousX;
+	private float previousY;
+	private float x;
+	private float y;
+	
 	@SuppressWarnings("unchecked")
 	public CameraSystem() {
 		super(Aspect.getAspectForAll(Position.class, CameraMount.class));
@@ -29,7 +42,7 @@ public class CameraSystem extends EntityProcessingSystem {
 	@Override
 	protected void begin() {
 		super.begin();
-		Camera.getInstance().updatePosition(Vector2f.NULL_VECTOR);
+		mounted = false;
 	}
 	
 	@Override
@@ -38,12 +51,23 @@ public class CameraSystem extends EntityProcessingSystem {
 		CameraMount mnt = mountMap.get(arg0);
 		
 		if (Camera.isAttachedTo(mnt)) {
-			Camera.getInstance().updatePosition(
-					Vector2f.from(
-						  pos.getX() + mnt.getXOffset()
-						, pos.getY() + mnt.getYOffset()
-						)
-					);
+			mounted = true;
+			previousX = pos.getPreviousX() + mnt.getXOffset();
+			previousY = pos.getPreviousY() + mnt.getYOffset();
+			x = pos.getX() + mnt.getXOffset();
+			y = pos.getY() + mnt.getYOffset();
+		}
+	}
+	
+	/**
+	 * Gives the Camera target found by the last tick to a snapshot. Call
+	 * while no tick is running. Leaves the snapshot alone if no Entity holds
+	 * the Camera.
+	 * @param pSnapshot - Snapshot of the last tick, as published.
+	 */
+	public void publish(RenderSnapshot pSnapshot) {
+		if (mounted) {
+			pSnapshot.setCamera(previousX, previousY, x, y);
 		}
 	}
 }
@@ -1,26 +1,73 @@
 package com.stonetolb.engine.system;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.Entity;
+import com.artemis.EntitySystem;
 import com.artemis.annotations.Mapper;
-import com.artemis.systems.EntityProcessingSystem;
+import com.artemis.utils.Bag;
+import com.artemis.utils.ImmutableBag;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.change.DirtySet;
 import com.stonetolb.engine.component.movement.Velocity;
 import com.stonetolb.engine.component.physics.Body;
 import com.stonetolb.engine.component.physics.DynamicBody;
 import com.stonetolb.engine.component.physics.KinematicBody;
 import com.stonetolb.engine.component.physics.StaticBody;
 import com.stonetolb.engine.component.position.Position;
-import com.stonetolb.util.Floatation;
-import com.stonetolb.util.Vector2f;
+import com.stonetolb.engine.physics.BodyVisitor;
+import com.stonetolb.engine.physics.ContactCache;
+import com.stonetolb.engine.physics.ContactListener;
+import com.stonetolb.engine.physics.PairBuffer;
+import com.stonetolb.engine.physics.PhysicsBackend;
+import com.stonetolb.engine.physics.ResolverBackend;
+import com.stonetolb.engine.physics.SpatialIndex;
+import com.stonetolb.engine.physics.SpatialQuery;
 
-public class CollisionSystem extends EntityProcessingSystem {
-
-	private Map<Entity, Body> actives;
+/**
+ * System that keeps physical bodies from overlapping each other.
+ * <p>
+ * The work is done by a {@link PhysicsBackend}. Every frame the system moves
+ * each non-static body to its entity's {@link Position}, steps the backend,
+ * and writes where the backend left each body back into its {@link Position}.
+ * The default backend is the original {@link ResolverBackend}.
+ * <p>
+ * The system also answers {@link SpatialQuery} calls about its bodies, by
+ * entity id, so gameplay code can ask what is near or in front of something
+ * without scanning the world. The bodies are kept in a {@link SpatialIndex},
+ * built on the first query and from then on updated only for the bodies that
+ * are added, removed, or moved by a step.
+ * <p>
+ * Which pairs of entities are touching is kept in a {@link ContactCache} from
+ * step to step. After each step every {@link ContactListener} is handed the
+ * contacts that began, stayed and ended, so triggers, doors and pickups can
+ * react without testing for overlaps themselves.
+ * <p>
+ * A body that the backend reports asleep is left alone until its entity's
+ * Position or Velocity changes, so a settled crowd costs next to nothing each
+ * step. Each body's last target is kept to tell, and if the World has a
+ * {@link ChangeLog} even that comparison is skipped for entities it has not
+ * seen change.
+ */
+@Reads(Velocity.class)
+@Writes({Position.class, StaticBody.class, KinematicBody.class, DynamicBody.class})
+public class CollisionSystem extends EntitySystem implements SpatialQuery {
+	private Bag<Entity> movers;
+	private Bag<Body> bodies;
+	private PhysicsBackend backend;
+	private SpatialIndex index;
+	private boolean indexed;
+	private PairBuffer touching;
+	private ContactCache contacts;
+	private Bag<ContactListener> contactListeners;
+	private DirtySet moved;
+	
+	/* Last target each non-fixed body was moved to, by id */
+	private int[] targetX;
+	private int[] targetY;
+	private float[] targetSpeed;
 	
 	private @Mapper ComponentMapper<Position> positionMapper;
 	private @Mapper ComponentMapper<StaticBody> staticMapper;
@@ -28,103 +75,154 @@ public class CollisionSystem extends EntityProcessingSystem {
 	private @Mapper ComponentMapper<DynamicBody> dynamicMapper;
 	private @Mapper ComponentMapper<Velocity> velocityMapper;
 	
-	@SuppressWarnings({ "unchecked", "static-access" })
+	/**
+	 * Creates a CollisionSystem backed by a default {@link ResolverBackend}.
+	 */
 	public CollisionSystem() {
+		this(new ResolverBackend());
+	}
+	
+	/**
+	 * Creates a CollisionSystem.
+	 * @param pBackend - Backend that simulates the bodies.
+	 */
+	@SuppressWarnings({ "unchecked", "static-access" })
+	public CollisionSystem(PhysicsBackend pBackend) {
 		super(Aspect.getAspectForAll(Position.class).getAspectForOne(StaticBody.class, KinematicBody.class, DynamicBody.class));
-		actives = new HashMap<Entity, Body>();
+		movers = new Bag<Entity>();
+		bodies = new Bag<Body>();
+		backend = pBackend;
+		index = new SpatialIndex();
+		indexed = false;
+		touching = new PairBuffer();
+		contacts = new ContactCache();
+		contactListeners = new Bag<ContactListener>();
+		targetX = new int[64];
+		targetY = new int[64];
+		targetSpeed = new float[64];
+	}
+	
+	/**
+	 * @return Backend in use by this system.
+	 */
+	public PhysicsBackend getBackend() {
+		return backend;
 	}
 	
+	/**
+	 * @return Number of non-static bodies the backend has put to sleep.
+	 */
+	public int getSleepingCount() {
+		return backend.getSleepingCount();
+	}
+	
+	/**
+	 * @return Number of non-static bodies the backend has awake.
+	 */
+	public int getAwakeCount() {
+		return backend.getAwakeCount();
+	}
+	
+	/**
+	 * @return Index that answers this system's queries.
+	 */
+	public SpatialIndex getIndex() {
+		return index;
+	}
+	
+	/**
+	 * @return Which entities touched during the last step, by id.
+	 */
+	public ContactCache getContacts() {
+		return contacts;
+	}
+	
+	/**
+	 * Starts telling a listener about contacts after every step.
+	 * @param pListener - Listener to add.
+	 */
+	public void addContactListener(ContactListener pListener) {
+		contactListeners.add(pListener);
+	}
+	
+	/**
+	 * Stops telling a listener about contacts.
+	 * @param pListener - Listener to remove.
+	 */
+	public void removeContactListener(ContactListener pListener) {
+		contactListeners.remove(pListener);
+	}
+	
+	@SuppressWarnings("unchecked")
 	@Override
-	protected void begin() {
-		super.begin();
-		
-		//Updated all physics objects to their current positions (O(n))
-		for(Entry<Entity, Body> eachEntry : actives.entrySet()) {
-			Position pos = positionMapper.get(eachEntry.getKey());
-			Vector2f delta = Vector2f.from(pos.getX(), pos.getY())
-					.add(eachEntry.getValue().getOffset())
-					.sub(eachEntry.getValue().getAABB().getPosition());
-			eachEntry.getValue().transform(delta);
+	protected void initialize() {
+		super.initialize();
+		ChangeLog log = world.getManager(ChangeLog.class);
+		if (log != null) {
+			moved = log.watch(Position.class, Velocity.class);
 		}
 	}
 	
 	@Override
-	protected void process(Entity currentEntity) {
-		
-		if(staticMapper.getSafe(currentEntity) != null) { 
-			//Skip this entity if it's collision component is static. It does not care about hitting other things
-			return;
-		}
-		
-		Body thisBody = actives.get(currentEntity);
+	protected void begin() {
+		super.begin();
 		
-		for(Entry<Entity, Body> other : actives.entrySet()) {
-			if(other.getKey().equals(currentEntity)) {
+		//Updated all moving physics objects to their current positions (O(n))
+		for(int i = 0, s = movers.size(); i < s; i++) {
+			Entity entity = movers.get(i);
+			int id = entity.getId();
+			boolean asleep = backend.isAsleep(id);
+			if (asleep && moved != null && !moved.isMarked(id)) {
+				// Asleep and its entity has not changed, re-syncing would change nothing
 				continue;
 			}
-			else 
-			{
-				Entity otherEntity = other.getKey();
-				Body otherBody = other.getValue();
-				Vector2f overlapVector = thisBody.getAABB().getOverlapVector(otherBody.getAABB());
-				if(!overlapVector.equals(Vector2f.NULL_VECTOR)) {
-					
-					if(thisBody.getMass() < otherBody.getMass()) { 
-						// This object is smaller and therefore moves						
-						resolveCollision(currentEntity, thisBody, otherBody, overlapVector);
-						
-					} else if (thisBody.getMass() > otherBody.getMass()) { 
-						// This object is bigger and therefore moves the other
-						resolveCollision(otherEntity, otherBody, thisBody, overlapVector);
-						
-					} else if (thisBody.getMass() == otherBody.getMass()){
-						// These objects are the same mass. Tie Break
-						// Check for Movement
-						Velocity currentVelocity = velocityMapper.getSafe(currentEntity);
-						Velocity otherVelocity = velocityMapper.getSafe(otherEntity);
-						boolean currentMoving = ((currentVelocity != null) && (Floatation.nonZero(currentVelocity.getVelocity())));
-						boolean otherMoving = ((otherVelocity != null) && (Floatation.nonZero(otherVelocity.getVelocity())));
-						
-						// If one is moving and the other is not, fix the moving one.
-						if(currentMoving && !otherMoving) {
-							resolveCollision(currentEntity, thisBody, otherBody, overlapVector);
-						} else if (!currentMoving && otherMoving) {
-							resolveCollision(otherEntity, otherBody, thisBody, overlapVector);
-						} else if ((currentMoving && otherMoving) || (!currentMoving && !otherMoving)) {
-							// If both are still or both are moving, bounce apart on half their resolution vectors.
-							resolveBounceCollision(currentEntity, thisBody, otherEntity, otherBody, overlapVector);
-						}
-					}
-				}
+			Body body = bodies.get(id);
+			Position pos = positionMapper.get(entity);
+			Velocity velocity = velocityMapper.getSafe(entity);
+			int x = pos.getX() + body.getXOffset();
+			int y = pos.getY() + body.getYOffset();
+			float speed = velocity == null ? 0F : velocity.getVelocity();
+			if (asleep && x == targetX[id] && y == targetY[id] && speed == targetSpeed[id]) {
+				// Asleep and still wanted where it was, re-syncing would change nothing
+				continue;
 			}
+			backend.moveTo(id, x, y, speed);
+			targetX[id] = x;
+			targetY[id] = y;
+			targetSpeed[id] = speed;
+		}
+		if (moved != null) {
+			moved.clear();
 		}
 	}
 	
-	private void resolveCollision(Entity entityToMove, Body bodyToMove, Body bodyThatPushes, Vector2f overlap) {
-		Vector2f resolutionVector = bodyToMove.getAABB().getCollisionResolutionVector(bodyThatPushes.getAABB(), overlap);
-		Vector2f newPositionOfBody = bodyToMove.transform(resolutionVector); //BODY UPDATED
-		Vector2f newPositionOfPositionComponent = newPositionOfBody.sub(bodyToMove.getOffset());
-
-		Position position = positionMapper.get(entityToMove);
-		position.setPosition((int)newPositionOfPositionComponent.getX(), (int)newPositionOfPositionComponent.getY()); //POSITION UPDATED
+	@Override
+	protected boolean checkProcessing() {
+		return true;
 	}
 	
-	private void resolveBounceCollision(Entity firstEntity, Body firstBody, Entity secondEntity, Body secondBody, Vector2f overlap) {
-		Vector2f firstResolutionVector = firstBody.getAABB().getCollisionResolutionVector(secondBody.getAABB(), overlap);
-		Vector2f secondResolutionVector = secondBody.getAABB().getCollisionResolutionVector(firstBody.getAABB(), overlap);
-		
-		// Transform by 1/2 their resolution vectors
-		Vector2f newPositionOfFirstBody = firstBody.transform(Vector2f.from(firstResolutionVector.getX()/2F, firstResolutionVector.getY()/2F));
-		Vector2f newPositionOfSecondBody = secondBody.transform(Vector2f.from(secondResolutionVector.getX()/2F, secondResolutionVector.getY()/2F));
-		
-		Vector2f newPositionOfFirstPositionComponent = newPositionOfFirstBody.sub(firstBody.getOffset());
-		Vector2f newPositionOfSecondPositionComponent = newPositionOfSecondBody.sub(secondBody.getOffset());
+	@Override
+	protected void processEntities(ImmutableBag<Entity> pEntities) {
+		backend.step(world.getDelta());
 		
-		Position firstPosition = positionMapper.get(firstEntity);
-		Position secondPosition = positionMapper.get(secondEntity);
+		for(int i = 0, s = movers.size(); i < s; i++) {
+			Entity entity = movers.get(i);
+			if (backend.isAsleep(entity.getId())) {
+				// Not moved by the step
+				continue;
+			}
+			Body body = bodies.get(entity.getId());
+			Position position = positionMapper.get(entity);
+			position.setPosition(backend.getX(entity.getId()) - body.getXOffset(), backend.getY(entity.getId()) - body.getYOffset()); //POSITION UPDATED
+			index.move(entity.getId(), backend.getX(entity.getId()), backend.getY(entity.getId()));
+		}
 		
-		firstPosition.setPosition((int)newPositionOfFirstPositionComponent.getX(), (int)newPositionOfFirstPositionComponent.getY());
-		secondPosition.setPosition((int)newPositionOfSecondPositionComponent.getX(), (int)newPositionOfSecondPositionComponent.getY());
+		touching.clear();
+		backend.getContacts(touching);
+		contacts.update(touching);
+		for(int i = 0, s = contactListeners.size(); i < s; i++) {
+			contactListeners.get(i).contacts(contacts.getBegun(), contacts.getStaying(), contacts.getEnded());
+		}
 	}
 	
 	@Override
@@ -149,12 +247,68 @@ public class CollisionSystem extends EntityProcessingSystem {
 			throw new IllegalStateException("Entity added to Physics System but has no Body Component : " + e);
 		}
 		
-		actives.put(e, physicalBody);
+		bodies.set(e.getId(), physicalBody);
+		if (!physicalBody.isFixed()) {
+			movers.add(e);
+		}
+		backend.add(e.getId(), physicalBody);
+		if (e.getId() >= targetX.length) {
+			int capacity = Math.max(e.getId() + 1, targetX.length * 2);
+			targetX = Arrays.copyOf(targetX, capacity);
+			targetY = Arrays.copyOf(targetY, capacity);
+			targetSpeed = Arrays.copyOf(targetSpeed, capacity);
+		}
+		targetX[e.getId()] = backend.getX(e.getId());
+		targetY[e.getId()] = backend.getY(e.getId());
+		targetSpeed[e.getId()] = 0F;
+		index.add(e.getId(), backend.getX(e.getId()), backend.getY(e.getId()), physicalBody.getHalfWidth(), physicalBody.getHalfHeight(), physicalBody.getCategory());
+		if (moved != null) {
+			moved.mark(e.getId());
+		}
 	}
 	
 	@Override
 	protected void removed(Entity e) {
 		super.removed(e);
-		actives.remove(e);
+		Body body = bodies.get(e.getId());
+		if (!body.isFixed()) {
+			movers.remove(e);
+		}
+		backend.remove(e.getId());
+		bodies.set(e.getId(), null);
+		index.remove(e.getId());
+		contacts.remove(e.getId());
+	}
+	
+	@Override
+	public int region(int pMinX, int pMinY, int pMaxX, int pMaxY, int pMask, BodyVisitor pVisitor) {
+		return index().region(pMinX, pMinY, pMaxX, pMaxY, pMask, pVisitor);
+	}
+	
+	@Override
+	public int raycast(int pX, int pY, int pDX, int pDY, int pMask, int pIgnore) {
+		return index().raycast(pX, pY, pDX, pDY, pMask, pIgnore);
+	}
+	
+	@Override
+	public float getRayFraction() {
+		return index.getRayFraction();
+	}
+	
+	@Override
+	public int nearest(int pX, int pY, int pMaxDistance, int pMask, int pIgnore, int[] pOut) {
+		return index().nearest(pX, pY, pMaxDistance, pMask, pIgnore, pOut);
+	}
+	
+	/**
+	 * @return The index, built over the bodies on the first query. After
+	 * that it is kept up to date as bodies change.
+	 */
+	private SpatialIndex index() {
+		if (!indexed) {
+			index.build();
+			indexed = true;
+		}
+		return index;
 	}
 }
@@ -0,0 +1,116 @@
+package com.stonetolb.engine.system;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.artemis.Aspect;
+import com.artemis.Component;
+import com.artemis.Entity;
+import com.artemis.utils.ImmutableBag;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.change.DirtySet;
+
+/**
+ * {@link ParallelEntityProcessingSystem} that only processes the entities
+ * whose watched components changed since it last ran.
+ * <p>
+ * The system watches its component types through the World's
+ * {@link ChangeLog}. Each step it collects the changed entities it tracks,
+ * plus any that joined it since the last step, and processes just those, so
+ * entities that sit still cost nothing at all. The system must declare that
+ * it {@link Reads} its watched types, so the scheduler never runs it at the
+ * same time as something changing them.
+ * <p>
+ * If the World has no ChangeLog every entity is processed every step, as in
+ * a plain ParallelEntityProcessingSystem.
+ */
+public abstract class DirtyEntityProcessingSystem extends ParallelEntityProcessingSystem {
+	private final Class<? extends Component>[] watched;
+	private final BitSet members;
+	private DirtySet dirty;
+	private int[] work;
+	private int workSize;
+
+	/**
+	 * Creates a system.
+	 * @param pAspect - Entities to process.
+	 * @param pWatched - Component types whose changes cause an entity to be processed.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // Kept, but only ever read as Class objects
+	public DirtyEntityProcessingSystem(Aspect pAspect, Class<? extends Component>... pWatched) {
+		super(pAspect);
+		watched = pWatched;
+		members = new BitSet();
+		work = new int[64];
+		workSize = 0;
+	}
+
+	@Override
+	protected void initialize() {
+		super.initialize();
+		ChangeLog log = world.getManager(ChangeLog.class);
+		if (log != null) {
+			dirty = log.watch(watched);
+		}
+	}
+
+	@Override
+	protected void inserted(Entity e) {
+		super.inserted(e);
+		members.set(e.getId());
+		if (dirty != null) {
+			// Let it catch up with whatever changed before it joined
+			dirty.mark(e.getId());
+		}
+	}
+
+	@Override
+	protected void removed(Entity e) {
+		super.removed(e);
+		members.clear(e.getId());
+	}
+
+	@Override
+	protected void begin() {
+		super.begin();
+		if (dirty == null) {
+			return;
+		}
+
+		workSize = 0;
+		for (int id = dirty.nextMarked(0); id >= 0; id = dirty.nextMarked(id + 1)) {
+			if (members.get(id)) {
+				if (workSize == work.length) {
+					work = Arrays.copyOf(work, workSize * 2);
+				}
+				work[workSize++] = id;
+			}
+		}
+		dirty.clear();
+	}
+
+	@Override
+	protected int getWorkSize(ImmutableBag<Entity> pEntities) {
+		return dirty == null ? super.getWorkSize(pEntities) : workSize;
+	}
+
+	@Override
+	protected void processRange(ImmutableBag<Entity> pEntities, int pStart, int pEnd) {
+		if (dirty == null) {
+			super.processRange(pEntities, pStart, pEnd);
+			return;
+		}
+		for (int i = pStart; i < pEnd; i++) {
+			process(world.getEntity(work[i]));
+		}
+	}
+
+	/**
+	 * @return Number of entities processed in the last step, or every active
+	 * entity if the World has no ChangeLog.
+	 */
+	public int getProcessedCount() {
+		return dirty == null ? getActives().size() : workSize;
+	}
+}
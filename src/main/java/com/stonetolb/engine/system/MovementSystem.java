@@ -4,35 +4,80 @@ import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.Entity;
 import com.artemis.annotations.Mapper;
-import com.artemis.systems.EntityProcessingSystem;
+import com.artemis.utils.ImmutableBag;
+import com.stonetolb.engine.change.ChangeLog;
 import com.stonetolb.engine.component.movement.Rotation;
 import com.stonetolb.engine.component.movement.Velocity;
 import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.motion.MotionStore;
 
 /**
  * System used to process an Entity's change in position every frame.
+ * <p>
+ * Every Entity the system tracks has its {@link Position}, {@link Velocity}
+ * and {@link Rotation} bound into a {@link MotionStore}, so a frame is a
+ * single pass over packed primitive arrays, with each rotation's direction
+ * worked out once when it is set rather than every frame.
  * 
  * @author james.baiera
  *
  */
-public class MovementSystem extends EntityProcessingSystem {
+@Reads({Velocity.class, Rotation.class})
+@Writes(Position.class)
+public class MovementSystem extends ParallelEntityProcessingSystem {
 	private @Mapper ComponentMapper<Position> positionMap;
 	private @Mapper ComponentMapper<Velocity> velocityMap;
 	private @Mapper ComponentMapper<Rotation> rotationMap;
+	private final MotionStore store;
 	
 	@SuppressWarnings("unchecked")
 	public MovementSystem() {
 		super(Aspect.getAspectForAll(Position.class, Velocity.class, Rotation.class));
+		store = new MotionStore();
+	}
+	
+	@Override
+	protected void initialize() {
+		super.initialize();
+		ChangeLog log = world.getManager(ChangeLog.class);
+		if (log != null) {
+			store.setChannel(log.getChannel(Position.class));
+		}
+	}
+	
+	/**
+	 * @return Store holding the motion of every tracked Entity.
+	 */
+	public MotionStore getStore() {
+		return store;
 	}
 
 	@Override
 	protected void process(Entity arg0) {
-		Position pos = positionMap.get(arg0);
-		Velocity vel = velocityMap.get(arg0);
-		Rotation rot = rotationMap.get(arg0);
-
-		pos.setX(pos.getX() + (int)((((world.getDelta() * (vel.getVelocity())) / 1000)) * Math.cos(Math.toRadians(rot.getRotation()))));
-		pos.setY(pos.getY() + (int)((((world.getDelta() * (vel.getVelocity())) / 1000)) * Math.sin(Math.toRadians(rot.getRotation()))));
+		int slot = store.getSlot(arg0.getId());
+		store.integrate(world.getDelta(), slot, slot + 1);
+	}
+	
+	@Override
+	protected int getWorkSize(ImmutableBag<Entity> pEntities) {
+		return store.size();
+	}
+	
+	@Override
+	protected void processRange(ImmutableBag<Entity> pEntities, int pStart, int pEnd) {
+		store.integrate(world.getDelta(), pStart, pEnd);
+	}
+	
+	@Override
+	protected void inserted(Entity e) {
+		super.inserted(e);
+		store.add(e.getId(), positionMap.get(e), velocityMap.get(e), rotationMap.get(e));
+	}
+	
+	@Override
+	protected void removed(Entity e) {
+		super.removed(e);
+		store.remove(e.getId());
 	}
 
 }
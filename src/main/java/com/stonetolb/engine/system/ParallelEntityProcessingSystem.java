@@ -0,0 +1,154 @@
+package com.stonetolb.engine.system;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.EntitySystem;
+import com.artemis.utils.ImmutableBag;
+import com.google.common.base.Preconditions;
+
+/**
+ * Drop in replacement for Artemis' EntityProcessingSystem that splits the
+ * active entities into chunks and processes them on a ForkJoin pool.
+ * <p>
+ * Only suitable for systems whose {@link #process(Entity)} touches nothing
+ * but the components of the entity it is given, and reads shared state like
+ * the World delta without changing it. Entities are handed out in no
+ * particular order, and creating or deleting entities or adding or removing
+ * components from inside {@link #process(Entity)} is not allowed.
+ * <p>
+ * Steps with no more than a chunk's worth of entities are processed on the
+ * calling thread, so a handful of entities never pays for a hand-off.
+ * <p>
+ * A system that keeps its entities' data somewhere denser than the entity
+ * bag can split that instead, by overriding {@link #getWorkSize(ImmutableBag)}
+ * and {@link #processRange(ImmutableBag, int, int)}.
+ */
+public abstract class ParallelEntityProcessingSystem extends EntitySystem {
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	private static ForkJoinPool sharedPool;
+
+	private ForkJoinPool pool;
+	private int chunkSize;
+
+	/**
+	 * Creates a system that runs on the shared pool, with a worker per
+	 * available processor.
+	 * @param pAspect - Entities to process.
+	 */
+	public ParallelEntityProcessingSystem(Aspect pAspect) {
+		super(pAspect);
+		pool = null;
+		chunkSize = DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * Process a single entity. May be called from any of the pool's threads.
+	 * @param pEntity - Entity to process.
+	 */
+	protected abstract void process(Entity pEntity);
+
+	/**
+	 * Runs this system on a different pool, mainly to control how many threads it uses.
+	 * @param pPool - Pool to run on, or null for the shared pool.
+	 * @return This system.
+	 */
+	public ParallelEntityProcessingSystem setPool(ForkJoinPool pPool) {
+		pool = pPool;
+		return this;
+	}
+
+	/**
+	 * @param pChunkSize - Most entities processed by one task.
+	 * @return This system.
+	 */
+	public ParallelEntityProcessingSystem setChunkSize(int pChunkSize) {
+		Preconditions.checkArgument(pChunkSize > 0, "Chunk size must be positive : " + pChunkSize);
+		chunkSize = pChunkSize;
+		return this;
+	}
+
+	/**
+	 * @return Most entities processed by one task.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	protected final void processEntities(ImmutableBag<Entity> pEntities) {
+		int size = getWorkSize(pEntities);
+		if (size <= chunkSize) {
+			processRange(pEntities, 0, size);
+			return;
+		}
+
+		ForkJoinPool target = pool;
+		if (target == null) {
+			target = getSharedPool();
+		}
+		target.invoke(new Chunk(pEntities, 0, size));
+	}
+
+	@Override
+	protected boolean checkProcessing() {
+		return true;
+	}
+
+	/**
+	 * @param pEntities - Active entities.
+	 * @return Number of items to split into chunks, by default one per entity.
+	 */
+	protected int getWorkSize(ImmutableBag<Entity> pEntities) {
+		return pEntities.size();
+	}
+
+	/**
+	 * Processes one chunk. May be called from any of the pool's threads.
+	 * @param pEntities - Active entities.
+	 * @param pStart - First item of the chunk.
+	 * @param pEnd - Item after the last one of the chunk.
+	 */
+	protected void processRange(ImmutableBag<Entity> pEntities, int pStart, int pEnd) {
+		for (int i = pStart; i < pEnd; i++) {
+			process(pEntities.get(i));
+		}
+	}
+
+	private static synchronized ForkJoinPool getSharedPool() {
+		if (sharedPool == null) {
+			sharedPool = new ForkJoinPool();
+		}
+		return sharedPool;
+	}
+
+	/**
+	 * Halves its range until it fits in a chunk, then processes it.
+	 */
+	private class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ImmutableBag<Entity> entities;
+		private final int start;
+		private final int end;
+
+		Chunk(ImmutableBag<Entity> pEntities, int pStart, int pEnd) {
+			entities = pEntities;
+			start = pStart;
+			end = pEnd;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= chunkSize) {
+				processRange(entities, start, end);
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new Chunk(entities, start, middle), new Chunk(entities, middle, end));
+		}
+	}
+}
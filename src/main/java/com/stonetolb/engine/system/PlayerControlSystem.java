@@ -1,23 +1,32 @@
 package com.stonetolb.engine.system;
 
-import org.lwjgl.input.Keyboard;
-
 import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.Entity;
 import com.artemis.annotations.Mapper;
 import com.artemis.systems.EntityProcessingSystem;
+import com.stonetolb.engine.input.Input;
+import com.stonetolb.engine.input.InputSource;
 import com.stonetolb.engine.component.control.PlayerControl;
 import com.stonetolb.engine.component.movement.Rotation;
 import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.profiles.WorldProfile;
 
 /**
  * System used to listen for input and modify an Entity's state accordingly
+ * <p>
+ * Keys are read from the active {@link Input} source, the keyboard as of the
+ * start of the frame, or a recording being played back. Without either, as
+ * when running headless, no key is ever down. Which keys move an Entity is
+ * up to the {@link WorldProfile.Control} on its {@link PlayerControl}.
  *  
  * @author james.baiera
  *
  */
+@Reads(PlayerControl.class)
+@Writes({Velocity.class, Rotation.class})
 public class PlayerControlSystem extends EntityProcessingSystem {
+	private @Mapper ComponentMapper<PlayerControl> controlMap;
 	private @Mapper ComponentMapper<Velocity> velocityMap;
 	private @Mapper ComponentMapper<Rotation> rotationMap;
 	
@@ -36,17 +45,19 @@ public class PlayerControlSystem extends EntityProcessingSystem {
 	protected void process(Entity arg0) {
 		Velocity vel = velocityMap.get(arg0);
 		Rotation rot = rotationMap.get(arg0);
+		WorldProfile.Control controls = controlMap.get(arg0).getControls();
+		InputSource input = Input.get();
 		
-		if(Keyboard.isKeyDown(Keyboard.KEY_W)) {
+		if(input.isKeyDown(controls.keyUp())) {
 			rot.setRotation(up);
 			vel.setVelocity(walk);
-		} else if (Keyboard.isKeyDown(Keyboard.KEY_S)) {
+		} else if (input.isKeyDown(controls.keyDown())) {
 			rot.setRotation(down);
 			vel.setVelocity(walk);
-		} else if (Keyboard.isKeyDown(Keyboard.KEY_A)) {
+		} else if (input.isKeyDown(controls.keyLeft())) {
 			rot.setRotation(left);
 			vel.setVelocity(walk);
-		} else if (Keyboard.isKeyDown(Keyboard.KEY_D)) {
+		} else if (input.isKeyDown(controls.keyRight())) {
 			rot.setRotation(right);
 			vel.setVelocity(walk);
 		} else {
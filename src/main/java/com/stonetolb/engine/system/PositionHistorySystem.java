@@ -0,0 +1,28 @@
+package com.stonetolb.engine.system;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.annotations.Mapper;
+import com.artemis.systems.EntityProcessingSystem;
+import com.stonetolb.engine.component.position.Position;
+
+/**
+ * System that remembers where every Entity was before the tick moves it, so
+ * the {@link RenderSystem} can interpolate between ticks. It must be the
+ * first system set on the World.
+ */
+@Writes(Position.class)
+public class PositionHistorySystem extends EntityProcessingSystem {
+	private @Mapper ComponentMapper<Position> positionMap;
+	
+	@SuppressWarnings("unchecked")
+	public PositionHistorySystem() {
+		super(Aspect.getAspectForAll(Position.class));
+	}
+	
+	@Override
+	protected void process(Entity arg0) {
+		positionMap.get(arg0).storePrevious();
+	}
+}
@@ -0,0 +1,23 @@
+package com.stonetolb.engine.system;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.artemis.Component;
+
+/**
+ * Declares the components a system reads but never changes. The
+ * {@link SystemScheduler} runs systems that only read a component at the same
+ * time as each other, but never alongside one that {@link Writes} it.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Reads {
+	Class<? extends Component>[] value();
+}
@@ -8,12 +8,6 @@ import static org.lwjgl.opengl.GL11.GL_MODELVIEW;
 import static org.lwjgl.opengl.GL11.GL_ONE_MINUS_SRC_ALPHA;
 import static org.lwjgl.opengl.GL11.GL_SRC_ALPHA;
 import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
-import static org.lwjgl.opengl.GL11.glBlendFunc;
-import static org.lwjgl.opengl.GL11.glClear;
-import static org.lwjgl.opengl.GL11.glEnable;
-import static org.lwjgl.opengl.GL11.glLoadIdentity;
-import static org.lwjgl.opengl.GL11.glMatrixMode;
-import static org.lwjgl.opengl.GL11.glViewport;
 
 import org.lwjgl.opengl.GL11;
 
@@ -25,30 +19,129 @@ import com.artemis.systems.EntityProcessingSystem;
 import com.google.common.base.Preconditions;
 import com.stonetolb.engine.component.position.Position;
 import com.stonetolb.engine.component.render.RenderComponent;
+import com.stonetolb.engine.profiler.FrameProfiler;
 import com.stonetolb.game.Game;
+import com.stonetolb.render.Drawable;
+import com.stonetolb.render.RenderSnapshot;
+import com.stonetolb.render.StatefulDrawable;
+import com.stonetolb.render.util.Camera;
+import com.stonetolb.resource.ResourceContext;
+import com.stonetolb.resource.system.SystemContext;
+import com.stonetolb.util.Vector2f;
 
 /**
  * System used to display Entities to the screen.
+ * <p>
+ * Processing the system does not draw anything. It runs as the last system
+ * of a tick and records every visible Entity into a {@link RenderSnapshot}.
+ * The system keeps two snapshots: the one being filled by the current tick,
+ * and the published one that {@link #draw(long, float)} draws, so the render
+ * thread can draw one tick while the logic thread works on the next.
+ * {@link #publish()} swaps them and must only be called while no tick is
+ * running.
+ * <p>
+ * Animations are stepped here, by the tick's delta, and only the frame they
+ * land on is recorded. The render thread never touches a
+ * {@link StatefulDrawable}, so the logic thread is free to ready, dispose,
+ * or advance one while the previous tick is drawn.
+ * <p>
+ * Entities are drawn part way between where they were last tick and where
+ * they are now, so movement stays smooth when frames and simulation ticks do
+ * not line up. {@link #aimCamera(long, float)} moves the Camera the same way,
+ * to the target a {@link CameraSystem} published into the snapshot, and
+ * given a {@link FrameProfiler} times that in a section named "Camera".
+ * <p>
+ * Every graphics call goes through the active {@link ResourceContext}, so
+ * the system also runs headless.
  * 
  * @author james.baiera
  *
  */
+@Reads({Position.class, RenderComponent.class})
 public class RenderSystem extends EntityProcessingSystem {
 	
 	private @Mapper ComponentMapper<Position> positionMap;
 	private @Mapper ComponentMapper<RenderComponent> renderMap; 
+	private RenderSnapshot published = new RenderSnapshot();
+	private RenderSnapshot recording = new RenderSnapshot();
+	private SystemContext system = ResourceContext.get().getSystemContext();
+	private FrameProfiler.Section cameraSection;
 	
 	@SuppressWarnings("unchecked")
 	public RenderSystem(int pScreenWidth, int pScreenHeight) {
 		super(Aspect.getAspectForAll(Position.class, RenderComponent.class));
 	}
 	
+	@Override
+	protected void begin() {
+		super.begin();
+		recording.clear();
+	}
+	
 	@Override
 	protected void process(Entity arg0) {
 		Position position = positionMap.get(arg0);
 		RenderComponent render = renderMap.get(arg0);
 		
-		render.getDrawable().draw(position.getX(), position.getY(), 0, (long)world.getDelta());
+		Drawable drawable = render.getDrawable();
+		if (drawable instanceof StatefulDrawable) {
+			drawable = ((StatefulDrawable)drawable).advance(world.getDelta());
+		}
+		
+		recording.add(position.getPreviousX(), position.getPreviousY(), position.getX(), position.getY(), drawable);
+	}
+	
+	/**
+	 * Makes the last recorded tick the one that is drawn. Call between
+	 * frames, while no tick is running.
+	 */
+	public void publish() {
+		RenderSnapshot swap = published;
+		published = recording;
+		recording = swap;
+	}
+	
+	/**
+	 * Points the Camera at the published tick's Camera target, part way
+	 * between ticks like the Entities, and applies it. Call on the render
+	 * thread before drawing anything that moves with the Camera.
+	 * @param pDelta - Time since the last frame.
+	 * @param pAlpha - How far between the last two ticks to look.
+	 */
+	public void aimCamera(long pDelta, float pAlpha) {
+		long start = System.nanoTime();
+		if (published.hasCamera()) {
+			Camera.getInstance().updatePosition(Vector2f.from(published.getCameraX(pAlpha), published.getCameraY(pAlpha)));
+		}
+		Camera.getInstance().update(pDelta);
+		if (cameraSection != null) {
+			cameraSection.record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Times {@link #aimCamera(long, float)} from now on, or stops timing it.
+	 * @param pProfiler - Profiler to record into, or null to stop.
+	 */
+	public void setProfiler(FrameProfiler pProfiler) {
+		cameraSection = pProfiler == null ? null : pProfiler.section("Camera");
+	}
+	
+	/**
+	 * Draws the published tick.
+	 * @param pDelta - Time since the last frame.
+	 * @param pAlpha - How far between the last two ticks to draw Entities,
+	 * 0 for where they were last tick, 1 for where they are now.
+	 */
+	public void draw(long pDelta, float pAlpha) {
+		published.draw(pAlpha, pDelta);
+	}
+	
+	/**
+	 * @return The snapshot that {@link #draw(long, float)} draws.
+	 */
+	public RenderSnapshot getPublished() {
+		return published;
 	}
 
 	@Override
@@ -58,27 +151,27 @@ public class RenderSystem extends EntityProcessingSystem {
 		Preconditions.checkState(Game.getGame().isPresent(), "Game Object not present for rendering");
 		
 		// enable textures since we're going to use these for our sprites
-		glEnable(GL_TEXTURE_2D);
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_DEPTH_TEST);
+		system.enable(GL_TEXTURE_2D);
+		system.enable(GL_BLEND);
+		system.blendFunction(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+		system.enable(GL_DEPTH_TEST);
 		
 		// Testing some states
-		GL11.glClearDepth(1.0);
-		GL11.glDepthFunc(GL11.GL_LEQUAL);
-		GL11.glAlphaFunc(GL11.GL_GREATER, 0.1f);
-		glEnable(GL11.GL_ALPHA_TEST);
-		glEnable(GL11.GL_CULL_FACE);
+		system.clearDepth(1.0);
+		system.depthFunction(GL11.GL_LEQUAL);
+		system.alphaFunction(GL11.GL_GREATER, 0.1f);
+		system.enable(GL11.GL_ALPHA_TEST);
+		system.enable(GL11.GL_CULL_FACE);
 		
-		glMatrixMode(GL_MODELVIEW);
-		glLoadIdentity();
-		glViewport(0, 0, Game.getGame().get().getWindowWidth(), Game.getGame().get().getWindowHeight());
+		system.setMatrixMode(GL_MODELVIEW);
+		system.loadIdentityMatrix();
+		system.viewport(0, 0, Game.getGame().get().getWindowWidth(), Game.getGame().get().getWindowHeight());
 	}
 	
 	public void clearScreen() {
 		// clear screen
-		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-		glMatrixMode(GL_MODELVIEW);
-		glLoadIdentity();
+		system.clear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+		system.setMatrixMode(GL_MODELVIEW);
+		system.loadIdentityMatrix();
 	}
 }
@@ -4,7 +4,6 @@ import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.Entity;
 import com.artemis.annotations.Mapper;
-import com.artemis.systems.EntityProcessingSystem;
 import com.stonetolb.engine.component.movement.Rotation;
 import com.stonetolb.engine.component.movement.Velocity;
 import com.stonetolb.engine.component.render.RenderComponent;
@@ -15,12 +14,14 @@ import com.stonetolb.render.StatefulDrawable;
 
 /**
  * System used to change an Entity's visual representation based on 
- * its state.
+ * its state. Only Entities whose Velocity or Rotation changed are looked at.
  * 
  * @author james.baiera
  *
  */
-public class SpriteControlSystem extends EntityProcessingSystem implements Critic{
+@Reads({Velocity.class, Rotation.class})
+@Writes({SpriteControl.class, RenderComponent.class})
+public class SpriteControlSystem extends DirtyEntityProcessingSystem implements Critic{
 	private @Mapper ComponentMapper<SpriteControl> spriteControlMap;
 	private @Mapper ComponentMapper<RenderComponent> renderComponentMap;
 	private @Mapper ComponentMapper<Velocity> velocityMap;
@@ -28,7 +29,7 @@ public class SpriteControlSystem extends EntityProcessingSystem implements Criti
 	
 	@SuppressWarnings("unchecked")
 	public SpriteControlSystem() {
-		super(Aspect.getAspectForAll(SpriteControl.class, RenderComponent.class, Velocity.class, Rotation.class));
+		super(Aspect.getAspectForAll(SpriteControl.class, RenderComponent.class, Velocity.class, Rotation.class), Velocity.class, Rotation.class);
 	}
 
 	@Override
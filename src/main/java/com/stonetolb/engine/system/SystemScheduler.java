@@ -0,0 +1,319 @@
+package com.stonetolb.engine.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.artemis.EntitySystem;
+import com.artemis.World;
+import com.google.common.base.Preconditions;
+import com.stonetolb.engine.profiler.FrameProfiler;
+
+/**
+ * Runs a World's systems on a pool of worker threads, as many at once as
+ * their declared component access allows.
+ * <p>
+ * Systems are added to the scheduler in the order they should run, and are
+ * set on the World as passive, so {@link World#process()} only takes care of
+ * added, changed and deleted entities. From the {@link Reads} and
+ * {@link Writes} on each system the scheduler builds a dependency graph: a
+ * system depends on every system added before it that writes what it reads
+ * or writes, or reads what it writes. Each step a system starts as soon as
+ * everything it depends on has finished. A system with neither annotation
+ * could touch anything, so it waits for every system before it and every
+ * system after it waits for it.
+ * <p>
+ * Systems that may run at once must not create or delete entities, or add or
+ * remove components; Artemis does not expect to be changed from more than one
+ * thread. With a single thread every system simply runs in the order added,
+ * on the calling thread.
+ * <p>
+ * Given a {@link FrameProfiler}, the scheduler times every system's step in a
+ * section named after the system's class, and the World's handling of entity
+ * changes in a section named "World".
+ */
+public class SystemScheduler {
+	private final World world;
+	private final ExecutorService pool;
+	private final int threads;
+	private final List<EntitySystem> systems;
+	private FrameProfiler profiler;
+
+	/* Dependency graph, rebuilt when systems are added */
+	private boolean planned;
+	private int[][] dependents;
+	private int[] dependencyCount;
+
+	/* Per step state */
+	private AtomicIntegerArray waiting;
+	private Runnable[] tasks;
+	private FrameProfiler.Section worldSection;
+	private FrameProfiler.Section[] sections;
+	private final Semaphore finished;
+	private volatile Throwable failure;
+
+	/**
+	 * Creates a scheduler with a thread per available processor.
+	 * @param pWorld - World whose systems to run.
+	 */
+	public SystemScheduler(World pWorld) {
+		this(pWorld, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a scheduler.
+	 * @param pWorld - World whose systems to run.
+	 * @param pThreads - Worker threads. 1 runs every system on the calling thread.
+	 */
+	public SystemScheduler(World pWorld, int pThreads) {
+		Preconditions.checkArgument(pThreads > 0, "Thread count must be positive : " + pThreads);
+		world = pWorld;
+		threads = pThreads;
+		pool = pThreads > 1 ? Executors.newFixedThreadPool(pThreads, new WorkerFactory()) : null;
+		systems = new ArrayList<EntitySystem>();
+		finished = new Semaphore(0);
+		planned = false;
+	}
+
+	/**
+	 * Sets a system on the World to be run by this scheduler. Must be called
+	 * before the World is initialized.
+	 * @param pSystem - System to add.
+	 * @return The system.
+	 */
+	public <T extends EntitySystem> T add(T pSystem) {
+		world.setSystem(pSystem, true);
+		systems.add(pSystem);
+		planned = false;
+		return pSystem;
+	}
+
+	/**
+	 * Times each system from now on, or stops timing them.
+	 * @param pProfiler - Profiler to record into, or null to stop.
+	 */
+	public void setProfiler(FrameProfiler pProfiler) {
+		profiler = pProfiler;
+		planned = false;
+	}
+
+	/**
+	 * Applies entity changes, then runs every system once.
+	 */
+	public void process() {
+		if (!planned) {
+			plan();
+		}
+		if (worldSection == null) {
+			world.process();
+		} else {
+			long start = System.nanoTime();
+			world.process();
+			worldSection.record(System.nanoTime() - start);
+		}
+
+		if (pool == null) {
+			for (int i = 0, s = systems.size(); i < s; i++) {
+				runSystem(i);
+			}
+			return;
+		}
+
+		int count = systems.size();
+		failure = null;
+		for (int i = 0; i < count; i++) {
+			waiting.set(i, dependencyCount[i]);
+		}
+		for (int i = 0; i < count; i++) {
+			if (dependencyCount[i] == 0) {
+				pool.execute(tasks[i]);
+			}
+		}
+		finished.acquireUninterruptibly(count);
+
+		Throwable thrown = failure;
+		if (thrown instanceof RuntimeException) {
+			throw (RuntimeException)thrown;
+		} else if (thrown instanceof Error) {
+			throw (Error)thrown;
+		} else if (thrown != null) {
+			throw new IllegalStateException("System failed", thrown);
+		}
+	}
+
+	/**
+	 * Stops the worker threads. The scheduler cannot be used afterwards.
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return Number of worker threads.
+	 */
+	public int getThreadCount() {
+		return threads;
+	}
+
+	/**
+	 * @param pSystem - A system added to this scheduler.
+	 * @return Systems that must finish before the given one starts, in the order added.
+	 */
+	public List<EntitySystem> getDependencies(EntitySystem pSystem) {
+		int index = systems.indexOf(pSystem);
+		Preconditions.checkArgument(index >= 0, "System not added to this scheduler : " + pSystem);
+		List<EntitySystem> result = new ArrayList<EntitySystem>();
+		for (int i = 0; i < index; i++) {
+			if (conflicts(systems.get(i), pSystem)) {
+				result.add(systems.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param pFirst - A system.
+	 * @param pSecond - Another system.
+	 * @return True if the two systems must not run at the same time.
+	 */
+	public static boolean conflicts(EntitySystem pFirst, EntitySystem pSecond) {
+		Set<Class<?>> firstReads = declared(pFirst.getClass().getAnnotation(Reads.class));
+		Set<Class<?>> firstWrites = declared(pFirst.getClass().getAnnotation(Writes.class));
+		Set<Class<?>> secondReads = declared(pSecond.getClass().getAnnotation(Reads.class));
+		Set<Class<?>> secondWrites = declared(pSecond.getClass().getAnnotation(Writes.class));
+
+		if ((firstReads == null && firstWrites == null) || (secondReads == null && secondWrites == null)) {
+			// Undeclared access, assume the worst
+			return true;
+		}
+		return overlaps(firstWrites, secondReads) || overlaps(firstWrites, secondWrites) || overlaps(secondWrites, firstReads);
+	}
+
+	/**
+	 * Builds the dependency graph and the reusable per step tasks.
+	 */
+	private void plan() {
+		int count = systems.size();
+		List<List<Integer>> edges = new ArrayList<List<Integer>>();
+		dependencyCount = new int[count];
+		for (int i = 0; i < count; i++) {
+			edges.add(new ArrayList<Integer>());
+		}
+		for (int later = 0; later < count; later++) {
+			for (int earlier = 0; earlier < later; earlier++) {
+				if (conflicts(systems.get(earlier), systems.get(later))) {
+					edges.get(earlier).add(later);
+					dependencyCount[later]++;
+				}
+			}
+		}
+
+		dependents = new int[count][];
+		tasks = new Runnable[count];
+		for (int i = 0; i < count; i++) {
+			List<Integer> next = edges.get(i);
+			dependents[i] = new int[next.size()];
+			for (int j = 0; j < next.size(); j++) {
+				dependents[i][j] = next.get(j);
+			}
+			tasks[i] = new SystemTask(i);
+		}
+		waiting = new AtomicIntegerArray(count);
+
+		worldSection = null;
+		sections = new FrameProfiler.Section[count];
+		if (profiler != null) {
+			worldSection = profiler.section("World");
+			for (int i = 0; i < count; i++) {
+				sections[i] = profiler.section(systems.get(i).getClass().getSimpleName());
+			}
+		}
+		planned = true;
+	}
+
+	/**
+	 * Runs one system's step, timing it if there is a profiler.
+	 */
+	private void runSystem(int pIndex) {
+		FrameProfiler.Section section = sections[pIndex];
+		if (section == null) {
+			systems.get(pIndex).process();
+			return;
+		}
+		long start = System.nanoTime();
+		systems.get(pIndex).process();
+		section.record(System.nanoTime() - start);
+	}
+
+	private static Set<Class<?>> declared(Reads pReads) {
+		return pReads == null ? null : new HashSet<Class<?>>(Arrays.asList(pReads.value()));
+	}
+
+	private static Set<Class<?>> declared(Writes pWrites) {
+		return pWrites == null ? null : new HashSet<Class<?>>(Arrays.asList(pWrites.value()));
+	}
+
+	private static boolean overlaps(Set<Class<?>> pFirst, Set<Class<?>> pSecond) {
+		if (pFirst == null || pSecond == null) {
+			return false;
+		}
+		for (Class<?> type : pFirst) {
+			if (pSecond.contains(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs one system, then starts every dependent it was the last to wait on.
+	 */
+	private class SystemTask implements Runnable {
+		private final int index;
+
+		SystemTask(int pIndex) {
+			index = pIndex;
+		}
+
+		@Override
+		public void run() {
+			try {
+				runSystem(index);
+			} catch (Throwable t) {
+				failure = t;
+			} finally {
+				int[] next = dependents[index];
+				for (int i = 0; i < next.length; i++) {
+					if (waiting.decrementAndGet(next[i]) == 0) {
+						pool.execute(tasks[next[i]]);
+					}
+				}
+				finished.release();
+			}
+		}
+	}
+
+	/**
+	 * Daemon worker threads, so a scheduler left running never keeps the game alive.
+	 */
+	private static class WorkerFactory implements ThreadFactory {
+		private final AtomicInteger created = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable pRunnable) {
+			Thread thread = new Thread(pRunnable, "system-worker-" + created.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
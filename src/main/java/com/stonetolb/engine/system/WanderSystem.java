@@ -0,0 +1,56 @@
+package com.stonetolb.engine.system;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.annotations.Mapper;
+import com.stonetolb.engine.component.control.Wander;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.profiles.WorldProfile;
+
+/**
+ * System used to walk wandering Entities around. Every one to three seconds
+ * a wanderer picks one of the four directions to walk in, or stands still.
+ */
+@Writes({Wander.class, Velocity.class, Rotation.class})
+public class WanderSystem extends ParallelEntityProcessingSystem {
+	private static final int MIN_WALK_MILLIS = 1000;
+	private static final int WALK_MILLIS_RANGE = 2000;
+	private static final WorldProfile.WorldDirection[] DIRECTIONS = {
+		  WorldProfile.WorldDirection.UP
+		, WorldProfile.WorldDirection.RIGHT
+		, WorldProfile.WorldDirection.DOWN
+		, WorldProfile.WorldDirection.LEFT
+	};
+
+	private @Mapper ComponentMapper<Wander> wanderMap;
+	private @Mapper ComponentMapper<Velocity> velocityMap;
+	private @Mapper ComponentMapper<Rotation> rotationMap;
+
+	@SuppressWarnings("unchecked")
+	public WanderSystem() {
+		super(Aspect.getAspectForAll(Wander.class, Velocity.class, Rotation.class));
+	}
+
+	@Override
+	protected void process(Entity pEntity) {
+		Wander wander = wanderMap.get(pEntity);
+		float remaining = wander.getRemaining() - world.getDelta();
+		if (remaining > 0) {
+			wander.setRemaining(remaining);
+			return;
+		}
+
+		// One extra choice for standing still
+		int choice = wander.nextInt(DIRECTIONS.length + 1);
+		Velocity velocity = velocityMap.get(pEntity);
+		if (choice == DIRECTIONS.length) {
+			velocity.setVelocity(WorldProfile.Speed.STOP.getSpeed());
+		} else {
+			rotationMap.get(pEntity).setRotation(DIRECTIONS[choice].getDirection());
+			velocity.setVelocity(WorldProfile.Speed.WALK.getSpeed());
+		}
+		wander.setRemaining(MIN_WALK_MILLIS + wander.nextInt(WALK_MILLIS_RANGE));
+	}
+}
@@ -0,0 +1,23 @@
+package com.stonetolb.engine.system;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.artemis.Component;
+
+/**
+ * Declares the components a system changes. The {@link SystemScheduler} never
+ * runs a system alongside another that reads or writes the same components;
+ * of the two, the one registered first runs first.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Writes {
+	Class<? extends Component>[] value();
+}
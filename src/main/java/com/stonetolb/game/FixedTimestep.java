@@ -0,0 +1,106 @@
+package com.stonetolb.game;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Accumulator that turns variable frame times into a whole number of fixed
+ * length simulation ticks.
+ * <p>
+ * Each frame the time since the last frame is added to the accumulator, and
+ * a tick is run for every full tick length it holds. What is left over is how
+ * far the next tick has come, which rendering uses to interpolate between the
+ * last two ticks. The simulation therefore always steps by the same amount
+ * no matter how fast frames are drawn.
+ * <p>
+ * After a long frame (a slow GPU, a hitch, the window being dragged) the
+ * accumulator could hold far more ticks than can be run in time. No more than
+ * the catch-up budget is run in one frame, and the rest of the backlog is
+ * dropped, so the game slows down for a moment instead of spiralling.
+ */
+public class FixedTimestep {
+	public static final int DEFAULT_TICK_RATE = 60;
+	public static final int DEFAULT_MAX_TICKS_PER_FRAME = 5;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final int ticksPerSecond;
+	private final long tickNanos;
+	private final int maxTicksPerFrame;
+	private long accumulator;
+	private long droppedTicks;
+
+	/**
+	 * Creates a timestep at {@link #DEFAULT_TICK_RATE} ticks a second.
+	 */
+	public FixedTimestep() {
+		this(DEFAULT_TICK_RATE, DEFAULT_MAX_TICKS_PER_FRAME);
+	}
+
+	/**
+	 * Creates a timestep.
+	 * @param pTicksPerSecond - Simulation ticks per second.
+	 * @param pMaxTicksPerFrame - Most ticks run in one frame before the backlog is dropped.
+	 */
+	public FixedTimestep(int pTicksPerSecond, int pMaxTicksPerFrame) {
+		Preconditions.checkArgument(pTicksPerSecond > 0, "Tick rate must be positive : " + pTicksPerSecond);
+		Preconditions.checkArgument(pMaxTicksPerFrame > 0, "Catch-up budget must be positive : " + pMaxTicksPerFrame);
+		ticksPerSecond = pTicksPerSecond;
+		tickNanos = NANOS_PER_SECOND / pTicksPerSecond;
+		maxTicksPerFrame = pMaxTicksPerFrame;
+		accumulator = 0L;
+		droppedTicks = 0L;
+	}
+
+	/**
+	 * Adds a frame's worth of time.
+	 * @param pElapsedNanos - Nanoseconds since the last frame.
+	 * @return Number of ticks to run this frame.
+	 */
+	public int advance(long pElapsedNanos) {
+		accumulator += Math.max(pElapsedNanos, 0L);
+		int ticks = (int)Math.min(accumulator / tickNanos, maxTicksPerFrame);
+		accumulator -= ticks * tickNanos;
+
+		if (accumulator >= tickNanos) {
+			// Over budget, keep only the partial tick
+			droppedTicks += accumulator / tickNanos;
+			accumulator %= tickNanos;
+		}
+		return ticks;
+	}
+
+	/**
+	 * @return How far between the last tick and the next one the current
+	 * time is, from 0 to 1.
+	 */
+	public float getAlpha() {
+		return (float)accumulator / tickNanos;
+	}
+
+	/**
+	 * @return Length of a tick in milliseconds.
+	 */
+	public float getTickMillis() {
+		return tickNanos / 1000000F;
+	}
+
+	/**
+	 * @return Simulation ticks per second.
+	 */
+	public int getTicksPerSecond() {
+		return ticksPerSecond;
+	}
+
+	/**
+	 * @return Most ticks run in one frame before the backlog is dropped.
+	 */
+	public int getMaxTicksPerFrame() {
+		return maxTicksPerFrame;
+	}
+
+	/**
+	 * @return Ticks thrown away so far for being over the catch-up budget.
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+}
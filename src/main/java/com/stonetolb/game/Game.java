@@ -1,7 +1,23 @@
 package com.stonetolb.game;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.stonetolb.engine.input.Input;
+import com.stonetolb.engine.input.InputFrame;
+import com.stonetolb.engine.input.InputRecorder;
+import com.stonetolb.engine.input.InputReplay;
+import com.stonetolb.engine.profiler.FrameProfiler;
 import com.stonetolb.game.module.Module;
+import com.stonetolb.render.ProfilerOverlay;
+import com.stonetolb.resource.ResourceContext;
 import com.stonetolb.render.util.Camera;
 import com.stonetolb.render.util.FixedVantage;
 import org.lwjgl.LWJGLException;
@@ -14,11 +30,43 @@ import org.lwjgl.opengl.DisplayMode;
  * This is our hook for launching the game, and also the home of the main game
  * loop. From here, we'll be running the frame render operation, which will draw
  * each sprite contained in the list of things to draw.
+ * <p>
+ * The simulation runs on a {@link FixedTimestep}: however long a frame takes,
+ * the module is stepped a whole number of fixed length ticks, and rendering
+ * is told how far it is between the last tick and the next.
+ * <p>
+ * Update and render are pipelined. Each frame the ticks are handed to a
+ * logic thread, and while they run the display thread draws what the ticks
+ * of the previous frame produced. Once both are done the module publishes
+ * the new state for the next frame to draw. A frame therefore costs the
+ * longer of simulation and rendering rather than both, at the price of
+ * drawing one frame behind. The display is only updated, and input only
+ * polled, while no tick is running.
+ * <p>
+ * Every frame is measured by a {@link FrameProfiler}: the frame interval,
+ * the ticks, rendering, the Camera update, waiting on the ticks and
+ * {@link Display#update()}. The Camera is moved by the module while it
+ * renders, into the "Camera" section, and that time is left out of
+ * "Render". Modules can add their own sections, such as one per system. F3
+ * toggles an overlay of the results, and if a profile file has been set they
+ * are written to it as CSV on exit.
+ * <p>
+ * A headless game never opens a display. Every system call goes to the
+ * headless {@link ResourceContext}, and the loop only steps the module: in
+ * real time, or, given a tick limit, as fast as it can until the limit is
+ * reached. Nothing is rendered and no input is read.
+ * <p>
+ * Input is read once a frame into an {@link InputFrame}, along with the
+ * frame's length, and every tick of the frame reads keys from it through
+ * {@link Input}. The frames can be recorded to a file, and a recording can
+ * be played back in place of the keyboard and the clock. Played back, the
+ * same frames make the same ticks with the same keys, so a session can be
+ * run again, windowed or headless, to profile it. Headless with a tick
+ * limit, the recording starts over each time it runs out, for soak tests.
  *
  * @author james.baiera
  */
 public class Game {
-	private static long	TIMER_TICKS_PER_SECOND = Sys.getTimerResolution();
 	private static Game INSTANCE;
 
 	private String windowTitle;
@@ -28,9 +76,34 @@ public class Game {
 	private long lastLoopTime;
 	private long lastFpsTime;
 	private int	fps;
-
-	private boolean gameRunning;
+	private FixedTimestep timestep;
+	private float renderAlpha;
+
+	private ExecutorService logic;
+	private TickRunner tickRunner;
+
+	private FrameProfiler profiler;
+	private FrameProfiler.Section frameSection;
+	private FrameProfiler.Section ticksSection;
+	private FrameProfiler.Section renderSection;
+	private FrameProfiler.Section cameraSection;
+	private FrameProfiler.Section waitSection;
+	private FrameProfiler.Section displaySection;
+	private ProfilerOverlay overlay;
+	private boolean overlayVisible;
+	private boolean overlayKeyDown;
+	private File profileFile;
+
+	private InputFrame input;
+	private File recordFile;
+	private File replayFile;
+	private InputRecorder recorder;
+	private InputReplay replay;
+
+	private volatile boolean gameRunning;
 	private boolean	fullscreen;
+	private boolean headless;
+	private long tickLimit;
 
 	private Module module;
 
@@ -47,9 +120,27 @@ public class Game {
 	 */
 	public static Game createGame(String pWindowTitle, int pWindowWidth, int pWindowHeight, String pModuleToRun, boolean fullscreen)
 	throws GeneralGameException
+	{
+		return createGame(pWindowTitle, pWindowWidth, pWindowHeight, pModuleToRun, fullscreen, new FixedTimestep());
+	}
+
+	/**
+	 * Creates the Game object and returns it.
+	 *
+	 * @param pWindowTitle - Title to display on the window header.
+	 * @param pWindowWidth - Width of the game window.
+	 * @param pWindowHeight - Height of the game window.
+	 * @param pModuleToRun - Module to load and run at start up.
+	 * @param fullscreen - Option to set fullscreen on or off.
+	 * @param pTimestep - Tick rate and catch-up budget of the simulation.
+	 * @return Game instance
+	 * @throws GeneralGameException On failure to load Module for any reason.
+	 */
+	public static Game createGame(String pWindowTitle, int pWindowWidth, int pWindowHeight, String pModuleToRun, boolean fullscreen, FixedTimestep pTimestep)
+	throws GeneralGameException
 	{
 		if (INSTANCE == null) {
-			INSTANCE = new Game(pWindowTitle, pWindowWidth, pWindowHeight, pModuleToRun, fullscreen);
+			INSTANCE = new Game(pWindowTitle, pWindowWidth, pWindowHeight, pModuleToRun, fullscreen, pTimestep);
 		}
 		return INSTANCE;
 	}
@@ -62,6 +153,13 @@ public class Game {
 		return Optional.fromNullable(INSTANCE);
 	}
 
+	/**
+	 * Forgets the singleton game object, so tests can each create their own.
+	 */
+	static void reset() {
+		INSTANCE = null;
+	}
+
 	/**
 	 * Construct our game and set it running.
 	 * @param pWindowTitle - Title of the Game Window
@@ -69,6 +167,7 @@ public class Game {
 	 * @param pWindowHeight - Game window height
 	 * @param pModuleToRun - Game Module to run at start up
 	 * @param pFullscreen - Option to set fullscreen on or off
+	 * @param pTimestep - Tick rate and catch-up budget of the simulation
 	 * @throws GeneralGameException On failure to load given module
 	 */
 	private Game(
@@ -76,15 +175,29 @@ public class Game {
 			, int pWindowWidth
 			, int pWindowHeight
 			, String pModuleToRun
-			, boolean pFullscreen)
+			, boolean pFullscreen
+			, FixedTimestep pTimestep)
 	throws GeneralGameException
 	{
 		windowTitle = pWindowTitle;
 		windowWidth = pWindowWidth;
 		windowHeight = pWindowHeight;
 		fullscreen = pFullscreen;
+		timestep = pTimestep;
 		gameRunning = true;
 
+		profiler = new FrameProfiler();
+		frameSection = profiler.section("Frame");
+		ticksSection = profiler.section("Ticks");
+		renderSection = profiler.section("Render");
+		cameraSection = profiler.section("Camera");
+		waitSection = profiler.section("Wait for ticks");
+		displaySection = profiler.section("Display.update");
+		overlay = new ProfilerOverlay(profiler);
+		overlayVisible = false;
+		overlayKeyDown = false;
+		input = new InputFrame();
+
 		// Dynamically load a module by name
 		System.out.println("Loading Game Module...");
 		try {
@@ -109,11 +222,106 @@ public class Game {
 	throws GeneralGameException
 	{
 		try {
-			initialize();
-			gameLoop();
-			Display.destroy();
+			openInput();
+			if (headless) {
+				initializeHeadless();
+				headlessLoop();
+			} else {
+				initialize();
+				gameLoop();
+				Display.destroy();
+			}
 		} catch (Exception e) {
 			throw new GeneralGameException("Error occurred in game", e);
+		} finally {
+			if (logic != null) {
+				logic.shutdown();
+			}
+			closeRecording();
+			writeProfile();
+		}
+	}
+
+	/**
+	 * Opens the recording to play back and the one to record to, if set, and
+	 * has systems read their input from this game's frames.
+	 * @throws IOException On failure to open either recording.
+	 */
+	private void openInput()
+	throws IOException
+	{
+		if (replayFile != null) {
+			replay = new InputReplay(replayFile);
+			if (replay.getTickRate() != timestep.getTicksPerSecond()
+					|| replay.getMaxTicksPerFrame() != timestep.getMaxTicksPerFrame()) {
+				// The same frame times only make the same ticks on the same timestep
+				System.out.println("Replaying at the recorded tick rate : " + replay.getTickRate());
+				timestep = new FixedTimestep(replay.getTickRate(), replay.getMaxTicksPerFrame());
+			}
+		}
+		if (recordFile != null) {
+			recorder = new InputRecorder(recordFile, timestep.getTicksPerSecond(), timestep.getMaxTicksPerFrame());
+		}
+		Input.setActive(input);
+	}
+
+	/**
+	 * Fills in this frame's input, from the recording being played back if
+	 * there is one, otherwise from the keyboard, and records it if recording.
+	 * @param pElapsed - Nanoseconds since the last frame.
+	 * @return False once the recording being played back has run out.
+	 */
+	private boolean readInput(long pElapsed) {
+		if (replay == null) {
+			input.poll(pElapsed);
+		} else if (!replay.next(input)) {
+			if (!headless || tickLimit == 0) {
+				return false;
+			}
+			// Soak test, play it again until the tick limit is reached
+			replay.rewind();
+			if (!replay.next(input)) {
+				return false;
+			}
+		}
+
+		if (recorder != null) {
+			try {
+				recorder.record(input);
+			} catch (IOException ioe) {
+				throw new IllegalStateException("Unable to record input", ioe);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Closes the recording being made, if any.
+	 */
+	private void closeRecording() {
+		if (recorder == null) {
+			return;
+		}
+		try {
+			recorder.close();
+			System.out.println("Recorded " + recorder.getFrames() + " frames to : " + recordFile);
+		} catch (IOException ioe) {
+			System.out.println("Unable to write recording : " + ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the frame profile to the profile file, if one is set.
+	 */
+	private void writeProfile() {
+		if (profileFile == null) {
+			return;
+		}
+		try {
+			profiler.writeCsv(profileFile);
+			System.out.println("Profile written to : " + profileFile);
+		} catch (IOException ioe) {
+			System.out.println("Unable to write profile : " + ioe.getMessage());
 		}
 	}
 
@@ -127,10 +335,81 @@ public class Game {
 			gameLogic();
 
 			// update window contents
+			long start = System.nanoTime();
 			Display.update();
+			displaySection.record(System.nanoTime() - start);
 		}
 	}
 
+	/**
+	 * Steps the module until the game ends, without a display.
+	 */
+	private void headlessLoop() {
+		long start = System.nanoTime();
+		long ticksRun = 0;
+		while (gameRunning) {
+			long now = System.nanoTime();
+			int ticks;
+			if (replay != null) {
+				// Recorded frames, back to back
+				if (!readInput(0L)) {
+					break;
+				}
+				ticks = timestep.advance(input.getElapsedNanos());
+			} else if (tickLimit > 0) {
+				// Batch run, no clock to keep up with
+				ticks = 1;
+			} else {
+				ticks = timestep.advance(now - lastLoopTime);
+				lastLoopTime = now;
+			}
+
+			if (ticks == 0) {
+				if (replay == null) {
+					sleepQuietly();
+				}
+				continue;
+			}
+			for (int i = 0; i < ticks; i++) {
+				module.step(timestep.getTickMillis());
+			}
+			module.publish();
+			ticksSection.record(System.nanoTime() - now);
+
+			ticksRun += ticks;
+			if (tickLimit > 0 && ticksRun >= tickLimit) {
+				gameRunning = false;
+			}
+		}
+		System.out.println("Ran " + ticksRun + " ticks in " + (System.nanoTime() - start) / 1000000L + " ms");
+	}
+
+	/**
+	 * Waits a moment for the next tick to come due.
+	 */
+	private void sleepQuietly() {
+		try {
+			Thread.sleep(1L);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			gameRunning = false;
+		}
+	}
+
+	/**
+	 * Initialize the game without a display.
+	 */
+	private void initializeHeadless() {
+		// Resources are still decoded, with nowhere to show them
+		System.setProperty("java.awt.headless", "true");
+		ResourceContext.setActive(ResourceContext.headless());
+		Camera.setResourceContext(ResourceContext.headless());
+		Camera.setVantage(FixedVantage.create());
+
+		lastLoopTime = System.nanoTime();
+		module.init();
+	}
+
 	/**
 	 * Initialize the common elements for the game
 	 * @throws GeneralGameException On failure to set display mode or create display.
@@ -147,7 +426,11 @@ public class Game {
 			Camera.setVantage(FixedVantage.create());
 
 			// Set starting time for game loop
-			lastLoopTime = getTime();
+			lastLoopTime = System.nanoTime();
+
+			// Thread that runs the simulation while frames are drawn
+			logic = Executors.newSingleThreadExecutor(new LogicThreadFactory());
+			tickRunner = new TickRunner();
 
 		} catch (LWJGLException le) {
 			gameRunning = false;
@@ -163,12 +446,15 @@ public class Game {
 	 * running game logic and rendering the scene.
 	 */
 	private void gameLogic() {
-		// Sync Display to 60 fps
+		// Cap rendering at 60 fps; the simulation keeps its own tick rate
 		Display.sync(60);
 
 		// Calculate time since last loop
-		long delta = getTime() - lastLoopTime;
-		lastLoopTime = getTime();
+		long now = System.nanoTime();
+		long elapsed = now - lastLoopTime;
+		long delta = elapsed / 1000000L;
+		lastLoopTime = now;
+		frameSection.record(elapsed);
 		lastFpsTime += delta;
 		fps++;
 
@@ -179,14 +465,45 @@ public class Game {
 			fps = 0;
 		}
 
-		// Allow Game Logic
-		module.step(delta);
+		// Read this frame's input, then start Game Logic for it, in fixed ticks, on the logic thread
+		if (!readInput(elapsed)) {
+			gameRunning = false;
+			return;
+		}
+		int ticks = timestep.advance(input.getElapsedNanos());
+		Future<?> running = null;
+		if (ticks > 0) {
+			tickRunner.ticks = ticks;
+			running = logic.submit(tickRunner);
+		}
 
-		// render the game frame
-		module.render(delta);
+		// Meanwhile render what the last frame's ticks produced
+		long cameraUpdates = cameraSection.getHistogram().getCount();
+		long start = System.nanoTime();
+		module.render(delta, renderAlpha);
+		if (overlayVisible) {
+			overlay.draw(windowWidth, windowHeight);
+		}
+		long rendered = System.nanoTime();
+		
+		// Rendering moved the Camera, which is profiled on its own
+		long camera = cameraSection.getHistogram().getCount() > cameraUpdates ? cameraSection.getLast() : 0L;
+		renderSection.record(rendered - start - camera);
+
+		// Hand this frame's ticks over to the next frame's render
+		if (running != null) {
+			awaitTicks(running);
+			waitSection.record(System.nanoTime() - rendered);
+			module.publish();
+		}
+		renderAlpha = timestep.getAlpha();
 
-		// Update Camera's position
-		Camera.getInstance().update(delta);
+		// F3 toggles the profiler overlay, once per press
+		boolean overlayKey = Keyboard.isKeyDown(Keyboard.KEY_F3);
+		if (overlayKey && !overlayKeyDown) {
+			overlayVisible = !overlayVisible;
+		}
+		overlayKeyDown = overlayKey;
 
 		// if escape has been pressed, stop the game
 		if ((Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_ESCAPE))) {
@@ -194,6 +511,21 @@ public class Game {
 		}
 	}
 
+	/**
+	 * Waits for the logic thread to finish a frame's ticks.
+	 * @param pRunning - The submitted ticks.
+	 */
+	private void awaitTicks(Future<?> pRunning) {
+		try {
+			pRunning.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			gameRunning = false;
+		} catch (ExecutionException ee) {
+			throw new IllegalStateException("Error occurred in game logic", ee.getCause());
+		}
+	}
+
 	/**
 	* Sets the display mode
 	*
@@ -254,7 +586,74 @@ public class Game {
 		// multiply by 1000 so our end result is in milliseconds
 		// then divide by the number of ticks in a second giving
 		// us a nice clear time in milliseconds
-		return (Sys.getTime() * 1000) / TIMER_TICKS_PER_SECOND;
+		// resolution is asked for here, not up front, so headless games never load LWJGL
+		return (Sys.getTime() * 1000) / Sys.getTimerResolution();
+	}
+
+	/**
+	 * Returns the profiler that measures every frame. Modules may add sections to it.
+	 * @return The frame profiler.
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Sets a file to write the frame profile to as CSV when the game exits.
+	 * @param pFile - File to write, or null to not write one.
+	 */
+	public void setProfileFile(File pFile) {
+		profileFile = pFile;
+	}
+
+	/**
+	 * Sets a file to record every frame's input to.
+	 * @param pFile - File to record to, or null to not record.
+	 */
+	public void setRecordFile(File pFile) {
+		recordFile = pFile;
+	}
+
+	/**
+	 * Sets a recording to play back in place of the keyboard and clock. The
+	 * game ends when it runs out, unless headless with a tick limit.
+	 * @param pFile - Recording to play back, or null to play.
+	 */
+	public void setReplayFile(File pFile) {
+		replayFile = pFile;
+	}
+
+	/**
+	 * Ends the game after the current frame. May be called from any thread,
+	 * including by a module from inside a step.
+	 */
+	public void stop() {
+		gameRunning = false;
+	}
+
+	/**
+	 * Runs the game without a display. Must be called before {@link #execute()}.
+	 * @param pHeadless - True to run headless.
+	 */
+	public void setHeadless(boolean pHeadless) {
+		headless = pHeadless;
+	}
+
+	/**
+	 * Sets how many ticks a headless game runs before it ends. With a limit
+	 * the ticks run back to back instead of in real time.
+	 * @param pTickLimit - Ticks to run, or 0 to run until stopped.
+	 */
+	public void setTickLimit(long pTickLimit) {
+		Preconditions.checkArgument(pTickLimit >= 0, "Tick limit cannot be negative : " + pTickLimit);
+		tickLimit = pTickLimit;
+	}
+
+	/**
+	 * @return True if the game runs without a display.
+	 */
+	public boolean isHeadless() {
+		return headless;
 	}
 
 	/**
@@ -272,4 +671,32 @@ public class Game {
 	public int getWindowHeight() {
 		return windowHeight;
 	}
+
+	/**
+	 * Steps the module a set number of ticks. Reused every frame.
+	 */
+	private class TickRunner implements Runnable {
+		private int ticks;
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			for (int i = 0; i < ticks; i++) {
+				module.step(timestep.getTickMillis());
+			}
+			ticksSection.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Names the logic thread, and makes it a daemon so it never keeps the game alive.
+	 */
+	private static class LogicThreadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable pRunnable) {
+			Thread thread = new Thread(pRunnable, "game-logic");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
\ No newline at end of file
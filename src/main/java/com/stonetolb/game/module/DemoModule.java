@@ -10,6 +10,7 @@ import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.stonetolb.asset.graphics.Texture;
 import com.stonetolb.asset.graphics.TextureLoader;
+import com.stonetolb.engine.change.ChangeLog;
 import com.stonetolb.engine.component.control.PlayerControl;
 import com.stonetolb.engine.component.movement.Rotation;
 import com.stonetolb.engine.component.movement.Velocity;
@@ -19,18 +20,24 @@ import com.stonetolb.engine.component.position.Position;
 import com.stonetolb.engine.component.render.CameraMount;
 import com.stonetolb.engine.component.render.RenderComponent;
 import com.stonetolb.engine.component.render.SpriteControl;
+import com.stonetolb.engine.physics.ResolverBackend;
+import com.stonetolb.engine.physics.TileGrid;
 import com.stonetolb.engine.profiles.WorldProfile;
 import com.stonetolb.engine.system.CameraSystem;
 import com.stonetolb.engine.system.CollisionSystem;
 import com.stonetolb.engine.system.MovementSystem;
 import com.stonetolb.engine.system.PlayerControlSystem;
+import com.stonetolb.engine.system.PositionHistorySystem;
 import com.stonetolb.engine.system.RenderSystem;
 import com.stonetolb.engine.system.SpriteControlSystem;
+import com.stonetolb.engine.system.SystemScheduler;
+import com.stonetolb.game.Game;
 import com.stonetolb.render.Animation;
 import com.stonetolb.render.ImageRenderMode;
 import com.stonetolb.render.NullDrawable;
 import com.stonetolb.render.Sprite;
 import com.stonetolb.render.util.Camera;
+import com.stonetolb.resource.ResourceContext;
 import com.stonetolb.render.util.FluidVantage;
 import com.stonetolb.util.Vector2f;
 
@@ -49,11 +56,15 @@ public class DemoModule implements Module {
 	private static int VAUGHN_TEXTURE_SHEET_HEIGHT = 48;
 	private static int TILE = 40;
 	private static Vector2f CAMERA_START = Vector2f.from(46, 554);
+	private static String COLLISION_LAYER = "Back";
 	
 	private World world;
+	private SystemScheduler scheduler;
 	
 	private Entity vaughn;
 	private RenderSystem renderSystem;
+	private CameraSystem cameraSystem;
+	private ResolverBackend physics;
 	
 	private Sprite worldCeiling;
 	
@@ -119,13 +130,23 @@ public class DemoModule implements Module {
 		
 		// Processing World initialization
 		world = new World();
+		world.setManager(new ChangeLog());
+		scheduler = new SystemScheduler(world);
+		if (Game.getGame().isPresent()) {
+			scheduler.setProfiler(Game.getGame().get().getProfiler());
+		}
+		scheduler.add(new PositionHistorySystem());
 		renderSystem = new RenderSystem(800,600);
-		world.setSystem(renderSystem, true);
-		world.setSystem(new PlayerControlSystem());
-		world.setSystem(new MovementSystem());
-		world.setSystem(new SpriteControlSystem());
-		world.setSystem(new CameraSystem());
-		world.setSystem(new CollisionSystem());
+		if (Game.getGame().isPresent()) {
+			renderSystem.setProfiler(Game.getGame().get().getProfiler());
+		}
+		scheduler.add(new PlayerControlSystem());
+		scheduler.add(new MovementSystem());
+		scheduler.add(new SpriteControlSystem());
+		cameraSystem = scheduler.add(new CameraSystem());
+		physics = new ResolverBackend();
+		scheduler.add(new CollisionSystem(physics));
+		scheduler.add(renderSystem);
 		world.initialize();
 		
 		// Component creation 
@@ -167,7 +188,7 @@ public class DemoModule implements Module {
 		vaughn.addComponent(renderComponent);
 		vaughn.addComponent(new Rotation(WorldProfile.WorldDirection.DOWN.getDirection()));
 		vaughn.addComponent(new Velocity(WorldProfile.Speed.STOP.getSpeed()));
-		vaughn.addComponent(new PlayerControl(WorldProfile.Control.ARROWS));
+		vaughn.addComponent(new PlayerControl(WorldProfile.Control.WASD));
 		vaughn.addComponent(spriteControl);
 		vaughn.addComponent(Camera.attachTo(cameraMount));
 		vaughn.addComponent(body);
@@ -223,12 +244,16 @@ public class DemoModule implements Module {
 		
 		// Create Tiled Map
 		try {
-			map = new TiledMap("src/main/resources/maps/grotto.tmx");
+			// Tile set images need a display, and headless the map is only used for collision
+			map = new TiledMap("src/main/resources/maps/grotto.tmx", !ResourceContext.get().isHeadless());
 		} catch(SlickException se) {
 			// TODO : Throw an actual exception
 			se.printStackTrace();
 			System.exit(1);
 		}
+		
+		// The cliff walls block movement
+		physics.setTileGrid(TileGrid.fromLayer(map, map.getLayerIndex(COLLISION_LAYER)));
 		System.out.println("Load Complete");
 	}
 
@@ -236,28 +261,38 @@ public class DemoModule implements Module {
 	 * {@inheritDoc Module}
 	 */
 	@Override
-	public void step(long delta) {
+	public void step(float delta) {
 		// Set delta in world object.
 		world.setDelta(delta);
 		
-		// Run system logic over entities
-		world.process();
+		// Run system logic over entities, in parallel where systems allow
+		scheduler.process();
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void publish() {
+		renderSystem.publish();
+		cameraSystem.publish(renderSystem.getPublished());
 	}
 
 	/**
 	 * {@inheritDoc Module}
 	 */
 	@Override
-	public void render(long delta) {
+	public void render(long delta, float alpha) {
 		// Clear Screen
 		renderSystem.clearScreen();
+		renderSystem.aimCamera(delta, alpha);
 		
 		// Render the Ground and backdrop
 		map.render(0, 0, 0);
 		map.render(0, 0, 1);
 		
-		// Render Entites
-		renderSystem.process();
+		// Render Entites between ticks
+		renderSystem.draw(delta, alpha);
 		
 		// Render the front cliff edge 
 		worldCeiling.draw(9*40, 20*40, 50, delta);
@@ -3,6 +3,10 @@ package com.stonetolb.game.module;
 /**
  * A Module is a primary game state object that contains specific
  * logic on what to accomplish during the game loop.
+ * <p>
+ * Steps run on a logic thread at the same time as the render thread draws
+ * the previous tick, so {@link #render(long, float)} must only draw state
+ * handed over by {@link #publish()}, never state a step is changing.
  * 
  * @author james.baiera
  *
@@ -15,16 +19,25 @@ public interface Module {
 	public void init();
 	
 	/**
-	 * Method invoked to process a single 'tick' of game-time.
+	 * Method invoked to process a single 'tick' of game-time. Ticks are
+	 * always the same length, see {@link com.stonetolb.game.FixedTimestep}.
 	 * 
-	 * @param delta - Amount of time passed since last step
+	 * @param delta - Length of a tick in milliseconds
 	 */
-	public void step(long delta);
+	public void step(float delta);
+	
+	/**
+	 * Method invoked between frames, while no step is running, to hand the
+	 * state produced by the last step over to rendering.
+	 */
+	public void publish();
 	
 	/**
 	 * Method invoked to render all objects onto the screen.
 	 * 
 	 * @param delta - Amount of time passed since last render
+	 * @param alpha - How far the next tick has come, from 0 to 1, for
+	 * interpolating between the last tick and the one before it
 	 */
-	public void render(long delta);
+	public void render(long delta, float alpha);
 }
@@ -0,0 +1,312 @@
+package com.stonetolb.game.module;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.google.common.base.Preconditions;
+import com.stonetolb.asset.graphics.Texture;
+import com.stonetolb.asset.graphics.TextureLoader;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.component.control.Wander;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.component.render.RenderComponent;
+import com.stonetolb.engine.component.render.SpriteControl;
+import com.stonetolb.engine.profiler.FrameProfiler;
+import com.stonetolb.engine.profiler.Histogram;
+import com.stonetolb.engine.profiles.WorldProfile;
+import com.stonetolb.engine.system.CollisionSystem;
+import com.stonetolb.engine.system.MovementSystem;
+import com.stonetolb.engine.system.PositionHistorySystem;
+import com.stonetolb.engine.system.RenderSystem;
+import com.stonetolb.engine.system.SpriteControlSystem;
+import com.stonetolb.engine.system.SystemScheduler;
+import com.stonetolb.engine.system.WanderSystem;
+import com.stonetolb.game.Game;
+import com.stonetolb.render.Animation;
+import com.stonetolb.render.Drawable;
+import com.stonetolb.render.ImageRenderMode;
+import com.stonetolb.render.Sprite;
+import com.stonetolb.render.util.Camera;
+import com.stonetolb.render.util.FixedVantage;
+import com.stonetolb.util.Vector2f;
+
+/**
+ * Synthetic load for sizing how many actors a map can hold.
+ * <p>
+ * Spawns a crowd of wandering, animated, colliding characters spread evenly
+ * over a square, runs a fixed number of ticks, then prints where the time
+ * went and ends the game. The first ticks only warm up the JIT and are left
+ * out of the report. The report has frame and tick percentiles, the cost of
+ * each system, and how often and how long the garbage collector ran.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>stonetolb.stress.actors - Number of wanderers, 1000 by default.</li>
+ * <li>stonetolb.stress.ticks - Ticks to measure, 1800 by default.</li>
+ * <li>stonetolb.stress.warmup - Ticks to run before measuring, 300 by default.</li>
+ * </ul>
+ * Run windowed to measure rendering too, or headless with a tick limit of at
+ * least warmup plus ticks to measure the simulation alone.
+ */
+public class StressModule implements Module {
+	public static final String ACTORS_PROPERTY = "stonetolb.stress.actors";
+	public static final String TICKS_PROPERTY = "stonetolb.stress.ticks";
+	public static final String WARMUP_PROPERTY = "stonetolb.stress.warmup";
+
+	private static final int WIDTH = 32;
+	private static final int HEIGHT = 48;
+	private static final int SPACING = 64;
+	private static final int FRAME_MILLIS = 175;
+	private static final double NANOS_PER_MILLI = 1000000D;
+	// Rows of the sprite sheet, top to bottom
+	private static final WorldProfile.WorldDirection[] ROWS = {
+		  WorldProfile.WorldDirection.DOWN
+		, WorldProfile.WorldDirection.LEFT
+		, WorldProfile.WorldDirection.RIGHT
+		, WorldProfile.WorldDirection.UP
+	};
+	private static final WorldProfile.Speed[] SPEEDS = {
+		  WorldProfile.Speed.STOP
+		, WorldProfile.Speed.WALK
+	};
+
+	private final int actors;
+	private final int ticks;
+	private final int warmup;
+
+	private World world;
+	private SystemScheduler scheduler;
+	private RenderSystem renderSystem;
+	private FrameProfiler profiler;
+
+	private int ticksRun;
+	private long[] gcCounts;
+	private long[] gcMillis;
+	private long measureStart;
+
+	/**
+	 * Creates the module, reading its configuration from system properties.
+	 */
+	public StressModule() {
+		actors = Integer.getInteger(ACTORS_PROPERTY, 1000);
+		ticks = Integer.getInteger(TICKS_PROPERTY, 1800);
+		warmup = Integer.getInteger(WARMUP_PROPERTY, 300);
+		Preconditions.checkArgument(actors > 0, "Actor count must be positive : " + actors);
+		Preconditions.checkArgument(ticks > 0, "Tick count must be positive : " + ticks);
+		Preconditions.checkArgument(warmup >= 0, "Warm up cannot be negative : " + warmup);
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void init() {
+		Texture sheet = null;
+		try {
+			sheet = TextureLoader.getInstance().getTexture("sprites/Vaughn/world/Vaughn.png");
+		} catch(Exception e) {
+			// TODO : Throw an actual exception
+			System.out.println("BAD THINGS HAPPENED");
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		profiler = Game.getGame().isPresent() ? Game.getGame().get().getProfiler() : new FrameProfiler();
+
+		world = new World();
+		world.setManager(new ChangeLog());
+		scheduler = new SystemScheduler(world);
+		scheduler.setProfiler(profiler);
+		scheduler.add(new PositionHistorySystem());
+		scheduler.add(new WanderSystem());
+		scheduler.add(new MovementSystem());
+		scheduler.add(new SpriteControlSystem());
+		scheduler.add(new CollisionSystem());
+		renderSystem = scheduler.add(new RenderSystem(800, 600));
+		renderSystem.setProfiler(profiler);
+		world.initialize();
+
+		SpriteControl prototype = createSpriteControl(sheet);
+
+		// Spread the crowd evenly over a square, one actor per cell
+		Random random = new Random(1234L);
+		int perRow = (int)Math.ceil(Math.sqrt(actors));
+		for (int i = 0; i < actors; i++) {
+			int x = (i % perRow) * SPACING + random.nextInt(SPACING - WIDTH);
+			int y = (i / perRow) * SPACING;
+
+			SpriteControl spriteControl = copyOf(prototype);
+			Entity actor = world.createEntity();
+			actor.addComponent(new Position(x, y));
+			actor.addComponent(new Rotation(WorldProfile.WorldDirection.DOWN.getDirection()));
+			actor.addComponent(new Velocity(WorldProfile.Speed.STOP.getSpeed()));
+			actor.addComponent(new Wander(random.nextLong()));
+			actor.addComponent(spriteControl);
+			actor.addComponent(new RenderComponent(spriteControl.getDrawable(WorldProfile.Speed.STOP.getSpeed(), WorldProfile.WorldDirection.DOWN.getDirection())));
+			actor.addComponent(new DynamicBody(x, y, WIDTH, HEIGHT/2, WIDTH/2, HEIGHT*3/4));
+			actor.addToWorld();
+		}
+
+		// Look at the middle of the crowd
+		float middle = perRow * SPACING / 2F;
+		Camera.detach();
+		Camera.setVantage(FixedVantage.create());
+		if (Camera.getInstance() != null) {
+			Camera.getInstance().setPosition(Vector2f.from(middle, middle));
+		}
+
+		ticksRun = 0;
+		System.out.println("Stress test : " + actors + " actors, " + warmup + " warm up ticks, " + ticks + " measured ticks");
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void step(float delta) {
+		if (ticksRun == warmup) {
+			startMeasuring();
+		}
+
+		world.setDelta(delta);
+		scheduler.process();
+		ticksRun++;
+
+		if (ticksRun == warmup + ticks) {
+			report();
+			if (Game.getGame().isPresent()) {
+				Game.getGame().get().stop();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void publish() {
+		renderSystem.publish();
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void render(long delta, float alpha) {
+		renderSystem.clearScreen();
+		renderSystem.aimCamera(delta, alpha);
+		renderSystem.draw(delta, alpha);
+	}
+
+	/**
+	 * @return Ticks stepped so far, warm up included.
+	 */
+	public int getTicksRun() {
+		return ticksRun;
+	}
+
+	@Override
+	public String toString() {
+		return "StressModule";
+	}
+
+	/**
+	 * Forgets the warm up, and notes where the garbage collectors stand.
+	 */
+	private void startMeasuring() {
+		profiler.reset();
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		gcCounts = new long[collectors.size()];
+		gcMillis = new long[collectors.size()];
+		for (int i = 0; i < collectors.size(); i++) {
+			gcCounts[i] = collectors.get(i).getCollectionCount();
+			gcMillis[i] = collectors.get(i).getCollectionTime();
+		}
+		measureStart = System.nanoTime();
+	}
+
+	/**
+	 * Prints every profiled section, then the garbage collections, since measuring began.
+	 */
+	private void report() {
+		if (gcCounts == null) {
+			startMeasuring();
+		}
+		long elapsed = System.nanoTime() - measureStart;
+
+		System.out.println(String.format("Stress test : %d actors, %d ticks in %.1f ms", actors, ticks, elapsed / NANOS_PER_MILLI));
+		System.out.println(String.format("%-24s %8s %8s %8s %8s %8s %8s", "ms", "count", "mean", "p50", "p95", "p99", "max"));
+		for (FrameProfiler.Section section : profiler.getSections()) {
+			Histogram histogram = section.getHistogram();
+			if (histogram.getCount() == 0) {
+				continue;
+			}
+			System.out.println(String.format("%-24s %8d %8.3f %8.3f %8.3f %8.3f %8.3f"
+					, section.getName()
+					, histogram.getCount()
+					, histogram.getMean() / NANOS_PER_MILLI
+					, histogram.getPercentile(50) / NANOS_PER_MILLI
+					, histogram.getPercentile(95) / NANOS_PER_MILLI
+					, histogram.getPercentile(99) / NANOS_PER_MILLI
+					, histogram.getMax() / NANOS_PER_MILLI
+					));
+		}
+
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (int i = 0; i < collectors.size() && i < gcCounts.length; i++) {
+			GarbageCollectorMXBean collector = collectors.get(i);
+			System.out.println(String.format("GC %-21s %8d collections, %d ms"
+					, collector.getName()
+					, collector.getCollectionCount() - gcCounts[i]
+					, collector.getCollectionTime() - gcMillis[i]
+					));
+		}
+	}
+
+	/**
+	 * Copies the given control, giving each walking animation its own frame
+	 * timing. Standing sprites hold no state, so they are shared.
+	 */
+	private static SpriteControl copyOf(SpriteControl pPrototype) {
+		SpriteControl control = new SpriteControl().setNoOp(pPrototype.getDrawable(WorldProfile.Speed.STOP.getSpeed(), WorldProfile.WorldDirection.DOWN.getDirection()));
+		for (WorldProfile.WorldDirection direction : ROWS) {
+			for (WorldProfile.Speed speed : SPEEDS) {
+				Drawable drawable = pPrototype.getDrawable(speed.getSpeed(), direction.getDirection());
+				if (drawable instanceof Animation) {
+					drawable = ((Animation)drawable).clone();
+				}
+				control.addAction(drawable, speed.getSpeed(), direction.getDirection());
+			}
+		}
+		return control;
+	}
+
+	/**
+	 * Builds a control that walks and stands in each of the four directions.
+	 */
+	private static SpriteControl createSpriteControl(Texture pSheet) {
+		SpriteControl control = new SpriteControl();
+		for (int row = 0; row < ROWS.length; row++) {
+			Sprite standing = new Sprite(pSheet.getSubTexture(0, row*HEIGHT, WIDTH, HEIGHT), ImageRenderMode.STANDING);
+			Animation.Builder walking = Animation.builder();
+			for (int frame = 1; frame < 4; frame++) {
+				walking.addFrame(new Sprite(pSheet.getSubTexture(frame*WIDTH, row*HEIGHT, WIDTH, HEIGHT), ImageRenderMode.STANDING), FRAME_MILLIS);
+			}
+			walking.addFrame(standing, FRAME_MILLIS);
+
+			control.addAction(walking.build(), WorldProfile.Speed.WALK.getSpeed(), ROWS[row].getDirection());
+			control.addAction(standing, WorldProfile.Speed.STOP.getSpeed(), ROWS[row].getDirection());
+			if (ROWS[row] == WorldProfile.WorldDirection.DOWN) {
+				control.setNoOp(standing);
+			}
+		}
+		return control;
+	}
+}
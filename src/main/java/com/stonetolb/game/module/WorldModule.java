@@ -4,6 +4,7 @@ import com.artemis.Entity;
 import com.artemis.World;
 import com.stonetolb.asset.graphics.Texture;
 import com.stonetolb.asset.graphics.TextureLoader;
+import com.stonetolb.engine.change.ChangeLog;
 import com.stonetolb.engine.component.control.PlayerControl;
 import com.stonetolb.engine.component.movement.Rotation;
 import com.stonetolb.engine.component.movement.Velocity;
@@ -18,8 +19,11 @@ import com.stonetolb.engine.system.CameraSystem;
 import com.stonetolb.engine.system.CollisionSystem;
 import com.stonetolb.engine.system.MovementSystem;
 import com.stonetolb.engine.system.PlayerControlSystem;
+import com.stonetolb.engine.system.PositionHistorySystem;
 import com.stonetolb.engine.system.RenderSystem;
 import com.stonetolb.engine.system.SpriteControlSystem;
+import com.stonetolb.engine.system.SystemScheduler;
+import com.stonetolb.game.Game;
 import com.stonetolb.render.Animation;
 import com.stonetolb.render.ImageRenderMode;
 import com.stonetolb.render.NullDrawable;
@@ -42,9 +46,11 @@ public class WorldModule implements Module {
 	private static int  NULLHEIGHT = 29;
 	
 	private World world;
+	private SystemScheduler scheduler;
 	
 	private Entity newEnt;
 	private RenderSystem rs;
+	private CameraSystem cs;
 	
 	/**
 	 * {@inheritDoc Module}
@@ -100,13 +106,22 @@ public class WorldModule implements Module {
 		
 		// World initialization
 		world = new World();
+		world.setManager(new ChangeLog());
+		scheduler = new SystemScheduler(world);
+		if (Game.getGame().isPresent()) {
+			scheduler.setProfiler(Game.getGame().get().getProfiler());
+		}
+		scheduler.add(new PositionHistorySystem());
 		rs = new RenderSystem(800,600);
-		world.setSystem(rs, true);
-		world.setSystem(new PlayerControlSystem());
-		world.setSystem(new MovementSystem());
-		world.setSystem(new SpriteControlSystem());
-		world.setSystem(new CameraSystem());
-		world.setSystem(new CollisionSystem());
+		if (Game.getGame().isPresent()) {
+			rs.setProfiler(Game.getGame().get().getProfiler());
+		}
+		scheduler.add(new PlayerControlSystem());
+		scheduler.add(new MovementSystem());
+		scheduler.add(new SpriteControlSystem());
+		cs = scheduler.add(new CameraSystem());
+		scheduler.add(new CollisionSystem());
+		scheduler.add(rs);
 		world.initialize();
 		
 		// Component creation 
@@ -161,7 +176,7 @@ public class WorldModule implements Module {
 		newEnt.addComponent(renderComponent);
 		newEnt.addComponent(new Rotation(WorldProfile.WorldDirection.DOWN.getDirection()));
 		newEnt.addComponent(new Velocity(WorldProfile.Speed.STOP.getSpeed()));
-		newEnt.addComponent(new PlayerControl(WorldProfile.Control.ARROWS)); //Control profile does not matter. Moving away from that soon...
+		newEnt.addComponent(new PlayerControl(WorldProfile.Control.WASD));
 		newEnt.addComponent(spriteControl);
 		newEnt.addComponent(Camera.attachTo(cameraMount));
 		newEnt.addComponent(new DynamicBody(30, 30, WIDTH, HEIGHT/2, WIDTH/2, HEIGHT*3/4));
@@ -180,22 +195,33 @@ public class WorldModule implements Module {
 	 * {@inheritDoc Module}
 	 */
 	@Override
-	public void step(long delta) {
+	public void step(float delta) {
 		// Set delta in world object.
 		world.setDelta(delta);
 		
-		// Run system logic over entities
-		world.process();
+		// Run system logic over entities, in parallel where systems allow
+		scheduler.process();
+	}
+
+	/**
+	 * {@inheritDoc Module}
+	 */
+	@Override
+	public void publish() {
+		rs.publish();
+		cs.publish(rs.getPublished());
 	}
 
 	/**
 	 * {@inheritDoc Module}
 	 */
 	@Override
-	public void render(long delta) {
+	public void render(long delta, float alpha) {
 		// Render in separate call
 		rs.clearScreen();
-		rs.process();
+		rs.aimCamera(delta, alpha);
+		// Draw between ticks
+		rs.draw(delta, alpha);
 	}
 	
 	@Override
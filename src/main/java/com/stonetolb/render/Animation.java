@@ -128,7 +128,7 @@ public class Animation implements StatefulDrawable {
 	}
 	
 	private int actualInterval;
-	private int stepCount;
+	private float stepCount;
 	private boolean running;
 	protected IntervalQueue<Drawable> frameList;
 	
@@ -182,6 +182,26 @@ public class Animation implements StatefulDrawable {
 		running = false;
 	}
 	
+	/**
+	 * {@inheritDoc StatefulDrawable}
+	 * <p>
+	 * Returns the frame's image, or a {@link NullDrawable} if the Animation
+	 * is not running.
+	 */
+	@Override
+	public Drawable advance(float pDelta) {
+		if(!running) {
+			return NullDrawable.getInstance();
+		}
+		
+		// add to step count, but keep it below actualInterval
+		stepCount = (stepCount + pDelta) % actualInterval;
+		
+		// Find the drawable that will be at this point in time
+		Drawable frame = frameList.getDataAt((int)stepCount);
+		return frame == null ? NullDrawable.getInstance() : frame; //null check
+	}
+	
 	/**
 	 * Draw the animation at the x and y coordinate, displaying
 	 * the sprite from the frame in the animation based on the 
@@ -195,15 +215,7 @@ public class Animation implements StatefulDrawable {
 	@Override
 	public void draw(int x, int y, int z, long delta) {
 		if(running) {
-			// add to step count, but keep it below actualInterval
-			stepCount = ((int)((long)stepCount + delta)) % actualInterval;
-			
-			// Find the drawable that will be at this point in time
-			// and draw it
-			Drawable toBeDrawn = frameList.getDataAt(stepCount);
-			toBeDrawn = toBeDrawn == null ? NullDrawable.getInstance() : toBeDrawn; //null check
-			
-			toBeDrawn.draw(x, y, z, delta);
+			advance(delta).draw(x, y, z, delta);
 		}
 	}
 
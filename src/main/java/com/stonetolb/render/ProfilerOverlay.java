@@ -0,0 +1,119 @@
+package com.stonetolb.render;
+
+import static org.lwjgl.opengl.GL11.GL_CULL_FACE;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
+import static org.lwjgl.opengl.GL11.GL_MODELVIEW;
+import static org.lwjgl.opengl.GL11.GL_PROJECTION;
+import static org.lwjgl.opengl.GL11.glDisable;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glLoadIdentity;
+import static org.lwjgl.opengl.GL11.glMatrixMode;
+import static org.lwjgl.opengl.GL11.glOrtho;
+import static org.lwjgl.opengl.GL11.glPopMatrix;
+import static org.lwjgl.opengl.GL11.glPushMatrix;
+
+import java.awt.Font;
+import java.util.List;
+import java.util.Locale;
+
+import org.newdawn.slick.Color;
+import org.newdawn.slick.TrueTypeFont;
+import org.newdawn.slick.opengl.TextureImpl;
+
+import com.stonetolb.engine.profiler.FrameProfiler;
+import com.stonetolb.engine.profiler.Histogram;
+
+/**
+ * Draws a {@link FrameProfiler}'s sections in the top left corner of the
+ * screen: for each, the last, 50th, 95th and 99th percentile and worst time
+ * in milliseconds.
+ * <p>
+ * The text is only rebuilt a couple of times a second, so it stays readable
+ * and costs next to nothing the rest of the time. It is drawn in screen
+ * coordinates, whatever the Camera is looking at.
+ */
+public class ProfilerOverlay {
+	private static final long REFRESH_NANOS = 500000000L;
+	private static final double NANOS_PER_MILLI = 1000000D;
+	private static final int LINE_HEIGHT = 14;
+	private static final int MARGIN = 8;
+
+	private final FrameProfiler profiler;
+	private TrueTypeFont font;
+	private String[] lines;
+	private long lastRefresh;
+
+	/**
+	 * Creates an overlay.
+	 * @param pProfiler - Profiler to show.
+	 */
+	public ProfilerOverlay(FrameProfiler pProfiler) {
+		profiler = pProfiler;
+		lines = new String[0];
+		lastRefresh = 0L;
+	}
+
+	/**
+	 * Draws the overlay. Must be called on the render thread.
+	 * @param pWidth - Width of the screen.
+	 * @param pHeight - Height of the screen.
+	 */
+	public void draw(int pWidth, int pHeight) {
+		if (font == null) {
+			// Needs the GL context, so made on first draw rather than up front
+			font = new TrueTypeFont(new Font(Font.MONOSPACED, Font.PLAIN, 12), false);
+		}
+		long now = System.nanoTime();
+		if (now - lastRefresh >= REFRESH_NANOS) {
+			lines = format(profiler.getSections());
+			lastRefresh = now;
+		}
+
+		glMatrixMode(GL_PROJECTION);
+		glPushMatrix();
+		glLoadIdentity();
+		glOrtho(0, pWidth, pHeight, 0, -1, 1);
+		glMatrixMode(GL_MODELVIEW);
+		glPushMatrix();
+		glLoadIdentity();
+		glDisable(GL_DEPTH_TEST);
+		glDisable(GL_CULL_FACE);
+
+		// Our textures bind behind Slick's back, so make it rebind the font's
+		TextureImpl.bindNone();
+		for (int i = 0; i < lines.length; i++) {
+			font.drawString(MARGIN, MARGIN + i * LINE_HEIGHT, lines[i], Color.yellow);
+		}
+		// The text colour sticks, and would tint every sprite after it
+		Color.white.bind();
+
+		glEnable(GL_CULL_FACE);
+		glEnable(GL_DEPTH_TEST);
+		glPopMatrix();
+		glMatrixMode(GL_PROJECTION);
+		glPopMatrix();
+		glMatrixMode(GL_MODELVIEW);
+	}
+
+	/**
+	 * @param pSections - Sections to show.
+	 * @return A header line, then a line per section.
+	 */
+	static String[] format(List<FrameProfiler.Section> pSections) {
+		String[] result = new String[pSections.size() + 1];
+		result[0] = String.format(Locale.ROOT, "%-24s %7s %7s %7s %7s %7s", "ms", "last", "p50", "p95", "p99", "max");
+		for (int i = 0; i < pSections.size(); i++) {
+			FrameProfiler.Section section = pSections.get(i);
+			Histogram histogram = section.getHistogram();
+			result[i + 1] = String.format(Locale.ROOT, "%-24s %7.2f %7.2f %7.2f %7.2f %7.2f"
+					, section.getName()
+					, section.getLast() / NANOS_PER_MILLI
+					, histogram.getPercentile(50) / NANOS_PER_MILLI
+					, histogram.getPercentile(95) / NANOS_PER_MILLI
+					, histogram.getPercentile(99) / NANOS_PER_MILLI
+					, histogram.getMax() / NANOS_PER_MILLI
+					);
+		}
+		return result;
+	}
+}
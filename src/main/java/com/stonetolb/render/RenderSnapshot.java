@@ -0,0 +1,163 @@
+package com.stonetolb.render;
+
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw one simulation tick: for each visible entity
+ * its drawable, where it was the tick before, and where it is now.
+ * <p>
+ * Snapshots are filled on the logic thread at the end of a tick and drawn on
+ * the render thread while the next tick runs, so drawing never reads entity
+ * components that the simulation is busy changing. Only stateless drawables
+ * belong in a snapshot, such as the current frame of an {@link Animation}
+ * rather than the Animation itself, so drawing one never changes anything
+ * the logic thread can see. A snapshot may also carry where the Camera
+ * should look, which is blended between ticks the same way. Entries are kept in flat
+ * arrays that grow as needed and are reused after {@link #clear()}.
+ */
+public class RenderSnapshot {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int size;
+	private int[] previousX;
+	private int[] previousY;
+	private int[] x;
+	private int[] y;
+	private Drawable[] drawables;
+	private boolean camera;
+	private float cameraPreviousX;
+	private float cameraPreviousY;
+	private float cameraX;
+	private float cameraY;
+
+	/**
+	 * Creates an empty snapshot.
+	 */
+	public RenderSnapshot() {
+		size = 0;
+		previousX = new int[INITIAL_CAPACITY];
+		previousY = new int[INITIAL_CAPACITY];
+		x = new int[INITIAL_CAPACITY];
+		y = new int[INITIAL_CAPACITY];
+		drawables = new Drawable[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Records an entity to draw.
+	 * @param pPreviousX - X last tick.
+	 * @param pPreviousY - Y last tick.
+	 * @param pX - X this tick.
+	 * @param pY - Y this tick.
+	 * @param pDrawable - What to draw, holding no state of its own.
+	 */
+	public void add(int pPreviousX, int pPreviousY, int pX, int pY, Drawable pDrawable) {
+		if (size == drawables.length) {
+			int capacity = size * 2;
+			previousX = Arrays.copyOf(previousX, capacity);
+			previousY = Arrays.copyOf(previousY, capacity);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			drawables = Arrays.copyOf(drawables, capacity);
+		}
+		previousX[size] = pPreviousX;
+		previousY[size] = pPreviousY;
+		x[size] = pX;
+		y[size] = pY;
+		drawables[size] = pDrawable;
+		size++;
+	}
+
+	/**
+	 * Records where the Camera should look.
+	 * @param pPreviousX - X last tick.
+	 * @param pPreviousY - Y last tick.
+	 * @param pX - X this tick.
+	 * @param pY - Y this tick.
+	 */
+	public void setCamera(float pPreviousX, float pPreviousY, float pX, float pY) {
+		camera = true;
+		cameraPreviousX = pPreviousX;
+		cameraPreviousY = pPreviousY;
+		cameraX = pX;
+		cameraY = pY;
+	}
+
+	/**
+	 * @return True if a Camera target was recorded.
+	 */
+	public boolean hasCamera() {
+		return camera;
+	}
+
+	/**
+	 * @param pAlpha - How far from last tick to this one, from 0 to 1.
+	 * @return X of the Camera target, blended like the entries' X so the two
+	 * move in step.
+	 */
+	public float getCameraX(float pAlpha) {
+		return cameraPreviousX + Math.round((cameraX - cameraPreviousX) * pAlpha);
+	}
+
+	/**
+	 * @param pAlpha - How far from last tick to this one, from 0 to 1.
+	 * @return Y of the Camera target, blended like the entries' Y so the two
+	 * move in step.
+	 */
+	public float getCameraY(float pAlpha) {
+		return cameraPreviousY + Math.round((cameraY - cameraPreviousY) * pAlpha);
+	}
+
+	/**
+	 * Draws every entry part way between last tick and this one.
+	 * @param pAlpha - 0 for where entries were last tick, 1 for where they are now.
+	 * @param pDelta - Time since the last frame.
+	 */
+	public void draw(float pAlpha, long pDelta) {
+		for (int i = 0; i < size; i++) {
+			drawables[i].draw(getInterpolatedX(i, pAlpha), getInterpolatedY(i, pAlpha), 0, pDelta);
+		}
+	}
+
+	/**
+	 * @param pIndex - Entry index.
+	 * @param pAlpha - How far from last tick to this one, from 0 to 1.
+	 * @return X of the entry blended between last tick and this one.
+	 */
+	public int getInterpolatedX(int pIndex, float pAlpha) {
+		return previousX[pIndex] + Math.round((x[pIndex] - previousX[pIndex]) * pAlpha);
+	}
+
+	/**
+	 * @param pIndex - Entry index.
+	 * @param pAlpha - How far from last tick to this one, from 0 to 1.
+	 * @return Y of the entry blended between last tick and this one.
+	 */
+	public int getInterpolatedY(int pIndex, float pAlpha) {
+		return previousY[pIndex] + Math.round((y[pIndex] - previousY[pIndex]) * pAlpha);
+	}
+
+	/**
+	 * @param pIndex - Entry index.
+	 * @return Drawable of the entry.
+	 */
+	public Drawable getDrawable(int pIndex) {
+		return drawables[pIndex];
+	}
+
+	/**
+	 * @return Number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Empties the snapshot, Camera target included, keeping its arrays.
+	 */
+	public void clear() {
+		camera = false;
+		// Let go of drawables so removed entities can be collected
+		Arrays.fill(drawables, 0, size, null);
+		size = 0;
+	}
+}
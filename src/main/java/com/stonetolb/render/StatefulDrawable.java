@@ -18,5 +18,13 @@ public interface StatefulDrawable extends Drawable{
 	 * Hook that cleans up what ever was being drawn
 	 */
 	public abstract void dispose();
+	
+	/**
+	 * Moves what ever is being drawn forward in time without drawing it.
+	 * 
+	 * @param pDelta - Number of milliseconds to move forward
+	 * @return Stateless {@link Drawable} to show at the new point in time
+	 */
+	public abstract Drawable advance(float pDelta);
 
 }
\ No newline at end of file
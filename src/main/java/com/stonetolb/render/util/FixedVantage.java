@@ -15,7 +15,7 @@ public final class FixedVantage implements Vantage{
 	private static volatile FixedVantage INSTANCE = null;
 	private static Vector2f ORIGIN = Vector2f.NULL_VECTOR;
 	
-	private Vector2f position;
+	private volatile Vector2f position;
 	private int screenWidth;
 	private int screenHeight;
 	
@@ -21,7 +21,8 @@ public final class FluidVantage implements Vantage {
 	private int screenHeight;
 	
 	private Vector2f currentPosition;
-	private Vector2f targetPosition;
+	// Set by the logic thread, read by the render thread
+	private volatile Vector2f targetPosition;
 	private float normalSpeed;
 
 	/**
@@ -2,6 +2,7 @@ package com.stonetolb.resource;
 
 import com.stonetolb.resource.io.IOContext;
 import com.stonetolb.resource.io.ResourceFolderIOContext;
+import com.stonetolb.resource.system.NullSystemContext;
 import com.stonetolb.resource.system.OpenGLContext;
 import com.stonetolb.resource.system.SystemContext;
 
@@ -9,6 +10,10 @@ import com.stonetolb.resource.system.SystemContext;
  * A ResourceContext is any complex context object that contains any number of
  * system oriented resources and services. This acts as an abstraction layer
  * between the software and the underlying systems and dependencies.
+ * <p>
+ * Out of the box the active context draws through OpenGL. Running headless,
+ * the {@link #headless()} context is made active instead, and every system
+ * call goes nowhere.
  *
  * @author james.baiera
  */
@@ -16,20 +21,55 @@ public class ResourceContext {
 
 	private SystemContext systemContext;
 	private IOContext ioContext;
+	private boolean headless;
 
 	private static final ResourceContext DEFAULT
 			= new ResourceContext(
 					OpenGLContext.getContext(),
-					ResourceFolderIOContext.getContext()
+					ResourceFolderIOContext.getContext(),
+					false
 				);
 
+	private static final ResourceContext HEADLESS
+			= new ResourceContext(
+					NullSystemContext.getContext(),
+					ResourceFolderIOContext.getContext(),
+					true
+				);
+
+	private static volatile ResourceContext ACTIVE = DEFAULT;
+
+	/**
+	 * @return The active context.
+	 */
 	public static ResourceContext get() {
-		return DEFAULT;
+		return ACTIVE;
+	}
+
+	/**
+	 * @return Context that loads resources as usual, but makes no system calls.
+	 */
+	public static ResourceContext headless() {
+		return HEADLESS;
+	}
+
+	/**
+	 * Makes the given context the one returned by {@link #get()}. Must be called
+	 * before anything loads resources.
+	 *
+	 * @param ctx
+	 * 		- Context to make active. Ignores null.
+	 */
+	public static void setActive(ResourceContext ctx) {
+		if (ctx != null) {
+			ACTIVE = ctx;
+		}
 	}
 
-	private ResourceContext(SystemContext systemContext, IOContext ioContext) {
+	private ResourceContext(SystemContext systemContext, IOContext ioContext, boolean headless) {
 		this.systemContext = systemContext;
 		this.ioContext = ioContext;
+		this.headless = headless;
 	}
 
 	public SystemContext getSystemContext() {
@@ -39,4 +79,11 @@ public class ResourceContext {
 	public IOContext getIOContext() {
 		return ioContext;
 	}
+
+	/**
+	 * @return True if system calls made through this context go nowhere.
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
 }
@@ -0,0 +1,97 @@
+package com.stonetolb.resource.system;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SystemContext implementation that ignores every call, for running the
+ * simulation with no display or graphics driver at all.
+ * <p>
+ * The only thing it does is hand out texture ids, counting up from 1 the way
+ * a real driver would, so textures stay distinct from each other.
+ */
+public class NullSystemContext implements SystemContext {
+
+	private static final NullSystemContext INSTANCE = new NullSystemContext();
+
+	private final AtomicInteger lastTextureId = new AtomicInteger();
+
+	/**
+	 * Retrieves the context object instance.
+	 *
+	 * @return this singular system context object
+	 */
+	public static NullSystemContext getContext() {
+		return INSTANCE;
+	}
+
+	private NullSystemContext() { /* EMPTY CONSTRUCTOR */ }
+
+	@Override
+	public void bindTexture(int target, int textureId) { /* NO-OP */ }
+
+	@Override
+	public void textureParameterInt(int target, int param, int value) { /* NO-OP */ }
+
+	@Override
+	public void generateTextures(IntBuffer texureIDBuffer) {
+		for (int i = texureIDBuffer.position(); i < texureIDBuffer.limit(); i++) {
+			texureIDBuffer.put(i, lastTextureId.incrementAndGet());
+		}
+	}
+
+	@Override
+	public void textureImage2d(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer textureBuffer) { /* NO-OP */ }
+
+	@Override
+	public void enable(int capability) { /* NO-OP */ }
+
+	@Override
+	public void blendFunction(int sourceFactor, int destinationFactor) { /* NO-OP */ }
+
+	@Override
+	public void depthFunction(int function) { /* NO-OP */ }
+
+	@Override
+	public void alphaFunction(int function, float reference) { /* NO-OP */ }
+
+	@Override
+	public void clearDepth(double depth) { /* NO-OP */ }
+
+	@Override
+	public void clear(int mask) { /* NO-OP */ }
+
+	@Override
+	public void viewport(int x, int y, int width, int height) { /* NO-OP */ }
+
+	@Override
+	public void setMatrixMode(int matrixModeId) { /* NO-OP */ }
+
+	@Override
+	public void loadIdentityMatrix() { /* NO-OP */ }
+
+	@Override
+	public void createOrthogonal(double left, double right, double bottom, double top, double near, double far) { /* NO-OP */ }
+
+	@Override
+	public void pushMatrix() { /* NO-OP */ }
+
+	@Override
+	public void popMatrix() { /* NO-OP */ }
+
+	@Override
+	public void translate(int x, int y, int z) { /* NO-OP */ }
+
+	@Override
+	public void penDown(int mode) { /* NO-OP */ }
+
+	@Override
+	public void addTextureCoordinate(float s, float t) { /* NO-OP */ }
+
+	@Override
+	public void addVertex3f(float x, float y, float z) { /* NO-OP */ }
+
+	@Override
+	public void penUp() { /* NO-OP */ }
+}
@@ -46,6 +46,41 @@ public class OpenGLContext implements SystemContext {
 		GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, textureBuffer);
 	}
 
+	@Override
+	public void enable(int capability) {
+		GL11.glEnable(capability);
+	}
+
+	@Override
+	public void blendFunction(int sourceFactor, int destinationFactor) {
+		GL11.glBlendFunc(sourceFactor, destinationFactor);
+	}
+
+	@Override
+	public void depthFunction(int function) {
+		GL11.glDepthFunc(function);
+	}
+
+	@Override
+	public void alphaFunction(int function, float reference) {
+		GL11.glAlphaFunc(function, reference);
+	}
+
+	@Override
+	public void clearDepth(double depth) {
+		GL11.glClearDepth(depth);
+	}
+
+	@Override
+	public void clear(int mask) {
+		GL11.glClear(mask);
+	}
+
+	@Override
+	public void viewport(int x, int y, int width, int height) {
+		GL11.glViewport(x, y, width, height);
+	}
+
 	@Override
 	public void setMatrixMode(int matrixModeId) {
 		GL11.glMatrixMode(matrixModeId);
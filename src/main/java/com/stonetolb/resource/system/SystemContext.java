@@ -33,6 +33,21 @@ public interface SystemContext {
 						ByteBuffer textureBuffer
 					   );
 
+	// STATE OPERATIONS -------------------------------------------------------
+	void enable(int capability);
+
+	void blendFunction(int sourceFactor, int destinationFactor);
+
+	void depthFunction(int function);
+
+	void alphaFunction(int function, float reference);
+
+	void clearDepth(double depth);
+
+	void clear(int mask);
+
+	void viewport(int x, int y, int width, int height);
+
 	// MATRIX OPERATIONS ------------------------------------------------------
 	void setMatrixMode(int matrixModeId);
 
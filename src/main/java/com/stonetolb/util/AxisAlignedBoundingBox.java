@@ -49,6 +49,16 @@ public class AxisAlignedBoundingBox {
 	 */
 	public int getY() { return y; }
 	
+	/**
+	 * @return Box width.
+	 */
+	public int getWidth() { return width; }
+	
+	/**
+	 * @return Box height.
+	 */
+	public int getHeight() { return height; }
+	
 	/**
 	 * @return Distance from origin to the lateral sides.
 	 */
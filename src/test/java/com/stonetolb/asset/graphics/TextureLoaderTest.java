@@ -1,8 +1,11 @@
 package com.stonetolb.asset.graphics;
 
+import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.stonetolb.resource.ResourceContext;
+
 public class TextureLoaderTest {
 
 	@Ignore
@@ -17,4 +20,16 @@ public class TextureLoaderTest {
 		 */
 	}
 
+	@Test
+	public void testHeadlessRecordsDimensions()
+	throws Exception
+	{
+		TextureLoader loader = TextureLoader.get(ResourceContext.headless());
+		Texture texture = loader.getTexture("sprites/Vaughn/world/Vaughn.png");
+
+		Assert.assertEquals("Image Width Incorrect", 128, texture.getImageWidth());
+		Assert.assertEquals("Image Height Incorrect", 192, texture.getImageHeight());
+		Assert.assertSame("Texture Not Cached", texture, loader.getTexture("sprites/Vaughn/world/Vaughn.png"));
+	}
+
 }
@@ -0,0 +1,126 @@
+package com.stonetolb.engine.change;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+public class ChangeLogTest {
+
+	World testWorld;
+	ChangeLog testLog;
+
+	@Before
+	public void setup() throws Exception {
+		testWorld = new World();
+		testLog = testWorld.setManager(new ChangeLog());
+		testWorld.initialize();
+	}
+
+	@Test
+	public void testDirtySetGrowsAndIterates() throws Exception {
+		DirtySet set = new DirtySet(8);
+		set.mark(3);
+		set.mark(64);
+		set.mark(1000);
+		set.mark(64);
+
+		Assert.assertTrue("Marked Incorrect", set.isMarked(1000));
+		Assert.assertFalse("Unmarked Incorrect", set.isMarked(4));
+		Assert.assertEquals("First Incorrect", 3, set.nextMarked(0));
+		Assert.assertEquals("Second Incorrect", 64, set.nextMarked(4));
+		Assert.assertEquals("Third Incorrect", 1000, set.nextMarked(65));
+		Assert.assertEquals("End Incorrect", -1, set.nextMarked(1001));
+
+		set.clear();
+		Assert.assertEquals("Cleared Incorrect", -1, set.nextMarked(0));
+	}
+
+	@Test
+	public void testDirtySetMarksAll() throws Exception {
+		DirtySet set = new DirtySet(8);
+		int[] ids = {-1, 5, 3, 70, 4, 700, 2, -1};
+		set.markAll(ids, 1, 7);
+
+		Assert.assertEquals("First Incorrect", 2, set.nextMarked(0));
+		Assert.assertEquals("Second Incorrect", 3, set.nextMarked(3));
+		Assert.assertEquals("Third Incorrect", 4, set.nextMarked(4));
+		Assert.assertEquals("Fourth Incorrect", 5, set.nextMarked(5));
+		Assert.assertEquals("Fifth Incorrect", 70, set.nextMarked(6));
+		Assert.assertEquals("Sixth Incorrect", 700, set.nextMarked(71));
+		Assert.assertEquals("End Incorrect", -1, set.nextMarked(701));
+	}
+
+	@Test
+	public void testDirtySetGrowsWhileMarking() throws Exception {
+		final int threads = 4;
+		final int ids = 20000;
+		final DirtySet set = new DirtySet(1);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] markers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int offset = t;
+			markers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException ie) {
+						return;
+					}
+					// Interleaved ids, so every thread keeps growing the set
+					for (int id = offset; id < ids; id += threads) {
+						set.mark(id);
+					}
+				}
+			});
+			markers[t].start();
+		}
+		start.countDown();
+		for (Thread marker : markers) {
+			marker.join();
+		}
+
+		int marked = 0;
+		for (int id = set.nextMarked(0); id >= 0; id = set.nextMarked(id + 1)) {
+			marked++;
+		}
+		Assert.assertEquals("Marked Count Incorrect", ids, marked);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSettersMarkOnlyRealChanges() throws Exception {
+		DirtySet positions = testLog.watch(Position.class);
+		DirtySet motion = testLog.watch(Velocity.class, Rotation.class);
+
+		Position position = new Position(10, 10);
+		Velocity velocity = new Velocity(0F);
+		Rotation rotation = new Rotation(0F);
+		Entity entity = testWorld.createEntity();
+		entity.addComponent(position);
+		entity.addComponent(velocity);
+		entity.addComponent(rotation);
+		entity.addToWorld();
+		testWorld.process();
+
+		position.setPosition(10, 10);
+		velocity.setVelocity(0F);
+		Assert.assertEquals("Unchanged Marked", -1, positions.nextMarked(0));
+		Assert.assertEquals("Unchanged Motion Marked", -1, motion.nextMarked(0));
+
+		rotation.setRotation(90D);
+		Assert.assertEquals("Position Marked", -1, positions.nextMarked(0));
+		Assert.assertTrue("Rotation Not Marked", motion.isMarked(entity.getId()));
+
+		position.setX(11);
+		Assert.assertTrue("Position Not Marked", positions.isMarked(entity.getId()));
+	}
+}
@@ -0,0 +1,63 @@
+package com.stonetolb.engine.input;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.input.Keyboard;
+
+public class InputFrameTest {
+	InputFrame testFrame;
+
+	@Before
+	public void setup() throws Exception {
+		testFrame = new InputFrame();
+	}
+
+	@Test
+	public void testKeysDown() throws Exception {
+		testFrame.setKeyDown(Keyboard.KEY_W, true, 10L);
+		testFrame.setKeyDown(63, true, 20L);
+		testFrame.setKeyDown(64, true, 30L);
+		testFrame.setKeyDown(Keyboard.KEY_RIGHT, true, 40L);
+
+		Assert.assertTrue("Key Incorrect", testFrame.isKeyDown(Keyboard.KEY_W));
+		Assert.assertTrue("Word End Incorrect", testFrame.isKeyDown(63));
+		Assert.assertTrue("Word Start Incorrect", testFrame.isKeyDown(64));
+		Assert.assertFalse("Key Incorrect", testFrame.isKeyDown(Keyboard.KEY_S));
+		Assert.assertFalse("Out Of Range Incorrect", testFrame.isKeyDown(InputFrame.KEY_COUNT));
+		Assert.assertFalse("Out Of Range Incorrect", testFrame.isKeyDown(-1));
+
+		Assert.assertEquals("First Key Incorrect", Keyboard.KEY_W, testFrame.nextKeyDown(0));
+		Assert.assertEquals("Next Key Incorrect", 63, testFrame.nextKeyDown(Keyboard.KEY_W + 1));
+		Assert.assertEquals("Next Key Incorrect", 64, testFrame.nextKeyDown(64));
+		Assert.assertEquals("Next Key Incorrect", Keyboard.KEY_RIGHT, testFrame.nextKeyDown(65));
+		Assert.assertEquals("Last Key Incorrect", -1, testFrame.nextKeyDown(Keyboard.KEY_RIGHT + 1));
+
+		testFrame.setKeyDown(64, false, 50L);
+		Assert.assertFalse("Released Key Incorrect", testFrame.isKeyDown(64));
+		Assert.assertEquals("Next Key Incorrect", Keyboard.KEY_RIGHT, testFrame.nextKeyDown(64));
+
+		testFrame.clear();
+		Assert.assertEquals("Cleared Incorrect", -1, testFrame.nextKeyDown(0));
+	}
+
+	@Test
+	public void testChangeTimes() throws Exception {
+		testFrame.setKeyDown(Keyboard.KEY_A, true, 100L);
+		// Held, not pressed again
+		testFrame.setKeyDown(Keyboard.KEY_A, true, 200L);
+		Assert.assertEquals("Pressed Time Incorrect", 100L, testFrame.getChangedNanos(Keyboard.KEY_A));
+
+		testFrame.setKeyDown(Keyboard.KEY_A, false, 300L);
+		Assert.assertEquals("Released Time Incorrect", 300L, testFrame.getChangedNanos(Keyboard.KEY_A));
+		Assert.assertEquals("Untouched Time Incorrect", 0L, testFrame.getChangedNanos(Keyboard.KEY_D));
+	}
+
+	@Test
+	public void testPollWithoutKeyboard() throws Exception {
+		testFrame.setKeyDown(Keyboard.KEY_A, true, 100L);
+		testFrame.poll(5L);
+		Assert.assertEquals("Elapsed Incorrect", 5L, testFrame.getElapsedNanos());
+		Assert.assertFalse("Key Incorrect", testFrame.isKeyDown(Keyboard.KEY_A));
+	}
+}
@@ -0,0 +1,151 @@
+package com.stonetolb.engine.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.input.Keyboard;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.control.PlayerControl;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.profiles.WorldProfile;
+import com.stonetolb.engine.system.PlayerControlSystem;
+
+public class InputReplayTest {
+	private static final long FRAME_NANOS = 16666667L;
+
+	byte[] recording;
+
+	@Before
+	public void setup() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputRecorder recorder = new InputRecorder(out, 60, 5);
+		InputFrame frame = new InputFrame();
+
+		frame.setElapsedNanos(FRAME_NANOS);
+		recorder.record(frame);
+
+		frame.setElapsedNanos(FRAME_NANOS + 1);
+		frame.setKeyDown(Keyboard.KEY_A, true, 0L);
+		frame.setKeyDown(Keyboard.KEY_RIGHT, true, 0L);
+		recorder.record(frame);
+
+		frame.clear();
+		frame.setElapsedNanos(3 * FRAME_NANOS);
+		frame.setKeyDown(Keyboard.KEY_W, true, 0L);
+		recorder.record(frame);
+
+		Assert.assertEquals("Frames Incorrect", 3, recorder.getFrames());
+		recorder.close();
+		recording = out.toByteArray();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		Input.reset();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		InputReplay replay = new InputReplay(new ByteArrayInputStream(recording));
+		Assert.assertEquals("Tick Rate Incorrect", 60, replay.getTickRate());
+		Assert.assertEquals("Catch-up Budget Incorrect", 5, replay.getMaxTicksPerFrame());
+
+		InputFrame frame = new InputFrame();
+		Assert.assertTrue("First Frame Missing", replay.next(frame));
+		Assert.assertEquals("Elapsed Incorrect", FRAME_NANOS, frame.getElapsedNanos());
+		Assert.assertFalse("Key Incorrect", frame.isKeyDown(Keyboard.KEY_A));
+
+		Assert.assertTrue("Second Frame Missing", replay.next(frame));
+		Assert.assertEquals("Elapsed Incorrect", FRAME_NANOS + 1, frame.getElapsedNanos());
+		Assert.assertTrue("Key Incorrect", frame.isKeyDown(Keyboard.KEY_A));
+		Assert.assertTrue("Key Incorrect", frame.isKeyDown(Keyboard.KEY_RIGHT));
+		Assert.assertFalse("Key Incorrect", frame.isKeyDown(Keyboard.KEY_W));
+
+		Assert.assertTrue("Third Frame Missing", replay.next(frame));
+		Assert.assertEquals("Elapsed Incorrect", 3 * FRAME_NANOS, frame.getElapsedNanos());
+		Assert.assertFalse("Key Incorrect", frame.isKeyDown(Keyboard.KEY_A));
+		Assert.assertTrue("Key Incorrect", frame.isKeyDown(Keyboard.KEY_W));
+
+		Assert.assertFalse("End Incorrect", replay.next(frame));
+		Assert.assertTrue("Last Frame Incorrect", frame.isKeyDown(Keyboard.KEY_W));
+
+		replay.rewind();
+		Assert.assertTrue("Rewind Incorrect", replay.next(frame));
+		Assert.assertEquals("Rewound Elapsed Incorrect", FRAME_NANOS, frame.getElapsedNanos());
+	}
+
+	@Test
+	public void testTruncatedFrameIgnored() throws Exception {
+		// Lose the last key of the third frame, as if the game died writing it
+		byte[] truncated = Arrays.copyOf(recording, recording.length - 1);
+		InputReplay replay = new InputReplay(new ByteArrayInputStream(truncated));
+
+		InputFrame frame = new InputFrame();
+		Assert.assertTrue("First Frame Missing", replay.next(frame));
+		Assert.assertTrue("Second Frame Missing", replay.next(frame));
+		Assert.assertFalse("Truncated Frame Incorrect", replay.next(frame));
+	}
+
+	@Test
+	public void testChangeTimes() throws Exception {
+		InputReplay replay = new InputReplay(new ByteArrayInputStream(recording));
+		InputFrame frame = new InputFrame();
+		replay.next(frame);
+		replay.next(frame);
+
+		// Stamped with the time into the recording
+		Assert.assertEquals("Pressed Time Incorrect", 2 * FRAME_NANOS + 1, frame.getChangedNanos(Keyboard.KEY_RIGHT));
+
+		replay.next(frame);
+		Assert.assertEquals("Released Time Incorrect", 5 * FRAME_NANOS + 1, frame.getChangedNanos(Keyboard.KEY_RIGHT));
+		Assert.assertEquals("Released Time Incorrect", 5 * FRAME_NANOS + 1, frame.getChangedNanos(Keyboard.KEY_A));
+		Assert.assertEquals("Pressed Time Incorrect", 5 * FRAME_NANOS + 1, frame.getChangedNanos(Keyboard.KEY_W));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotARecording() throws Exception {
+		new InputReplay(new ByteArrayInputStream("Not a recording".getBytes("UTF-8")));
+	}
+
+	@Test
+	public void testPlayerControlReadsActiveInput() throws Exception {
+		World world = new World();
+		world.setSystem(new PlayerControlSystem());
+		world.initialize();
+
+		Entity player = world.createEntity();
+		player.addComponent(new PlayerControl(WorldProfile.Control.WASD));
+		player.addComponent(new Velocity(0F));
+		player.addComponent(new Rotation(0F));
+		player.addToWorld();
+
+		// Nothing active, nothing held
+		world.process();
+		Assert.assertEquals("Idle Velocity Incorrect", 0F, player.getComponent(Velocity.class).getVelocity(), 0F);
+
+		InputReplay replay = new InputReplay(new ByteArrayInputStream(recording));
+		InputFrame frame = new InputFrame();
+		Input.setActive(frame);
+		replay.next(frame);
+		replay.next(frame);
+		world.process();
+		Assert.assertEquals("Velocity Incorrect", WorldProfile.Speed.WALK.getSpeed(), player.getComponent(Velocity.class).getVelocity(), 0F);
+		Assert.assertEquals("Rotation Incorrect", WorldProfile.WorldDirection.LEFT.getDirection(), player.getComponent(Rotation.class).getRotation(), 0D);
+
+		// Right arrow is held too, but only means something to arrow key controls
+		player.addComponent(new PlayerControl(WorldProfile.Control.ARROWS));
+		player.changedInWorld();
+		world.process();
+		Assert.assertEquals("Bound Velocity Incorrect", WorldProfile.Speed.WALK.getSpeed(), player.getComponent(Velocity.class).getVelocity(), 0F);
+		Assert.assertEquals("Bound Rotation Incorrect", WorldProfile.WorldDirection.RIGHT.getDirection(), player.getComponent(Rotation.class).getRotation(), 0D);
+	}
+}
@@ -0,0 +1,93 @@
+package com.stonetolb.engine.motion;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.change.DirtySet;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+public class MotionStoreTest {
+
+	MotionStore testStore;
+	Position[] testPositions;
+	Velocity[] testVelocities;
+	Rotation[] testRotations;
+
+	@Before
+	public void setup() throws Exception {
+		testStore = new MotionStore(2);
+		testPositions = new Position[3];
+		testVelocities = new Velocity[3];
+		testRotations = new Rotation[3];
+		for (int i = 0; i < 3; i++) {
+			testPositions[i] = new Position(i * 100, 0);
+			testVelocities[i] = new Velocity(1000F);
+			testRotations[i] = new Rotation(i * 90F);
+			testStore.add(i, testPositions[i], testVelocities[i], testRotations[i]);
+		}
+	}
+
+	@Test
+	public void testComponentsReadThrough() throws Exception {
+		Assert.assertEquals("Size Incorrect", 3, testStore.size());
+		Assert.assertEquals("Slot Incorrect", 2, testStore.getSlot(2));
+		Assert.assertEquals("Stored X Incorrect", 200, testStore.x[2]);
+
+		testPositions[1].setPosition(5, 6);
+		testVelocities[1].setVelocity(500F);
+		testRotations[1].setRotation(180D);
+		Assert.assertEquals("X Incorrect", 5, testStore.x[1]);
+		Assert.assertEquals("Y Incorrect", 6, testStore.y[1]);
+		Assert.assertEquals("Speed Incorrect", 500F, testStore.speed[1], 0F);
+		Assert.assertEquals("Direction Incorrect", -1F, testStore.directionX[1], 1e-6F);
+	}
+
+	@Test
+	public void testIntegrateMatchesComponentMath() throws Exception {
+		testRotations[2].setRotation(33D);
+		testStore.integrate(16F, 0, testStore.size());
+
+		for (int i = 0; i < 3; i++) {
+			int expectedX = i * 100 + (int)(((16F * 1000F) / 1000) * Math.cos(Math.toRadians(testRotations[i].getRotation())));
+			int expectedY = (int)(((16F * 1000F) / 1000) * Math.sin(Math.toRadians(testRotations[i].getRotation())));
+			Assert.assertEquals("X Incorrect", expectedX, testPositions[i].getX());
+			Assert.assertEquals("Y Incorrect", expectedY, testPositions[i].getY());
+		}
+	}
+
+	@Test
+	public void testIntegrateMarksOnlyMoved() throws Exception {
+		ChangeLog log = new ChangeLog();
+		DirtySet moved = log.watch(Position.class);
+		testStore.setChannel(log.getChannel(Position.class));
+		testVelocities[1].setVelocity(0F);
+		testStore.integrate(16F, 0, testStore.size());
+
+		Assert.assertTrue("Moved Not Marked", moved.isMarked(0));
+		Assert.assertFalse("Still Marked", moved.isMarked(1));
+		Assert.assertTrue("Moved Not Marked", moved.isMarked(2));
+	}
+
+	@Test
+	public void testRemoveMovesLastIntoSlot() throws Exception {
+		testPositions[2].setX(777);
+		testStore.remove(0);
+
+		Assert.assertEquals("Size Incorrect", 2, testStore.size());
+		Assert.assertEquals("Removed Slot Incorrect", -1, testStore.getSlot(0));
+		Assert.assertEquals("Moved Slot Incorrect", 0, testStore.getSlot(2));
+		Assert.assertEquals("Moved X Incorrect", 777, testStore.x[0]);
+		Assert.assertEquals("Moved Rotation Incorrect", 180D, testStore.rotation[0], 0D);
+
+		// The removed entity keeps its values, and no longer writes to the store
+		testPositions[0].setX(-1);
+		Assert.assertEquals("Removed X Incorrect", -1, testPositions[0].getX());
+		Assert.assertEquals("Store X Incorrect", 777, testStore.x[0]);
+		testPositions[2].setX(12);
+		Assert.assertEquals("Moved Write Incorrect", 12, testStore.x[0]);
+	}
+}
@@ -0,0 +1,82 @@
+package com.stonetolb.engine.physics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.physics.KinematicBody;
+import com.stonetolb.engine.component.physics.StaticBody;
+
+public class Box2DBackendTest {
+
+	Box2DBackend testBackend;
+
+	@Before
+	public void setup() throws Exception {
+		testBackend = new Box2DBackend();
+		testBackend.add(0, new StaticBody(200, 100, 40, 40, 0, 0));
+		testBackend.add(1, new DynamicBody(100, 100, 20, 20, 0, 0));
+	}
+
+	@Test
+	public void testFollowsTarget() throws Exception {
+		testBackend.moveTo(1, 110, 95, 0F);
+		testBackend.step(16F);
+		Assert.assertEquals("X Incorrect", 110, testBackend.getX(1));
+		Assert.assertEquals("Y Incorrect", 95, testBackend.getY(1));
+	}
+
+	@Test
+	public void testBlockedByStatic() throws Exception {
+		// Walk right into the wall, whose left side is at 180
+		for (int frame = 0; frame < 60; frame++) {
+			testBackend.moveTo(1, testBackend.getX(1) + 4, 100, 250F);
+			testBackend.step(16F);
+		}
+
+		Assert.assertTrue("Walked Through Wall", testBackend.getX(1) + 10 <= 181);
+		Assert.assertEquals("Wall Moved", 200, testBackend.getX(0));
+	}
+
+	@Test
+	public void testKinematicPushesDynamic() throws Exception {
+		// Kinematic body just left of the dynamic one, walking into it
+		testBackend.add(2, new KinematicBody(60, 100, 20, 20, 0, 0));
+		for (int frame = 0; frame < 20; frame++) {
+			testBackend.moveTo(2, testBackend.getX(2) + 2, 100, 125F);
+			testBackend.moveTo(1, testBackend.getX(1), 100, 0F);
+			testBackend.step(16F);
+		}
+
+		Assert.assertEquals("Kinematic Held Back", 100, testBackend.getX(2));
+		Assert.assertTrue("Dynamic Not Pushed : " + testBackend.getX(1), testBackend.getX(1) >= 118);
+	}
+
+	@Test
+	public void testKinematicIgnoresStatic() throws Exception {
+		// Unlike the resolver, jBox2D never stops a kinematic body at a wall
+		testBackend.add(2, new KinematicBody(150, 40, 20, 20, 0, 0));
+		testBackend.moveTo(2, 200, 100, 250F);
+		testBackend.step(16F);
+		testBackend.step(16F);
+		Assert.assertEquals("X Incorrect", 200, testBackend.getX(2));
+		Assert.assertEquals("Y Incorrect", 100, testBackend.getY(2));
+	}
+
+	@Test
+	public void testSensorReportsContact() throws Exception {
+		testBackend.add(2, new StaticBody(100, 140, 40, 40, 0, 0).setSensor(true));
+		testBackend.moveTo(1, 100, 130, 250F);
+		testBackend.step(16F);
+		// Touching is only worked out at the start of the next step
+		testBackend.step(16F);
+
+		PairBuffer contacts = new PairBuffer();
+		testBackend.getContacts(contacts);
+		Assert.assertEquals("Contacts Incorrect", 1, contacts.size());
+		Assert.assertEquals("First Incorrect", 1, contacts.getFirst(0));
+		Assert.assertEquals("Second Incorrect", 2, contacts.getSecond(0));
+		Assert.assertEquals("Y Incorrect", 130, testBackend.getY(1));
+	}
+}
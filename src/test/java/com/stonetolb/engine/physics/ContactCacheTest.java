@@ -0,0 +1,93 @@
+package com.stonetolb.engine.physics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContactCacheTest {
+
+	ContactCache testCache;
+	PairBuffer touching;
+
+	@Before
+	public void setup() throws Exception {
+		testCache = new ContactCache();
+		touching = new PairBuffer();
+	}
+
+	@Test
+	public void testBeginStayEnd() throws Exception {
+		touching.add(4, 1);
+		touching.add(2, 3);
+		testCache.update(touching);
+		assertPairs("Begun Incorrect", testCache.getBegun(), 1, 4, 2, 3);
+		Assert.assertEquals("Staying Incorrect", 0, testCache.getStaying().size());
+		Assert.assertEquals("Ended Incorrect", 0, testCache.getEnded().size());
+
+		touching.clear();
+		touching.add(1, 4);
+		touching.add(5, 2);
+		testCache.update(touching);
+		assertPairs("Begun Incorrect", testCache.getBegun(), 2, 5);
+		assertPairs("Staying Incorrect", testCache.getStaying(), 1, 4);
+		assertPairs("Ended Incorrect", testCache.getEnded(), 2, 3);
+
+		touching.clear();
+		testCache.update(touching);
+		Assert.assertEquals("Begun Incorrect", 0, testCache.getBegun().size());
+		Assert.assertEquals("Staying Incorrect", 0, testCache.getStaying().size());
+		assertPairs("Ended Incorrect", testCache.getEnded(), 1, 4, 2, 5);
+	}
+
+	@Test
+	public void testRemovedBodyEndsAndBeginsAgain() throws Exception {
+		touching.add(1, 4);
+		touching.add(2, 3);
+		testCache.update(touching);
+
+		testCache.remove(4);
+		Assert.assertFalse("Removed Still Touching", testCache.isTouching(1, 4));
+		Assert.assertTrue("Other Not Touching", testCache.isTouching(2, 3));
+
+		// Id 4 reused by a new body in the same place
+		testCache.update(touching);
+		assertPairs("Begun Incorrect", testCache.getBegun(), 1, 4);
+		assertPairs("Staying Incorrect", testCache.getStaying(), 2, 3);
+		assertPairs("Ended Incorrect", testCache.getEnded(), 1, 4);
+
+		testCache.update(touching);
+		assertPairs("Staying Incorrect", testCache.getStaying(), 1, 4, 2, 3);
+		Assert.assertEquals("Ended Incorrect", 0, testCache.getEnded().size());
+	}
+
+	@Test
+	public void testDuplicatesReportedOnce() throws Exception {
+		touching.add(1, 2);
+		touching.add(2, 1);
+		touching.add(1, 2);
+		testCache.update(touching);
+		assertPairs("Begun Incorrect", testCache.getBegun(), 1, 2);
+		testCache.update(touching);
+		assertPairs("Staying Incorrect", testCache.getStaying(), 1, 2);
+	}
+
+	@Test
+	public void testIsTouching() throws Exception {
+		for (int id = 0; id < 100; id += 2) {
+			touching.add(id, id + 1);
+		}
+		testCache.update(touching);
+		Assert.assertTrue("Pair Missing", testCache.isTouching(41, 40));
+		Assert.assertTrue("Pair Missing", testCache.isTouching(98, 99));
+		Assert.assertFalse("Phantom Pair", testCache.isTouching(41, 42));
+		Assert.assertFalse("Phantom Pair", testCache.isTouching(0, 99));
+	}
+
+	private static void assertPairs(String pMessage, PairBuffer pPairs, int... pExpected) {
+		Assert.assertEquals(pMessage, pExpected.length / 2, pPairs.size());
+		for (int i = 0; i < pPairs.size(); i++) {
+			Assert.assertEquals(pMessage, pExpected[2 * i], pPairs.getFirst(i));
+			Assert.assertEquals(pMessage, pExpected[2 * i + 1], pPairs.getSecond(i));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PairBufferTest {
+
+	PairBuffer testBuffer;
+
+	@Before
+	public void setup() throws Exception {
+		testBuffer = new PairBuffer(4);
+	}
+
+	@Test
+	public void testAddOrdersProxies() throws Exception {
+		testBuffer.add(9, 2);
+		Assert.assertEquals("Length Incorrect", 1, testBuffer.size());
+		Assert.assertEquals("First Incorrect", 2, testBuffer.getFirst(0));
+		Assert.assertEquals("Second Incorrect", 9, testBuffer.getSecond(0));
+	}
+
+	@Test
+	public void testSort() throws Exception {
+		Random random = new Random(17L);
+		long[] expected = new long[5000];
+		for (int i = 0; i < expected.length; i++) {
+			// Runs of nearly sorted pairs with plenty of repeats, like a broadphase produces
+			int first = i / 3 + random.nextInt(40);
+			int second = first + random.nextInt(8);
+			testBuffer.add(first, second);
+			expected[i] = ((long)first << 32) | second;
+		}
+		Arrays.sort(expected);
+
+		testBuffer.sort();
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals("First Incorrect", (int)(expected[i] >>> 32), testBuffer.getFirst(i));
+			Assert.assertEquals("Second Incorrect", (int)expected[i], testBuffer.getSecond(i));
+		}
+	}
+}
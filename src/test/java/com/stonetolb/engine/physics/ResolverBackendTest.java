@@ -0,0 +1,78 @@
+package com.stonetolb.engine.physics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.physics.StaticBody;
+
+public class ResolverBackendTest {
+
+	ResolverBackend testBackend;
+
+	@Before
+	public void setup() throws Exception {
+		testBackend = new ResolverBackend();
+		// Thin wall from x 198 to 202
+		testBackend.add(0, new StaticBody(200, 100, 4, 200, 0, 0));
+		testBackend.add(1, new DynamicBody(100, 100, 16, 16, 0, 0));
+	}
+
+	@Test
+	public void testFastBodyStopsAtWall() throws Exception {
+		// One long step straight through the wall
+		testBackend.moveTo(1, 400, 110, 5000F);
+		testBackend.step(500F);
+
+		Assert.assertEquals("X Incorrect", 190, testBackend.getX(1));
+		Assert.assertTrue("Y Incorrect", testBackend.getY(1) > 100 && testBackend.getY(1) < 110);
+	}
+
+	@Test
+	public void testFastBodyMissesWall() throws Exception {
+		// Passes over the top of the wall, which ends at y 0
+		testBackend.moveTo(1, 100, -20, 5000F);
+		testBackend.step(500F);
+		testBackend.moveTo(1, 400, -20, 5000F);
+		testBackend.step(500F);
+
+		Assert.assertEquals("X Incorrect", 400, testBackend.getX(1));
+		Assert.assertEquals("Y Incorrect", -20, testBackend.getY(1));
+	}
+
+	@Test
+	public void testSlowBodyUnaffected() throws Exception {
+		testBackend.moveTo(1, 105, 103, 100F);
+		testBackend.step(16F);
+
+		Assert.assertEquals("X Incorrect", 105, testBackend.getX(1));
+		Assert.assertEquals("Y Incorrect", 103, testBackend.getY(1));
+	}
+
+	@Test
+	public void testFilteredBodyPassesWall() throws Exception {
+		testBackend.remove(1);
+		testBackend.add(1, new DynamicBody(100, 100, 16, 16, 0, 0).setFilter(2, ~1));
+		testBackend.moveTo(1, 400, 110, 5000F);
+		testBackend.step(500F);
+
+		Assert.assertEquals("X Incorrect", 400, testBackend.getX(1));
+		Assert.assertEquals("Y Incorrect", 110, testBackend.getY(1));
+	}
+
+	@Test
+	public void testFastBodyStopsAtTile() throws Exception {
+		// Single solid tile from x 256 to 288, y 96 to 128
+		TileGrid terrain = new TileGrid(20, 10, 32, 32);
+		terrain.setSolid(8, 3, true);
+		testBackend.remove(0);
+		testBackend.setTileGrid(terrain);
+		testBackend.moveTo(1, 600, 110, 5000F);
+		testBackend.step(500F);
+
+		// Stops touching the tile at 248, then is pushed off the shared edge
+		Assert.assertEquals("X Incorrect", 247, testBackend.getX(1));
+		Assert.assertTrue("Y Incorrect", testBackend.getY(1) > 100 && testBackend.getY(1) < 110);
+	}
+}
@@ -0,0 +1,104 @@
+package com.stonetolb.engine.physics;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpatialHashBroadphaseTest {
+
+	SpatialHashBroadphase testHash;
+	BruteForceBroadphase reference;
+
+	@Before
+	public void setup() throws Exception {
+		testHash = new SpatialHashBroadphase(32);
+		reference = new BruteForceBroadphase();
+
+		Random random = new Random(42L);
+		for (int proxy = 0; proxy < 500; proxy++) {
+			boolean fixed = random.nextInt(4) == 0;
+			int x = random.nextInt(2000) - 1000;
+			int y = random.nextInt(2000) - 1000;
+			int w = 1 + random.nextInt(fixed ? 150 : 40);
+			int h = 1 + random.nextInt(fixed ? 150 : 40);
+
+			testHash.add(proxy, fixed);
+			testHash.update(proxy, x, y, x + w, y + h);
+			reference.add(proxy, fixed);
+			reference.update(proxy, x, y, x + w, y + h);
+		}
+	}
+
+	@Test
+	public void testFindPairsMatchesBruteForce() throws Exception {
+		Set<Long> expected = collect(reference);
+		Set<Long> actual = collect(testHash);
+
+		Assert.assertTrue("Test data produced no pairs", !expected.isEmpty());
+		Assert.assertEquals("Pair sets differ", expected, actual);
+	}
+
+	@Test
+	public void testFilteredPairsSkipped() throws Exception {
+		int unfiltered = collect(reference).size();
+
+		// Every third proxy becomes a prop that never touches another prop
+		for (int proxy = 0; proxy < 500; proxy += 3) {
+			testHash.setFilter(proxy, 2, ~2);
+			reference.setFilter(proxy, 2, ~2);
+		}
+		Set<Long> expected = collect(reference);
+
+		Assert.assertTrue("Filter removed no pairs", expected.size() < unfiltered);
+		Assert.assertEquals("Pair sets differ", expected, collect(testHash));
+		for (Long pair : expected) {
+			int first = (int)(pair >>> 32);
+			int second = (int)(long)pair;
+			Assert.assertFalse("Props paired", first % 3 == 0 && second % 3 == 0);
+		}
+	}
+
+	@Test
+	public void testPairsReportedOnce() throws Exception {
+		PairBuffer pairs = new PairBuffer();
+		testHash.findPairs(pairs);
+		Assert.assertEquals("Duplicate pairs", collect(testHash).size(), pairs.size());
+	}
+
+	@Test
+	public void testTouchingEdgesArePaired() throws Exception {
+		SpatialHashBroadphase hash = new SpatialHashBroadphase(16);
+		hash.add(0, false);
+		hash.update(0, 0, 0, 16, 16);
+		hash.add(1, false);
+		hash.update(1, 16, 16, 40, 40);
+
+		PairBuffer pairs = new PairBuffer();
+		hash.findPairs(pairs);
+		Assert.assertEquals("Touching boxes not paired", 1, pairs.size());
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		testHash.remove(10);
+		testHash.remove(10);
+		reference.remove(10);
+		Assert.assertEquals("Size Incorrect", 499, testHash.size());
+		Assert.assertEquals("Pair sets differ", collect(reference), collect(testHash));
+	}
+
+	private static Set<Long> collect(Broadphase pBroadphase) {
+		PairBuffer pairs = new PairBuffer();
+		pBroadphase.findPairs(pairs);
+
+		Set<Long> result = new HashSet<Long>();
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(((long)pairs.getFirst(i) << 32) | pairs.getSecond(i));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,226 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+	SpatialIndex testIndex;
+	int[][] boxes;
+
+	@Before
+	public void setup() throws Exception {
+		testIndex = new SpatialIndex(32);
+		boxes = new int[2000][];
+
+		// Center x, center y, half width, half height, category
+		Random random = new Random(5L);
+		for (int id = 0; id < boxes.length; id++) {
+			boolean wall = random.nextInt(10) == 0;
+			boxes[id] = new int[] {
+					  random.nextInt(3000) - 500
+					, random.nextInt(3000) - 500
+					, 1 + random.nextInt(wall ? 120 : 12)
+					, 1 + random.nextInt(wall ? 120 : 12)
+					, 1 << random.nextInt(3)
+					};
+			testIndex.add(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3], boxes[id][4]);
+		}
+		testIndex.build();
+	}
+
+	@Test
+	public void testRegionMatchesLinearScan() throws Exception {
+		assertRegionsMatch(12L);
+	}
+
+	@Test
+	public void testRaycastMatchesLinearScan() throws Exception {
+		assertRaycastsMatch(13L);
+	}
+
+	@Test
+	public void testNearestMatchesLinearScan() throws Exception {
+		assertNearestMatches(14L);
+	}
+
+	@Test
+	public void testUpdatesMatchLinearScan() throws Exception {
+		int builds = testIndex.getBuildCount();
+
+		// Small steps, some long jumps across the grid, and bodies coming and going
+		Random random = new Random(15L);
+		for (int id = 0; id < boxes.length; id++) {
+			int roll = random.nextInt(10);
+			if (roll < 6) {
+				boxes[id][0] += random.nextInt(9) - 4;
+				boxes[id][1] += random.nextInt(9) - 4;
+				testIndex.move(id, boxes[id][0], boxes[id][1]);
+			} else if (roll < 8) {
+				boxes[id][0] = random.nextInt(3000) - 500;
+				boxes[id][1] = random.nextInt(3000) - 500;
+				testIndex.move(id, boxes[id][0], boxes[id][1]);
+			} else if (roll < 9) {
+				// Removed bodies belong to no group, so the slow scans skip them
+				boxes[id][4] = 0;
+				testIndex.remove(id);
+			} else {
+				testIndex.remove(id);
+				testIndex.add(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3], boxes[id][4]);
+			}
+		}
+
+		assertRegionsMatch(16L);
+		assertRaycastsMatch(17L);
+		assertNearestMatches(18L);
+		Assert.assertEquals("Grid Rebuilt", builds, testIndex.getBuildCount());
+	}
+
+	@Test
+	public void testLeavingGridRebuilds() throws Exception {
+		int builds = testIndex.getBuildCount();
+		boxes[0][0] = 100000;
+		testIndex.move(0, boxes[0][0], boxes[0][1]);
+
+		assertRegionsMatch(19L);
+		Assert.assertEquals("Grid Not Rebuilt", builds + 1, testIndex.getBuildCount());
+	}
+
+	@Test
+	public void testVisitorCanStop() throws Exception {
+		int visited = testIndex.region(-1000, -1000, 4000, 4000, ~0, new BodyVisitor() {
+			@Override
+			public boolean visit(int pId) {
+				return false;
+			}
+		});
+		Assert.assertEquals("Count Incorrect", 1, visited);
+	}
+
+	private void assertRegionsMatch(long pSeed) {
+		Random random = new Random(pSeed);
+		final boolean[] seen = new boolean[boxes.length];
+		for (int query = 0; query < 200; query++) {
+			int x = random.nextInt(3400) - 700;
+			int y = random.nextInt(3400) - 700;
+			int[] box = {x, y, x + random.nextInt(300), y + random.nextInt(300)};
+			int mask = 1 + random.nextInt(7);
+
+			Arrays.fill(seen, false);
+			int visited = testIndex.region(box[0], box[1], box[2], box[3], mask, new BodyVisitor() {
+				@Override
+				public boolean visit(int pId) {
+					Assert.assertFalse("Visited Twice", seen[pId]);
+					seen[pId] = true;
+					return true;
+				}
+			});
+
+			int expected = 0;
+			for (int id = 0; id < boxes.length; id++) {
+				boolean hit = (boxes[id][4] & mask) != 0 && overlaps(id, box[0], box[1], box[2], box[3]);
+				Assert.assertEquals("Region Incorrect", hit, seen[id]);
+				expected += hit ? 1 : 0;
+			}
+			Assert.assertEquals("Count Incorrect", expected, visited);
+		}
+	}
+
+	private void assertRaycastsMatch(long pSeed) {
+		Random random = new Random(pSeed);
+		int hits = 0;
+		for (int query = 0; query < 500; query++) {
+			int x = random.nextInt(3400) - 700;
+			int y = random.nextInt(3400) - 700;
+			int dx = random.nextInt(1200) - 600;
+			int dy = random.nextInt(1200) - 600;
+
+			int hit = testIndex.raycast(x, y, dx, dy, ~0, 7);
+
+			float best = Float.POSITIVE_INFINITY;
+			for (int id = 0; id < boxes.length; id++) {
+				if (id != 7 && boxes[id][4] != 0) {
+					best = Math.min(best, enter(id, x, y, dx, dy));
+				}
+			}
+			if (best > 1F) {
+				Assert.assertEquals("Phantom Hit", -1, hit);
+				Assert.assertEquals("Fraction Incorrect", 1F, testIndex.getRayFraction(), 0F);
+			} else {
+				hits++;
+				Assert.assertTrue("Missed Hit", hit >= 0);
+				Assert.assertEquals("Fraction Incorrect", best, testIndex.getRayFraction(), 1E-4F);
+				Assert.assertEquals("Hit Not First", best, enter(hit, x, y, dx, dy), 1E-4F);
+			}
+		}
+		Assert.assertTrue("Test data produced no hits", hits > 50);
+	}
+
+	private void assertNearestMatches(long pSeed) {
+		Random random = new Random(pSeed);
+		int[] found = new int[5];
+		for (int query = 0; query < 200; query++) {
+			int x = random.nextInt(3400) - 700;
+			int y = random.nextInt(3400) - 700;
+			int range = random.nextInt(400);
+
+			int count = testIndex.nearest(x, y, range, 2, 3, found);
+
+			// Distance of the n-th nearest match, found the slow way
+			long[] expected = new long[boxes.length];
+			int matches = 0;
+			for (int id = 0; id < boxes.length; id++) {
+				long distance = distance(id, x, y);
+				if (id != 3 && (boxes[id][4] & 2) != 0 && distance <= (long)range * range) {
+					expected[matches++] = distance;
+				}
+			}
+			Arrays.sort(expected, 0, matches);
+
+			Assert.assertEquals("Count Incorrect", Math.min(matches, found.length), count);
+			for (int i = 0; i < count; i++) {
+				Assert.assertEquals("Nearest Incorrect", expected[i], distance(found[i], x, y));
+			}
+		}
+	}
+
+	private boolean overlaps(int pId, int pMinX, int pMinY, int pMaxX, int pMaxY) {
+		int[] b = boxes[pId];
+		return b[0] - b[2] <= pMaxX && pMinX <= b[0] + b[2]
+			&& b[1] - b[3] <= pMaxY && pMinY <= b[1] + b[3];
+	}
+
+	private long distance(int pId, int pX, int pY) {
+		long dx = boxes[pId][0] - pX;
+		long dy = boxes[pId][1] - pY;
+		return dx * dx + dy * dy;
+	}
+
+	/* Slow slab test, infinity for a miss */
+	private float enter(int pId, int pX, int pY, int pDX, int pDY) {
+		int[] b = boxes[pId];
+		float enter = 0F;
+		float exit = 1F;
+		int[] min = {b[0] - b[2], b[1] - b[3]};
+		int[] max = {b[0] + b[2], b[1] + b[3]};
+		int[] origin = {pX, pY};
+		int[] direction = {pDX, pDY};
+		for (int axis = 0; axis < 2; axis++) {
+			if (direction[axis] == 0) {
+				if (origin[axis] < min[axis] || origin[axis] > max[axis]) {
+					return Float.POSITIVE_INFINITY;
+				}
+			} else {
+				float near = (float)(min[axis] - origin[axis]) / direction[axis];
+				float far = (float)(max[axis] - origin[axis]) / direction[axis];
+				enter = Math.max(enter, Math.min(near, far));
+				exit = Math.min(exit, Math.max(near, far));
+			}
+		}
+		return enter > exit ? Float.POSITIVE_INFINITY : enter;
+	}
+}
@@ -0,0 +1,69 @@
+package com.stonetolb.engine.physics;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StaticTreeTest {
+
+	StaticTree testTree;
+	int[][] boxes;
+
+	@Before
+	public void setup() throws Exception {
+		testTree = new StaticTree();
+		boxes = new int[1000][];
+
+		Random random = new Random(7L);
+		for (int id = 0; id < boxes.length; id++) {
+			int x = random.nextInt(4000);
+			int y = random.nextInt(4000);
+			boxes[id] = new int[] {x, y, x + 1 + random.nextInt(80), y + 1 + random.nextInt(80)};
+			testTree.add(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+		}
+		testTree.refresh();
+	}
+
+	@Test
+	public void testQueryMatchesLinearScan() throws Exception {
+		Random random = new Random(11L);
+		for (int query = 0; query < 200; query++) {
+			int x = random.nextInt(4000);
+			int y = random.nextInt(4000);
+			int[] box = {x, y, x + random.nextInt(200), y + random.nextInt(200)};
+
+			Assert.assertEquals("Query Incorrect", linearCount(box), treeCount(box));
+		}
+	}
+
+	@Test
+	public void testRefreshOnlyWhenChanged() throws Exception {
+		Assert.assertFalse("Tree dirty after refresh", testTree.isDirty());
+
+		testTree.remove(3);
+		Assert.assertTrue("Tree not dirty after remove", testTree.isDirty());
+		testTree.refresh();
+
+		boxes[3] = new int[] {-10, -10, -10, -10};
+		Assert.assertEquals("Size Incorrect", 999, testTree.size());
+		Assert.assertEquals("Query Incorrect", linearCount(new int[] {0, 0, 4100, 4100}), treeCount(new int[] {0, 0, 4100, 4100}));
+	}
+
+	private int treeCount(int[] pBox) {
+		PairBuffer pairs = new PairBuffer();
+		testTree.query(pBox[0], pBox[1], pBox[2], pBox[3], -1, pairs);
+		return pairs.size();
+	}
+
+	private int linearCount(int[] pBox) {
+		int hits = 0;
+		for (int[] box : boxes) {
+			if (box[0] <= pBox[2] && pBox[0] <= box[2] && box[1] <= pBox[3] && pBox[1] <= box[3]) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
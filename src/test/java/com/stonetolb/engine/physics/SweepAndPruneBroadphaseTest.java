@@ -0,0 +1,90 @@
+package com.stonetolb.engine.physics;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SweepAndPruneBroadphaseTest {
+
+	SweepAndPruneBroadphase testSweep;
+	BruteForceBroadphase reference;
+	int[][] boxes;
+	Random random;
+
+	@Before
+	public void setup() throws Exception {
+		testSweep = new SweepAndPruneBroadphase();
+		reference = new BruteForceBroadphase();
+		boxes = new int[400][];
+		random = new Random(99L);
+
+		for (int proxy = 0; proxy < boxes.length; proxy++) {
+			int x = random.nextInt(1500);
+			int y = random.nextInt(1500);
+			boxes[proxy] = new int[] {x, y, x + 1 + random.nextInt(60), y + 1 + random.nextInt(60)};
+			testSweep.add(proxy, proxy % 5 == 0);
+			reference.add(proxy, proxy % 5 == 0);
+		}
+		push();
+	}
+
+	@Test
+	public void testFindPairsMatchesBruteForce() throws Exception {
+		Assert.assertEquals("Pair sets differ", collect(reference), collect(testSweep));
+	}
+
+	@Test
+	public void testSortedAxisSurvivesMovement() throws Exception {
+		for (int frame = 0; frame < 30; frame++) {
+			for (int[] box : boxes) {
+				int dx = random.nextInt(9) - 4;
+				int dy = random.nextInt(9) - 4;
+				box[0] += dx;
+				box[2] += dx;
+				box[1] += dy;
+				box[3] += dy;
+			}
+			push();
+			Assert.assertEquals("Pair sets differ on frame " + frame, collect(reference), collect(testSweep));
+		}
+	}
+
+	@Test
+	public void testAddAndRemoveBetweenFrames() throws Exception {
+		collect(testSweep);
+
+		testSweep.remove(5);
+		reference.remove(5);
+		testSweep.add(400, false);
+		reference.add(400, false);
+		testSweep.update(400, 700, 700, 800, 800);
+		reference.update(400, 700, 700, 800, 800);
+
+		Assert.assertEquals("Size Incorrect", 400, testSweep.size());
+		Assert.assertEquals("Pair sets differ", collect(reference), collect(testSweep));
+	}
+
+	private void push() {
+		for (int proxy = 0; proxy < boxes.length; proxy++) {
+			int[] box = boxes[proxy];
+			testSweep.update(proxy, box[0], box[1], box[2], box[3]);
+			reference.update(proxy, box[0], box[1], box[2], box[3]);
+		}
+	}
+
+	private static Set<Long> collect(Broadphase pBroadphase) {
+		PairBuffer pairs = new PairBuffer();
+		pBroadphase.findPairs(pairs);
+
+		Set<Long> result = new HashSet<Long>();
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(((long)pairs.getFirst(i) << 32) | pairs.getSecond(i));
+		}
+		Assert.assertEquals("Duplicate pairs", pairs.size(), result.size());
+		return result;
+	}
+}
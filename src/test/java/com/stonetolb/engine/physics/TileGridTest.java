@@ -0,0 +1,60 @@
+package com.stonetolb.engine.physics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.slick.tiled.TiledMap;
+
+import com.stonetolb.engine.component.physics.DynamicBody;
+
+public class TileGridTest {
+
+	TileGrid testGrid;
+
+	@Before
+	public void setup() throws Exception {
+		// Solid column at x = 2, rows 0 through 4, tiles 40 pixels square
+		testGrid = new TileGrid(10, 10, 40, 40);
+		for (int row = 0; row < 5; row++) {
+			testGrid.setSolid(2, row, true);
+		}
+	}
+
+	@Test
+	public void testCells() throws Exception {
+		Assert.assertEquals("Solid Count Incorrect", 5, testGrid.getSolidCount());
+		Assert.assertTrue("Cell Not Solid", testGrid.isSolid(2, 4));
+		Assert.assertFalse("Cell Solid", testGrid.isSolid(2, 5));
+		Assert.assertFalse("Outside Solid", testGrid.isSolid(-1, 0));
+		Assert.assertEquals("Column Incorrect", -1, testGrid.column(-1));
+		Assert.assertEquals("Column Incorrect", 2, testGrid.column(80));
+	}
+
+	@Test
+	public void testBakeLayer() throws Exception {
+		TiledMap map = new TiledMap("src/main/resources/maps/grotto.tmx", false);
+		TileGrid grid = TileGrid.fromLayer(map, map.getLayerIndex("Back"));
+
+		Assert.assertEquals("Width Incorrect", 55, grid.getWidth());
+		Assert.assertEquals("Height Incorrect", 40, grid.getHeight());
+		Assert.assertEquals("Solid Count Incorrect", 342, grid.getSolidCount());
+		Assert.assertTrue("Cliff Not Solid", grid.isSolid(10, 6));
+		Assert.assertFalse("Grotto Floor Solid", grid.isSolid(29, 18));
+	}
+
+	@Test
+	public void testSlidesAlongWall() throws Exception {
+		ResolverBackend backend = new ResolverBackend();
+		backend.setTileGrid(testGrid);
+		backend.add(0, new DynamicBody(60, 100, 20, 20, 0, 0));
+
+		// Walk diagonally into the wall's left face, across the seam between rows 2 and 3
+		for (int frame = 0; frame < 20; frame++) {
+			backend.moveTo(0, backend.getX(0) + 3, backend.getY(0) + 3, 100F);
+			backend.step(16F);
+		}
+
+		Assert.assertEquals("X Incorrect", 69, backend.getX(0));
+		Assert.assertEquals("Y Incorrect", 160, backend.getY(0));
+	}
+}
@@ -0,0 +1,43 @@
+package com.stonetolb.engine.pool;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stonetolb.engine.component.movement.Velocity;
+
+public class ComponentPoolTest {
+
+	ComponentPool<Velocity> testPool;
+
+	@Before
+	public void setup() throws Exception {
+		testPool = new ComponentPool<Velocity>() {
+			@Override
+			protected Velocity create() {
+				return new Velocity(0F);
+			}
+
+			@Override
+			protected void reset(Velocity pComponent) {
+				pComponent.setVelocity(0F);
+			}
+		};
+	}
+
+	@Test
+	public void testFreedComponentsAreReusedClean() throws Exception {
+		Velocity first = testPool.obtain();
+		first.setVelocity(120F);
+		testPool.free(first);
+
+		Assert.assertEquals("Free Incorrect", 1, testPool.getFree());
+		Velocity second = testPool.obtain();
+		Assert.assertSame("Component Incorrect", first, second);
+		Assert.assertEquals("Velocity Incorrect", 0F, second.getVelocity(), 0F);
+		Assert.assertEquals("Created Incorrect", 1, testPool.getCreated());
+
+		testPool.obtain();
+		Assert.assertEquals("Grown Incorrect", 2, testPool.getCreated());
+	}
+}
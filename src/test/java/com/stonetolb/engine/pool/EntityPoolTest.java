@@ -0,0 +1,173 @@
+package com.stonetolb.engine.pool;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.system.CollisionSystem;
+import com.stonetolb.engine.system.MovementSystem;
+
+public class EntityPoolTest {
+
+	World testWorld;
+	MovementSystem testMovement;
+	CollisionSystem testCollision;
+	EntityPool testPool;
+
+	@Before
+	public void setup() throws Exception {
+		testWorld = new World();
+		testMovement = testWorld.setSystem(new MovementSystem());
+		testCollision = testWorld.setSystem(new CollisionSystem());
+		testPool = testWorld.setManager(new EntityPool(new EntityPool.Assembler() {
+			@Override
+			public void assemble(Entity pEntity) {
+				pEntity.addComponent(new Position(0, 0));
+				pEntity.addComponent(new Velocity(0F));
+				pEntity.addComponent(new Rotation(0F));
+				pEntity.addComponent(new DynamicBody(0, 0, 4, 4, 0, 0));
+			}
+		}));
+		testWorld.initialize();
+		testWorld.setDelta(16F);
+	}
+
+	@Test
+	public void testDespawnedEntitiesAreReused() throws Exception {
+		Entity[] first = new Entity[10];
+		for (int i = 0; i < first.length; i++) {
+			first[i] = spawn(i * 10, 0, 0F);
+		}
+		testWorld.process();
+		for (int i = 0; i < first.length; i++) {
+			testPool.despawn(first[i]);
+		}
+		testWorld.process();
+
+		Assert.assertEquals("Free Incorrect", 10, testPool.getFree());
+		Assert.assertEquals("Moving Incorrect", 0, testMovement.getStore().size());
+
+		Entity again = spawn(0, 0, 0F);
+		Assert.assertEquals("Created Incorrect", 10, testPool.getCreated());
+		Assert.assertEquals("Active Incorrect", 1, testPool.getActive());
+		Assert.assertSame("Entity Incorrect", first[9], again);
+	}
+
+	@Test
+	public void testDeletedBeforeReturnCountedOnce() throws Exception {
+		Entity entity = spawn(0, 0, 0F);
+		spawn(8, 8, 0F);
+		testWorld.process();
+		Assert.assertEquals("Active Incorrect", 2, testPool.getActive());
+
+		// Despawned, then deleted before the World gets to disable it
+		testPool.despawn(entity);
+		entity.deleteFromWorld();
+		testWorld.process();
+		Assert.assertEquals("Active Incorrect", 1, testPool.getActive());
+		Assert.assertEquals("Free Incorrect", 0, testPool.getFree());
+
+		// Despawned twice
+		Entity other = spawn(16, 16, 0F);
+		testWorld.process();
+		testPool.despawn(other);
+		testPool.despawn(other);
+		testWorld.process();
+		Assert.assertEquals("Twice Active Incorrect", 1, testPool.getActive());
+		Assert.assertEquals("Twice Free Incorrect", 1, testPool.getFree());
+	}
+
+	@Test
+	public void testRespawnStartsAtNewPlace() throws Exception {
+		Entity entity = spawn(0, 0, 0F);
+		testWorld.process();
+		testPool.despawn(entity);
+		testWorld.process();
+
+		spawn(500, 300, 1000F);
+		testWorld.process();
+
+		Position position = entity.getComponent(Position.class);
+		Assert.assertEquals("X Incorrect", 516, position.getX());
+		Assert.assertEquals("Y Incorrect", 300, position.getY());
+		Assert.assertEquals("Previous X Incorrect", 500, position.getPreviousX());
+		Assert.assertEquals("Body X Incorrect", 516, testCollision.getBackend().getX(entity.getId()));
+	}
+
+	@Test
+	public void testSteadyStateAllocatesNothing() throws Exception {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+			return;
+		}
+
+		// Let the pool, stores and broadphase grow to fit, and the JIT settle
+		Entity[] live = new Entity[200];
+		for (int frame = 0; frame < 2000; frame++) {
+			churn(live, frame);
+		}
+		int created = testPool.getCreated();
+
+		// World.process allocates a little of its own every frame, whatever changed
+		for (int frame = 0; frame < 2000; frame++) {
+			testWorld.process();
+		}
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int frame = 0; frame < 100; frame++) {
+			testWorld.process();
+		}
+		long idle = threads.getThreadAllocatedBytes(thread) - before;
+
+		before = threads.getThreadAllocatedBytes(thread);
+		int cycles = 0;
+		for (int frame = 0; frame < 100; frame++) {
+			cycles += churn(live, frame);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before - idle;
+
+		// The two windows never allocate exactly alike, so allow a few bytes of
+		// noise; pooling going wrong costs whole entities and components per cycle
+		Assert.assertEquals("Entities Created", created, testPool.getCreated());
+		Assert.assertTrue("Bytes Allocated : " + allocated + " over " + cycles + " cycles", allocated < 8L * cycles);
+	}
+
+	/**
+	 * Replaces a fifth of the live entities, then processes a frame.
+	 * @return Number of entities despawned and spawned again.
+	 */
+	private int churn(Entity[] pLive, int pFrame) {
+		for (int i = pFrame % 5; i < pLive.length; i += 5) {
+			if (pLive[i] != null) {
+				testPool.despawn(pLive[i]);
+			}
+		}
+		testWorld.process();
+		int spawned = 0;
+		for (int i = pFrame % 5; i < pLive.length; i += 5) {
+			pLive[i] = spawn(i * 20, pFrame, 100F);
+			spawned++;
+		}
+		return spawned;
+	}
+
+	private Entity spawn(int pX, int pY, float pSpeed) {
+		Entity entity = testPool.spawn();
+		entity.getComponent(Position.class).reset(pX, pY);
+		entity.getComponent(Velocity.class).setVelocity(pSpeed);
+		entity.getComponent(Rotation.class).setRotation(0D);
+		entity.getComponent(DynamicBody.class).reset(pX, pY);
+		return entity;
+	}
+}
@@ -0,0 +1,47 @@
+package com.stonetolb.engine.profiler;
+
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameProfilerTest {
+
+	FrameProfiler testProfiler;
+
+	@Before
+	public void setup() throws Exception {
+		testProfiler = new FrameProfiler();
+	}
+
+	@Test
+	public void testSectionsKeepFirstOrder() throws Exception {
+		FrameProfiler.Section render = testProfiler.section("Render");
+		FrameProfiler.Section ticks = testProfiler.section("Ticks");
+
+		Assert.assertSame("Section Not Reused", render, testProfiler.section("Render"));
+		Assert.assertEquals("Sections Incorrect", 2, testProfiler.getSections().size());
+		Assert.assertSame("First Incorrect", render, testProfiler.getSections().get(0));
+		Assert.assertSame("Second Incorrect", ticks, testProfiler.getSections().get(1));
+	}
+
+	@Test
+	public void testCsv() throws Exception {
+		FrameProfiler.Section render = testProfiler.section("Render");
+		render.record(2000000L);
+		render.record(4000000L);
+		testProfiler.section("Camera");
+
+		StringWriter out = new StringWriter();
+		testProfiler.writeCsv(out);
+		String[] lines = out.toString().split("\n");
+
+		Assert.assertEquals("Lines Incorrect", 3, lines.length);
+		Assert.assertEquals("Header Incorrect", "section,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms", lines[0]);
+		Assert.assertTrue("Render Incorrect : " + lines[1], lines[1].startsWith("Render,2,3.0000,"));
+		Assert.assertTrue("Render Max Incorrect : " + lines[1], lines[1].endsWith(",4.0000"));
+		Assert.assertEquals("Camera Incorrect", "Camera,0,0.0000,0.0000,0.0000,0.0000,0.0000", lines[2]);
+		Assert.assertEquals("Last Incorrect", 4000000L, render.getLast());
+	}
+}
@@ -0,0 +1,66 @@
+package com.stonetolb.engine.profiler;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HistogramTest {
+
+	Histogram testHistogram;
+
+	@Before
+	public void setup() throws Exception {
+		testHistogram = new Histogram();
+	}
+
+	@Test
+	public void testSmallValuesAreExact() throws Exception {
+		for (long value = 1; value <= 50; value++) {
+			testHistogram.record(value);
+		}
+
+		Assert.assertEquals("Count Incorrect", 50L, testHistogram.getCount());
+		Assert.assertEquals("P50 Incorrect", 25L, testHistogram.getPercentile(50));
+		Assert.assertEquals("P100 Incorrect", 50L, testHistogram.getPercentile(100));
+		Assert.assertEquals("Mean Incorrect", 25.5D, testHistogram.getMean(), 0.0001D);
+	}
+
+	@Test
+	public void testLargeValuesWithinPrecision() throws Exception {
+		// 1 to 1000 microseconds
+		for (long micros = 1; micros <= 1000; micros++) {
+			testHistogram.record(micros * 1000L);
+		}
+
+		assertClose("P50 Incorrect", 500000L, testHistogram.getPercentile(50));
+		assertClose("P95 Incorrect", 950000L, testHistogram.getPercentile(95));
+		assertClose("P99 Incorrect", 990000L, testHistogram.getPercentile(99));
+		Assert.assertEquals("Max Incorrect", 1000000L, testHistogram.getMax());
+		Assert.assertEquals("P100 Incorrect", 1000000L, testHistogram.getPercentile(100));
+	}
+
+	@Test
+	public void testOutlierOnlyMovesTail() throws Exception {
+		for (int i = 0; i < 999; i++) {
+			testHistogram.record(2000000L);
+		}
+		testHistogram.record(Long.MAX_VALUE);
+
+		assertClose("P99 Incorrect", 2000000L, testHistogram.getPercentile(99));
+		Assert.assertEquals("Max Incorrect", Long.MAX_VALUE, testHistogram.getMax());
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		testHistogram.record(100L);
+		testHistogram.reset();
+
+		Assert.assertEquals("Count Incorrect", 0L, testHistogram.getCount());
+		Assert.assertEquals("P50 Incorrect", 0L, testHistogram.getPercentile(50));
+		Assert.assertEquals("Max Incorrect", 0L, testHistogram.getMax());
+	}
+
+	private static void assertClose(String pMessage, long pExpected, long pActual) {
+		Assert.assertEquals(pMessage, pExpected, pActual, pExpected * 0.04D);
+	}
+}
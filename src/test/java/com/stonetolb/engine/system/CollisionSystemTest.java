@@ -0,0 +1,404 @@
+package com.stonetolb.engine.system;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.physics.StaticBody;
+import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.physics.ContactListener;
+import com.stonetolb.engine.physics.PairBuffer;
+import com.stonetolb.engine.physics.PhysicsBackend;
+import com.stonetolb.engine.physics.ResolverBackend;
+
+public class CollisionSystemTest {
+
+	World testWorld;
+	ResolverBackend testBackend;
+	CollisionSystem testSystem;
+
+	@Before
+	public void setup() throws Exception {
+		testWorld = new World();
+		testBackend = new ResolverBackend();
+		testSystem = new CollisionSystem(testBackend);
+		testWorld.setSystem(testSystem);
+		testWorld.initialize();
+	}
+
+	@Test
+	public void testPushedOutOfStatic() throws Exception {
+		Entity wall = testWorld.createEntity();
+		wall.addComponent(new Position(100, 100));
+		wall.addComponent(new StaticBody(100, 100, 40, 40, 0, 0));
+		wall.addToWorld();
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(125, 100));
+		walker.addComponent(new DynamicBody(125, 100, 20, 20, 0, 0));
+		walker.addToWorld();
+
+		testWorld.process();
+
+		// Overlaps by 5 on x and 30 on y, so it is pushed one past touching along x
+		Position position = walker.getComponent(Position.class);
+		Assert.assertEquals("X Incorrect", 131, position.getX());
+		Assert.assertEquals("Y Incorrect", 100, position.getY());
+		Assert.assertEquals("Body Out Of Sync", 131, walker.getComponent(DynamicBody.class).getX());
+		Assert.assertEquals("Static Moved", 100, wall.getComponent(Position.class).getX());
+	}
+
+	@Test
+	public void testQueriesSeeResolvedPositions() throws Exception {
+		Entity wall = testWorld.createEntity();
+		wall.addComponent(new Position(100, 100));
+		wall.addComponent(new StaticBody(100, 100, 40, 40, 0, 0));
+		wall.addToWorld();
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(125, 100));
+		walker.addComponent(new DynamicBody(125, 100, 20, 20, 0, 0));
+		walker.addToWorld();
+
+		testWorld.process();
+
+		// Pushed out to 131, so its left edge is at 121
+		int[] found = new int[2];
+		Assert.assertEquals("Count Incorrect", 1, testSystem.nearest(125, 100, 10, ~0, -1, found));
+		Assert.assertEquals("Nearest Incorrect", walker.getId(), found[0]);
+		Assert.assertEquals("Ray Incorrect", walker.getId(), testSystem.raycast(200, 100, -100, 0, ~0, -1));
+		Assert.assertEquals("Fraction Incorrect", 0.59F, testSystem.getRayFraction(), 1E-4F);
+		Assert.assertEquals("Ray Incorrect", wall.getId(), testSystem.raycast(200, 100, -100, 0, ~0, walker.getId()));
+	}
+
+	@Test
+	public void testQueriesDoNotRebuildIndex() throws Exception {
+		Entity wall = testWorld.createEntity();
+		wall.addComponent(new Position(100, 100));
+		wall.addComponent(new StaticBody(100, 100, 40, 40, 0, 0));
+		wall.addToWorld();
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(300, 100));
+		walker.addComponent(new DynamicBody(300, 100, 20, 20, 0, 0));
+		walker.addToWorld();
+
+		testWorld.process();
+		int[] found = new int[1];
+		Assert.assertEquals("Count Incorrect", 1, testSystem.nearest(300, 100, 10, ~0, -1, found));
+		int builds = testSystem.getIndex().getBuildCount();
+
+		walker.getComponent(Position.class).setPosition(330, 110);
+		testWorld.process();
+
+		Assert.assertEquals("Count Incorrect", 1, testSystem.nearest(330, 110, 10, ~0, -1, found));
+		Assert.assertEquals("Nearest Incorrect", walker.getId(), found[0]);
+		Assert.assertEquals("Old Position Found", 0, testSystem.nearest(300, 100, 10, ~0, -1, found));
+		Assert.assertEquals("Index Rebuilt", builds, testSystem.getIndex().getBuildCount());
+	}
+
+	@Test
+	public void testSensorReportsContacts() throws Exception {
+		final int[] events = new int[3];
+		testSystem.addContactListener(new ContactListener() {
+			@Override
+			public void contacts(PairBuffer pBegun, PairBuffer pStaying, PairBuffer pEnded) {
+				events[0] += pBegun.size();
+				events[1] += pStaying.size();
+				events[2] += pEnded.size();
+			}
+		});
+
+		Entity zone = testWorld.createEntity();
+		zone.addComponent(new Position(100, 100));
+		zone.addComponent(new StaticBody(100, 100, 40, 40, 0, 0).setSensor(true));
+		zone.addToWorld();
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(125, 100));
+		walker.addComponent(new DynamicBody(125, 100, 20, 20, 0, 0));
+		walker.addToWorld();
+
+		testWorld.process();
+		testWorld.process();
+
+		// Sensors are not solid, so the walker is left where it stands
+		Assert.assertEquals("X Incorrect", 125, walker.getComponent(Position.class).getX());
+		Assert.assertTrue("Contact Missing", testSystem.getContacts().isTouching(zone.getId(), walker.getId()));
+		Assert.assertArrayEquals("Events Incorrect", new int[] {1, 1, 0}, events);
+
+		walker.getComponent(Position.class).setPosition(300, 100);
+		testWorld.process();
+		Assert.assertFalse("Contact Not Ended", testSystem.getContacts().isTouching(zone.getId(), walker.getId()));
+		Assert.assertArrayEquals("Events Incorrect", new int[] {1, 1, 1}, events);
+	}
+
+	@Test
+	public void testReaddedContactBeginsAgain() throws Exception {
+		final int[] events = new int[3];
+		testSystem.addContactListener(new ContactListener() {
+			@Override
+			public void contacts(PairBuffer pBegun, PairBuffer pStaying, PairBuffer pEnded) {
+				events[0] += pBegun.size();
+				events[1] += pStaying.size();
+				events[2] += pEnded.size();
+			}
+		});
+
+		Entity zone = testWorld.createEntity();
+		zone.addComponent(new Position(100, 100));
+		zone.addComponent(new StaticBody(100, 100, 40, 40, 0, 0).setSensor(true));
+		zone.addToWorld();
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(125, 100));
+		walker.addComponent(new DynamicBody(125, 100, 20, 20, 0, 0));
+		walker.addToWorld();
+
+		testWorld.process();
+		testWorld.process();
+		Assert.assertArrayEquals("Events Incorrect", new int[] {1, 1, 0}, events);
+
+		// Taken out and put back under the same id before the next step
+		walker.disable();
+		walker.enable();
+		testWorld.process();
+
+		Assert.assertTrue("Contact Missing", testSystem.getContacts().isTouching(zone.getId(), walker.getId()));
+		Assert.assertArrayEquals("Events Incorrect", new int[] {2, 1, 1}, events);
+	}
+
+	@Test
+	public void testThreadCountDoesNotChangeResult() throws Exception {
+		World single = crowd(new ResolverBackend(ResolverBackend.Strategy.SPATIAL_HASH, 1));
+		World parallel = crowd(new ResolverBackend(ResolverBackend.Strategy.SPATIAL_HASH, 4));
+		for (int frame = 0; frame < 60; frame++) {
+			single.process();
+			parallel.process();
+		}
+
+		for (int id = 0; id < 3000; id++) {
+			Position expected = single.getEntity(id).getComponent(Position.class);
+			Position actual = parallel.getEntity(id).getComponent(Position.class);
+			Assert.assertEquals("X Incorrect", expected.getX(), actual.getX());
+			Assert.assertEquals("Y Incorrect", expected.getY(), actual.getY());
+		}
+	}
+
+	@Test
+	public void testSleepsWhenStill() throws Exception {
+		testBackend.setSleepDelay(5);
+		Entity sleeper = testWorld.createEntity();
+		sleeper.addComponent(new Position(200, 200));
+		sleeper.addComponent(new DynamicBody(200, 200, 20, 20, 0, 0));
+		sleeper.addToWorld();
+
+		for (int frame = 0; frame < 6; frame++) {
+			testWorld.process();
+		}
+		Assert.assertEquals("Sleeping Count Incorrect", 1, testBackend.getSleepingCount());
+		Assert.assertEquals("Awake Count Incorrect", 0, testBackend.getAwakeCount());
+
+		// Moving it wakes it
+		sleeper.getComponent(Position.class).setPosition(205, 200);
+		testWorld.process();
+		Assert.assertEquals("Sleeping Count Incorrect", 0, testBackend.getSleepingCount());
+		Assert.assertEquals("Awake Count Incorrect", 1, testBackend.getAwakeCount());
+	}
+
+	@Test
+	public void testSleepersSkippedWithoutChangeLog() throws Exception {
+		final int[] moves = new int[1];
+		ResolverBackend countingBackend = new ResolverBackend() {
+			@Override
+			public void moveTo(int pId, int pX, int pY, float pSpeed) {
+				moves[0]++;
+				super.moveTo(pId, pX, pY, pSpeed);
+			}
+		};
+		countingBackend.setSleepDelay(5);
+		World untracked = new World();
+		CollisionSystem untrackedSystem = new CollisionSystem(countingBackend);
+		untracked.setSystem(untrackedSystem);
+		untracked.initialize();
+
+		Entity sleeper = untracked.createEntity();
+		sleeper.addComponent(new Position(200, 200));
+		sleeper.addComponent(new DynamicBody(200, 200, 20, 20, 0, 0));
+		sleeper.addToWorld();
+		for (int frame = 0; frame < 6; frame++) {
+			untracked.process();
+		}
+		Assert.assertEquals("Sleeping Count Incorrect", 1, untrackedSystem.getSleepingCount());
+		Assert.assertEquals("Awake Count Incorrect", 0, untrackedSystem.getAwakeCount());
+
+		moves[0] = 0;
+		for (int frame = 0; frame < 10; frame++) {
+			untracked.process();
+		}
+		Assert.assertEquals("Sleeper Re-synced", 0, moves[0]);
+
+		// Moving it is still seen without a ChangeLog
+		sleeper.getComponent(Position.class).setPosition(205, 200);
+		untracked.process();
+		Assert.assertEquals("Moves Incorrect", 1, moves[0]);
+		Assert.assertEquals("Sleeping Count Incorrect", 0, untrackedSystem.getSleepingCount());
+		Assert.assertEquals("Awake Count Incorrect", 1, untrackedSystem.getAwakeCount());
+		Assert.assertEquals("X Incorrect", 205, sleeper.getComponent(Position.class).getX());
+	}
+
+	@Test
+	public void testWakesWhenTouched() throws Exception {
+		testBackend.setSleepDelay(5);
+		Entity sleeper = testWorld.createEntity();
+		sleeper.addComponent(new Position(200, 200));
+		sleeper.addComponent(new DynamicBody(200, 200, 20, 20, 0, 0));
+		sleeper.addToWorld();
+		for (int frame = 0; frame < 6; frame++) {
+			testWorld.process();
+		}
+		Assert.assertEquals("Sleeping Count Incorrect", 1, testBackend.getSleepingCount());
+
+		Entity walker = testWorld.createEntity();
+		walker.addComponent(new Position(215, 200));
+		walker.addComponent(new DynamicBody(215, 200, 20, 20, 0, 0));
+		walker.addToWorld();
+		testWorld.process();
+
+		Assert.assertEquals("Sleeping Count Incorrect", 0, testBackend.getSleepingCount());
+		// Neither is moving, so they bounce apart by half of the 6 pixel resolution each
+		Assert.assertEquals("Sleeper X Incorrect", 197, sleeper.getComponent(Position.class).getX());
+		Assert.assertEquals("Walker X Incorrect", 218, walker.getComponent(Position.class).getX());
+	}
+
+	@Test
+	public void testSleepingDoesNotChangeResult() throws Exception {
+		ResolverBackend restlessBackend = new ResolverBackend();
+		restlessBackend.setSleepDelay(0);
+		World restless = crowd(restlessBackend);
+		ResolverBackend sleepyBackend = new ResolverBackend();
+		sleepyBackend.setSleepDelay(5);
+		World sleepy = crowd(sleepyBackend);
+
+		int mostAsleep = 0;
+		for (int frame = 0; frame < 120; frame++) {
+			restless.process();
+			sleepy.process();
+			mostAsleep = Math.max(mostAsleep, sleepyBackend.getSleepingCount());
+		}
+		Assert.assertTrue("Nothing Slept", mostAsleep > 0);
+
+		for (int id = 0; id < 3000; id++) {
+			Position expected = restless.getEntity(id).getComponent(Position.class);
+			Position actual = sleepy.getEntity(id).getComponent(Position.class);
+			Assert.assertEquals("X Incorrect", expected.getX(), actual.getX());
+			Assert.assertEquals("Y Incorrect", expected.getY(), actual.getY());
+		}
+	}
+
+	@Test
+	public void testSteadyStateAllocatesNothing() throws Exception {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+			return;
+		}
+
+		Random random = new Random(5L);
+		for (int i = 0; i < 2000; i++) {
+			int x = random.nextInt(1500);
+			int y = random.nextInt(1500);
+			Entity entity = testWorld.createEntity();
+			entity.addComponent(new Position(x, y));
+			entity.addComponent(i % 4 == 0 ? new StaticBody(x, y, 40, 15, 20, 30) : new DynamicBody(x, y, 16, 12, 16, 36));
+			entity.addToWorld();
+		}
+		testWorld.process();
+
+		// Let the store, broadphase and pair buffers grow to fit
+		for (int frame = 0; frame < 20; frame++) {
+			testSystem.process();
+		}
+
+		long thread = Thread.currentThread().getId();
+		long baseline = threads.getThreadAllocatedBytes(thread);
+		long empty = threads.getThreadAllocatedBytes(thread) - baseline;
+
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int frame = 0; frame < 50; frame++) {
+			testSystem.process();
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before - empty;
+
+		Assert.assertEquals("Bytes Allocated", 0L, allocated);
+	}
+
+	@Test
+	public void testChangeLogDoesNotChangeResult() throws Exception {
+		ResolverBackend untrackedBackend = new ResolverBackend();
+		untrackedBackend.setSleepDelay(5);
+		World untracked = crowd(untrackedBackend);
+		ResolverBackend trackedBackend = new ResolverBackend();
+		trackedBackend.setSleepDelay(5);
+		World tracked = crowd(trackedBackend, true);
+
+		for (int frame = 0; frame < 120; frame++) {
+			untracked.process();
+			tracked.process();
+		}
+		Assert.assertTrue("Nothing Slept", trackedBackend.getSleepingCount() > 0);
+
+		for (int id = 0; id < 3000; id++) {
+			Position expected = untracked.getEntity(id).getComponent(Position.class);
+			Position actual = tracked.getEntity(id).getComponent(Position.class);
+			Assert.assertEquals("X Incorrect", expected.getX(), actual.getX());
+			Assert.assertEquals("Y Incorrect", expected.getY(), actual.getY());
+		}
+	}
+
+	private World crowd(PhysicsBackend pBackend) {
+		return crowd(pBackend, false);
+	}
+
+	/**
+	 * A crowd dense enough that the pair lists are split across threads.
+	 */
+	private World crowd(PhysicsBackend pBackend, boolean pTracked) {
+		World world = new World();
+		if (pTracked) {
+			world.setManager(new ChangeLog());
+		}
+		world.setSystem(new MovementSystem());
+		world.setSystem(new CollisionSystem(pBackend));
+		world.initialize();
+		world.setDelta(16L);
+
+		Random random = new Random(3L);
+		for (int i = 0; i < 3000; i++) {
+			int x = random.nextInt(1000);
+			int y = random.nextInt(1000);
+			Entity entity = world.createEntity();
+			entity.addComponent(new Position(x, y));
+			if (i % 4 == 0) {
+				entity.addComponent(new StaticBody(x, y, 40, 15, 20, 30));
+			} else {
+				entity.addComponent(new Velocity(random.nextBoolean() ? 75F : 0F));
+				entity.addComponent(new Rotation(random.nextInt(4) * 90F));
+				entity.addComponent(new DynamicBody(x, y, 16, 12, 16, 36));
+			}
+			entity.addToWorld();
+		}
+		return world;
+	}
+}
@@ -0,0 +1,93 @@
+package com.stonetolb.engine.system;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.change.ChangeLog;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+public class DirtyEntityProcessingSystemTest {
+	private static final int COUNT = 1000;
+
+	World testWorld;
+	CountingSystem testSystem;
+	Entity[] testEntities;
+
+	@Before
+	public void setup() throws Exception {
+		testWorld = new World();
+		testWorld.setManager(new ChangeLog());
+		testWorld.setSystem(new MovementSystem());
+		testSystem = testWorld.setSystem(new CountingSystem());
+		testWorld.initialize();
+		testWorld.setDelta(16F);
+
+		testEntities = new Entity[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			testEntities[i] = testWorld.createEntity();
+			testEntities[i].addComponent(new Position(i, 0));
+			testEntities[i].addComponent(new Velocity(0F));
+			testEntities[i].addComponent(new Rotation(0F));
+			testEntities[i].addToWorld();
+		}
+	}
+
+	@Test
+	public void testOnlyChangedEntitiesProcessed() throws Exception {
+		// Everything is new the first time
+		testWorld.process();
+		Assert.assertEquals("Joined Incorrect", COUNT, testSystem.visits.get());
+
+		// Nothing changed
+		testSystem.visits.set(0);
+		testWorld.process();
+		testWorld.process();
+		Assert.assertEquals("Idle Incorrect", 0, testSystem.visits.get());
+
+		// Set in motion, then moved by the MovementSystem every step after
+		testEntities[7].getComponent(Velocity.class).setVelocity(1000F);
+		testEntities[9].getComponent(Rotation.class).setRotation(0D);
+		testWorld.process();
+		Assert.assertEquals("Changed Incorrect", 1, testSystem.visits.get());
+		Assert.assertEquals("Processed Count Incorrect", 1, testSystem.getProcessedCount());
+		testWorld.process();
+		Assert.assertEquals("Moved Incorrect", 2, testSystem.visits.get());
+	}
+
+	@Test
+	public void testRemovedEntitiesSkipped() throws Exception {
+		testWorld.process();
+		testSystem.visits.set(0);
+
+		testEntities[3].getComponent(Position.class).setX(-5);
+		testEntities[3].deleteFromWorld();
+		testWorld.process();
+		Assert.assertEquals("Visits Incorrect", 0, testSystem.visits.get());
+	}
+
+	/**
+	 * Counts the entities it is given, watching their positions.
+	 */
+	@Reads(Position.class)
+	private static class CountingSystem extends DirtyEntityProcessingSystem {
+		final AtomicInteger visits = new AtomicInteger();
+
+		@SuppressWarnings("unchecked")
+		CountingSystem() {
+			super(Aspect.getAspectForAll(Position.class), Position.class);
+		}
+
+		@Override
+		protected void process(Entity pEntity) {
+			visits.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.stonetolb.engine.system;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.position.Position;
+
+public class ParallelEntityProcessingSystemTest {
+	private static final int COUNT = 5000;
+
+	ForkJoinPool testPool;
+
+	@Before
+	public void setup() throws Exception {
+		testPool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testPool.shutdown();
+	}
+
+	@Test
+	public void testEveryEntityProcessedOnce() throws Exception {
+		CountingSystem counter = new CountingSystem(COUNT);
+		counter.setPool(testPool).setChunkSize(64);
+
+		World world = new World();
+		world.setSystem(counter);
+		world.initialize();
+		populate(world, new Random(3L));
+
+		world.process();
+		world.process();
+
+		for (int id = 0; id < COUNT; id++) {
+			Assert.assertEquals("Visits Incorrect", 2, counter.visits.get(id));
+		}
+	}
+
+	@Test
+	public void testMovementMatchesSerial() throws Exception {
+		World serial = new World();
+		serial.setSystem(new MovementSystem().setChunkSize(Integer.MAX_VALUE));
+		serial.initialize();
+
+		World parallel = new World();
+		parallel.setSystem(new MovementSystem().setPool(testPool).setChunkSize(100));
+		parallel.initialize();
+
+		populate(serial, new Random(5L));
+		populate(parallel, new Random(5L));
+		serial.setDelta(16F);
+		parallel.setDelta(16F);
+		for (int frame = 0; frame < 10; frame++) {
+			serial.process();
+			parallel.process();
+		}
+
+		for (int id = 0; id < COUNT; id++) {
+			Position expected = serial.getEntity(id).getComponent(Position.class);
+			Position actual = parallel.getEntity(id).getComponent(Position.class);
+			Assert.assertEquals("X Incorrect", expected.getX(), actual.getX());
+			Assert.assertEquals("Y Incorrect", expected.getY(), actual.getY());
+		}
+	}
+
+	private static void populate(World pWorld, Random pRandom) {
+		for (int i = 0; i < COUNT; i++) {
+			Entity entity = pWorld.createEntity();
+			entity.addComponent(new Position(pRandom.nextInt(1000), pRandom.nextInt(1000)));
+			entity.addComponent(new Velocity(pRandom.nextInt(200)));
+			entity.addComponent(new Rotation(pRandom.nextInt(360)));
+			entity.addToWorld();
+		}
+	}
+
+	/**
+	 * Counts how many times each entity is processed.
+	 */
+	private static class CountingSystem extends ParallelEntityProcessingSystem {
+		final AtomicIntegerArray visits;
+
+		@SuppressWarnings("unchecked")
+		CountingSystem(int pCount) {
+			super(Aspect.getAspectForAll(Position.class));
+			visits = new AtomicIntegerArray(pCount);
+		}
+
+		@Override
+		protected void process(Entity pEntity) {
+			visits.incrementAndGet(pEntity.getId());
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.stonetolb.engine.system;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.EntitySystem;
+import com.artemis.World;
+import com.artemis.utils.ImmutableBag;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.component.physics.DynamicBody;
+import com.stonetolb.engine.component.physics.StaticBody;
+import com.stonetolb.engine.component.position.Position;
+import com.stonetolb.engine.profiler.FrameProfiler;
+
+public class SystemSchedulerTest {
+
+	World testWorld;
+	SystemScheduler testScheduler;
+
+	@Before
+	public void setup() throws Exception {
+		testWorld = new World();
+		testScheduler = new SystemScheduler(testWorld, 4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testScheduler.shutdown();
+	}
+
+	@Test
+	public void testDependenciesFollowDeclaredAccess() throws Exception {
+		EntitySystem history = testScheduler.add(new PositionHistorySystem());
+		EntitySystem control = testScheduler.add(new PlayerControlSystem());
+		EntitySystem movement = testScheduler.add(new MovementSystem());
+		EntitySystem sprites = testScheduler.add(new SpriteControlSystem());
+		EntitySystem camera = testScheduler.add(new CameraSystem());
+		EntitySystem collision = testScheduler.add(new CollisionSystem());
+
+		Assert.assertEquals("Control Incorrect", Arrays.asList(), testScheduler.getDependencies(control));
+		Assert.assertEquals("Movement Incorrect", Arrays.asList(history, control), testScheduler.getDependencies(movement));
+		Assert.assertEquals("Sprites Incorrect", Arrays.asList(control), testScheduler.getDependencies(sprites));
+		Assert.assertEquals("Camera Incorrect", Arrays.asList(history, movement), testScheduler.getDependencies(camera));
+		Assert.assertEquals("Collision Incorrect", Arrays.asList(history, control, movement, camera), testScheduler.getDependencies(collision));
+		Assert.assertFalse("Sprites And Camera Conflict", SystemScheduler.conflicts(sprites, camera));
+	}
+
+	@Test
+	public void testUndeclaredSystemRunsAlone() throws Exception {
+		EntitySystem movement = testScheduler.add(new MovementSystem());
+		EntitySystem unknown = testScheduler.add(new MeetingSystem(null));
+		EntitySystem camera = testScheduler.add(new CameraSystem());
+
+		Assert.assertEquals("Unknown Incorrect", Arrays.asList(movement), testScheduler.getDependencies(unknown));
+		Assert.assertEquals("Camera Incorrect", Arrays.asList(movement, unknown), testScheduler.getDependencies(camera));
+	}
+
+	@Test
+	public void testReadersRunTogether() throws Exception {
+		// Each waits for the other, so run one after another they would time out
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		testScheduler.add(new PositionReader(barrier));
+		testScheduler.add(new OtherPositionReader(barrier));
+		testWorld.initialize();
+
+		testScheduler.process();
+	}
+
+	@Test
+	public void testSameResultAsSerial() throws Exception {
+		World serial = new World();
+		serial.setSystem(new PositionHistorySystem());
+		serial.setSystem(new MovementSystem());
+		serial.setSystem(new CollisionSystem());
+		serial.initialize();
+
+		testScheduler.add(new PositionHistorySystem());
+		testScheduler.add(new MovementSystem());
+		testScheduler.add(new CollisionSystem());
+		testWorld.initialize();
+
+		populate(serial, 2000, new Random(9L));
+		populate(testWorld, 2000, new Random(9L));
+		serial.setDelta(16F);
+		testWorld.setDelta(16F);
+		for (int frame = 0; frame < 60; frame++) {
+			serial.process();
+			testScheduler.process();
+		}
+
+		for (int id = 0; id < 2000; id++) {
+			Position expected = serial.getEntity(id).getComponent(Position.class);
+			Position actual = testWorld.getEntity(id).getComponent(Position.class);
+			Assert.assertEquals("X Incorrect", expected.getX(), actual.getX());
+			Assert.assertEquals("Y Incorrect", expected.getY(), actual.getY());
+		}
+	}
+
+	@Test
+	public void testProfilerTimesEachSystem() throws Exception {
+		FrameProfiler profiler = new FrameProfiler();
+		testScheduler.setProfiler(profiler);
+		testScheduler.add(new PositionHistorySystem());
+		testScheduler.add(new MovementSystem());
+		testWorld.initialize();
+
+		for (int frame = 0; frame < 3; frame++) {
+			testScheduler.process();
+		}
+
+		Assert.assertEquals("Sections Incorrect", 3, profiler.getSections().size());
+		Assert.assertEquals("World Incorrect", 3L, profiler.section("World").getHistogram().getCount());
+		Assert.assertEquals("Movement Incorrect", 3L, profiler.section("MovementSystem").getHistogram().getCount());
+		Assert.assertEquals("History Incorrect", 3L, profiler.section("PositionHistorySystem").getHistogram().getCount());
+	}
+
+	/**
+	 * Scatters bodies across a square area sized to keep density constant, a
+	 * quarter of them static props and the rest walking characters.
+	 */
+	private static void populate(World pWorld, int pCount, Random pRandom) {
+		int side = (int)Math.sqrt((double)pCount) * 48;
+
+		for (int i = 0; i < pCount; i++) {
+			int x = pRandom.nextInt(side);
+			int y = pRandom.nextInt(side);
+
+			Entity entity = pWorld.createEntity();
+			entity.addComponent(new Position(x, y));
+			if (i % 4 == 0) {
+				entity.addComponent(new StaticBody(x, y, 40, 15, 20, 30));
+			} else {
+				entity.addComponent(new Velocity(pRandom.nextBoolean() ? 75F : 0F));
+				entity.addComponent(new Rotation(pRandom.nextInt(4) * 90F));
+				entity.addComponent(new DynamicBody(x, y, 16, 12, 16, 36));
+			}
+			entity.addToWorld();
+		}
+	}
+
+	/**
+	 * Reads positions, and waits at a barrier if given one.
+	 */
+	private static class MeetingSystem extends EntitySystem {
+		private final CyclicBarrier barrier;
+
+		@SuppressWarnings("unchecked")
+		MeetingSystem(CyclicBarrier pBarrier) {
+			super(Aspect.getAspectForAll(Position.class, Velocity.class, Rotation.class));
+			barrier = pBarrier;
+		}
+
+		@Override
+		protected void processEntities(ImmutableBag<Entity> pEntities) {
+			if (barrier == null) {
+				return;
+			}
+			try {
+				barrier.await(5, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				throw new IllegalStateException("Readers did not run together", e);
+			}
+		}
+
+		@Override
+		protected boolean checkProcessing() {
+			return true;
+		}
+	}
+
+	@Reads(Position.class)
+	private static class PositionReader extends MeetingSystem {
+		PositionReader(CyclicBarrier pBarrier) {
+			super(pBarrier);
+		}
+	}
+
+	@Reads(Position.class)
+	private static class OtherPositionReader extends MeetingSystem {
+		OtherPositionReader(CyclicBarrier pBarrier) {
+			super(pBarrier);
+		}
+	}
+}
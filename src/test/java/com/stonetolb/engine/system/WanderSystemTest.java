@@ -0,0 +1,93 @@
+package com.stonetolb.engine.system;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.artemis.Entity;
+import com.artemis.World;
+import com.stonetolb.engine.component.control.Wander;
+import com.stonetolb.engine.component.movement.Rotation;
+import com.stonetolb.engine.component.movement.Velocity;
+import com.stonetolb.engine.profiles.WorldProfile;
+
+public class WanderSystemTest {
+	private static final int COUNT = 64;
+	private static final int STEPS = 600;
+
+	World firstWorld;
+	World secondWorld;
+	Entity[] firstEntities;
+	Entity[] secondEntities;
+
+	@Before
+	public void setup() throws Exception {
+		firstWorld = new World();
+		firstWorld.setSystem(new WanderSystem());
+		firstWorld.initialize();
+		firstWorld.setDelta(16F);
+		firstEntities = createWanderers(firstWorld);
+
+		secondWorld = new World();
+		secondWorld.setSystem(new WanderSystem());
+		secondWorld.initialize();
+		secondWorld.setDelta(16F);
+		secondEntities = createWanderers(secondWorld);
+	}
+
+	private static Entity[] createWanderers(World pWorld) {
+		Entity[] entities = new Entity[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			entities[i] = pWorld.createEntity();
+			entities[i].addComponent(new Wander(i));
+			entities[i].addComponent(new Velocity(WorldProfile.Speed.STOP.getSpeed()));
+			entities[i].addComponent(new Rotation(WorldProfile.WorldDirection.DOWN.getDirection()));
+			entities[i].addToWorld();
+		}
+		return entities;
+	}
+
+	@Test
+	public void testSameSeedsWanderAlike() throws Exception {
+		for (int step = 0; step < STEPS; step++) {
+			firstWorld.process();
+			secondWorld.process();
+			for (int i = 0; i < COUNT; i++) {
+				Assert.assertEquals("Velocity Incorrect"
+						, firstEntities[i].getComponent(Velocity.class).getVelocity()
+						, secondEntities[i].getComponent(Velocity.class).getVelocity()
+						, 0F);
+				Assert.assertEquals("Rotation Incorrect"
+						, firstEntities[i].getComponent(Rotation.class).getRotation()
+						, secondEntities[i].getComponent(Rotation.class).getRotation()
+						, 0D);
+			}
+		}
+	}
+
+	@Test
+	public void testWandering() throws Exception {
+		Set<Double> rotations = new HashSet<Double>();
+		int changes = 0;
+		double last = firstEntities[0].getComponent(Rotation.class).getRotation();
+		for (int step = 0; step < STEPS; step++) {
+			firstWorld.process();
+			for (Entity entity : firstEntities) {
+				float speed = entity.getComponent(Velocity.class).getVelocity();
+				Assert.assertTrue("Speed Incorrect : " + speed
+						, speed == WorldProfile.Speed.STOP.getSpeed() || speed == WorldProfile.Speed.WALK.getSpeed());
+				rotations.add(entity.getComponent(Rotation.class).getRotation());
+			}
+			double current = firstEntities[0].getComponent(Rotation.class).getRotation();
+			if (current != last) {
+				changes++;
+				last = current;
+			}
+		}
+		Assert.assertEquals("Directions Incorrect", 4, rotations.size());
+		Assert.assertTrue("Changes Incorrect : " + changes, changes > 0);
+	}
+}
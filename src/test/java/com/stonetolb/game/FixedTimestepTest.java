@@ -0,0 +1,53 @@
+package com.stonetolb.game;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FixedTimestepTest {
+
+	private static final long MILLIS = 1000000L;
+
+	FixedTimestep testTimestep;
+
+	@Before
+	public void setup() throws Exception {
+		// 50 ticks a second, 20ms apiece
+		testTimestep = new FixedTimestep(50, 4);
+	}
+
+	@Test
+	public void testTicksIndependentOfFrameRate() throws Exception {
+		int fast = 0;
+		for (int frame = 0; frame < 1000; frame++) {
+			fast += testTimestep.advance(7 * MILLIS);
+		}
+
+		FixedTimestep slow = new FixedTimestep(50, 4);
+		int slowTicks = 0;
+		for (int frame = 0; frame < 200; frame++) {
+			slowTicks += slow.advance(35 * MILLIS);
+		}
+
+		Assert.assertEquals("Fast Ticks Incorrect", 350, fast);
+		Assert.assertEquals("Slow Ticks Incorrect", 350, slowTicks);
+		Assert.assertEquals("Tick Length Incorrect", 20F, testTimestep.getTickMillis(), 0F);
+	}
+
+	@Test
+	public void testAlphaIsLeftoverFraction() throws Exception {
+		Assert.assertEquals("Ticks Incorrect", 0, testTimestep.advance(5 * MILLIS));
+		Assert.assertEquals("Alpha Incorrect", 0.25F, testTimestep.getAlpha(), 1E-6F);
+		Assert.assertEquals("Ticks Incorrect", 1, testTimestep.advance(30 * MILLIS));
+		Assert.assertEquals("Alpha Incorrect", 0.75F, testTimestep.getAlpha(), 1E-6F);
+	}
+
+	@Test
+	public void testLongFrameDropsBacklog() throws Exception {
+		// A one second hitch is 50 ticks, but only 4 are run
+		Assert.assertEquals("Ticks Incorrect", 4, testTimestep.advance(1010 * MILLIS));
+		Assert.assertEquals("Dropped Incorrect", 46, testTimestep.getDroppedTicks());
+		Assert.assertEquals("Alpha Incorrect", 0.5F, testTimestep.getAlpha(), 1E-6F);
+		Assert.assertEquals("Ticks Incorrect", 1, testTimestep.advance(10 * MILLIS));
+	}
+}
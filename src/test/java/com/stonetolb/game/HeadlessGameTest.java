@@ -0,0 +1,49 @@
+package com.stonetolb.game;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stonetolb.engine.input.Input;
+import com.stonetolb.engine.profiler.FrameProfiler;
+import com.stonetolb.render.util.Camera;
+import com.stonetolb.render.util.Vantage;
+import com.stonetolb.resource.ResourceContext;
+
+public class HeadlessGameTest {
+
+	ResourceContext previousContext;
+	Vantage previousVantage;
+
+	@Before
+	public void setup() throws Exception {
+		previousContext = ResourceContext.get();
+		previousVantage = Camera.getInstance();
+		Game.reset();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		ResourceContext.setActive(previousContext);
+		Camera.setResourceContext(previousContext);
+		Camera.detach();
+		Camera.setVantage(previousVantage);
+		Input.reset();
+		Game.reset();
+	}
+
+	@Test
+	public void testRunsWorldWithoutDisplay() throws Exception {
+		Game game = Game.createGame("Headless", 800, 600, "com.stonetolb.game.module.WorldModule", false);
+		game.setHeadless(true);
+		game.setTickLimit(120);
+		game.execute();
+
+		FrameProfiler profiler = game.getProfiler();
+		Assert.assertTrue("Context Not Headless", ResourceContext.get().isHeadless());
+		Assert.assertEquals("Ticks Incorrect", 120L, profiler.section("Ticks").getHistogram().getCount());
+		Assert.assertEquals("Movement Steps Incorrect", 120L, profiler.section("MovementSystem").getHistogram().getCount());
+		Assert.assertEquals("Render Steps Incorrect", 120L, profiler.section("RenderSystem").getHistogram().getCount());
+	}
+}
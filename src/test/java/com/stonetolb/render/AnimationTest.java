@@ -0,0 +1,48 @@
+package com.stonetolb.render;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnimationTest {
+
+	Animation testAnimation;
+	Drawable first;
+	Drawable second;
+
+	@Before
+	public void setup() throws Exception {
+		first = new Animation.KeyFrame(NullDrawable.getInstance(), 0);
+		second = new Animation.KeyFrame(NullDrawable.getInstance(), 0);
+		testAnimation = Animation.builder()
+				.addFrame(first, 100)
+				.addFrame(second, 100)
+				.build();
+		testAnimation.ready();
+	}
+
+	@Test
+	public void testAdvanceSteps() throws Exception {
+		Assert.assertSame("First Frame Incorrect", first, frameImage(testAnimation.advance(50F)));
+		Assert.assertSame("Second Frame Incorrect", second, frameImage(testAnimation.advance(60F)));
+		Assert.assertSame("Wrapped Frame Incorrect", first, frameImage(testAnimation.advance(100F)));
+	}
+
+	@Test
+	public void testAdvanceKeepsFractions() throws Exception {
+		// Three ticks of a third of the first frame's duration finish it
+		testAnimation.advance(33.4F);
+		testAnimation.advance(33.4F);
+		Assert.assertSame("Frame Incorrect", second, frameImage(testAnimation.advance(33.4F)));
+	}
+
+	@Test
+	public void testDisposedDrawsNothing() throws Exception {
+		testAnimation.dispose();
+		Assert.assertSame("Frame Incorrect", NullDrawable.getInstance(), testAnimation.advance(50F));
+	}
+
+	private static Drawable frameImage(Drawable pFrame) {
+		return ((Animation.KeyFrame)pFrame).getImage();
+	}
+}
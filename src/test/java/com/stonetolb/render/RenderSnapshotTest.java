@@ -0,0 +1,80 @@
+package com.stonetolb.render;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderSnapshotTest {
+
+	RenderSnapshot testSnapshot;
+	RecordingDrawable testDrawable;
+
+	@Before
+	public void setup() throws Exception {
+		testSnapshot = new RenderSnapshot();
+		testDrawable = new RecordingDrawable();
+	}
+
+	@Test
+	public void testDrawInterpolates() throws Exception {
+		testSnapshot.add(0, 100, 10, 80, testDrawable);
+		testSnapshot.draw(0.5F, 16L);
+
+		Assert.assertEquals("X Incorrect", 5, testDrawable.x);
+		Assert.assertEquals("Y Incorrect", 90, testDrawable.y);
+		Assert.assertEquals("Delta Incorrect", 16L, testDrawable.delta);
+	}
+
+	@Test
+	public void testGrowsAndClears() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			testSnapshot.add(i, i, i + 1, i + 1, testDrawable);
+		}
+		Assert.assertEquals("Size Incorrect", 1000, testSnapshot.size());
+		Assert.assertEquals("X Incorrect", 999, testSnapshot.getInterpolatedX(999, 0F));
+		Assert.assertEquals("Y Incorrect", 1000, testSnapshot.getInterpolatedY(999, 1F));
+
+		testSnapshot.clear();
+		Assert.assertEquals("Cleared Size Incorrect", 0, testSnapshot.size());
+		testSnapshot.draw(1F, 16L);
+		Assert.assertEquals("Draws Incorrect", 0, testDrawable.draws);
+	}
+
+	@Test
+	public void testCameraMovesWithEntries() throws Exception {
+		Assert.assertFalse("Camera Present", testSnapshot.hasCamera());
+
+		// Entity at (0, 100) then (10, 80), with the Camera 16 to its right
+		testSnapshot.add(0, 100, 10, 80, testDrawable);
+		testSnapshot.setCamera(16F, 100F, 26F, 80F);
+		Assert.assertTrue("Camera Missing", testSnapshot.hasCamera());
+		Assert.assertEquals("Camera X Incorrect", testSnapshot.getInterpolatedX(0, 0.25F) + 16F, testSnapshot.getCameraX(0.25F), 0F);
+		Assert.assertEquals("Camera Y Incorrect", (float)testSnapshot.getInterpolatedY(0, 0.25F), testSnapshot.getCameraY(0.25F), 0F);
+
+		testSnapshot.clear();
+		Assert.assertFalse("Cleared Camera Present", testSnapshot.hasCamera());
+	}
+
+	/**
+	 * Remembers where it was last drawn.
+	 */
+	private static class RecordingDrawable implements Drawable {
+		int x;
+		int y;
+		long delta;
+		int draws;
+
+		@Override
+		public void draw(int pX, int pY, int pZ, long pDelta) {
+			x = pX;
+			y = pY;
+			delta = pDelta;
+			draws++;
+		}
+
+		@Override
+		public void accept(Critic pCritic) {
+			pCritic.analyze(this);
+		}
+	}
+}